@@ -0,0 +1,277 @@
+package com.joshua.gdx.gdxlite.graphics;
+
+import android.graphics.Bitmap;
+
+import com.joshua.gdx.gdxlite.utils.BitmapPool;
+import com.joshua.gdx.gdxlite.utils.Disposable;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads textures without stalling the GL thread. Images are decoded by {@link TextureData#prepare()} on a pool of
+ * worker threads, the decoded textures are then uploaded on the GL thread by {@link #update()}, which is called once
+ * per frame and stops uploading once {@link #timeBudget} or {@link #byteBudget} is used up. At least one texture is
+ * uploaded per call, so loading always progresses.
+ * <p>
+ * {@link #load(String, boolean, boolean, Callback)} returns a {@link Handle} right away, which renders with the
+ * placeholder until its texture is uploaded:
+ *
+ * <pre>
+ * Handle handle = loader.load("level/ground.png", true, true, null);
+ * ...
+ * loader.update();
+ * handle.getTexture().bind();
+ * </pre>
+ * <p>
+ * The loaded textures are owned by the caller and must be disposed. Disposing the loader only stops the workers and
+ * disposes the default placeholder.
+ */
+public class AsyncTextureLoader implements Disposable {
+    /**
+     * Notified on the GL thread, from {@link #update()} or {@link #finishLoading()}, once a texture is uploaded or
+     * failed to load.
+     */
+    public interface Callback {
+        void loaded(Handle handle, Texture texture);
+
+        void failed(Handle handle, Throwable error);
+    }
+
+    /**
+     * A texture being loaded.
+     */
+    public class Handle {
+        private final String filename;
+        private final TextureData data;
+        private final Callback callback;
+        private volatile boolean decoded;
+        private Texture texture;
+        private Throwable error;
+
+        Handle(String filename, TextureData data, Callback callback) {
+            this.filename = filename;
+            this.data = data;
+            this.callback = callback;
+        }
+
+        /**
+         * @return the loaded texture, or the placeholder while loading or after a failure
+         */
+        public Texture getTexture() {
+            return texture != null ? texture : getPlaceholder();
+        }
+
+        public boolean isLoaded() {
+            return texture != null;
+        }
+
+        /**
+         * @return whether the image was decoded and waits for its upload
+         */
+        public boolean isDecoded() {
+            return decoded;
+        }
+
+        public boolean isFailed() {
+            return error != null;
+        }
+
+        /**
+         * @return the error the texture failed to load with, or null
+         */
+        public Throwable getError() {
+            return error;
+        }
+
+        public String getFilename() {
+            return filename;
+        }
+    }
+
+    /**
+     * the time in milliseconds {@link #update()} may spend uploading per call, 0 for no limit
+     */
+    public float timeBudget = 4f;
+    /**
+     * the number of texture bytes {@link #update()} may upload per call, 0 for no limit
+     */
+    public int byteBudget = 0;
+
+    private final ExecutorService executor;
+    private final LinkedBlockingQueue<Handle> decoded = new LinkedBlockingQueue<Handle>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private Texture placeholder;
+    private boolean ownsPlaceholder;
+
+    /**
+     * Creates a loader decoding with one worker per available core, keeping one core for the GL thread.
+     */
+    public AsyncTextureLoader() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    /**
+     * @param threads the number of worker threads decoding images
+     */
+    public AsyncTextureLoader(int threads) {
+        if (threads < 1) throw new IllegalArgumentException("threads must be >= 1: " + threads);
+        executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                final Thread thread = new Thread(runnable, "AsyncTextureLoader-" + count.getAndIncrement());
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Loads an image file, see {@link Texture#Texture(String, boolean, boolean)}.
+     *
+     * @param callback notified once the texture is loaded, may be null
+     */
+    public Handle load(String filename, boolean internal, boolean useMipMaps, Callback callback) {
+        return load(filename, TextureData.Factory.loadFromFile(filename, internal, useMipMaps), callback);
+    }
+
+    /**
+     * Loads a texture from the given data, which is prepared on a worker thread.
+     *
+     * @param name     the name reported by {@link Handle#getFilename()}
+     * @param callback notified once the texture is loaded, may be null
+     */
+    public Handle load(String name, TextureData data, Callback callback) {
+        final Handle handle = new Handle(name, data, callback);
+        pending.incrementAndGet();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (!handle.data.isPrepared()) handle.data.prepare();
+                } catch (Throwable t) {
+                    handle.error = t;
+                }
+                handle.decoded = true;
+                decoded.add(handle);
+            }
+        });
+        return handle;
+    }
+
+    /**
+     * Uploads decoded textures within the budgets and notifies their callbacks. Must be called on the GL thread.
+     *
+     * @return whether all requested textures are loaded
+     */
+    public boolean update() {
+        final long start = System.nanoTime();
+        final long timeLimit = (long) (timeBudget * 1000000);
+        long bytes = 0;
+        for (int uploaded = 0; ; uploaded++) {
+            final Handle handle = decoded.peek();
+            if (handle == null) break;
+            final long size = estimateSize(handle);
+            if (uploaded > 0) {
+                if (timeLimit > 0 && System.nanoTime() - start >= timeLimit) break;
+                if (byteBudget > 0 && bytes + size > byteBudget) break;
+            }
+            decoded.poll();
+            finish(handle);
+            bytes += size;
+        }
+        return pending.get() == 0;
+    }
+
+    /**
+     * Blocks until all requested textures are decoded and uploads them, ignoring the budgets. Must be called on the GL
+     * thread.
+     */
+    public void finishLoading() {
+        while (pending.get() > 0) {
+            try {
+                finish(decoded.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while loading textures", e);
+            }
+        }
+    }
+
+    private void finish(Handle handle) {
+        pending.decrementAndGet();
+        if (handle.error == null) {
+            try {
+                handle.texture = new Texture(handle.data);
+            } catch (Throwable t) {
+                handle.error = t;
+            }
+        }
+        if (handle.callback == null) return;
+        if (handle.error == null)
+            handle.callback.loaded(handle, handle.texture);
+        else
+            handle.callback.failed(handle, handle.error);
+    }
+
+    private static long estimateSize(Handle handle) {
+        final long size = (long) handle.data.getWidth() * handle.data.getHeight() * 4;
+        return handle.data.useMipMaps() ? size * 4 / 3 : size;
+    }
+
+    /**
+     * @return the number of textures not uploaded yet
+     */
+    public int getPending() {
+        return pending.get();
+    }
+
+    /**
+     * Sets the texture {@link Handle#getTexture()} returns while loading. It is not disposed by the loader.
+     *
+     * @param placeholder the placeholder, or null for the default opaque grey texture
+     */
+    public void setPlaceholder(Texture placeholder) {
+        if (ownsPlaceholder && this.placeholder != null) this.placeholder.dispose();
+        this.placeholder = placeholder;
+        ownsPlaceholder = false;
+    }
+
+    /**
+     * @return the placeholder, the default one is created on first use and must be requested on the GL thread
+     */
+    public Texture getPlaceholder() {
+        if (placeholder == null) {
+            final Bitmap bitmap = Bitmap.createBitmap(1, 1, Bitmap.Config.ARGB_8888);
+            bitmap.eraseColor(0xff808080);
+            placeholder = new Texture(new BitmapTextureData(bitmap, false, false));
+            ownsPlaceholder = true;
+        }
+        return placeholder;
+    }
+
+    /**
+     * Stops the workers and releases decoded images not uploaded yet. Textures already loaded are not disposed.
+     */
+    @Override
+    public void dispose() {
+        executor.shutdownNow();
+        Handle handle;
+        while ((handle = decoded.poll()) != null) {
+            if (handle.error == null && handle.data.getType() == TextureData.TextureDataType.Bitmap) {
+                final Bitmap bitmap = handle.data.consumeBitmap();
+                if (bitmap != null && handle.data.disposeBitmap()) BitmapPool.recycle(bitmap);
+            }
+        }
+        pending.set(0);
+        if (ownsPlaceholder && placeholder != null) placeholder.dispose();
+        placeholder = null;
+        ownsPlaceholder = false;
+    }
+}
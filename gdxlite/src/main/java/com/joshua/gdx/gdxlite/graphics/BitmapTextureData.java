@@ -65,6 +65,11 @@ public class BitmapTextureData implements TextureData {
         return useMipMaps;
     }
 
+    @Override
+    public boolean isManaged() {
+        return managed;
+    }
+
     @Override
     public TextureDataType getType() {
         return TextureDataType.Bitmap;
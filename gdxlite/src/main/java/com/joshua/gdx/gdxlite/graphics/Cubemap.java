@@ -23,10 +23,13 @@ import android.opengl.GLUtils;
 
 import com.joshua.gdx.gdxlite.graphics.Texture.TextureFilter;
 import com.joshua.gdx.gdxlite.graphics.Texture.TextureWrap;
+import com.joshua.gdx.gdxlite.graphics.glutils.CubemapData;
 import com.joshua.gdx.gdxlite.graphics.glutils.GLTool;
 import com.joshua.gdx.gdxlite.math.Vector3;
 import com.joshua.gdx.gdxlite.utils.FileUtil;
 
+import java.nio.ByteBuffer;
+
 /**
  * Wraps a standard OpenGL ES Cubemap. Must be disposed when it is no longer used.
  *
@@ -110,6 +113,7 @@ public class Cubemap extends GLTexture {
     }
 
     protected Bitmap[] data;
+    protected CubemapData cubemapData;
 
     /**
      * Construct a Cubemap with the specified texture files for the sides, optionally generating mipmaps.
@@ -142,6 +146,43 @@ public class Cubemap extends GLTexture {
         load(data);
     }
 
+    /**
+     * Construct a Cubemap from decoded, possibly prefiltered, data with all its mip levels, see {@link CubemapLoader}.
+     * The data is kept to reload the cubemap after a context loss.
+     */
+    public Cubemap(CubemapData data) {
+        super(GLES20.GL_TEXTURE_CUBE_MAP);
+        minFilter = data.getNumLevels() > 1 ? TextureFilter.MipMapLinearLinear : TextureFilter.Linear;
+        magFilter = TextureFilter.Linear;
+        uWrap = TextureWrap.ClampToEdge;
+        vWrap = TextureWrap.ClampToEdge;
+        cubemapData = data;
+        load(data);
+    }
+
+    private void load(CubemapData data) {
+        bind();
+        unsafeSetFilter(minFilter, magFilter, true);
+        unsafeSetWrap(uWrap, vWrap, true);
+        GLES20.glPixelStorei(GLES20.GL_UNPACK_ALIGNMENT, 1);
+        final boolean immutable = GLTool.texStorage2D(glTarget, data.getNumLevels(), GLES20.GL_RGBA,
+                GLES20.GL_UNSIGNED_BYTE, data.getSize(), data.getSize());
+        for (int level = 0; level < data.getNumLevels(); level++) {
+            final int size = Math.max(1, data.getSize() >> level);
+            for (int i = 0; i < 6; i++) {
+                final int target = GLES20.GL_TEXTURE_CUBE_MAP_POSITIVE_X + i;
+                final ByteBuffer pixels = ByteBuffer.wrap(data.getPixels(level, i));
+                if (immutable)
+                    GLES20.glTexSubImage2D(target, level, 0, 0, size, size, GLES20.GL_RGBA, GLES20.GL_UNSIGNED_BYTE,
+                            pixels);
+                else
+                    GLES20.glTexImage2D(target, level, GLES20.GL_RGBA, size, size, 0, GLES20.GL_RGBA,
+                            GLES20.GL_UNSIGNED_BYTE, pixels);
+            }
+        }
+        GLES20.glBindTexture(glTarget, 0);
+    }
+
     private void load(Bitmap[] data) {
         bind();
         unsafeSetFilter(minFilter, magFilter, true);
@@ -160,11 +201,15 @@ public class Cubemap extends GLTexture {
     @Override
     protected void reload() {
         glHandle = GLTool.glGenTexture();
-        load(data);
+        if (cubemapData != null)
+            load(cubemapData);
+        else
+            load(data);
     }
 
     @Override
     public int getWidth() {
+        if (cubemapData != null) return cubemapData.getSize();
         int tmp, width = 0;
         if (data[CubemapSide.PositiveZ.index] != null && (tmp = data[CubemapSide.PositiveZ.index].getWidth()) > width)
             width = tmp;
@@ -179,6 +224,7 @@ public class Cubemap extends GLTexture {
 
     @Override
     public int getHeight() {
+        if (cubemapData != null) return cubemapData.getSize();
         int tmp, height = 0;
         if (data[CubemapSide.PositiveZ.index] != null && (tmp = data[CubemapSide.PositiveZ.index].getHeight()) > height)
             height = tmp;
@@ -196,11 +242,19 @@ public class Cubemap extends GLTexture {
         return 0;
     }
 
+    /**
+     * @return the data the cubemap was created from, null if created from bitmaps
+     */
+    public CubemapData getCubemapData() {
+        return cubemapData;
+    }
+
     /**
      * Disposes all resources associated with the cubemap
      */
     @Override
     public void dispose() {
+        if (manager != null) manager.remove(this);
         if (glHandle == 0) return;
         delete();
     }
@@ -0,0 +1,229 @@
+package com.joshua.gdx.gdxlite.graphics;
+
+import android.util.Log;
+
+import com.joshua.gdx.gdxlite.graphics.glutils.CubemapData;
+import com.joshua.gdx.gdxlite.utils.BitmapPool;
+import com.joshua.gdx.gdxlite.utils.Disposable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads {@link Cubemap}s without stalling the GL thread. The six faces, or a single cross or strip image, are decoded
+ * in parallel on a fork-join pool, which then prefilters the mip chain for reflections with
+ * {@link CubemapData#prefilter(CubemapData, int, int, ForkJoinPool)}. The finished cubemaps are uploaded on the GL
+ * thread by {@link #update()}, which is called once per frame.
+ * <p>
+ * With a cache file the prefiltered chain is written once and read back on later starts, skipping decoding and
+ * convolution. The cache is not validated against the source images, use a new file name when they change:
+ *
+ * <pre>
+ * loader.load("sky.png", true, Layout.HorizontalCross, 6, new File(context.getCacheDir(), "sky-v1.cube"), callback);
+ * </pre>
+ * <p>
+ * The loaded cubemaps are owned by the caller and must be disposed.
+ */
+public class CubemapLoader implements Disposable {
+    private static final String TAG = "CubemapLoader";
+
+    /**
+     * Notified on the GL thread, from {@link #update()} or {@link #finishLoading()}.
+     */
+    public interface Callback {
+        void loaded(Cubemap cubemap);
+
+        void failed(Throwable error);
+    }
+
+    private static class Task {
+        final Callback callback;
+        CubemapData data;
+        Throwable error;
+
+        Task(Callback callback) {
+            this.callback = callback;
+        }
+    }
+
+    /**
+     * the number of GGX samples per texel when prefiltering
+     */
+    public int sampleCount = 64;
+    /**
+     * the bitmap pool faces are decoded into, may be null
+     */
+    public BitmapPool bitmapPool;
+
+    private final ForkJoinPool pool;
+    private final LinkedBlockingQueue<Task> finished = new LinkedBlockingQueue<Task>();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /**
+     * Creates a loader with one worker per available core, keeping one core for the GL thread.
+     */
+    public CubemapLoader() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    /**
+     * @param parallelism the number of worker threads decoding and prefiltering
+     */
+    public CubemapLoader(int parallelism) {
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism must be >= 1: " + parallelism);
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Loads a cubemap from six face files.
+     *
+     * @param filenames       the faces in the order +X -X +Y -Y +Z -Z
+     * @param roughnessLevels the number of prefiltered roughness levels, 0 for a plain box filtered chain
+     * @param cache           the file the result is cached in, may be null
+     * @param callback        notified once the cubemap is loaded, or null to only fill the cache without
+     *                        creating the cubemap
+     */
+    public void load(final String[] filenames, final boolean internal, final int roughnessLevels, final File cache,
+                     Callback callback) {
+        if (filenames.length != 6) throw new IllegalArgumentException("A cubemap needs six faces");
+        submit(new Task(callback), roughnessLevels, cache, new Decoder() {
+            @Override
+            public CubemapData decode() {
+                return CubemapData.load(filenames, internal, bitmapPool, pool);
+            }
+        });
+    }
+
+    /**
+     * Loads a cubemap from a single image holding all faces.
+     *
+     * @param roughnessLevels the number of prefiltered roughness levels, 0 for a plain box filtered chain
+     * @param cache           the file the result is cached in, may be null
+     * @param callback        notified once the cubemap is loaded, or null to only fill the cache without
+     *                        creating the cubemap
+     */
+    public void load(final String filename, final boolean internal, final CubemapData.Layout layout,
+                     final int roughnessLevels, final File cache, Callback callback) {
+        submit(new Task(callback), roughnessLevels, cache, new Decoder() {
+            @Override
+            public CubemapData decode() {
+                return CubemapData.load(filename, internal, layout, bitmapPool);
+            }
+        });
+    }
+
+    private interface Decoder {
+        CubemapData decode();
+    }
+
+    private void submit(final Task task, final int roughnessLevels, final File cache, final Decoder decoder) {
+        pending.incrementAndGet();
+        pool.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    task.data = loadCache(cache);
+                    if (task.data == null) {
+                        CubemapData data = decoder.decode();
+                        if (roughnessLevels > 0)
+                            data = CubemapData.prefilter(data, roughnessLevels, sampleCount, pool);
+                        task.data = data;
+                        saveCache(data, cache);
+                    }
+                } catch (Throwable t) {
+                    task.error = t;
+                }
+                finished.add(task);
+            }
+        });
+    }
+
+    private static CubemapData loadCache(File cache) {
+        if (cache == null || !cache.isFile()) return null;
+        try {
+            return CubemapData.load(cache);
+        } catch (IOException e) {
+            Log.w(TAG, "Ignoring unreadable cache " + cache, e);
+            return null;
+        }
+    }
+
+    private static void saveCache(CubemapData data, File cache) {
+        if (cache == null) return;
+        // written aside and renamed, so an interrupted write never leaves a truncated cache
+        final File temp = new File(cache.getPath() + ".tmp");
+        try {
+            data.save(temp);
+            if (!temp.renameTo(cache)) throw new IOException("Couldn't rename " + temp);
+        } catch (IOException e) {
+            Log.w(TAG, "Couldn't write cache " + cache, e);
+            temp.delete();
+        }
+    }
+
+    /**
+     * Uploads the next finished cubemap and notifies its callback. Must be called on the GL thread.
+     *
+     * @return whether all requested cubemaps are loaded
+     */
+    public boolean update() {
+        final Task task = finished.poll();
+        if (task != null) finish(task);
+        return pending.get() == 0;
+    }
+
+    /**
+     * Blocks until all requested cubemaps are loaded. Must be called on the GL thread.
+     */
+    public void finishLoading() {
+        while (pending.get() > 0) {
+            try {
+                finish(finished.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while loading cubemaps", e);
+            }
+        }
+    }
+
+    private void finish(Task task) {
+        pending.decrementAndGet();
+        if (task.callback == null) {
+            // nobody would own the cubemap, the load only filled the cache
+            if (task.error != null) Log.w(TAG, "Couldn't load cubemap", task.error);
+            return;
+        }
+        Cubemap cubemap = null;
+        if (task.error == null) {
+            try {
+                cubemap = new Cubemap(task.data);
+            } catch (Throwable t) {
+                task.error = t;
+            }
+        }
+        if (task.error == null)
+            task.callback.loaded(cubemap);
+        else
+            task.callback.failed(task.error);
+    }
+
+    /**
+     * @return the number of cubemaps not uploaded yet
+     */
+    public int getPending() {
+        return pending.get();
+    }
+
+    /**
+     * Stops the workers, cubemaps already loaded are not disposed.
+     */
+    @Override
+    public void dispose() {
+        pool.shutdownNow();
+        finished.clear();
+        pending.set(0);
+    }
+}
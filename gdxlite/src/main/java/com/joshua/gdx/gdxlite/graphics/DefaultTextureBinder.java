@@ -17,8 +17,10 @@
 package com.joshua.gdx.gdxlite.graphics;
 
 import android.opengl.GLES20;
+import android.opengl.GLES30;
 
 import com.joshua.gdx.gdxlite.Constants;
+import com.joshua.gdx.gdxlite.graphics.glutils.GLTool;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
@@ -28,17 +30,33 @@ import java.nio.IntBuffer;
  * Class that you assign a range of texture units and binds textures for you within that range. It does some basic
  * usage tracking
  * to avoid unnecessary bind calls.
+ * <p>
+ * Each texture remembers the unit and the binder epoch it was last bound with, a new epoch starts with every
+ * {@link #begin()}, so finding out whether a texture is still resident takes constant time whatever the number of
+ * units. Textures evicted by a {@link TextureManager} are reloaded and rebound when reused.
+ * <p>
+ * With OpenGL ES 3.0 the filter, wrap and anisotropy of a {@link TextureDescriptor} are applied by binding a cached
+ * {@link Sampler} to the unit instead of changing the parameters of the texture, so a texture shared by descriptors
+ * with different settings isn't reconfigured on every bind. Units are left without sampler by {@link #end()}.
  *
  * @author xoppa
  */
 public final class DefaultTextureBinder implements TextureBinder {
     public final static int ROUNDROBIN = 0;
     public final static int WEIGHTED = 1;
+    /**
+     * Replaces the texture which was bound or reused least recently
+     */
+    public final static int LRU = 2;
 
     /**
      * GLES only supports up to 32 textures
      */
     public final static int MAX_GLES_UNITS = 32;
+    /**
+     * The next epoch, unique over all binders so a texture's epoch also identifies the binder
+     */
+    private static int nextEpoch = 1;
     /**
      * The index of the first exclusive texture unit
      */
@@ -55,18 +73,32 @@ public final class DefaultTextureBinder implements TextureBinder {
      * The textures currently exclusive bound
      */
     private final GLTexture[] textures;
+    /**
+     * The GL handles the textures had when bound, a different handle means the texture was reloaded
+     */
+    private final int[] handles;
+    /**
+     * The sampler handles bound to the units, 0 for none
+     */
+    private final int[] samplers;
+    private boolean useSamplers;
     /**
      * The weight (reuseWeight * reused - discarded) of the textures
      */
     private final int[] weights;
+    /**
+     * The units ordered from most to least recently used, as a doubly linked list, for {@link #LRU}
+     */
+    private final int[] previous, next;
+    private int head, tail;
     /**
      * The method of binding to use
      */
     private final int method;
     /**
-     * Flag to indicate the current texture is reused
+     * The epoch started by the last call to {@link #begin()}
      */
-    private boolean reused;
+    private int epoch = nextEpoch++;
 
     private int reuseCount = 0; // TODO remove debug code
     private int bindCount = 0; // TODO remove debug code
@@ -101,8 +133,14 @@ public final class DefaultTextureBinder implements TextureBinder {
         this.offset = offset;
         this.count = count;
         this.textures = new GLTexture[count];
+        this.handles = new int[count];
+        this.samplers = new int[count];
+        this.useSamplers = GLTool.isGL30Available();
         this.reuseWeight = reuseWeight;
         this.weights = (method == WEIGHTED) ? new int[count] : null;
+        this.previous = (method == LRU) ? new int[count] : null;
+        this.next = (method == LRU) ? new int[count] : null;
+        if (method == LRU) resetOrder();
     }
 
     private static int getMaxTextureUnits() {
@@ -114,10 +152,13 @@ public final class DefaultTextureBinder implements TextureBinder {
 
     @Override
     public void begin() {
+        epoch = nextEpoch++;
         for (int i = 0; i < count; i++) {
             textures[i] = null;
+            handles[i] = 0;
             if (weights != null) weights[i] = 0;
         }
+        if (method == LRU) resetOrder();
     }
 
     @Override
@@ -129,9 +170,29 @@ public final class DefaultTextureBinder implements TextureBinder {
          * textures[i] = null; }
          * }
          */
+        for (int i = 0; i < count; i++) {
+            if (samplers[i] != 0) {
+                Sampler.unbind(offset + i);
+                samplers[i] = 0;
+            }
+        }
         GLES20.glActiveTexture(GLES20.GL_TEXTURE0);
     }
 
+    /**
+     * Sets whether descriptors are applied with {@link Sampler}s, which is the default with OpenGL ES 3.0. Must be
+     * called outside of {@link #begin()} and {@link #end()}.
+     */
+    public void setUseSamplers(boolean useSamplers) {
+        if (useSamplers && !GLTool.isGL30Available())
+            throw new IllegalStateException("Samplers require OpenGL ES 3.0");
+        this.useSamplers = useSamplers;
+    }
+
+    public boolean isUsingSamplers() {
+        return useSamplers;
+    }
+
     @Override
     public final int bind(final TextureDescriptor textureDesc) {
         return bindTexture(textureDesc, false);
@@ -146,70 +207,107 @@ public final class DefaultTextureBinder implements TextureBinder {
     }
 
     private final int bindTexture(final TextureDescriptor textureDesc, final boolean rebind) {
-        final int idx, result;
         final GLTexture texture = textureDesc.texture;
-        reused = false;
+        int idx = texture.binderEpoch == epoch ? texture.binderUnit : -1;
+        if (idx >= 0 && textures[idx] != texture) idx = -1;
+        final boolean reused = idx >= 0;
 
         switch (method) {
             case ROUNDROBIN:
-                result = offset + (idx = bindTextureRoundRobin(texture));
+                if (!reused) idx = currentTexture = (currentTexture + 1) % count;
                 break;
             case WEIGHTED:
-                result = offset + (idx = bindTextureWeighted(texture));
+                idx = bindTextureWeighted(idx);
+                break;
+            case LRU:
+                if (!reused) idx = tail;
+                moveToFront(idx);
                 break;
             default:
                 return -1;
         }
+        final int result = offset + idx;
 
         if (reused) {
             reuseCount++;
-            if (rebind)
+            // keeps a managed texture marked as used, reloading it if it was evicted meanwhile
+            if (texture.manager != null) texture.manager.touch(texture);
+            if (rebind || handles[idx] != texture.glHandle) {
                 texture.bind(result);
-            else
+                handles[idx] = texture.glHandle;
+            } else {
                 GLES20.glActiveTexture(GLES20.GL_TEXTURE0 + result);
-        } else
+                texture.flushPendingUpdates();
+            }
+        } else {
             bindCount++;
-        texture.unsafeSetWrap(textureDesc.uWrap, textureDesc.vWrap);
-        texture.unsafeSetFilter(textureDesc.minFilter, textureDesc.magFilter);
+            textures[idx] = texture;
+            texture.bind(result);
+            handles[idx] = texture.glHandle;
+            texture.binderUnit = idx;
+            texture.binderEpoch = epoch;
+        }
+        if (useSamplers) {
+            final boolean custom = textureDesc.minFilter != null || textureDesc.magFilter != null
+                    || textureDesc.uWrap != null || textureDesc.vWrap != null || textureDesc.anisotropy > 1;
+            final int sampler = custom ? Sampler.obtain(textureDesc).getHandle() : 0;
+            if (samplers[idx] != sampler) {
+                GLES30.glBindSampler(result, sampler);
+                samplers[idx] = sampler;
+            }
+            return result;
+        }
+        if (textureDesc.uWrap != null || textureDesc.vWrap != null)
+            texture.unsafeSetWrap(textureDesc.uWrap, textureDesc.vWrap);
+        if (textureDesc.minFilter != null || textureDesc.magFilter != null)
+            texture.unsafeSetFilter(textureDesc.minFilter, textureDesc.magFilter);
         return result;
     }
 
     private int currentTexture = 0;
 
-    private final int bindTextureRoundRobin(final GLTexture texture) {
-        for (int i = 0; i < count; i++) {
-            final int idx = (currentTexture + i) % count;
-            if (textures[idx] == texture) {
-                reused = true;
-                return idx;
-            }
-        }
-        currentTexture = (currentTexture + 1) % count;
-        textures[currentTexture] = texture;
-        texture.bind(offset + currentTexture);
-        return currentTexture;
-    }
-
-    private final int bindTextureWeighted(final GLTexture texture) {
-        int result = -1;
+    /**
+     * Decays the weights of all units except the reused one, whose weight is raised.
+     *
+     * @param reuse the unit of the texture if it's bound, -1 otherwise
+     * @return the unit to use, the one with the lowest weight if the texture isn't bound
+     */
+    private final int bindTextureWeighted(final int reuse) {
         int weight = weights[0];
         int windex = 0;
         for (int i = 0; i < count; i++) {
-            if (textures[i] == texture) {
-                result = i;
+            if (i == reuse) {
                 weights[i] += reuseWeight;
             } else if (weights[i] < 0 || --weights[i] < weight) {
                 weight = weights[i];
                 windex = i;
             }
         }
-        if (result < 0) {
-            textures[windex] = texture;
-            weights[windex] = 100;
-            texture.bind(offset + (result = windex));
-        } else
-            reused = true;
-        return result;
+        if (reuse >= 0) return reuse;
+        weights[windex] = 100;
+        return windex;
+    }
+
+    private void resetOrder() {
+        for (int i = 0; i < count; i++) {
+            previous[i] = i - 1;
+            next[i] = i + 1 < count ? i + 1 : -1;
+        }
+        head = 0;
+        tail = count - 1;
+    }
+
+    private void moveToFront(final int unit) {
+        if (unit == head) return;
+        next[previous[unit]] = next[unit];
+        if (unit == tail)
+            tail = previous[unit];
+        else
+            previous[next[unit]] = previous[unit];
+        previous[unit] = -1;
+        next[unit] = head;
+        previous[head] = unit;
+        head = unit;
     }
 
     @Override
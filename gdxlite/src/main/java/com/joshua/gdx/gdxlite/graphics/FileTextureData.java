@@ -18,6 +18,7 @@ package com.joshua.gdx.gdxlite.graphics;
 
 import android.graphics.Bitmap;
 
+import com.joshua.gdx.gdxlite.utils.BitmapPool;
 import com.joshua.gdx.gdxlite.utils.FileUtil;
 
 public class FileTextureData implements TextureData {
@@ -28,11 +29,24 @@ public class FileTextureData implements TextureData {
     private Bitmap bitmap;
     private boolean useMipMaps;
     private boolean isPrepared = false;
+    private final Format format;
+    private final BitmapPool pool;
 
     public FileTextureData(String filename, boolean internal, boolean useMipMaps) {
+        this(filename, internal, useMipMaps, null, null);
+    }
+
+    /**
+     * @param format the format to decode the image for with the pool, e.g. RGB565 for opaque images, or null for
+     *               RGBA8888
+     * @param pool   the pool to decode the image into, it gets the bitmap back after the upload. May be null
+     */
+    public FileTextureData(String filename, boolean internal, boolean useMipMaps, Format format, BitmapPool pool) {
         this.filename = filename;
         this.internal = internal;
         this.useMipMaps = useMipMaps;
+        this.format = format;
+        this.pool = pool;
         if (bitmap != null) {
             width = bitmap.getWidth();
             height = bitmap.getHeight();
@@ -48,7 +62,9 @@ public class FileTextureData implements TextureData {
     public void prepare() {
         if (isPrepared) throw new RuntimeException("Already prepared");
         if (bitmap == null) {
-            if (internal) {
+            if (pool != null) {
+                bitmap = pool.decode(filename, internal, format != null ? format.toBitmapConfig() : null);
+            } else if (internal) {
                 bitmap = FileUtil.internalBitmap(filename);
             } else {
                 bitmap = FileUtil.externalBitmap(filename);
@@ -93,6 +109,11 @@ public class FileTextureData implements TextureData {
         return useMipMaps;
     }
 
+    @Override
+    public boolean isManaged() {
+        return true;
+    }
+
     @Override
     public TextureDataType getType() {
         return TextureDataType.Bitmap;
@@ -1,5 +1,6 @@
 package com.joshua.gdx.gdxlite.graphics;
 
+import android.graphics.Bitmap;
 import android.opengl.GLES20;
 
 public enum Format {
@@ -33,6 +34,21 @@ public enum Format {
         }
     }
 
+    /**
+     * @return the bitmap config to decode images for this format into
+     */
+    public Bitmap.Config toBitmapConfig() {
+        switch (this) {
+            case ALPHA:
+                return Bitmap.Config.ALPHA_8;
+            case RGB565:
+                return Bitmap.Config.RGB_565;
+            default:
+                // ARGB_4444 is deprecated and decoded as ARGB_8888 anyway
+                return Bitmap.Config.ARGB_8888;
+        }
+    }
+
     public int toGlType() {
         switch (this) {
             case ALPHA:
@@ -20,10 +20,13 @@ package com.joshua.gdx.gdxlite.graphics;
 import android.graphics.Bitmap;
 import android.opengl.GLES20;
 
+import com.joshua.gdx.gdxlite.graphics.glutils.GLTool;
+
 /**
  * A {@link TextureData} implementation which should be used to create gl only textures. This TextureData fits
  * perfectly for
- * FrameBuffer. The data is not managed.
+ * FrameBuffer. The data is not managed. On OpenGL ES 3.0 the storage is immutable, the texture can't be redefined
+ * with glTexImage2D.
  */
 public class GLOnlyTextureData implements TextureData {
     /**
@@ -83,8 +86,13 @@ public class GLOnlyTextureData implements TextureData {
         isPrepared = true;
     }
 
+    /**
+     * Allocates immutable storage with glTexStorage2D on OpenGL ES 3.0 if the format has a sized equivalent, see
+     * {@link GLTool#texStorage2D(int, int, int, int, int, int)}, otherwise allocates the level with glTexImage2D.
+     */
     @Override
     public void consumeCustomData(int target) {
+        if (mipLevel == 0 && GLTool.texStorage2D(target, 1, internalFormat, type, width, height)) return;
         GLES20.glTexImage2D(target, mipLevel, internalFormat, width, height, 0, format, type, null);
     }
 
@@ -118,4 +126,9 @@ public class GLOnlyTextureData implements TextureData {
         return false;
     }
 
+    @Override
+    public boolean isManaged() {
+        return false;
+    }
+
 }
@@ -24,6 +24,8 @@ import com.joshua.gdx.gdxlite.graphics.Texture.TextureFilter;
 import com.joshua.gdx.gdxlite.graphics.Texture.TextureWrap;
 import com.joshua.gdx.gdxlite.graphics.TextureData.TextureDataType;
 import com.joshua.gdx.gdxlite.graphics.glutils.GLTool;
+import com.joshua.gdx.gdxlite.graphics.glutils.MipMapGenerator;
+import com.joshua.gdx.gdxlite.utils.BitmapPool;
 import com.joshua.gdx.gdxlite.utils.Disposable;
 
 
@@ -44,6 +46,20 @@ public abstract class GLTexture implements Disposable {
     protected TextureFilter magFilter = TextureFilter.Nearest;
     protected TextureWrap uWrap = TextureWrap.ClampToEdge;
     protected TextureWrap vWrap = TextureWrap.ClampToEdge;
+    /**
+     * The {@link TextureManager} tracking this texture, or null
+     */
+    TextureManager manager;
+    /**
+     * The bookkeeping of {@link #manager} for this texture, or null
+     */
+    TextureManager.Entry managerEntry;
+    /**
+     * The unit a {@link DefaultTextureBinder} last bound this texture to, valid while {@link #binderEpoch} matches the
+     * binder's epoch
+     */
+    int binderUnit = -1;
+    int binderEpoch;
 
     /**
      * @return the width of the texture in pixels
@@ -79,7 +95,9 @@ public abstract class GLTexture implements Disposable {
      * {@link GLES20#glActiveTexture(int)}.
      */
     public void bind() {
+        if (manager != null) manager.touch(this);
         GLES20.glBindTexture(glTarget, glHandle);
+        flushPendingUpdates();
     }
 
     /**
@@ -90,7 +108,15 @@ public abstract class GLTexture implements Disposable {
      */
     public void bind(int unit) {
         GLES20.glActiveTexture(GLES20.GL_TEXTURE0 + unit);
+        if (manager != null) manager.touch(this);
         GLES20.glBindTexture(glTarget, glHandle);
+        flushPendingUpdates();
+    }
+
+    /**
+     * Uploads changes deferred until the texture is bound, called with the texture bound to the active unit.
+     */
+    void flushPendingUpdates() {
     }
 
     /**
@@ -226,6 +252,7 @@ public abstract class GLTexture implements Disposable {
 
     @Override
     public void dispose() {
+        if (manager != null) manager.remove(this);
         delete();
     }
 
@@ -251,10 +278,16 @@ public abstract class GLTexture implements Disposable {
         boolean disposeBitmap = data.disposeBitmap();
 
         GLES20.glPixelStorei(GLES20.GL_UNPACK_ALIGNMENT, 1);
-        GLUtils.texImage2D(target, miplevel, bitmap, 0);
+        final int width = bitmap.getWidth(), height = bitmap.getHeight();
+        final int levels = data.useMipMaps() ? MipMapGenerator.getNumLevels(width, height) : 1;
+        if (target == GLES20.GL_TEXTURE_2D && miplevel == 0 && bitmap.getConfig() == Bitmap.Config.ARGB_8888
+                && GLTool.texStorage2D(target, levels, GLES20.GL_RGBA, GLES20.GL_UNSIGNED_BYTE, width, height))
+            GLUtils.texSubImage2D(target, 0, 0, 0, bitmap);
+        else
+            GLUtils.texImage2D(target, miplevel, bitmap, 0);
         if (data.useMipMaps()) {
             GLES20.glGenerateMipmap(GLES20.GL_TEXTURE_2D);
         }
-        if (disposeBitmap) bitmap.recycle();
+        if (disposeBitmap) BitmapPool.recycle(bitmap);
     }
 }
@@ -18,18 +18,22 @@ package com.joshua.gdx.gdxlite.graphics;
 
 import android.opengl.GLES20;
 
+import com.joshua.gdx.gdxlite.graphics.glutils.GLTool;
 import com.joshua.gdx.gdxlite.graphics.glutils.IndexArray;
 import com.joshua.gdx.gdxlite.graphics.glutils.IndexBufferObject;
 import com.joshua.gdx.gdxlite.graphics.glutils.IndexBufferObjectSubData;
 import com.joshua.gdx.gdxlite.graphics.glutils.IndexData;
+import com.joshua.gdx.gdxlite.graphics.glutils.IndexUtils;
 import com.joshua.gdx.gdxlite.graphics.glutils.ShaderProgram;
 import com.joshua.gdx.gdxlite.graphics.glutils.VertexArray;
 import com.joshua.gdx.gdxlite.graphics.glutils.VertexBufferObject;
 import com.joshua.gdx.gdxlite.graphics.glutils.VertexBufferObjectSubData;
 import com.joshua.gdx.gdxlite.graphics.glutils.VertexBufferObjectWithVAO;
 import com.joshua.gdx.gdxlite.graphics.glutils.VertexData;
+import com.joshua.gdx.gdxlite.utils.DirectFloatArray;
 import com.joshua.gdx.gdxlite.utils.Disposable;
 
+import java.nio.Buffer;
 import java.nio.FloatBuffer;
 import java.nio.ShortBuffer;
 
@@ -62,6 +66,13 @@ import java.nio.ShortBuffer;
  * exactly for this to work.
  * </p>
  *
+ * <p>
+ * Unless specified explicitly, the index type is chosen from the maximum number of vertices: 16 bit indices for up to
+ * 65536 vertices and 32 bit indices beyond that, which requires OpenGL ES 3.0 or the OES_element_index_uint
+ * extension. 8 bit indices are only used when asked for with
+ * {@link #Mesh(boolean, boolean, int, int, int, VertexAttributes)}.
+ * </p>
+ *
  * @author mzechner, Dave Clayton <contact@redskyforge.com>, Xoppa
  */
 public class Mesh implements Disposable {
@@ -92,7 +103,7 @@ public class Mesh implements Disposable {
      */
     public Mesh(boolean isStatic, int maxVertices, int maxIndices, VertexAttribute... attributes) {
         vertices = makeVertexBuffer(isStatic, maxVertices, new VertexAttributes(attributes));
-        indices = new IndexBufferObject(isStatic, maxIndices);
+        indices = new IndexBufferObject(isStatic, maxIndices, selectIndexType(maxVertices, maxIndices));
         isVertexArray = false;
 
     }
@@ -109,7 +120,7 @@ public class Mesh implements Disposable {
      */
     public Mesh(boolean isStatic, int maxVertices, int maxIndices, VertexAttributes attributes) {
         vertices = makeVertexBuffer(isStatic, maxVertices, attributes);
-        indices = new IndexBufferObject(isStatic, maxIndices);
+        indices = new IndexBufferObject(isStatic, maxIndices, selectIndexType(maxVertices, maxIndices));
         isVertexArray = false;
     }
 
@@ -127,11 +138,31 @@ public class Mesh implements Disposable {
      **/
     public Mesh(boolean staticVertices, boolean staticIndices, int maxVertices, int maxIndices, VertexAttributes
             attributes) {
+        this(staticVertices, staticIndices, maxVertices, maxIndices, selectIndexType(maxVertices, maxIndices),
+                attributes);
+    }
+
+    /**
+     * Creates a new Mesh with the given attributes and index type.
+     *
+     * @param staticVertices whether vertices of this mesh are static or not. Allows for internal optimizations.
+     * @param staticIndices  whether indices of this mesh are static or not. Allows for internal optimizations.
+     * @param maxVertices    the maximum number of vertices this mesh can hold
+     * @param maxIndices     the maximum number of indices this mesh can hold
+     * @param indexType      GL_UNSIGNED_BYTE, GL_UNSIGNED_SHORT or GL_UNSIGNED_INT
+     * @param attributes     the {@link VertexAttributes}.
+     */
+    public Mesh(boolean staticVertices, boolean staticIndices, int maxVertices, int maxIndices, int indexType,
+                VertexAttributes attributes) {
         vertices = makeVertexBuffer(staticVertices, maxVertices, attributes);
-        indices = new IndexBufferObject(staticIndices, maxIndices);
+        indices = new IndexBufferObject(staticIndices, maxIndices, indexType);
         isVertexArray = false;
     }
 
+    private static int selectIndexType(int maxVertices, int maxIndices) {
+        return maxIndices == 0 ? GLES20.GL_UNSIGNED_SHORT : GLTool.selectIndexType(maxVertices);
+    }
+
     private VertexData makeVertexBuffer(boolean isStatic, int maxVertices, VertexAttributes vertexAttributes) {
 //		ActivityManager am = (ActivityManager) getContext().getSystemService(Context.ACTIVITY_SERVICE);
 //		ConfigurationInfo info = am.getDeviceConfigurationInfo();
@@ -172,26 +203,27 @@ public class Mesh implements Disposable {
      * @param attributes  the {@link VertexAttributes}.
      */
     public Mesh(VertexDataType type, boolean isStatic, int maxVertices, int maxIndices, VertexAttributes attributes) {
+        final int indexType = selectIndexType(maxVertices, maxIndices);
         switch (type) {
             case VertexBufferObject:
                 vertices = new VertexBufferObject(isStatic, maxVertices, attributes);
-                indices = new IndexBufferObject(isStatic, maxIndices);
+                indices = new IndexBufferObject(isStatic, maxIndices, indexType);
                 isVertexArray = false;
                 break;
             case VertexBufferObjectSubData:
                 vertices = new VertexBufferObjectSubData(isStatic, maxVertices, attributes);
-                indices = new IndexBufferObjectSubData(isStatic, maxIndices);
+                indices = new IndexBufferObjectSubData(isStatic, maxIndices, indexType);
                 isVertexArray = false;
                 break;
             case VertexBufferObjectWithVAO:
                 vertices = new VertexBufferObjectWithVAO(isStatic, maxVertices, attributes);
-                indices = new IndexBufferObjectSubData(isStatic, maxIndices);
+                indices = new IndexBufferObjectSubData(isStatic, maxIndices, indexType);
                 isVertexArray = false;
                 break;
             case VertexArray:
             default:
                 vertices = new VertexArray(maxVertices, attributes);
-                indices = new IndexArray(maxIndices);
+                indices = new IndexArray(maxIndices, indexType);
                 isVertexArray = true;
                 break;
         }
@@ -246,6 +278,17 @@ public class Mesh implements Disposable {
         return this;
     }
 
+    /**
+     * Renders straight from the given array instead of copying vertices into the Mesh, see
+     * {@link VertexData#adopt(DirectFloatArray)}. Fill the array each frame and the Mesh uploads it on the next render.
+     *
+     * @param vertices the array to adopt, or null to release it
+     */
+    public Mesh adoptVertices(DirectFloatArray vertices) {
+        this.vertices.adopt(vertices);
+        return this;
+    }
+
     /**
      * Copies the vertices from the Mesh to the float array. The float array must be large enough to hold all the
      * Mesh's vertices.
@@ -335,6 +378,32 @@ public class Mesh implements Disposable {
         return this;
     }
 
+    /**
+     * Sets the indices of this Mesh, each index must fit the index type of this Mesh.
+     *
+     * @param indices the indices
+     * @return the mesh for invocation chaining.
+     */
+    public Mesh setIndices(int[] indices) {
+        this.indices.setIndices(indices, 0, indices.length);
+
+        return this;
+    }
+
+    /**
+     * Sets the indices of this Mesh, each index must fit the index type of this Mesh.
+     *
+     * @param indices the indices
+     * @param offset  the offset into the indices array
+     * @param count   the number of indices to copy
+     * @return the mesh for invocation chaining.
+     */
+    public Mesh setIndices(int[] indices, int offset, int count) {
+        this.indices.setIndices(indices, offset, count);
+
+        return this;
+    }
+
     /**
      * Copies the indices from the Mesh to the short array. The short array must be large enough to hold all the
      * Mesh's indices.
@@ -390,10 +459,36 @@ public class Mesh implements Disposable {
         if ((indices.length - destOffset) < count)
             throw new IllegalArgumentException("not enough room in indices array, has " + indices.length + " shorts, " +
                     "needs " + count);
-        int pos = getIndicesBuffer().position();
-        getIndicesBuffer().position(srcOffset);
-        getIndicesBuffer().get(indices, destOffset, count);
-        getIndicesBuffer().position(pos);
+        Buffer buffer = this.indices.getIndexBuffer();
+        int pos = buffer.position();
+        buffer.position(srcOffset);
+        IndexUtils.get(buffer, this.indices.getIndexType(), indices, destOffset, count);
+        buffer.position(pos);
+    }
+
+    /**
+     * Copies the indices from the Mesh to the int array. The int array must be large enough to hold destOffset +
+     * count indices.
+     *
+     * @param srcOffset  the zero-based offset of the first index to fetch
+     * @param count      the total amount of indices to copy, or -1 for all remaining indices
+     * @param indices    the array to copy the indices to
+     * @param destOffset the offset in the indices array to start copying
+     */
+    public void getIndices(int srcOffset, int count, int[] indices, int destOffset) {
+        int max = getNumIndices();
+        if (count < 0) count = max - srcOffset;
+        if (srcOffset < 0 || srcOffset >= max || srcOffset + count > max)
+            throw new IllegalArgumentException("Invalid range specified, offset: " + srcOffset + ", count: " + count
+                    + ", max: " + max);
+        if ((indices.length - destOffset) < count)
+            throw new IllegalArgumentException("not enough room in indices array, has " + indices.length + " ints, " +
+                    "needs " + count);
+        Buffer buffer = this.indices.getIndexBuffer();
+        int pos = buffer.position();
+        buffer.position(srcOffset);
+        IndexUtils.get(buffer, this.indices.getIndexType(), indices, destOffset, count);
+        buffer.position(pos);
     }
 
     /**
@@ -403,6 +498,13 @@ public class Mesh implements Disposable {
         return indices.getNumIndices();
     }
 
+    /**
+     * @return the index type, GL_UNSIGNED_BYTE, GL_UNSIGNED_SHORT or GL_UNSIGNED_INT
+     */
+    public int getIndexType() {
+        return indices.getIndexType();
+    }
+
     /**
      * @return the number of defined vertices
      */
@@ -594,12 +696,12 @@ public class Mesh implements Disposable {
 
         if (isVertexArray) {
             if (indices.getNumIndices() > 0) {
-                ShortBuffer buffer = indices.getBuffer();
+                Buffer buffer = indices.getIndexBuffer();
                 int oldPosition = buffer.position();
                 int oldLimit = buffer.limit();
                 buffer.position(offset);
                 buffer.limit(offset + count);
-                GLES20.glDrawElements(primitiveType, count, GLES20.GL_UNSIGNED_SHORT, buffer);
+                GLES20.glDrawElements(primitiveType, count, indices.getIndexType(), buffer);
                 buffer.position(oldPosition);
                 buffer.limit(oldLimit);
             } else {
@@ -613,7 +715,8 @@ public class Mesh implements Disposable {
                             + count + ", offset: " + offset + ", max: " + indices.getNumMaxIndices() + ")");
                 }
 
-                GLES20.glDrawElements(primitiveType, count, GLES20.GL_UNSIGNED_SHORT, offset * 2);
+                final int indexType = indices.getIndexType();
+                GLES20.glDrawElements(primitiveType, count, indexType, offset * GLTool.getIndexSize(indexType));
             } else {
                 GLES20.glDrawArrays(primitiveType, offset, count);
             }
@@ -646,8 +749,16 @@ public class Mesh implements Disposable {
 
     /**
      * @return the backing shortbuffer holding the indices. Does not have to be a direct buffer on Android!
+     * @throws IllegalStateException if the index type is not GL_UNSIGNED_SHORT, use {@link #getIndexBuffer()}
      */
     public ShortBuffer getIndicesBuffer() {
         return indices.getBuffer();
     }
+
+    /**
+     * @return the backing buffer holding the indices, typed according to {@link #getIndexType()}
+     */
+    public Buffer getIndexBuffer() {
+        return indices.getIndexBuffer();
+    }
 }
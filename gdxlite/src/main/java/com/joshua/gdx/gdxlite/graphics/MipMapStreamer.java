@@ -0,0 +1,117 @@
+package com.joshua.gdx.gdxlite.graphics;
+
+import com.joshua.gdx.gdxlite.graphics.glutils.MipMapTextureData;
+import com.joshua.gdx.gdxlite.utils.Array;
+
+/**
+ * Uploads the pending mip levels of progressively uploaded {@link MipMapTextureData} textures, so they sharpen over
+ * a few frames instead of stalling one. {@link #update()}, called once per frame on the GL thread, uploads the
+ * smallest pending level of all textures first, until {@link #timeBudget} or {@link #byteBudget} is used up. At least
+ * one level is uploaded per call, so streaming always progresses. Together with {@link AsyncTextureLoader} the mip
+ * chains are also generated off the GL thread:
+ *
+ * <pre>
+ * loader.load("level/ground.png", new MipMapTextureData("level/ground.png", true, Filter.Kaiser, true),
+ *         new Callback() {
+ *             public void loaded(Handle handle, Texture texture) {
+ *                 texture.setFilter(TextureFilter.MipMapLinearLinear, TextureFilter.Linear);
+ *                 streamer.stream(texture);
+ *             }
+ *             ...
+ *         });
+ * ...
+ * loader.update();
+ * streamer.update();
+ * </pre>
+ * <p>
+ * Disposed textures are dropped. A texture reloaded after a context loss or an eviction starts blurred again and has
+ * to be streamed again.
+ */
+public class MipMapStreamer {
+    /**
+     * the time in milliseconds {@link #update()} may spend uploading, 0 for no limit
+     */
+    public float timeBudget = 2f;
+    /**
+     * the number of bytes {@link #update()} may upload, 0 for no limit
+     */
+    public int byteBudget = 0;
+    private final Array<Texture> textures = new Array<Texture>();
+
+    /**
+     * Starts streaming the pending levels of a texture. Does nothing if it has none.
+     *
+     * @throws IllegalArgumentException if the texture's data isn't a {@link MipMapTextureData}
+     */
+    public void stream(Texture texture) {
+        if (!(texture.getTextureData() instanceof MipMapTextureData))
+            throw new IllegalArgumentException("Texture data is not a MipMapTextureData: " + texture.getTextureData());
+        if (((MipMapTextureData) texture.getTextureData()).hasPendingLevels() && !textures.contains(texture, true))
+            textures.add(texture);
+    }
+
+    /**
+     * Stops streaming a texture, it stays at the levels uploaded so far.
+     */
+    public void cancel(Texture texture) {
+        textures.removeValue(texture, true);
+    }
+
+    /**
+     * Uploads pending levels, smallest first, within the budgets. Must be called on the GL thread.
+     *
+     * @return whether all textures are fully streamed
+     */
+    public boolean update() {
+        final long start = System.nanoTime();
+        final long timeLimit = (long) (timeBudget * 1000000);
+        long bytes = 0;
+        for (int uploaded = 0; ; uploaded++) {
+            int next = -1;
+            int nextSize = 0;
+            for (int i = textures.size - 1; i >= 0; i--) {
+                final Texture texture = textures.get(i);
+                final MipMapTextureData data = (MipMapTextureData) texture.getTextureData();
+                if (texture.getTextureObjectHandle() == 0 || !data.hasPendingLevels()) {
+                    textures.removeIndex(i);
+                    if (next > i) next--;
+                    continue;
+                }
+                final int size = data.getNextLevelSize();
+                if (next < 0 || size < nextSize) {
+                    next = i;
+                    nextSize = size;
+                }
+            }
+            if (next < 0) break;
+            if (uploaded > 0) {
+                if (timeLimit > 0 && System.nanoTime() - start >= timeLimit) break;
+                if (byteBudget > 0 && bytes + nextSize > byteBudget) break;
+            }
+            final Texture texture = textures.get(next);
+            ((MipMapTextureData) texture.getTextureData()).uploadNextLevel(texture);
+            bytes += nextSize;
+        }
+        return textures.size == 0;
+    }
+
+    /**
+     * Uploads all pending levels, ignoring the budgets. Must be called on the GL thread.
+     */
+    public void finishStreaming() {
+        for (int i = 0; i < textures.size; i++) {
+            final Texture texture = textures.get(i);
+            final MipMapTextureData data = (MipMapTextureData) texture.getTextureData();
+            while (texture.getTextureObjectHandle() != 0 && data.hasPendingLevels())
+                data.uploadNextLevel(texture);
+        }
+        textures.clear();
+    }
+
+    /**
+     * @return the number of textures with pending levels
+     */
+    public int getPending() {
+        return textures.size;
+    }
+}
@@ -0,0 +1,401 @@
+package com.joshua.gdx.gdxlite.graphics;
+
+import com.joshua.gdx.gdxlite.utils.Disposable;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * An image in memory, stored in a direct {@link ByteBuffer} in one of the {@link Format}s, rows from the top. The
+ * buffer has the layout glTexImage2D expects for {@link Format#toGlFormat()} and {@link Format#toGlType()}, so it is
+ * uploaded without conversion, see {@link com.joshua.gdx.gdxlite.graphics.glutils.PixmapTextureData}. 16 bit formats
+ * are stored as native order shorts.
+ * <p>
+ * Unlike Bitmap it needs no Android classes, so images can be generated and processed on any thread, also on a plain
+ * JVM. Colors are passed as RGBA8888 ints, 0xRRGGBBAA, and converted to and from the format of the pixmap.
+ */
+public class Pixmap implements Disposable {
+    /**
+     * How drawn pixels are combined with the pixels of the pixmap.
+     */
+    public enum Blending {
+        /**
+         * Replaces the pixels.
+         */
+        None,
+        /**
+         * Blends non premultiplied colors over the pixels by their alpha.
+         */
+        SourceOver
+    }
+
+    /**
+     * How images are sampled when drawn scaled.
+     */
+    public enum Filter {
+        NearestNeighbour, BiLinear
+    }
+
+    private final int width;
+    private final int height;
+    private final Format format;
+    private final int bytesPerPixel;
+    private ByteBuffer pixels;
+    private Blending blending = Blending.SourceOver;
+    private Filter filter = Filter.BiLinear;
+
+    public Pixmap(int width, int height, Format format) {
+        if (width <= 0 || height <= 0) throw new IllegalArgumentException("Illegal size: " + width + "x" + height);
+        this.width = width;
+        this.height = height;
+        this.format = format;
+        this.bytesPerPixel = getBytesPerPixel(format);
+        this.pixels = ByteBuffer.allocateDirect(width * height * bytesPerPixel).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Creates a copy of an image in another format.
+     */
+    public Pixmap(Pixmap source, Format format) {
+        this(source.width, source.height, format);
+        if (format == source.format) {
+            final ByteBuffer from = source.pixels.duplicate();
+            from.clear();
+            pixels.put(from);
+            pixels.clear();
+        } else {
+            for (int y = 0; y < height; y++)
+                for (int x = 0; x < width; x++)
+                    setPixel(x, y, source.getPixel(x, y));
+        }
+    }
+
+    /**
+     * @return the bytes per pixel of a format
+     */
+    public static int getBytesPerPixel(Format format) {
+        switch (format) {
+            case ALPHA:
+                return 1;
+            case LUMINANCE_ALPHA:
+            case RGB565:
+            case RGBA4444:
+                return 2;
+            case RGB888:
+                return 3;
+            case RGBA8888:
+                return 4;
+            default:
+                throw new IllegalArgumentException("Unknown format: " + format);
+        }
+    }
+
+    /**
+     * @return the color of a pixel as RGBA8888, 0 outside of the pixmap
+     */
+    public int getPixel(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) return 0;
+        final int i = (y * width + x) * bytesPerPixel;
+        switch (format) {
+            case ALPHA:
+                return 0xffffff00 | (pixels.get(i) & 0xff);
+            case LUMINANCE_ALPHA: {
+                final int l = pixels.get(i) & 0xff;
+                return l << 24 | l << 16 | l << 8 | (pixels.get(i + 1) & 0xff);
+            }
+            case RGB888:
+                return (pixels.get(i) & 0xff) << 24 | (pixels.get(i + 1) & 0xff) << 16
+                        | (pixels.get(i + 2) & 0xff) << 8 | 0xff;
+            case RGBA8888:
+                return (pixels.get(i) & 0xff) << 24 | (pixels.get(i + 1) & 0xff) << 16
+                        | (pixels.get(i + 2) & 0xff) << 8 | (pixels.get(i + 3) & 0xff);
+            case RGB565: {
+                final int v = pixels.getShort(i) & 0xffff;
+                final int r = v >>> 11, g = (v >>> 5) & 0x3f, b = v & 0x1f;
+                return (r << 3 | r >>> 2) << 24 | (g << 2 | g >>> 4) << 16 | (b << 3 | b >>> 2) << 8 | 0xff;
+            }
+            case RGBA4444: {
+                final int v = pixels.getShort(i) & 0xffff;
+                return ((v >>> 12) * 0x11) << 24 | (((v >>> 8) & 0xf) * 0x11) << 16 | (((v >>> 4) & 0xf) * 0x11) << 8
+                        | (v & 0xf) * 0x11;
+            }
+            default:
+                throw new IllegalStateException();
+        }
+    }
+
+    /**
+     * Sets the color of a pixel as RGBA8888, ignoring the blending. Pixels outside of the pixmap are ignored.
+     */
+    public void setPixel(int x, int y, int color) {
+        if (x < 0 || y < 0 || x >= width || y >= height) return;
+        store((y * width + x) * bytesPerPixel, color);
+    }
+
+    private void store(int i, int color) {
+        final int r = color >>> 24, g = (color >>> 16) & 0xff, b = (color >>> 8) & 0xff, a = color & 0xff;
+        switch (format) {
+            case ALPHA:
+                pixels.put(i, (byte) a);
+                break;
+            case LUMINANCE_ALPHA:
+                pixels.put(i, (byte) ((r * 77 + g * 150 + b * 29) >> 8));
+                pixels.put(i + 1, (byte) a);
+                break;
+            case RGB888:
+                pixels.put(i, (byte) r);
+                pixels.put(i + 1, (byte) g);
+                pixels.put(i + 2, (byte) b);
+                break;
+            case RGBA8888:
+                pixels.putInt(i, pixels.order() == ByteOrder.BIG_ENDIAN ? color : Integer.reverseBytes(color));
+                break;
+            case RGB565:
+                pixels.putShort(i, (short) ((r >> 3) << 11 | (g >> 2) << 5 | b >> 3));
+                break;
+            case RGBA4444:
+                pixels.putShort(i, (short) ((r >> 4) << 12 | (g >> 4) << 8 | (b >> 4) << 4 | a >> 4));
+                break;
+        }
+    }
+
+    /**
+     * Draws a pixel with the current blending.
+     */
+    public void drawPixel(int x, int y, int color) {
+        if (blending == Blending.None) setPixel(x, y, color);
+        else setPixel(x, y, blend(color, getPixel(x, y)));
+    }
+
+    /**
+     * Blends a non premultiplied RGBA8888 color over another.
+     */
+    private static int blend(int src, int dst) {
+        final int srcA = src & 0xff;
+        if (srcA == 0xff) return src;
+        if (srcA == 0) return dst;
+        final int dstA = (dst & 0xff) * (255 - srcA) / 255;
+        final int a = srcA + dstA;
+        final int r = ((src >>> 24) * srcA + (dst >>> 24) * dstA) / a;
+        final int g = (((src >>> 16) & 0xff) * srcA + ((dst >>> 16) & 0xff) * dstA) / a;
+        final int b = (((src >>> 8) & 0xff) * srcA + ((dst >>> 8) & 0xff) * dstA) / a;
+        return r << 24 | g << 16 | b << 8 | a;
+    }
+
+    /**
+     * Sets all pixels to a color, ignoring the blending.
+     */
+    public void fill(int color) {
+        store(0, color);
+        // doubles the filled part with each copy
+        final ByteBuffer source = pixels.duplicate();
+        final ByteBuffer target = pixels.duplicate();
+        for (int filled = bytesPerPixel; filled < pixels.capacity(); filled *= 2) {
+            source.limit(Math.min(filled, pixels.capacity() - filled)).position(0);
+            target.limit(pixels.capacity()).position(filled);
+            target.put(source);
+        }
+    }
+
+    /**
+     * Fills a rectangle with the current blending.
+     */
+    public void fillRectangle(int x, int y, int width, int height, int color) {
+        final int x0 = Math.max(0, x), y0 = Math.max(0, y);
+        final int x1 = Math.min(this.width, x + width), y1 = Math.min(this.height, y + height);
+        for (int py = y0; py < y1; py++)
+            for (int px = x0; px < x1; px++)
+                drawPixel(px, py, color);
+    }
+
+    /**
+     * Draws a region of another pixmap unscaled at the given position.
+     */
+    public void drawPixmap(Pixmap pixmap, int srcX, int srcY, int dstX, int dstY, int width, int height) {
+        // clip to both pixmaps
+        if (srcX < 0) {
+            dstX -= srcX;
+            width += srcX;
+            srcX = 0;
+        }
+        if (srcY < 0) {
+            dstY -= srcY;
+            height += srcY;
+            srcY = 0;
+        }
+        if (dstX < 0) {
+            srcX -= dstX;
+            width += dstX;
+            dstX = 0;
+        }
+        if (dstY < 0) {
+            srcY -= dstY;
+            height += dstY;
+            dstY = 0;
+        }
+        width = Math.min(width, Math.min(pixmap.width - srcX, this.width - dstX));
+        height = Math.min(height, Math.min(pixmap.height - srcY, this.height - dstY));
+        if (width <= 0 || height <= 0) return;
+
+        if (pixmap.format == format && (blending == Blending.None || !hasAlpha(format))) {
+            // same layout, copy rows
+            final ByteBuffer source = pixmap.pixels.duplicate();
+            final ByteBuffer target = pixels.duplicate();
+            target.clear();
+            for (int y = 0; y < height; y++) {
+                final int from = ((srcY + y) * pixmap.width + srcX) * bytesPerPixel;
+                source.limit(from + width * bytesPerPixel).position(from);
+                target.position(((dstY + y) * this.width + dstX) * bytesPerPixel);
+                target.put(source);
+            }
+            return;
+        }
+        for (int y = 0; y < height; y++)
+            for (int x = 0; x < width; x++)
+                drawPixel(dstX + x, dstY + y, pixmap.getPixel(srcX + x, srcY + y));
+    }
+
+    /**
+     * Draws a region of another pixmap stretched to a region of this pixmap, sampled with the current filter.
+     */
+    public void drawPixmap(Pixmap pixmap, int srcX, int srcY, int srcWidth, int srcHeight, int dstX, int dstY,
+                           int dstWidth, int dstHeight) {
+        if (srcWidth == dstWidth && srcHeight == dstHeight) {
+            drawPixmap(pixmap, srcX, srcY, dstX, dstY, dstWidth, dstHeight);
+            return;
+        }
+        final float scaleX = (float) srcWidth / dstWidth, scaleY = (float) srcHeight / dstHeight;
+        final int x0 = Math.max(0, dstX), y0 = Math.max(0, dstY);
+        final int x1 = Math.min(width, dstX + dstWidth), y1 = Math.min(height, dstY + dstHeight);
+        for (int y = y0; y < y1; y++) {
+            final float sy = srcY + (y - dstY + 0.5f) * scaleY;
+            for (int x = x0; x < x1; x++) {
+                final float sx = srcX + (x - dstX + 0.5f) * scaleX;
+                final int color;
+                if (filter == Filter.NearestNeighbour) {
+                    color = pixmap.getPixel(clamp((int) sx, srcX, srcX + srcWidth - 1),
+                            clamp((int) sy, srcY, srcY + srcHeight - 1));
+                } else {
+                    color = pixmap.sampleBilinear(sx - 0.5f, sy - 0.5f, srcX, srcY, srcX + srcWidth - 1,
+                            srcY + srcHeight - 1);
+                }
+                drawPixel(x, y, color);
+            }
+        }
+    }
+
+    /**
+     * Samples with bilinear filtering, weighting colors by alpha so transparent pixels don't darken the edges.
+     */
+    private int sampleBilinear(float x, float y, int minX, int minY, int maxX, int maxY) {
+        final int ix = (int) Math.floor(x), iy = (int) Math.floor(y);
+        final float fx = x - ix, fy = y - iy;
+        float r = 0, g = 0, b = 0, a = 0;
+        for (int i = 0; i < 4; i++) {
+            final int px = clamp(ix + (i & 1), minX, maxX), py = clamp(iy + (i >> 1), minY, maxY);
+            final float weight = ((i & 1) == 0 ? 1 - fx : fx) * ((i >> 1) == 0 ? 1 - fy : fy);
+            final int color = getPixel(px, py);
+            final float alpha = (color & 0xff) * weight;
+            r += (color >>> 24) * alpha;
+            g += ((color >>> 16) & 0xff) * alpha;
+            b += ((color >>> 8) & 0xff) * alpha;
+            a += alpha;
+        }
+        if (a <= 0) return 0;
+        return Math.round(r / a) << 24 | Math.round(g / a) << 16 | Math.round(b / a) << 8 | Math.round(a);
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return value < min ? min : value > max ? max : value;
+    }
+
+    /**
+     * @return a copy of this pixmap scaled to the given size with the current filter
+     */
+    public Pixmap scale(int width, int height) {
+        final Pixmap scaled = new Pixmap(width, height, format);
+        scaled.setBlending(Blending.None);
+        scaled.setFilter(filter);
+        scaled.drawPixmap(this, 0, 0, this.width, this.height, 0, 0, width, height);
+        return scaled;
+    }
+
+    /**
+     * Multiplies the colors by their alpha, as GL blending with GL_ONE, GL_ONE_MINUS_SRC_ALPHA and bitmaps uploaded
+     * with GLUtils expect. Formats without color or without alpha are unchanged.
+     */
+    public void premultiplyAlpha() {
+        if (format != Format.RGBA8888 && format != Format.RGBA4444 && format != Format.LUMINANCE_ALPHA) return;
+        for (int i = 0; i < width * height; i++) {
+            final int offset = i * bytesPerPixel;
+            if (format == Format.RGBA8888) {
+                final int a = pixels.get(offset + 3) & 0xff;
+                for (int c = 0; c < 3; c++)
+                    pixels.put(offset + c, (byte) (((pixels.get(offset + c) & 0xff) * a + 127) / 255));
+            } else if (format == Format.LUMINANCE_ALPHA) {
+                final int a = pixels.get(offset + 1) & 0xff;
+                pixels.put(offset, (byte) (((pixels.get(offset) & 0xff) * a + 127) / 255));
+            } else {
+                final int v = pixels.getShort(offset) & 0xffff;
+                final int a = v & 0xf;
+                final int r = ((v >>> 12) * a + 7) / 15, g = (((v >>> 8) & 0xf) * a + 7) / 15;
+                final int b = (((v >>> 4) & 0xf) * a + 7) / 15;
+                pixels.putShort(offset, (short) (r << 12 | g << 8 | b << 4 | a));
+            }
+        }
+    }
+
+    private static boolean hasAlpha(Format format) {
+        return format == Format.ALPHA || format == Format.LUMINANCE_ALPHA || format == Format.RGBA8888
+                || format == Format.RGBA4444;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    /**
+     * @return the pixel data, position 0 and limit at its end. Valid until the pixmap is disposed
+     */
+    public ByteBuffer getPixels() {
+        if (pixels == null) throw new IllegalStateException("Pixmap already disposed");
+        pixels.clear();
+        return pixels;
+    }
+
+    public Blending getBlending() {
+        return blending;
+    }
+
+    public void setBlending(Blending blending) {
+        this.blending = blending;
+    }
+
+    public Filter getFilter() {
+        return filter;
+    }
+
+    public void setFilter(Filter filter) {
+        this.filter = filter;
+    }
+
+    public boolean isDisposed() {
+        return pixels == null;
+    }
+
+    /**
+     * Releases the pixel buffer. Direct buffers are freed by the garbage collector, so this only drops the reference.
+     */
+    @Override
+    public void dispose() {
+        pixels = null;
+    }
+}
@@ -0,0 +1,143 @@
+package com.joshua.gdx.gdxlite.graphics;
+
+import android.opengl.GLES20;
+import android.opengl.GLES30;
+
+import com.joshua.gdx.gdxlite.graphics.Texture.TextureFilter;
+import com.joshua.gdx.gdxlite.graphics.Texture.TextureWrap;
+import com.joshua.gdx.gdxlite.graphics.glutils.GLTool;
+
+/**
+ * An OpenGL ES 3.0 sampler object, holding filter, wrap and anisotropy apart from the texture. A sampler bound to a
+ * unit overrides the sampling parameters of the texture bound there, so one texture can be sampled with different
+ * settings without changing its parameters on every bind. {@link DefaultTextureBinder} maps each
+ * {@link TextureDescriptor} to a sampler this way.
+ * <p>
+ * Samplers are immutable and shared: {@link #obtain(TextureFilter, TextureFilter, TextureWrap, TextureWrap, float)}
+ * returns the cached sampler for a combination of settings, looked up in constant time. They live until
+ * {@link #disposeAll()}, and must be recreated with {@link #invalidateAll()} after a context loss.
+ */
+public final class Sampler {
+    private static final int NUM_FILTERS = TextureFilter.values().length;
+    private static final int NUM_WRAPS = TextureWrap.values().length;
+    private static final int MAX_ANISOTROPY = 16;
+    private static final Sampler[] cache = new Sampler[NUM_FILTERS * NUM_FILTERS * NUM_WRAPS * NUM_WRAPS
+            * MAX_ANISOTROPY];
+    private static int count;
+
+    public final TextureFilter minFilter;
+    public final TextureFilter magFilter;
+    public final TextureWrap uWrap;
+    public final TextureWrap vWrap;
+    /**
+     * the anisotropy of the filtering, 1 for none
+     */
+    public final int anisotropy;
+    private int glHandle;
+
+    private Sampler(TextureFilter minFilter, TextureFilter magFilter, TextureWrap uWrap, TextureWrap vWrap,
+                    int anisotropy) {
+        this.minFilter = minFilter;
+        this.magFilter = magFilter;
+        this.uWrap = uWrap;
+        this.vWrap = vWrap;
+        this.anisotropy = anisotropy;
+        create();
+    }
+
+    private void create() {
+        final int[] handles = new int[1];
+        GLES30.glGenSamplers(1, handles, 0);
+        glHandle = handles[0];
+        GLES30.glSamplerParameteri(glHandle, GLES20.GL_TEXTURE_MIN_FILTER, minFilter.getGLEnum());
+        GLES30.glSamplerParameteri(glHandle, GLES20.GL_TEXTURE_MAG_FILTER, magFilter.getGLEnum());
+        GLES30.glSamplerParameteri(glHandle, GLES20.GL_TEXTURE_WRAP_S, uWrap.getGLEnum());
+        GLES30.glSamplerParameteri(glHandle, GLES20.GL_TEXTURE_WRAP_T, vWrap.getGLEnum());
+        if (anisotropy > 1 && GLTool.getMaxAnisotropy() > 1)
+            GLES30.glSamplerParameterf(glHandle, GLTool.GL_TEXTURE_MAX_ANISOTROPY_EXT,
+                    Math.min(anisotropy, GLTool.getMaxAnisotropy()));
+    }
+
+    /**
+     * Returns the cached sampler for the given settings, creating it on first use. Must be called on the GL thread
+     * with OpenGL ES 3.0.
+     *
+     * @param anisotropy the anisotropy of the filtering, rounded and clamped to 1 to 16, and to what the device
+     *                   supports. 1 or less disables it
+     */
+    public static Sampler obtain(TextureFilter minFilter, TextureFilter magFilter, TextureWrap uWrap,
+                                 TextureWrap vWrap, float anisotropy) {
+        final int level = Math.max(1, Math.min(MAX_ANISOTROPY, Math.round(anisotropy)));
+        final int key = (((minFilter.ordinal() * NUM_FILTERS + magFilter.ordinal()) * NUM_WRAPS + uWrap.ordinal())
+                * NUM_WRAPS + vWrap.ordinal()) * MAX_ANISOTROPY + level - 1;
+        Sampler sampler = cache[key];
+        if (sampler == null) {
+            sampler = cache[key] = new Sampler(minFilter, magFilter, uWrap, vWrap, level);
+            count++;
+        }
+        return sampler;
+    }
+
+    /**
+     * Returns the sampler for a descriptor. Settings the descriptor leaves null are taken from its texture.
+     */
+    public static Sampler obtain(TextureDescriptor<?> descriptor) {
+        final GLTexture texture = descriptor.texture;
+        return obtain(descriptor.minFilter != null ? descriptor.minFilter : texture.getMinFilter(),
+                descriptor.magFilter != null ? descriptor.magFilter : texture.getMagFilter(),
+                descriptor.uWrap != null ? descriptor.uWrap : texture.getUWrap(),
+                descriptor.vWrap != null ? descriptor.vWrap : texture.getVWrap(), descriptor.anisotropy);
+    }
+
+    /**
+     * Binds this sampler to a texture unit.
+     *
+     * @param unit the unit (0 to MAX_TEXTURE_UNITS), not GL_TEXTURE0 + unit
+     */
+    public void bind(int unit) {
+        GLES30.glBindSampler(unit, glHandle);
+    }
+
+    /**
+     * Unbinds any sampler from a texture unit, so the parameters of the texture apply again.
+     */
+    public static void unbind(int unit) {
+        GLES30.glBindSampler(unit, 0);
+    }
+
+    /**
+     * @return the OpenGL handle of this sampler
+     */
+    public int getHandle() {
+        return glHandle;
+    }
+
+    /**
+     * @return the number of cached samplers
+     */
+    public static int getNumSamplers() {
+        return count;
+    }
+
+    /**
+     * Recreates all cached samplers after a context loss.
+     */
+    public static void invalidateAll() {
+        for (Sampler sampler : cache)
+            if (sampler != null) sampler.create();
+    }
+
+    /**
+     * Deletes all cached samplers.
+     */
+    public static void disposeAll() {
+        final int[] handles = new int[1];
+        for (int i = 0; i < cache.length; i++) {
+            if (cache[i] == null) continue;
+            handles[0] = cache[i].glHandle;
+            GLES30.glDeleteSamplers(1, handles, 0);
+            cache[i] = null;
+        }
+        count = 0;
+    }
+}
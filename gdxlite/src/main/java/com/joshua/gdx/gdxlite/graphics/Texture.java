@@ -18,11 +18,11 @@ package com.joshua.gdx.gdxlite.graphics;
 
 import android.graphics.Bitmap;
 import android.opengl.GLES20;
-import android.opengl.GLUtils;
 
+import com.joshua.gdx.gdxlite.graphics.glutils.ConvertedTextureData;
+import com.joshua.gdx.gdxlite.graphics.glutils.FormatConverter;
 import com.joshua.gdx.gdxlite.graphics.glutils.GLTool;
-
-import java.text.Format;
+import com.joshua.gdx.gdxlite.graphics.glutils.PixmapTextureData;
 
 /**
  * A Texture wraps a standard OpenGL ES texture.
@@ -118,6 +118,7 @@ public class Texture extends GLTexture {
     }
 
     TextureData data;
+    private TextureUpdates updates;
 
     public Texture(String filename) {
         this(filename, true, false);
@@ -139,8 +140,23 @@ public class Texture extends GLTexture {
         this(new BitmapTextureData(bitmap, useMipMaps, false));
     }
 
+    /**
+     * Converts the bitmap to RGB565 or RGBA4444 with ordered dithering if the format is one of them, the bitmap isn't
+     * recycled.
+     */
     public Texture(Bitmap bitmap, Format format, boolean useMipMaps) {
-        this(new BitmapTextureData(bitmap, useMipMaps, false));
+        this(FormatConverter.isSupported(format)
+                ? new ConvertedTextureData(new BitmapTextureData(bitmap, false, false), format,
+                FormatConverter.Dither.Ordered, useMipMaps)
+                : new BitmapTextureData(bitmap, useMipMaps, false));
+    }
+
+    /**
+     * Uploads a pixmap in its own format. The pixmap is kept to reload the texture after a context loss and must be
+     * disposed by the caller after the texture.
+     */
+    public Texture(Pixmap pixmap, boolean useMipMaps) {
+        this(new PixmapTextureData(pixmap, useMipMaps, false, true));
     }
 
     public Texture(TextureData data) {
@@ -153,6 +169,17 @@ public class Texture extends GLTexture {
     }
 
     public void load(TextureData data) {
+        // draws on the previous image are obsolete
+        if (updates != null) updates.clear();
+        if (this.data != null) {
+            // immutable storage can't be redefined, the new data gets a new texture object
+            bind();
+            if (GLTool.isImmutable(glTarget)) {
+                GLES20.glBindTexture(glTarget, 0);
+                delete();
+                glHandle = GLTool.glGenTexture();
+            }
+        }
         this.data = data;
 
         if (!data.isPrepared()) data.prepare();
@@ -179,16 +206,39 @@ public class Texture extends GLTexture {
     /**
      * Draws the given {@link Bitmap} to the texture at position x, y. No clipping is performed so you have to make
      * sure that you
-     * draw only inside the texture region. Note that this will only draw to mipmap level 0!
+     * draw only inside the texture region. Note that this will only draw to mipmap level 0! The pixels are copied
+     * right away, so the bitmap may be reused, but only uploaded when the texture is bound next, together with the
+     * other draws since, adjacent or overlapping ones merged into single uploads. Use a
+     * {@link com.joshua.gdx.gdxlite.graphics.glutils.TextureStreamer} for whole images updated every frame.
      *
      * @param bitmap The Bitmap
      * @param x      The x coordinate in pixels
      * @param y      The y coordinate in pixels
      */
     public void draw(Bitmap bitmap, int x, int y) {
+        if (updates == null) updates = new TextureUpdates();
+        updates.add(bitmap, x, y);
+    }
+
+    /**
+     * Uploads the draws pending since the texture was last bound. Leaves no texture bound to the active unit.
+     */
+    public void flushUpdates() {
+        if (updates == null || updates.size() == 0) return;
         bind();
+        GLES20.glBindTexture(glTarget, 0);
+    }
 
-        GLUtils.texSubImage2D(glTarget, 0, x, y, bitmap);
+    /**
+     * @return the number of draws waiting for the texture to be bound, after merging
+     */
+    public int getNumPendingUpdates() {
+        return updates == null ? 0 : updates.size();
+    }
+
+    @Override
+    void flushPendingUpdates() {
+        if (updates != null) updates.flush(glTarget);
     }
 
     @Override
@@ -218,6 +268,7 @@ public class Texture extends GLTexture {
         // reloaded through the asset manager as we first remove (and thus dispose) the texture
         // and then reload it. the glHandle is set to 0 in invalidateAllTextures prior to
         // removal from the asset manager.
+        if (manager != null) manager.remove(this);
         if (glHandle == 0) return;
         delete();
     }
@@ -0,0 +1,181 @@
+package com.joshua.gdx.gdxlite.graphics;
+
+import android.graphics.Bitmap;
+import android.opengl.GLES20;
+import android.opengl.GLES30;
+
+import com.joshua.gdx.gdxlite.graphics.glutils.GLTool;
+import com.joshua.gdx.gdxlite.utils.BitmapPool;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Wraps an OpenGL ES 3.0 2D texture array, a stack of equally sized images sampled by layer index. Variants like
+ * particle types, sprite skins or terrain materials can be drawn in one draw call without rebinding, the shader
+ * selects the layer from an attribute:
+ *
+ * <pre>
+ * #version 300 es
+ * uniform mediump sampler2DArray u_texture;
+ * ...
+ * fragColor = texture(u_texture, vec3(v_texCoords, v_type));
+ * </pre>
+ * <p>
+ * Each layer is uploaded from a {@link TextureData} of type {@link TextureData.TextureDataType#Bitmap}, as RGBA8888
+ * with premultiplied alpha. Must be disposed when it is no longer used.
+ */
+public class TextureArray extends GLTexture {
+    private final TextureData[] data;
+    private final boolean useMipMaps;
+    private int width;
+    private int height;
+    /**
+     * the pixels of a layer on their way to the GPU, kept for {@link #setLayer(int, Bitmap)}
+     */
+    private ByteBuffer staging;
+
+    /**
+     * Loads the layers from internal files.
+     */
+    public TextureArray(boolean useMipMaps, String... filenames) {
+        this(useMipMaps, toTextureData(filenames));
+    }
+
+    /**
+     * @param useMipMaps whether to generate mipmaps after the layers are uploaded
+     * @param data       the layers, which must all have the same size
+     */
+    public TextureArray(boolean useMipMaps, TextureData... data) {
+        super(GLES30.GL_TEXTURE_2D_ARRAY, checkAndGenTexture(data));
+        this.data = data;
+        this.useMipMaps = useMipMaps;
+        load();
+    }
+
+    private static int checkAndGenTexture(TextureData[] data) {
+        if (!GLTool.isGL30Available()) throw new IllegalStateException("TextureArray requires OpenGL ES 3.0");
+        if (data.length == 0) throw new IllegalArgumentException("TextureArray needs at least one layer");
+        return GLTool.glGenTexture();
+    }
+
+    private static TextureData[] toTextureData(String[] filenames) {
+        final TextureData[] data = new TextureData[filenames.length];
+        for (int i = 0; i < filenames.length; i++)
+            data[i] = new FileTextureData(filenames[i], true, false);
+        return data;
+    }
+
+    private void load() {
+        for (TextureData layer : data) {
+            if (!layer.isPrepared()) layer.prepare();
+            if (layer.getType() != TextureData.TextureDataType.Bitmap)
+                throw new IllegalArgumentException("TextureArray layers must be Bitmap texture data: " + layer);
+        }
+        width = data[0].getWidth();
+        height = data[0].getHeight();
+        for (TextureData layer : data) {
+            if (layer.getWidth() != width || layer.getHeight() != height)
+                throw new IllegalArgumentException("TextureArray layers differ in size: " + layer);
+        }
+
+        bind();
+        GLES30.glTexImage3D(glTarget, 0, GLES30.GL_RGBA8, width, height, data.length, 0, GLES20.GL_RGBA,
+                GLES20.GL_UNSIGNED_BYTE, null);
+        final ByteBuffer pixels = getStaging();
+        for (int i = 0; i < data.length; i++) {
+            final Bitmap bitmap = data[i].consumeBitmap();
+            final boolean disposeBitmap = data[i].disposeBitmap();
+            uploadLayer(i, bitmap, pixels);
+            if (disposeBitmap) BitmapPool.recycle(bitmap);
+        }
+        if (useMipMaps) GLES20.glGenerateMipmap(glTarget);
+        unsafeSetFilter(minFilter, magFilter, true);
+        unsafeSetWrap(uWrap, vWrap, true);
+        GLES20.glBindTexture(glTarget, 0);
+    }
+
+    private ByteBuffer getStaging() {
+        final int size = width * height * 4;
+        if (staging == null || staging.capacity() < size)
+            staging = ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+        return staging;
+    }
+
+    private void uploadLayer(int layer, Bitmap bitmap, ByteBuffer pixels) {
+        Bitmap source = bitmap;
+        if (source.getConfig() != Bitmap.Config.ARGB_8888) source = bitmap.copy(Bitmap.Config.ARGB_8888, false);
+        pixels.clear();
+        // ARGB_8888 bitmaps store their pixels premultiplied in RGBA byte order
+        source.copyPixelsToBuffer(pixels);
+        pixels.flip();
+        if (source != bitmap) source.recycle();
+        GLES20.glPixelStorei(GLES20.GL_UNPACK_ALIGNMENT, 1);
+        GLES30.glTexSubImage3D(glTarget, 0, 0, 0, layer, width, height, 1, GLES20.GL_RGBA, GLES20.GL_UNSIGNED_BYTE,
+                pixels);
+    }
+
+    /**
+     * Replaces the image of a layer. Regenerates the mipmaps of all layers if the array has mipmaps. Leaves the array
+     * bound to the active unit.
+     *
+     * @param bitmap an image with the size of the array, it's not recycled
+     */
+    public void setLayer(int layer, Bitmap bitmap) {
+        if (layer < 0 || layer >= data.length) throw new IndexOutOfBoundsException("layer: " + layer);
+        if (bitmap.getWidth() != width || bitmap.getHeight() != height)
+            throw new IllegalArgumentException("Bitmap differs in size from the array");
+        bind();
+        uploadLayer(layer, bitmap, getStaging());
+        if (useMipMaps) GLES20.glGenerateMipmap(glTarget);
+    }
+
+    /**
+     * @return whether all layers can be reloaded after a context loss
+     */
+    public boolean isManaged() {
+        for (TextureData layer : data)
+            if (!layer.isManaged()) return false;
+        return true;
+    }
+
+    @Override
+    protected void reload() {
+        if (!isManaged()) throw new RuntimeException("Tried to reload an unmanaged TextureArray");
+        glHandle = GLTool.glGenTexture();
+        load();
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return the number of layers
+     */
+    @Override
+    public int getDepth() {
+        return data.length;
+    }
+
+    public boolean useMipMaps() {
+        return useMipMaps;
+    }
+
+    /**
+     * Disposes all resources associated with the texture array
+     */
+    @Override
+    public void dispose() {
+        if (manager != null) manager.remove(this);
+        staging = null;
+        if (glHandle == 0) return;
+        delete();
+    }
+}
@@ -18,6 +18,9 @@ package com.joshua.gdx.gdxlite.graphics;
 
 import android.graphics.Bitmap;
 
+import com.joshua.gdx.gdxlite.graphics.glutils.ETC1TextureData;
+import com.joshua.gdx.gdxlite.graphics.glutils.KTXTextureData;
+
 /**
  * Used by a {@link Texture} to load the pixel data. A TextureData can either return a {@link Bitmap} or upload the
  * pixel data
@@ -104,6 +107,12 @@ public interface TextureData {
      */
     public boolean useMipMaps();
 
+    /**
+     * @return whether this implementation can cope with a EGL context loss or an eviction by a
+     * {@link TextureManager}, i.e. whether {@link #prepare()} can be called again after the data was consumed.
+     */
+    public boolean isManaged();
+
     /**
      * Provides static method to instantiate the right implementation (Pixmap, ETC1, KTX).
      *
@@ -111,6 +120,9 @@ public interface TextureData {
      */
     public static class Factory {
         public static TextureData loadFromFile(String filename, boolean internal, boolean useMipMaps) {
+            if (filename.endsWith(".ktx")) return new KTXTextureData(filename, internal, useMipMaps);
+            if (filename.endsWith(".pkm") || filename.endsWith(".etc1"))
+                return new ETC1TextureData(filename, internal, useMipMaps);
             return new FileTextureData(filename, internal, useMipMaps);
         }
     }
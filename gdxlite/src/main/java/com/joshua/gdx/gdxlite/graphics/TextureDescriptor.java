@@ -22,6 +22,8 @@ public class TextureDescriptor<T extends GLTexture> implements Comparable<Textur
 	public Texture.TextureFilter magFilter;
 	public Texture.TextureWrap uWrap;
 	public Texture.TextureWrap vWrap;
+	/** The anisotropy of the filtering, 1 or less for none. Only applied through a {@link Sampler}. */
+	public float anisotropy;
 
 	// TODO add other values, see http://www.opengl.org/sdk/docs/man/xhtml/glTexParameter.xml
 
@@ -44,6 +46,7 @@ public class TextureDescriptor<T extends GLTexture> implements Comparable<Textur
 		this.magFilter = magFilter;
 		this.uWrap = uWrap;
 		this.vWrap = vWrap;
+		this.anisotropy = 0;
 	}
 
 	public <V extends T> void set (final TextureDescriptor<V> other) {
@@ -52,6 +55,7 @@ public class TextureDescriptor<T extends GLTexture> implements Comparable<Textur
 		magFilter = other.magFilter;
 		uWrap = other.uWrap;
 		vWrap = other.vWrap;
+		anisotropy = other.anisotropy;
 	}
 
 	@Override
@@ -61,7 +65,7 @@ public class TextureDescriptor<T extends GLTexture> implements Comparable<Textur
 		if (!(obj instanceof TextureDescriptor)) return false;
 		final TextureDescriptor<?> other = (TextureDescriptor<?>)obj;
 		return other.texture == texture && other.minFilter == minFilter && other.magFilter == magFilter && other.uWrap == uWrap
-			&& other.vWrap == vWrap;
+			&& other.vWrap == vWrap && other.anisotropy == anisotropy;
 	}
 
 	@Override
@@ -72,6 +76,7 @@ public class TextureDescriptor<T extends GLTexture> implements Comparable<Textur
 		result = 811 * result + (magFilter == null ? 0 : magFilter.getGLEnum());
 		result = 811 * result + (uWrap == null ? 0 : uWrap.getGLEnum());
 		result = 811 * result + (vWrap == null ? 0 : vWrap.getGLEnum());
+		result = 811 * result + Float.floatToIntBits(anisotropy);
 		return (int)(result ^ (result >> 32));
 	}
 
@@ -90,6 +95,7 @@ public class TextureDescriptor<T extends GLTexture> implements Comparable<Textur
 			return (magFilter == null ? 0 : magFilter.getGLEnum()) - (o.magFilter == null ? 0 : o.magFilter.getGLEnum());
 		if (uWrap != o.uWrap) return (uWrap == null ? 0 : uWrap.getGLEnum()) - (o.uWrap == null ? 0 : o.uWrap.getGLEnum());
 		if (vWrap != o.vWrap) return (vWrap == null ? 0 : vWrap.getGLEnum()) - (o.vWrap == null ? 0 : o.vWrap.getGLEnum());
+		if (anisotropy != o.anisotropy) return anisotropy < o.anisotropy ? -1 : 1;
 		return 0;
 	}
 }
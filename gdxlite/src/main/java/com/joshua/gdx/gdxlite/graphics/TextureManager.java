@@ -0,0 +1,247 @@
+package com.joshua.gdx.gdxlite.graphics;
+
+import android.opengl.GLES20;
+import android.opengl.GLES30;
+
+import com.joshua.gdx.gdxlite.graphics.glutils.ETC1;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Keeps the estimated video memory of the managed textures below a budget. Every bind of a managed texture marks it
+ * as recently used. When the budget is exceeded, the least recently bound textures are deleted on the GL side, their
+ * {@link TextureData} and settings are kept, and they are reloaded transparently the next time they are bound.
+ * <p>
+ * Only textures which can be reloaded are evicted: {@link Texture}s and {@link TextureArray}s with
+ * {@link TextureData#isManaged() managed} data and {@link Cubemap}s. Others count towards the budget but stay
+ * resident. Textures bound since the last call to {@link #update()}, which should be called once per frame, are never
+ * evicted, so the budget may be exceeded by what a single frame needs.
+ * <p>
+ * Reloading decodes the image again on the GL thread, so a generous budget keeps hitches rare.
+ */
+public class TextureManager {
+    /**
+     * The bookkeeping of a managed texture, also referenced by {@link GLTexture#managerEntry} so queries don't have to
+     * look it up, which would mark the texture as recently used.
+     */
+    static class Entry {
+        long size;
+        int frame = -1;
+        boolean evicted;
+    }
+
+    private final LinkedHashMap<GLTexture, Entry> entries = new LinkedHashMap<GLTexture, Entry>(16, 0.75f, true);
+    private long budget;
+    private long used;
+    private int frame;
+    private int evictions;
+    private int reloads;
+
+    /**
+     * @param budget the estimated video memory in bytes the managed textures may use
+     */
+    public TextureManager(long budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Starts tracking a texture, which may cause other textures to be evicted. A texture can only be tracked by one
+     * manager. Disposing the texture stops tracking it.
+     */
+    public void manage(GLTexture texture) {
+        if (texture.manager == this) return;
+        if (texture.manager != null) throw new IllegalArgumentException("Texture is managed by another manager");
+        final Entry entry = new Entry();
+        entry.size = estimateSize(texture);
+        entry.frame = frame;
+        entries.put(texture, entry);
+        texture.manager = this;
+        texture.managerEntry = entry;
+        used += entry.size;
+        trim();
+    }
+
+    /**
+     * Stops tracking a texture. An evicted texture is reloaded first, so it stays usable.
+     */
+    public void unmanage(GLTexture texture) {
+        if (texture.manager != this) return;
+        final Entry entry = entries.remove(texture);
+        texture.manager = null;
+        texture.managerEntry = null;
+        if (entry.evicted) {
+            texture.reload();
+        } else {
+            used -= entry.size;
+        }
+    }
+
+    /**
+     * Called when a texture is disposed, forgets it without reloading.
+     */
+    void remove(GLTexture texture) {
+        final Entry entry = entries.remove(texture);
+        texture.manager = null;
+        texture.managerEntry = null;
+        if (entry != null && !entry.evicted) used -= entry.size;
+    }
+
+    /**
+     * Called by {@link GLTexture#bind()} before binding, reloads the texture if it was evicted. The only method which
+     * marks the texture as recently used.
+     */
+    void touch(GLTexture texture) {
+        final Entry entry = entries.get(texture);
+        if (entry == null) return;
+        entry.frame = frame;
+        if (entry.evicted) {
+            entry.evicted = false;
+            texture.reload();
+            entry.size = estimateSize(texture);
+            used += entry.size;
+            reloads++;
+            trim();
+        }
+    }
+
+    /**
+     * Marks the start of a new frame. Textures not bound since the last call become candidates for eviction.
+     */
+    public void update() {
+        frame++;
+        trim();
+    }
+
+    private void trim() {
+        if (used <= budget) return;
+        final Iterator<java.util.Map.Entry<GLTexture, Entry>> iterator = entries.entrySet().iterator();
+        while (used > budget && iterator.hasNext()) {
+            final java.util.Map.Entry<GLTexture, Entry> next = iterator.next();
+            final GLTexture texture = next.getKey();
+            final Entry entry = next.getValue();
+            if (entry.evicted || entry.frame == frame || !isReloadable(texture)) continue;
+            texture.delete();
+            entry.evicted = true;
+            used -= entry.size;
+            evictions++;
+        }
+    }
+
+    private static boolean isReloadable(GLTexture texture) {
+        if (texture instanceof Texture) {
+            final TextureData data = ((Texture) texture).getTextureData();
+            return data != null && data.isManaged();
+        }
+        if (texture instanceof TextureArray) return ((TextureArray) texture).isManaged();
+        return texture instanceof Cubemap;
+    }
+
+    /**
+     * @return whether the texture is currently evicted and will be reloaded when bound
+     */
+    public boolean isEvicted(GLTexture texture) {
+        return texture.manager == this && texture.managerEntry.evicted;
+    }
+
+    /**
+     * Sets the budget, evicting textures not used in the current frame if it's exceeded.
+     */
+    public void setBudget(long budget) {
+        this.budget = budget;
+        trim();
+    }
+
+    public long getBudget() {
+        return budget;
+    }
+
+    /**
+     * @return the estimated video memory of the resident managed textures in bytes
+     */
+    public long getUsedBytes() {
+        return used;
+    }
+
+    public int getNumManaged() {
+        return entries.size();
+    }
+
+    /**
+     * @return the number of evictions since this manager was created
+     */
+    public int getEvictionCount() {
+        return evictions;
+    }
+
+    /**
+     * @return the number of reloads of evicted textures since this manager was created
+     */
+    public int getReloadCount() {
+        return reloads;
+    }
+
+    /**
+     * Estimates the video memory of a texture as width x height x bytes per pixel, times 4/3 with mipmaps and times 6
+     * for cubemaps.
+     */
+    public static long estimateSize(GLTexture texture) {
+        int format = -1;
+        boolean mipMaps = texture.getMinFilter().isMipMap();
+        if (texture instanceof Texture) {
+            final TextureData data = ((Texture) texture).getTextureData();
+            if (data != null) {
+                format = data.getFormat();
+                mipMaps |= data.useMipMaps();
+            }
+        } else if (texture instanceof TextureArray) {
+            mipMaps |= ((TextureArray) texture).useMipMaps();
+        }
+        long size = (long) texture.getWidth() * texture.getHeight() * Math.max(1, texture.getDepth());
+        size = size * getBitsPerPixel(format) / 8;
+        if (texture.glTarget == GLES20.GL_TEXTURE_CUBE_MAP) size *= 6;
+        return mipMaps ? size * 4 / 3 : size;
+    }
+
+    /**
+     * @param format a GL format or internal format, -1 if unknown. Unsized formats are taken as 8 bits per channel,
+     *               16 bit data reports its sized internal format.
+     * @return the bits per pixel, 32 for unknown formats
+     */
+    public static int getBitsPerPixel(int format) {
+        switch (format) {
+            case ETC1.GL_ETC1_RGB8_OES:
+            case GLES30.GL_COMPRESSED_RGB8_ETC2:
+            case GLES30.GL_COMPRESSED_SRGB8_ETC2:
+            case GLES30.GL_COMPRESSED_RGB8_PUNCHTHROUGH_ALPHA1_ETC2:
+            case GLES30.GL_COMPRESSED_SRGB8_PUNCHTHROUGH_ALPHA1_ETC2:
+            case GLES30.GL_COMPRESSED_R11_EAC:
+            case GLES30.GL_COMPRESSED_SIGNED_R11_EAC:
+                return 4;
+            case GLES30.GL_COMPRESSED_RG11_EAC:
+            case GLES30.GL_COMPRESSED_SIGNED_RG11_EAC:
+            case GLES30.GL_COMPRESSED_RGBA8_ETC2_EAC:
+            case GLES30.GL_COMPRESSED_SRGB8_ALPHA8_ETC2_EAC:
+            case GLES20.GL_ALPHA:
+            case GLES20.GL_LUMINANCE:
+            case GLES30.GL_R8:
+                return 8;
+            case GLES20.GL_LUMINANCE_ALPHA:
+            case GLES20.GL_RGB565:
+            case GLES20.GL_RGBA4:
+            case GLES20.GL_RGB5_A1:
+            case GLES30.GL_RG8:
+                return 16;
+            case GLES20.GL_RGB:
+            case GLES30.GL_RGB8:
+                // what the data holds, drivers may pad it to 32 bits
+                return 24;
+            case GLES30.GL_RGBA16F:
+                return 64;
+            default:
+                // ASTC blocks are 16 bytes, 8 bits per pixel at 4x4 and less for larger blocks
+                if (format >= 0x93B0 && format <= 0x93DD) return 8;
+                return 32;
+        }
+    }
+}
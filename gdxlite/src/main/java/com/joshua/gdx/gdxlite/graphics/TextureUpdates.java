@@ -0,0 +1,312 @@
+package com.joshua.gdx.gdxlite.graphics;
+
+import android.graphics.Bitmap;
+import android.opengl.GLES20;
+
+import com.joshua.gdx.gdxlite.utils.Array;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The sub image updates of a {@link Texture} waiting for the texture to be bound next. The pixels are copied into a
+ * staging buffer right away, so the bitmaps can be reused, and uploaded together by {@link #flush(int)}.
+ * <p>
+ * An update merges with an earlier one if the union is exactly covered by both, i.e. one contains the other or they
+ * share a whole edge, and no update in between overlaps. An update containing an earlier one replaces it. A merged
+ * update keeps the pixels of its parts where they are and packs them into one block when it is uploaded, so a run of
+ * merges copies every pixel only once more.
+ */
+final class TextureUpdates {
+    static class Update {
+        int x, y, width, height;
+        int format, type, bytesPerPixel;
+        int offset, stride;
+        /**
+         * the updates merged into this one, in the order they were added, empty if the pixels are packed
+         */
+        final Array<Update> parts = new Array<Update>();
+
+        boolean contains(Update other) {
+            return other.x >= x && other.y >= y && other.x + other.width <= x + width
+                    && other.y + other.height <= y + height;
+        }
+
+        boolean intersects(Update other) {
+            return other.x < x + width && x < other.x + other.width && other.y < y + height
+                    && y < other.y + other.height;
+        }
+
+        boolean sharesEdge(Update other) {
+            if (y == other.y && height == other.height)
+                return x + width == other.x || other.x + other.width == x;
+            if (x == other.x && width == other.width)
+                return y + height == other.y || other.y + other.height == y;
+            return false;
+        }
+    }
+
+    private final Array<Update> updates = new Array<Update>();
+    private final Array<Update> free = new Array<Update>();
+    private ByteBuffer staging;
+    private int stagingSize;
+    private int merges;
+
+    /**
+     * Copies the pixels of a bitmap, to be uploaded at x, y. ARGB_8888, RGB_565 and ALPHA_8 bitmaps are copied as is,
+     * others are converted to ARGB_8888.
+     */
+    void add(Bitmap bitmap, int x, int y) {
+        Bitmap source = bitmap;
+        final Bitmap.Config config = bitmap.getConfig();
+        if (config != Bitmap.Config.ARGB_8888 && config != Bitmap.Config.RGB_565
+                && config != Bitmap.Config.ALPHA_8)
+            source = bitmap.copy(Bitmap.Config.ARGB_8888, false);
+
+        final int format, type, bytesPerPixel;
+        switch (source.getConfig()) {
+            case RGB_565:
+                format = GLES20.GL_RGB;
+                type = GLES20.GL_UNSIGNED_SHORT_5_6_5;
+                bytesPerPixel = 2;
+                break;
+            case ALPHA_8:
+                format = GLES20.GL_ALPHA;
+                type = GLES20.GL_UNSIGNED_BYTE;
+                bytesPerPixel = 1;
+                break;
+            default:
+                format = GLES20.GL_RGBA;
+                type = GLES20.GL_UNSIGNED_BYTE;
+                bytesPerPixel = 4;
+                break;
+        }
+        final Update update = obtain(x, y, source.getWidth(), source.getHeight(), format, type, bytesPerPixel,
+                source.getRowBytes());
+        staging.position(update.offset);
+        source.copyPixelsToBuffer(staging);
+        if (source != bitmap) source.recycle();
+
+        updates.add(update);
+        mergeLast();
+    }
+
+    /**
+     * Copies rows of pixels, starting at the position of the buffer, to be uploaded at x, y.
+     *
+     * @param stride the size of a row in bytes, at least width * bytesPerPixel
+     */
+    void add(ByteBuffer pixels, int x, int y, int width, int height, int stride, int format, int type,
+             int bytesPerPixel) {
+        final Update update = obtain(x, y, width, height, format, type, bytesPerPixel, stride);
+        final ByteBuffer source = pixels.duplicate();
+        source.limit(source.position() + stride * height);
+        staging.position(update.offset);
+        staging.put(source);
+
+        updates.add(update);
+        mergeLast();
+    }
+
+    private Update obtain(int x, int y, int width, int height, int format, int type, int bytesPerPixel,
+                          int stride) {
+        final Update update = free.size > 0 ? free.pop() : new Update();
+        update.x = x;
+        update.y = y;
+        update.width = width;
+        update.height = height;
+        update.format = format;
+        update.type = type;
+        update.bytesPerPixel = bytesPerPixel;
+        update.stride = stride;
+        update.offset = reserve(stride * height);
+        return update;
+    }
+
+    private int reserve(int size) {
+        final int offset = stagingSize;
+        if (staging == null || offset + size > staging.capacity()) {
+            final ByteBuffer grown = ByteBuffer.allocateDirect(Math.max(offset + size, stagingSize * 2))
+                    .order(ByteOrder.nativeOrder());
+            if (staging != null) {
+                staging.position(0);
+                staging.limit(stagingSize);
+                grown.put(staging);
+            }
+            staging = grown;
+        }
+        staging.limit(staging.capacity());
+        stagingSize = offset + size;
+        return offset;
+    }
+
+    /**
+     * Merges the last update with earlier ones for as long as possible.
+     */
+    private void mergeLast() {
+        int index = updates.size - 1;
+        for (int i = index - 1; i >= 0; i--) {
+            final Update update = updates.get(index);
+            final Update earlier = updates.get(i);
+            if (earlier.format != update.format || earlier.type != update.type) continue;
+            if (update.contains(earlier)) {
+                // overwritten anyway, whatever lies in between
+                updates.removeIndex(i);
+                release(earlier);
+                index--;
+                continue;
+            }
+            if (!earlier.contains(update) && !earlier.sharesEdge(update)) continue;
+            if (overlapsBetween(i, index, update)) continue;
+            // the merged update takes the place of the earlier one, moving the later pixels forward
+            final Update merged = combine(earlier, update);
+            updates.removeIndex(index);
+            updates.set(i, merged);
+            merges++;
+            index = i;
+        }
+    }
+
+    private boolean overlapsBetween(int from, int to, Update update) {
+        for (int i = from + 1; i < to; i++)
+            if (updates.get(i).intersects(update)) return true;
+        return false;
+    }
+
+    /**
+     * @return an update of the union with the parts of both, the later pixels drawn over the earlier ones
+     */
+    private Update combine(Update earlier, Update later) {
+        final int x = Math.min(earlier.x, later.x);
+        final int y = Math.min(earlier.y, later.y);
+        final int width = Math.max(earlier.x + earlier.width, later.x + later.width) - x;
+        final int height = Math.max(earlier.y + earlier.height, later.y + later.height) - y;
+        final Update merged;
+        if (earlier.parts.size > 0) {
+            merged = earlier;
+        } else {
+            merged = free.size > 0 ? free.pop() : new Update();
+            merged.format = earlier.format;
+            merged.type = earlier.type;
+            merged.bytesPerPixel = earlier.bytesPerPixel;
+            merged.parts.add(earlier);
+        }
+        merged.x = x;
+        merged.y = y;
+        merged.width = width;
+        merged.height = height;
+        if (later.parts.size > 0) {
+            merged.parts.addAll(later.parts);
+            later.parts.clear();
+            free.add(later);
+        } else {
+            merged.parts.add(later);
+        }
+        return merged;
+    }
+
+    /**
+     * Copies the parts of a merged update into one tightly packed block.
+     */
+    private void pack(Update update) {
+        if (update.parts.size == 0) return;
+        update.stride = update.width * update.bytesPerPixel;
+        update.offset = reserve(update.stride * update.height);
+        for (int i = 0; i < update.parts.size; i++) {
+            final Update part = update.parts.get(i);
+            copy(part, update);
+            free.add(part);
+        }
+        update.parts.clear();
+    }
+
+    private void release(Update update) {
+        free.addAll(update.parts);
+        update.parts.clear();
+        free.add(update);
+    }
+
+    private void copy(Update from, Update to) {
+        final ByteBuffer source = staging.duplicate();
+        final int rowSize = from.width * from.bytesPerPixel;
+        for (int row = 0; row < from.height; row++) {
+            final int sourceOffset = from.offset + row * from.stride;
+            source.limit(sourceOffset + rowSize);
+            source.position(sourceOffset);
+            staging.position(to.offset + (from.y - to.y + row) * to.stride + (from.x - to.x) * to.bytesPerPixel);
+            staging.put(source);
+        }
+    }
+
+    /**
+     * Uploads the updates to the texture bound to the target and clears them.
+     */
+    void flush(int target) {
+        if (updates.size == 0) return;
+        for (int i = 0; i < updates.size; i++)
+            pack(updates.get(i));
+        staging.limit(stagingSize);
+        for (int i = 0; i < updates.size; i++) {
+            final Update update = updates.get(i);
+            final int rowSize = update.width * update.bytesPerPixel;
+            final int alignment = update.stride == rowSize ? 1 : update.stride == (rowSize + 3 & ~3) ? 4 : 0;
+            staging.position(update.offset);
+            if (alignment != 0) {
+                GLES20.glPixelStorei(GLES20.GL_UNPACK_ALIGNMENT, alignment);
+                GLES20.glTexSubImage2D(target, 0, update.x, update.y, update.width, update.height, update.format,
+                        update.type, staging);
+            } else {
+                // rows padded beyond the unpack alignment, uploaded one by one
+                GLES20.glPixelStorei(GLES20.GL_UNPACK_ALIGNMENT, 1);
+                for (int row = 0; row < update.height; row++) {
+                    staging.position(update.offset + row * update.stride);
+                    GLES20.glTexSubImage2D(target, 0, update.x, update.y + row, update.width, 1, update.format,
+                            update.type, staging);
+                }
+            }
+            release(update);
+        }
+        updates.clear();
+        stagingSize = 0;
+    }
+
+    void clear() {
+        for (int i = 0; i < updates.size; i++)
+            release(updates.get(i));
+        updates.clear();
+        stagingSize = 0;
+    }
+
+    int size() {
+        return updates.size;
+    }
+
+    Update get(int index) {
+        return updates.get(index);
+    }
+
+    /**
+     * @return a view of the pixels of an update, rows of its stride from the position
+     */
+    ByteBuffer getPixels(Update update) {
+        pack(update);
+        final ByteBuffer pixels = staging.duplicate();
+        pixels.limit(update.offset + update.stride * update.height);
+        pixels.position(update.offset);
+        return pixels;
+    }
+
+    /**
+     * @return the bytes of the staging buffer in use
+     */
+    int getStagingSize() {
+        return stagingSize;
+    }
+
+    /**
+     * @return the number of merges since the updates were created
+     */
+    int getMerges() {
+        return merges;
+    }
+}
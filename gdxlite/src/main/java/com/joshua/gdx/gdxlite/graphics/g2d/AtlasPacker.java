@@ -0,0 +1,325 @@
+package com.joshua.gdx.gdxlite.graphics.g2d;
+
+import android.graphics.Bitmap;
+
+import com.joshua.gdx.gdxlite.graphics.BitmapTextureData;
+import com.joshua.gdx.gdxlite.graphics.Texture;
+import com.joshua.gdx.gdxlite.graphics.g2d.TextureAtlas.AtlasRegion;
+import com.joshua.gdx.gdxlite.utils.Array;
+import com.joshua.gdx.gdxlite.utils.Disposable;
+import com.joshua.gdx.gdxlite.utils.Sort;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Comparator;
+
+/**
+ * Packs many small bitmaps into a few atlas pages with the MaxRects algorithm, placing each image into the free
+ * rectangle that leaves the shortest side over (best short side fit). Every image is surrounded by {@link #padding}
+ * pixels which, with {@link #bleed}, repeat the outermost pixels of the image, so linear filtering and mipmaps at
+ * the edges of a region don't pick up its neighbours.
+ * <p>
+ * Pages are trimmed to the area used, rounded up to a power of two with {@link #powerOfTwo}. Pack once at load time
+ * with {@link #generateTextureAtlas(boolean)}, or {@link #save(File, String)} the pages and their layout and load them
+ * with {@link TextureAtlas#TextureAtlas(File, boolean)} on the next start without packing again:
+ *
+ * <pre>
+ * AtlasPacker packer = new AtlasPacker(1024, 1024);
+ * packer.add("ball", ballBitmap);
+ * packer.add("weather", weatherBitmap);
+ * packer.pack();
+ * TextureAtlas atlas = packer.generateTextureAtlas(false);
+ * packer.dispose();
+ * </pre>
+ * <p>
+ * The added bitmaps are only read and must stay valid until the pages are generated or saved.
+ */
+public class AtlasPacker implements Disposable {
+    /**
+     * the border around every image in pixels
+     */
+    public int padding = 2;
+    /**
+     * whether the padding repeats the edge pixels of the image
+     */
+    public boolean bleed = true;
+    /**
+     * whether the trimmed page size is rounded up to a power of two
+     */
+    public boolean powerOfTwo = true;
+
+    private final int pageWidth;
+    private final int pageHeight;
+    private final Array<Page> pages = new Array<Page>();
+    private final Array<Entry> pending = new Array<Entry>();
+
+    static class Entry {
+        String name;
+        Bitmap bitmap;
+        int width, height;
+        int page, x, y;
+    }
+
+    static class Page {
+        final Array<int[]> free = new Array<int[]>();
+        final Array<Entry> entries = new Array<Entry>();
+        int usedWidth, usedHeight;
+
+        Page(int width, int height) {
+            free.add(new int[]{0, 0, width, height});
+        }
+    }
+
+    private static final Comparator<Entry> LARGEST_FIRST = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry a, Entry b) {
+            final int sideA = Math.max(a.width, a.height), sideB = Math.max(b.width, b.height);
+            if (sideA != sideB) return sideB - sideA;
+            return b.width * b.height - a.width * a.height;
+        }
+    };
+
+    /**
+     * @param pageWidth  the maximum width of a page
+     * @param pageHeight the maximum height of a page
+     */
+    public AtlasPacker(int pageWidth, int pageHeight) {
+        this.pageWidth = pageWidth;
+        this.pageHeight = pageHeight;
+    }
+
+    /**
+     * Queues a bitmap for the next {@link #pack()}.
+     */
+    public void add(String name, Bitmap bitmap) {
+        add(name, bitmap, bitmap.getWidth(), bitmap.getHeight());
+    }
+
+    Entry add(String name, Bitmap bitmap, int width, int height) {
+        final Entry entry = new Entry();
+        entry.name = name;
+        entry.bitmap = bitmap;
+        entry.width = width;
+        entry.height = height;
+        entry.page = -1;
+        pending.add(entry);
+        return entry;
+    }
+
+    /**
+     * Places the queued bitmaps, largest first, into the free space of the existing pages or into new pages.
+     *
+     * @throws IllegalArgumentException if a bitmap with its padding is larger than a page
+     */
+    public void pack() {
+        Sort.instance().sort(pending, LARGEST_FIRST);
+        for (Entry entry : pending) {
+            final int width = entry.width + 2 * padding;
+            final int height = entry.height + 2 * padding;
+            if (width > pageWidth || height > pageHeight)
+                throw new IllegalArgumentException("Image doesn't fit a page: " + entry.name + " (" + entry.width
+                        + "x" + entry.height + ")");
+            boolean placed = false;
+            for (int i = 0; i < pages.size && !placed; i++)
+                placed = insert(pages.get(i), i, entry, width, height);
+            if (!placed) {
+                pages.add(new Page(pageWidth, pageHeight));
+                insert(pages.peek(), pages.size - 1, entry, width, height);
+            }
+        }
+        pending.clear();
+    }
+
+    private boolean insert(Page page, int pageIndex, Entry entry, int width, int height) {
+        int[] best = null;
+        int bestShort = Integer.MAX_VALUE, bestLong = Integer.MAX_VALUE;
+        for (int[] rect : page.free) {
+            if (rect[2] < width || rect[3] < height) continue;
+            final int leftoverX = rect[2] - width, leftoverY = rect[3] - height;
+            final int shortSide = Math.min(leftoverX, leftoverY), longSide = Math.max(leftoverX, leftoverY);
+            if (shortSide < bestShort || (shortSide == bestShort && longSide < bestLong)) {
+                best = rect;
+                bestShort = shortSide;
+                bestLong = longSide;
+            }
+        }
+        if (best == null) return false;
+
+        final int x = best[0], y = best[1];
+        final Array<int[]> free = page.free;
+        for (int i = free.size - 1; i >= 0; i--) {
+            final int[] rect = free.get(i);
+            if (x >= rect[0] + rect[2] || x + width <= rect[0] || y >= rect[1] + rect[3] || y + height <= rect[1])
+                continue;
+            free.removeIndex(i);
+            if (x > rect[0]) free.add(new int[]{rect[0], rect[1], x - rect[0], rect[3]});
+            if (x + width < rect[0] + rect[2])
+                free.add(new int[]{x + width, rect[1], rect[0] + rect[2] - x - width, rect[3]});
+            if (y > rect[1]) free.add(new int[]{rect[0], rect[1], rect[2], y - rect[1]});
+            if (y + height < rect[1] + rect[3])
+                free.add(new int[]{rect[0], y + height, rect[2], rect[1] + rect[3] - y - height});
+        }
+        prune(free);
+
+        entry.page = pageIndex;
+        entry.x = x + padding;
+        entry.y = y + padding;
+        page.entries.add(entry);
+        page.usedWidth = Math.max(page.usedWidth, x + width);
+        page.usedHeight = Math.max(page.usedHeight, y + height);
+        return true;
+    }
+
+    /**
+     * Removes the free rectangles contained in another one.
+     */
+    private static void prune(Array<int[]> free) {
+        for (int i = free.size - 1; i >= 0; i--) {
+            final int[] a = free.get(i);
+            for (int j = 0; j < free.size; j++) {
+                if (i == j) continue;
+                final int[] b = free.get(j);
+                if (a[0] >= b[0] && a[1] >= b[1] && a[0] + a[2] <= b[0] + b[2] && a[1] + a[3] <= b[1] + b[3]) {
+                    free.removeIndex(i);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of pages used by the packed bitmaps
+     */
+    public int getNumPages() {
+        return pages.size;
+    }
+
+    /**
+     * @return the width of the given page after trimming
+     */
+    public int getPageWidth(int page) {
+        final int used = pages.get(page).usedWidth;
+        return powerOfTwo ? Math.min(pageWidth, nextPowerOfTwo(used)) : used;
+    }
+
+    /**
+     * @return the height of the given page after trimming
+     */
+    public int getPageHeight(int page) {
+        final int used = pages.get(page).usedHeight;
+        return powerOfTwo ? Math.min(pageHeight, nextPowerOfTwo(used)) : used;
+    }
+
+    private static int nextPowerOfTwo(int value) {
+        int result = 1;
+        while (result < value)
+            result <<= 1;
+        return result;
+    }
+
+    /**
+     * Draws the packed bitmaps of a page, with their padding, into a new ARGB_8888 bitmap.
+     */
+    public Bitmap renderPage(int page) {
+        final Bitmap bitmap = Bitmap.createBitmap(getPageWidth(page), getPageHeight(page), Bitmap.Config.ARGB_8888);
+        bitmap.eraseColor(0);
+        int[] pixels = new int[0];
+        for (Entry entry : pages.get(page).entries) {
+            final int width = entry.width, height = entry.height;
+            final int border = bleed ? padding : 0;
+            final int stride = width + 2 * border;
+            final int size = stride * (height + 2 * border);
+            if (pixels.length < size) pixels = new int[size];
+            entry.bitmap.getPixels(pixels, border * stride + border, stride, 0, 0, width, height);
+            if (border > 0) extrude(pixels, stride, width, height, border);
+            bitmap.setPixels(pixels, 0, stride, entry.x - border, entry.y - border, stride, height + 2 * border);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Repeats the edge pixels of the image at border,border into the border around it.
+     */
+    private static void extrude(int[] pixels, int stride, int width, int height, int border) {
+        for (int y = border; y < border + height; y++) {
+            final int row = y * stride;
+            final int left = pixels[row + border], right = pixels[row + border + width - 1];
+            for (int x = 0; x < border; x++) {
+                pixels[row + x] = left;
+                pixels[row + border + width + x] = right;
+            }
+        }
+        final int top = border * stride, bottom = (border + height - 1) * stride;
+        for (int y = 0; y < border; y++) {
+            System.arraycopy(pixels, top, pixels, y * stride, stride);
+            System.arraycopy(pixels, bottom, pixels, (border + height + y) * stride, stride);
+        }
+    }
+
+    /**
+     * Packs pending bitmaps, renders the pages and uploads them into a new atlas. The page images are kept by the
+     * textures for reloading after a context loss and released when the atlas is disposed.
+     */
+    public TextureAtlas generateTextureAtlas(boolean useMipMaps) {
+        if (pending.size > 0) pack();
+        final TextureAtlas atlas = new TextureAtlas();
+        for (int i = 0; i < pages.size; i++) {
+            final Bitmap bitmap = renderPage(i);
+            final Texture texture = new Texture(new BitmapTextureData(bitmap, useMipMaps, false));
+            atlas.addPage(texture, bitmap);
+            for (Entry entry : pages.get(i).entries)
+                atlas.addRegion(new AtlasRegion(texture, entry.x, entry.y, entry.width, entry.height, entry.name, i));
+        }
+        return atlas;
+    }
+
+    /**
+     * Packs pending bitmaps and writes the pages as PNG files name_0.png, name_1.png... and the layout as name.atlas
+     * into the given directory.
+     *
+     * @return the layout file
+     */
+    public File save(File directory, String name) {
+        if (pending.size > 0) pack();
+        final File layoutFile = new File(directory, name + ".atlas");
+        try {
+            final Writer writer = new OutputStreamWriter(new FileOutputStream(layoutFile), "UTF-8");
+            try {
+                writer.write(TextureAtlas.HEADER + "\n");
+                for (int i = 0; i < pages.size; i++) {
+                    final String imageName = name + "_" + i + ".png";
+                    final Bitmap bitmap = renderPage(i);
+                    final FileOutputStream output = new FileOutputStream(new File(directory, imageName));
+                    try {
+                        bitmap.compress(Bitmap.CompressFormat.PNG, 100, output);
+                    } finally {
+                        output.close();
+                        bitmap.recycle();
+                    }
+                    writer.write("page\t" + imageName + "\t" + getPageWidth(i) + "\t" + getPageHeight(i) + "\n");
+                    for (Entry entry : pages.get(i).entries) {
+                        writer.write("region\t" + entry.name + "\t" + entry.x + "\t" + entry.y + "\t" + entry.width
+                                + "\t" + entry.height + "\n");
+                    }
+                }
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing atlas: " + layoutFile, e);
+        }
+        return layoutFile;
+    }
+
+    /**
+     * Forgets all bitmaps and pages. The added bitmaps are not recycled.
+     */
+    @Override
+    public void dispose() {
+        pages.clear();
+        pending.clear();
+    }
+}
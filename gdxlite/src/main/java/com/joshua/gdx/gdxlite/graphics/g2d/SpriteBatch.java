@@ -0,0 +1,494 @@
+package com.joshua.gdx.gdxlite.graphics.g2d;
+
+import android.opengl.GLES20;
+
+import com.joshua.gdx.gdxlite.graphics.Color;
+import com.joshua.gdx.gdxlite.graphics.Mesh;
+import com.joshua.gdx.gdxlite.graphics.Texture;
+import com.joshua.gdx.gdxlite.graphics.VertexAttribute;
+import com.joshua.gdx.gdxlite.graphics.VertexAttributes;
+import com.joshua.gdx.gdxlite.graphics.glutils.ShaderProgram;
+import com.joshua.gdx.gdxlite.math.Matrix4;
+import com.joshua.gdx.gdxlite.utils.Disposable;
+
+/**
+ * Draws batched textured quads. Every quad is written into a fixed-capacity interleaved vertex buffer
+ * (x, y, packed color, u, v) which shares a single static quad index buffer. The batch is only flushed, i.e. drawn
+ * with one glDrawElements call, when the texture or shader changes, when the buffer is full or on {@link #end()}.
+ * <p>
+ * Vertex colors are packed into one float via {@link Color#toFloatBits()}, so tinting does not increase the vertex
+ * size. The projection matrix defaults to the identity, i.e. coordinates are given in normalized device coordinates
+ * unless {@link #setProjectionMatrix(Matrix4)} is called.
+ * <p>
+ * A SpriteBatch must be disposed when it is no longer used.
+ */
+public class SpriteBatch implements Disposable {
+    /**
+     * The maximum number of quads a batch can hold, limited by 16 bit indices
+     */
+    public static final int MAX_SIZE = 8191;
+    /**
+     * The number of floats per vertex: x, y, color, u, v
+     */
+    public static final int VERTEX_SIZE = 5;
+    /**
+     * The number of floats per quad
+     */
+    public static final int SPRITE_SIZE = 4 * VERTEX_SIZE;
+
+    private final Mesh mesh;
+    private final float[] vertices;
+    private int idx = 0;
+
+    private Texture lastTexture = null;
+    private boolean drawing = false;
+
+    private final Matrix4 transformMatrix = new Matrix4();
+    private final Matrix4 projectionMatrix = new Matrix4();
+    private final Matrix4 combinedMatrix = new Matrix4();
+
+    private boolean blendingDisabled = false;
+    private int blendSrcFunc = GLES20.GL_SRC_ALPHA;
+    private int blendDstFunc = GLES20.GL_ONE_MINUS_SRC_ALPHA;
+
+    private final ShaderProgram shader;
+    private ShaderProgram customShader = null;
+    private final boolean ownsShader;
+
+    private final Color color = new Color(1, 1, 1, 1);
+    private float colorPacked = Color.WHITE_FLOAT_BITS;
+
+    /**
+     * number of render calls since the last {@link #begin()}
+     **/
+    public int renderCalls = 0;
+
+    /**
+     * number of rendering calls, ever. Will not be reset unless set manually.
+     **/
+    public int totalRenderCalls = 0;
+
+    /**
+     * maximum number of quads rendered in one batch so far.
+     **/
+    public int maxSpritesInBatch = 0;
+
+    /**
+     * Constructs a new SpriteBatch with a size of 1000 and the default shader.
+     */
+    public SpriteBatch() {
+        this(1000, null);
+    }
+
+    /**
+     * Constructs a SpriteBatch with the default shader.
+     *
+     * @param size the max number of quads in a single batch. Max of 8191.
+     */
+    public SpriteBatch(int size) {
+        this(size, null);
+    }
+
+    /**
+     * Constructs a new SpriteBatch. The shader must have the attributes {@link ShaderProgram#POSITION_ATTRIBUTE}
+     * (vec2), {@link ShaderProgram#COLOR_ATTRIBUTE} and {@link ShaderProgram#TEXCOORD_ATTRIBUTE}0, as well as the
+     * uniforms u_projTrans and u_texture.
+     *
+     * @param size          the max number of quads in a single batch. Max of 8191.
+     * @param defaultShader the default shader to use, or null to create and own a default one.
+     */
+    public SpriteBatch(int size, ShaderProgram defaultShader) {
+        if (size > MAX_SIZE) throw new IllegalArgumentException("Can't have more than " + MAX_SIZE + " sprites per " +
+                "batch: " + size);
+
+        mesh = new Mesh(false, true, size * 4, size * 6, new VertexAttributes(
+                new VertexAttribute(2, ShaderProgram.POSITION_ATTRIBUTE),
+                VertexAttribute.ColorPacked(),
+                VertexAttribute.TexCoords(0)));
+
+        projectionMatrix.idt();
+        transformMatrix.idt();
+
+        vertices = new float[size * SPRITE_SIZE];
+
+        int len = size * 6;
+        short[] indices = new short[len];
+        short j = 0;
+        for (int i = 0; i < len; i += 6, j += 4) {
+            indices[i] = j;
+            indices[i + 1] = (short) (j + 1);
+            indices[i + 2] = (short) (j + 2);
+            indices[i + 3] = (short) (j + 2);
+            indices[i + 4] = (short) (j + 3);
+            indices[i + 5] = j;
+        }
+        mesh.setIndices(indices);
+
+        if (defaultShader == null) {
+            shader = createDefaultShader();
+            ownsShader = true;
+        } else {
+            shader = defaultShader;
+            ownsShader = false;
+        }
+    }
+
+    /**
+     * Returns a new instance of the default shader used by SpriteBatch when no shader is specified.
+     */
+    public static ShaderProgram createDefaultShader() {
+        String vertexShader = "attribute vec4 " + ShaderProgram.POSITION_ATTRIBUTE + ";\n"
+                + "attribute vec4 " + ShaderProgram.COLOR_ATTRIBUTE + ";\n"
+                + "attribute vec2 " + ShaderProgram.TEXCOORD_ATTRIBUTE + "0;\n"
+                + "uniform mat4 u_projTrans;\n"
+                + "varying vec4 v_color;\n"
+                + "varying vec2 v_texCoords;\n"
+                + "\n"
+                + "void main()\n"
+                + "{\n"
+                + "   v_color = " + ShaderProgram.COLOR_ATTRIBUTE + ";\n"
+                + "   v_color.a = v_color.a * (255.0/254.0);\n"
+                + "   v_texCoords = " + ShaderProgram.TEXCOORD_ATTRIBUTE + "0;\n"
+                + "   gl_Position =  u_projTrans * " + ShaderProgram.POSITION_ATTRIBUTE + ";\n"
+                + "}\n";
+        String fragmentShader = "#ifdef GL_ES\n"
+                + "#define LOWP lowp\n"
+                + "precision mediump float;\n"
+                + "#else\n"
+                + "#define LOWP \n"
+                + "#endif\n"
+                + "varying LOWP vec4 v_color;\n"
+                + "varying vec2 v_texCoords;\n"
+                + "uniform sampler2D u_texture;\n"
+                + "void main()\n"
+                + "{\n"
+                + "  gl_FragColor = v_color * texture2D(u_texture, v_texCoords);\n"
+                + "}";
+
+        ShaderProgram shader = ShaderProgram.fromSource(vertexShader, fragmentShader);
+        if (!shader.isCompiled()) throw new IllegalArgumentException("Error compiling shader: " + shader.getLog());
+        return shader;
+    }
+
+    /**
+     * Sets up the batch for drawing. Disables depth writes and binds the shader.
+     */
+    public void begin() {
+        if (drawing) throw new IllegalStateException("SpriteBatch.end must be called before begin.");
+        renderCalls = 0;
+
+        GLES20.glDepthMask(false);
+        if (customShader != null)
+            customShader.begin();
+        else
+            shader.begin();
+        setupMatrices();
+
+        drawing = true;
+    }
+
+    /**
+     * Finishes off rendering. Flushes the remaining quads and restores the depth mask.
+     */
+    public void end() {
+        if (!drawing) throw new IllegalStateException("SpriteBatch.begin must be called before end.");
+        if (idx > 0) flush();
+        lastTexture = null;
+        drawing = false;
+
+        GLES20.glDepthMask(true);
+        if (isBlendingEnabled()) GLES20.glDisable(GLES20.GL_BLEND);
+
+        if (customShader != null)
+            customShader.end();
+        else
+            shader.end();
+    }
+
+    public void setColor(Color tint) {
+        color.set(tint);
+        colorPacked = tint.toFloatBits();
+    }
+
+    public void setColor(float r, float g, float b, float a) {
+        color.set(r, g, b, a);
+        colorPacked = color.toFloatBits();
+    }
+
+    /**
+     * @return the rendering color of this batch. If the returned instance is manipulated, {@link #setColor(Color)}
+     * must be called afterward.
+     */
+    public Color getColor() {
+        return color;
+    }
+
+    /**
+     * Sets the rendering color of this batch, expanding the alpha from 0-254 to 0-255.
+     *
+     * @see Color#toFloatBits()
+     */
+    public void setPackedColor(float packedColor) {
+        Color.abgr8888ToColor(color, packedColor);
+        this.colorPacked = packedColor;
+    }
+
+    public float getPackedColor() {
+        return colorPacked;
+    }
+
+    /**
+     * Draws a rectangle with the bottom left corner at x,y having the given width and height in world units. The
+     * whole texture is used.
+     */
+    public void draw(Texture texture, float x, float y, float width, float height) {
+        draw(texture, x, y, width, height, 0, 1, 1, 0);
+    }
+
+    /**
+     * Draws a rectangle with the bottom left corner at x,y having the given width and height in world units, using
+     * the texture coordinates u,v for the bottom left and u2,v2 for the top right corner.
+     */
+    public void draw(Texture texture, float x, float y, float width, float height, float u, float v, float u2,
+                     float v2) {
+        if (!drawing) throw new IllegalStateException("SpriteBatch.begin must be called before draw.");
+
+        float[] vertices = this.vertices;
+
+        if (texture != lastTexture)
+            switchTexture(texture);
+        else if (idx == vertices.length) //
+            flush();
+
+        final float fx2 = x + width;
+        final float fy2 = y + height;
+        final float color = this.colorPacked;
+        int idx = this.idx;
+        vertices[idx] = x;
+        vertices[idx + 1] = y;
+        vertices[idx + 2] = color;
+        vertices[idx + 3] = u;
+        vertices[idx + 4] = v;
+
+        vertices[idx + 5] = x;
+        vertices[idx + 6] = fy2;
+        vertices[idx + 7] = color;
+        vertices[idx + 8] = u;
+        vertices[idx + 9] = v2;
+
+        vertices[idx + 10] = fx2;
+        vertices[idx + 11] = fy2;
+        vertices[idx + 12] = color;
+        vertices[idx + 13] = u2;
+        vertices[idx + 14] = v2;
+
+        vertices[idx + 15] = fx2;
+        vertices[idx + 16] = y;
+        vertices[idx + 17] = color;
+        vertices[idx + 18] = u2;
+        vertices[idx + 19] = v;
+        this.idx = idx + SPRITE_SIZE;
+    }
+
+    /**
+     * Draws a rectangle with the bottom left corner at x,y the size of the region in world units.
+     */
+    public void draw(TextureRegion region, float x, float y) {
+        draw(region, x, y, region.getRegionWidth(), region.getRegionHeight());
+    }
+
+    /**
+     * Draws a rectangle with the bottom left corner at x,y having the given width and height in world units, using
+     * the texture coordinates of the region.
+     */
+    public void draw(TextureRegion region, float x, float y, float width, float height) {
+        draw(region.texture, x, y, width, height, region.u, region.v2, region.u2, region.v);
+    }
+
+    /**
+     * Draws quads using the given vertices. There must be 4 vertices, each made up of 5 elements in this order: x,
+     * y, color, u, v. The {@link #getColor()} of this batch is not applied.
+     */
+    public void draw(Texture texture, float[] spriteVertices, int offset, int count) {
+        if (!drawing) throw new IllegalStateException("SpriteBatch.begin must be called before draw.");
+
+        int verticesLength = vertices.length;
+        int remainingVertices = verticesLength;
+        if (texture != lastTexture)
+            switchTexture(texture);
+        else {
+            remainingVertices -= idx;
+            if (remainingVertices == 0) {
+                flush();
+                remainingVertices = verticesLength;
+            }
+        }
+        int copyCount = Math.min(remainingVertices, count);
+
+        System.arraycopy(spriteVertices, offset, vertices, idx, copyCount);
+        idx += copyCount;
+        count -= copyCount;
+        while (count > 0) {
+            offset += copyCount;
+            flush();
+            copyCount = Math.min(verticesLength, count);
+            System.arraycopy(spriteVertices, offset, vertices, 0, copyCount);
+            idx += copyCount;
+            count -= copyCount;
+        }
+    }
+
+    /**
+     * Causes any pending quads to be rendered, without ending the batch.
+     */
+    public void flush() {
+        if (idx == 0) return;
+
+        renderCalls++;
+        totalRenderCalls++;
+        int spritesInBatch = idx / SPRITE_SIZE;
+        if (spritesInBatch > maxSpritesInBatch) maxSpritesInBatch = spritesInBatch;
+        int count = spritesInBatch * 6;
+
+        lastTexture.bind();
+        mesh.setVertices(vertices, 0, idx);
+
+        if (blendingDisabled) {
+            GLES20.glDisable(GLES20.GL_BLEND);
+        } else {
+            GLES20.glEnable(GLES20.GL_BLEND);
+            GLES20.glBlendFunc(blendSrcFunc, blendDstFunc);
+        }
+
+        mesh.render(customShader != null ? customShader : shader, GLES20.GL_TRIANGLES, 0, count);
+
+        idx = 0;
+    }
+
+    /**
+     * Disables blending for drawing quads. Calling this within {@link #begin()}/{@link #end()} will flush the batch.
+     */
+    public void disableBlending() {
+        if (blendingDisabled) return;
+        flush();
+        blendingDisabled = true;
+    }
+
+    /**
+     * Enables blending for drawing quads. Calling this within {@link #begin()}/{@link #end()} will flush the batch.
+     */
+    public void enableBlending() {
+        if (!blendingDisabled) return;
+        flush();
+        blendingDisabled = false;
+    }
+
+    /**
+     * Sets the blending function to be used when rendering quads.
+     *
+     * @param srcFunc the source function, e.g. GL_SRC_ALPHA
+     * @param dstFunc the destination function, e.g. GL_ONE_MINUS_SRC_ALPHA
+     */
+    public void setBlendFunction(int srcFunc, int dstFunc) {
+        if (blendSrcFunc == srcFunc && blendDstFunc == dstFunc) return;
+        flush();
+        blendSrcFunc = srcFunc;
+        blendDstFunc = dstFunc;
+    }
+
+    public int getBlendSrcFunc() {
+        return blendSrcFunc;
+    }
+
+    public int getBlendDstFunc() {
+        return blendDstFunc;
+    }
+
+    public boolean isBlendingEnabled() {
+        return !blendingDisabled;
+    }
+
+    public Matrix4 getProjectionMatrix() {
+        return projectionMatrix;
+    }
+
+    public Matrix4 getTransformMatrix() {
+        return transformMatrix;
+    }
+
+    /**
+     * Sets the projection matrix to be used by this batch. If this is called inside a {@link #begin()}/
+     * {@link #end()} block, the current batch is flushed.
+     */
+    public void setProjectionMatrix(Matrix4 projection) {
+        if (drawing) flush();
+        projectionMatrix.set(projection);
+        if (drawing) setupMatrices();
+    }
+
+    /**
+     * Sets the transform matrix to be used by this batch. If this is called inside a {@link #begin()}/
+     * {@link #end()} block, the current batch is flushed.
+     */
+    public void setTransformMatrix(Matrix4 transform) {
+        if (drawing) flush();
+        transformMatrix.set(transform);
+        if (drawing) setupMatrices();
+    }
+
+    private void setupMatrices() {
+        combinedMatrix.set(projectionMatrix).mul(transformMatrix);
+        if (customShader != null) {
+            customShader.setUniformMatrix("u_projTrans", combinedMatrix);
+            customShader.setUniformi("u_texture", 0);
+        } else {
+            shader.setUniformMatrix("u_projTrans", combinedMatrix);
+            shader.setUniformi("u_texture", 0);
+        }
+    }
+
+    protected void switchTexture(Texture texture) {
+        flush();
+        lastTexture = texture;
+    }
+
+    /**
+     * Sets the shader to be used. The previous batch is flushed and the new shader is bound if called between
+     * {@link #begin()} and {@link #end()}. Call with null to restore the default shader.
+     */
+    public void setShader(ShaderProgram shader) {
+        if (shader == customShader) return;
+        if (drawing) {
+            flush();
+            if (customShader != null)
+                customShader.end();
+            else
+                this.shader.end();
+        }
+        customShader = shader;
+        if (drawing) {
+            if (customShader != null)
+                customShader.begin();
+            else
+                this.shader.begin();
+            setupMatrices();
+        }
+    }
+
+    public ShaderProgram getShader() {
+        if (customShader == null) {
+            return shader;
+        }
+        return customShader;
+    }
+
+    public boolean isDrawing() {
+        return drawing;
+    }
+
+    @Override
+    public void dispose() {
+        mesh.dispose();
+        if (ownsShader && shader != null) shader.dispose();
+    }
+}
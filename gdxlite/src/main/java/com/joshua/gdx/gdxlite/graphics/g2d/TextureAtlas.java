@@ -0,0 +1,170 @@
+package com.joshua.gdx.gdxlite.graphics.g2d;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import com.joshua.gdx.gdxlite.graphics.BitmapTextureData;
+import com.joshua.gdx.gdxlite.graphics.Texture;
+import com.joshua.gdx.gdxlite.graphics.Texture.TextureFilter;
+import com.joshua.gdx.gdxlite.utils.Array;
+import com.joshua.gdx.gdxlite.utils.Disposable;
+import com.joshua.gdx.gdxlite.utils.FileUtil;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+/**
+ * Named {@link TextureRegion}s packed into one or more page textures, either generated at runtime by
+ * {@link AtlasPacker#generateTextureAtlas(boolean)} or loaded from a layout written by
+ * {@link AtlasPacker#save(File, String)}. Drawing regions of the same page with a {@link SpriteBatch} doesn't break
+ * the batch.
+ * <p>
+ * The layout is a text file starting with the line {@value #HEADER}, followed by one tab separated page line per page
+ * and the region lines of that page:
+ *
+ * <pre>
+ * page   &lt;image file&gt; &lt;width&gt; &lt;height&gt;
+ * region &lt;name&gt; &lt;x&gt; &lt;y&gt; &lt;width&gt; &lt;height&gt;
+ * </pre>
+ * <p>
+ * Image files are relative to the layout file. The atlas owns its page textures and disposes them.
+ */
+public class TextureAtlas implements Disposable {
+    static final String HEADER = "gdxlite-atlas 1";
+
+    /**
+     * A region of an atlas page with its name.
+     */
+    public static class AtlasRegion extends TextureRegion {
+        /**
+         * the name of the packed image
+         */
+        public final String name;
+        /**
+         * the index of the page the region is on
+         */
+        public final int page;
+
+        public AtlasRegion(Texture texture, int x, int y, int width, int height, String name, int page) {
+            super(texture, x, y, width, height);
+            this.name = name;
+            this.page = page;
+        }
+    }
+
+    private final Array<Texture> pages = new Array<Texture>();
+    private final Array<Bitmap> bitmaps = new Array<Bitmap>();
+    private final Array<AtlasRegion> regions = new Array<AtlasRegion>();
+
+    TextureAtlas() {
+    }
+
+    /**
+     * Loads an atlas from a layout file in the file system, decoding the page images from the same directory.
+     */
+    public TextureAtlas(File layoutFile, boolean useMipMaps) {
+        try {
+            load(new FileInputStream(layoutFile), layoutFile.getParent(), false, true, useMipMaps);
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading atlas: " + layoutFile, e);
+        }
+    }
+
+    /**
+     * Loads an atlas from a layout file in the assets or on external storage, see {@link FileUtil}.
+     */
+    public TextureAtlas(String layoutFile, boolean internal, boolean useMipMaps) {
+        final InputStream input = internal ? FileUtil.internal(layoutFile) : FileUtil.external(layoutFile);
+        final int slash = layoutFile.lastIndexOf('/');
+        try {
+            load(input, slash < 0 ? null : layoutFile.substring(0, slash), internal, false, useMipMaps);
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading atlas: " + layoutFile, e);
+        }
+    }
+
+    private void load(InputStream input, String directory, boolean internal, boolean file, boolean useMipMaps)
+            throws IOException {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(input, "UTF-8"));
+        try {
+            if (!HEADER.equals(reader.readLine())) throw new RuntimeException("Not an atlas layout");
+            Texture page = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.length() == 0) continue;
+                final String[] tokens = line.split("\t");
+                if ("page".equals(tokens[0]) && tokens.length == 4) {
+                    final String path = directory == null ? tokens[1] : directory + "/" + tokens[1];
+                    if (file) {
+                        final Bitmap bitmap = BitmapFactory.decodeFile(path);
+                        if (bitmap == null) throw new RuntimeException("Couldn't decode atlas page: " + path);
+                        page = new Texture(new BitmapTextureData(bitmap, useMipMaps, false));
+                        bitmaps.add(bitmap);
+                    } else {
+                        page = new Texture(path, internal, useMipMaps);
+                    }
+                    pages.add(page);
+                } else if ("region".equals(tokens[0]) && tokens.length == 6 && page != null) {
+                    regions.add(new AtlasRegion(page, Integer.parseInt(tokens[2]), Integer.parseInt(tokens[3]),
+                            Integer.parseInt(tokens[4]), Integer.parseInt(tokens[5]), tokens[1], pages.size - 1));
+                } else {
+                    throw new RuntimeException("Invalid atlas line: " + line);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    void addPage(Texture texture, Bitmap bitmap) {
+        pages.add(texture);
+        if (bitmap != null) bitmaps.add(bitmap);
+    }
+
+    void addRegion(AtlasRegion region) {
+        regions.add(region);
+    }
+
+    /**
+     * @return the first region with the given name, or null
+     */
+    public AtlasRegion findRegion(String name) {
+        for (int i = 0, n = regions.size; i < n; i++)
+            if (regions.get(i).name.equals(name)) return regions.get(i);
+        return null;
+    }
+
+    public Array<AtlasRegion> getRegions() {
+        return regions;
+    }
+
+    public Array<Texture> getTextures() {
+        return pages;
+    }
+
+    /**
+     * Sets the filter of all pages.
+     */
+    public void setFilter(TextureFilter minFilter, TextureFilter magFilter) {
+        for (Texture page : pages)
+            page.setFilter(minFilter, magFilter);
+    }
+
+    /**
+     * Disposes the page textures and releases their images.
+     */
+    @Override
+    public void dispose() {
+        for (Texture page : pages)
+            page.dispose();
+        for (Bitmap bitmap : bitmaps)
+            bitmap.recycle();
+        pages.clear();
+        bitmaps.clear();
+        regions.clear();
+    }
+}
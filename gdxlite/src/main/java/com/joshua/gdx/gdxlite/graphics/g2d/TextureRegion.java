@@ -0,0 +1,170 @@
+package com.joshua.gdx.gdxlite.graphics.g2d;
+
+import com.joshua.gdx.gdxlite.graphics.Texture;
+
+/**
+ * Defines a rectangular area of a texture. The coordinate system used has its origin in the upper left corner with
+ * the x-axis pointing to the right and the y axis pointing downwards, matching the rows of the uploaded bitmap.
+ */
+public class TextureRegion {
+    Texture texture;
+    float u, v;
+    float u2, v2;
+    int regionWidth, regionHeight;
+
+    /**
+     * Constructs a region that cannot be used until a texture and texture coordinates are set.
+     */
+    public TextureRegion() {
+    }
+
+    /**
+     * Constructs a region the size of the specified texture.
+     */
+    public TextureRegion(Texture texture) {
+        this.texture = texture;
+        setRegion(0, 0, texture.getWidth(), texture.getHeight());
+    }
+
+    /**
+     * @param x      the x coordinate of the top left corner in pixels
+     * @param y      the y coordinate of the top left corner in pixels
+     * @param width  the width of the region in pixels
+     * @param height the height of the region in pixels
+     */
+    public TextureRegion(Texture texture, int x, int y, int width, int height) {
+        this.texture = texture;
+        setRegion(x, y, width, height);
+    }
+
+    public TextureRegion(Texture texture, float u, float v, float u2, float v2) {
+        this.texture = texture;
+        setRegion(u, v, u2, v2);
+    }
+
+    /**
+     * Constructs a region with the same texture and coordinates of the specified region.
+     */
+    public TextureRegion(TextureRegion region) {
+        setRegion(region);
+    }
+
+    /**
+     * Sets the texture and sets the coordinates to the size of the specified texture.
+     */
+    public void setRegion(Texture texture) {
+        this.texture = texture;
+        setRegion(0, 0, texture.getWidth(), texture.getHeight());
+    }
+
+    /**
+     * Sets the coordinates in pixels, the top left corner being 0,0.
+     */
+    public void setRegion(int x, int y, int width, int height) {
+        final float invTexWidth = 1f / texture.getWidth();
+        final float invTexHeight = 1f / texture.getHeight();
+        setRegion(x * invTexWidth, y * invTexHeight, (x + width) * invTexWidth, (y + height) * invTexHeight);
+        regionWidth = Math.abs(width);
+        regionHeight = Math.abs(height);
+    }
+
+    public void setRegion(float u, float v, float u2, float v2) {
+        this.u = u;
+        this.v = v;
+        this.u2 = u2;
+        this.v2 = v2;
+        if (texture != null) {
+            regionWidth = Math.round(Math.abs(u2 - u) * texture.getWidth());
+            regionHeight = Math.round(Math.abs(v2 - v) * texture.getHeight());
+        }
+    }
+
+    /**
+     * Sets the texture and coordinates to the specified region.
+     */
+    public void setRegion(TextureRegion region) {
+        texture = region.texture;
+        setRegion(region.u, region.v, region.u2, region.v2);
+        regionWidth = region.regionWidth;
+        regionHeight = region.regionHeight;
+    }
+
+    public Texture getTexture() {
+        return texture;
+    }
+
+    public void setTexture(Texture texture) {
+        this.texture = texture;
+    }
+
+    /**
+     * @return the u coordinate of the left edge
+     */
+    public float getU() {
+        return u;
+    }
+
+    /**
+     * @return the v coordinate of the top edge
+     */
+    public float getV() {
+        return v;
+    }
+
+    /**
+     * @return the u coordinate of the right edge
+     */
+    public float getU2() {
+        return u2;
+    }
+
+    /**
+     * @return the v coordinate of the bottom edge
+     */
+    public float getV2() {
+        return v2;
+    }
+
+    public int getRegionX() {
+        return Math.round(u * texture.getWidth());
+    }
+
+    public int getRegionY() {
+        return Math.round(v * texture.getHeight());
+    }
+
+    /**
+     * @return the region's width in pixels
+     */
+    public int getRegionWidth() {
+        return regionWidth;
+    }
+
+    /**
+     * @return the region's height in pixels
+     */
+    public int getRegionHeight() {
+        return regionHeight;
+    }
+
+    public void flip(boolean x, boolean y) {
+        if (x) {
+            final float temp = u;
+            u = u2;
+            u2 = temp;
+        }
+        if (y) {
+            final float temp = v;
+            v = v2;
+            v2 = temp;
+        }
+    }
+
+    public boolean isFlipX() {
+        return u > u2;
+    }
+
+    public boolean isFlipY() {
+        return v > v2;
+    }
+}
@@ -0,0 +1,454 @@
+package com.joshua.gdx.gdxlite.graphics.g2d;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Rect;
+import android.opengl.GLES20;
+import android.opengl.GLUtils;
+import android.util.Log;
+
+import com.joshua.gdx.gdxlite.graphics.GLOnlyTextureData;
+import com.joshua.gdx.gdxlite.graphics.OrthographicCamera;
+import com.joshua.gdx.gdxlite.graphics.Texture;
+import com.joshua.gdx.gdxlite.graphics.Texture.TextureFilter;
+import com.joshua.gdx.gdxlite.graphics.Texture.TextureWrap;
+import com.joshua.gdx.gdxlite.math.Vector3;
+import com.joshua.gdx.gdxlite.utils.Disposable;
+import com.joshua.gdx.gdxlite.utils.FileUtil;
+import com.joshua.gdx.gdxlite.utils.FloatArray;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Draws images too large for a texture or for memory, e.g. maps of many thousand pixels, by paging tiles in on demand.
+ * The image is split into tiles of a pyramid of levels, level n downsampled by 2^n. {@link #update(OrthographicCamera)}
+ * selects the level matching the camera zoom and the tiles it sees, decodes missing ones with a
+ * {@link BitmapRegionDecoder} on a worker thread and uploads them into slots of a single cache texture, replacing the
+ * least recently seen tiles. Memory therefore stays bounded by the cache size, whatever the image size.
+ * <p>
+ * Until a tile is resident, the part of a coarser resident tile covering it is drawn. The coarsest level holds the
+ * whole image in one tile and is kept resident, so the image is never missing once that tile is loaded.
+ *
+ * <pre>
+ * camera.update();
+ * image.update(camera);
+ * batch.setProjectionMatrix(camera.combined);
+ * batch.begin();
+ * image.draw(batch);
+ * batch.end();
+ * </pre>
+ * <p>
+ * The image is drawn with its bottom left corner at {@link #x}, {@link #y}, one world unit per image pixel times
+ * {@link #scale}. The level selection assumes the camera viewport is measured in screen pixels.
+ */
+public class TiledImage implements Disposable {
+    private static final String TAG = "TiledImage";
+    /**
+     * pixels around each tile copied from its neighbours, or repeating its edge at the image edge, so bilinear
+     * filtering doesn't show seams
+     */
+    private static final int BORDER = 1;
+
+    private static class Tile {
+        final long key;
+        final int level, column, row;
+        int slot = -1;
+        volatile int frame;
+        Bitmap bitmap;
+        /**
+         * the tile's pixels within its slot, in texels
+         */
+        float offsetX, offsetY, width, height;
+
+        Tile(long key, int level, int column, int row) {
+            this.key = key;
+            this.level = level;
+            this.column = column;
+            this.row = row;
+        }
+    }
+
+    /**
+     * the position of the bottom left corner in world units
+     */
+    public float x, y;
+    /**
+     * the world units per image pixel
+     */
+    public float scale = 1;
+    /**
+     * added to the selected level, positive values use coarser tiles
+     */
+    public float lodBias = 0;
+    /**
+     * the number of decoded tiles {@link #update(OrthographicCamera)} uploads per call
+     */
+    public int maxUploadsPerFrame = 4;
+
+    private final BitmapRegionDecoder decoder;
+    private final int imageWidth, imageHeight;
+    private final int tileSize, numLevels;
+    private final Texture cache;
+    private final int cacheSize, slotSize, slotsPerRow, numSlots;
+    private final Tile[] slots;
+    private int usedSlots;
+    /**
+     * the resident tiles, least recently seen first
+     */
+    private final LinkedHashMap<Long, Tile> resident = new LinkedHashMap<Long, Tile>(16, 0.75f, true);
+    private final HashMap<Long, Tile> requested = new HashMap<Long, Tile>();
+    private final ExecutorService executor;
+    private final LinkedBlockingQueue<Tile> decoded = new LinkedBlockingQueue<Tile>();
+    private final FloatArray quads = new FloatArray(false, 64 * 8);
+    private volatile int frame;
+
+    /**
+     * @param tileSize  the size of a tile in pixels, 256 or 512
+     * @param cacheSize the width and height of the cache texture in pixels, at most GL_MAX_TEXTURE_SIZE
+     */
+    public TiledImage(String filename, boolean internal, int tileSize, int cacheSize) {
+        final InputStream input = internal ? FileUtil.internal(filename) : FileUtil.external(filename);
+        try {
+            decoder = BitmapRegionDecoder.newInstance(input, false);
+        } catch (IOException e) {
+            throw new RuntimeException("Couldn't open " + filename, e);
+        } finally {
+            try {
+                input.close();
+            } catch (IOException ignored) {
+            }
+        }
+        this.imageWidth = decoder.getWidth();
+        this.imageHeight = decoder.getHeight();
+        this.tileSize = tileSize;
+        int levels = 1;
+        while (Math.max(imageWidth, imageHeight) > tileSize << (levels - 1)) levels++;
+        this.numLevels = levels;
+
+        this.cacheSize = cacheSize;
+        this.slotSize = tileSize + 2 * BORDER;
+        this.slotsPerRow = cacheSize / slotSize;
+        this.numSlots = slotsPerRow * slotsPerRow;
+        if (numSlots < 2) throw new IllegalArgumentException("Cache of " + cacheSize + " can't hold two tiles");
+        this.slots = new Tile[numSlots];
+        cache = new Texture(new GLOnlyTextureData(cacheSize, cacheSize, 0, GLES20.GL_RGBA, GLES20.GL_RGBA,
+                GLES20.GL_UNSIGNED_BYTE));
+        cache.setFilter(TextureFilter.Linear, TextureFilter.Linear);
+        cache.setWrap(TextureWrap.ClampToEdge, TextureWrap.ClampToEdge);
+
+        executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                final Thread thread = new Thread(runnable, TAG);
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Selects the visible tiles, requests missing ones, uploads decoded ones and prepares {@link #draw(SpriteBatch)}.
+     * Must be called on the GL thread, outside of {@link SpriteBatch#begin()} and {@link SpriteBatch#end()}.
+     *
+     * @param camera the camera the image is drawn with, its frustum must be up to date
+     */
+    public void update(OrthographicCamera camera) {
+        final int frame = ++this.frame;
+        upload(frame);
+
+        // the visible rectangle in image pixels, rows from the top
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            final Vector3 point = camera.frustum.planePoints[i];
+            minX = Math.min(minX, point.x);
+            maxX = Math.max(maxX, point.x);
+            minY = Math.min(minY, point.y);
+            maxY = Math.max(maxY, point.y);
+        }
+        final float left = (minX - x) / scale, right = (maxX - x) / scale;
+        final float top = imageHeight - (maxY - y) / scale, bottom = imageHeight - (minY - y) / scale;
+
+        final float texelsPerPixel = camera.zoom / scale;
+        final int level = Math.max(0, Math.min(numLevels - 1,
+                (int) Math.floor(Math.log(texelsPerPixel) / Math.log(2) + lodBias)));
+
+        quads.clear();
+        // the coarsest tile stays resident as the fallback of all others
+        final Tile root = obtain(numLevels - 1, 0, 0, frame);
+        if (right <= 0 || bottom <= 0 || left >= imageWidth || top >= imageHeight) return;
+        final int span = tileSize << level;
+        final int firstColumn = Math.max(0, (int) (left / span));
+        final int lastColumn = Math.min((imageWidth - 1) / span, (int) (right / span));
+        final int firstRow = Math.max(0, (int) (top / span));
+        final int lastRow = Math.min((imageHeight - 1) / span, (int) (bottom / span));
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                Tile tile = obtain(level, column, row, frame);
+                // fall back to the nearest resident ancestor
+                int ancestor = level;
+                while (tile.slot < 0 && ancestor < numLevels - 1) {
+                    ancestor++;
+                    tile = ancestor == numLevels - 1 ? root : find(ancestor, column >> (ancestor - level),
+                            row >> (ancestor - level), frame);
+                }
+                if (tile.slot >= 0) addQuad(tile, column * span, row * span, span);
+            }
+        }
+    }
+
+    private static long key(int level, int column, int row) {
+        return (long) level << 48 | (long) row << 24 | column;
+    }
+
+    /**
+     * @return the tile, marked as seen, requested if not resident
+     */
+    private Tile obtain(int level, int column, int row, int frame) {
+        final long key = key(level, column, row);
+        Tile tile = resident.get(key);
+        if (tile == null) tile = requested.get(key);
+        if (tile == null) {
+            tile = new Tile(key, level, column, row);
+            requested.put(key, tile);
+            request(tile);
+        }
+        tile.frame = frame;
+        return tile;
+    }
+
+    /**
+     * @return the tile, marked as seen if resident, an empty tile otherwise
+     */
+    private Tile find(int level, int column, int row, int frame) {
+        final long key = key(level, column, row);
+        Tile tile = resident.get(key);
+        if (tile == null) tile = requested.get(key);
+        if (tile == null) return new Tile(key, level, column, row);
+        tile.frame = frame;
+        return tile;
+    }
+
+    private void request(final Tile tile) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                // skip tiles that went out of view while queued
+                if (frame - tile.frame <= 1) tile.bitmap = decode(tile);
+                decoded.add(tile);
+            }
+        });
+    }
+
+    private Bitmap decode(Tile tile) {
+        final int sampleSize = 1 << tile.level;
+        final int span = tileSize << tile.level;
+        final int x0 = tile.column * span, y0 = tile.row * span;
+        final int x1 = Math.min(imageWidth, x0 + span), y1 = Math.min(imageHeight, y0 + span);
+        final int border = BORDER * sampleSize;
+        final Rect region = new Rect(Math.max(0, x0 - border), Math.max(0, y0 - border),
+                Math.min(imageWidth, x1 + border), Math.min(imageHeight, y1 + border));
+        final BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sampleSize;
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        try {
+            final Bitmap bitmap = decoder.decodeRegion(region, options);
+            if (bitmap == null) return null;
+            // the decoder rounds the downsampled size, measure the scale it actually used
+            final float scaleX = bitmap.getWidth() / (float) region.width();
+            final float scaleY = bitmap.getHeight() / (float) region.height();
+            tile.offsetX = (x0 - region.left) * scaleX;
+            tile.offsetY = (y0 - region.top) * scaleY;
+            tile.width = (x1 - x0) * scaleX;
+            tile.height = (y1 - y0) * scaleY;
+            // sides on the image edge have no neighbour to take a border from
+            final int left = Math.max(0, BORDER - Math.round(tile.offsetX));
+            final int top = Math.max(0, BORDER - Math.round(tile.offsetY));
+            final int right = Math.max(0, BORDER - Math.round(bitmap.getWidth() - tile.offsetX - tile.width));
+            final int bottom = Math.max(0, BORDER - Math.round(bitmap.getHeight() - tile.offsetY - tile.height));
+            if (left == 0 && top == 0 && right == 0 && bottom == 0) return bitmap;
+            tile.offsetX += left;
+            tile.offsetY += top;
+            return extrude(bitmap, left, top, right, bottom);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Couldn't decode tile " + tile.column + ", " + tile.row + " of level " + tile.level, e);
+            return null;
+        }
+    }
+
+    /**
+     * Adds borders repeating the edge pixels of the bitmap, so linear filtering at the image edge doesn't blend in the
+     * neighbouring slot. Recycles the bitmap.
+     */
+    private static Bitmap extrude(Bitmap bitmap, int left, int top, int right, int bottom) {
+        final int width = bitmap.getWidth(), height = bitmap.getHeight();
+        final int stride = left + width + right, rows = top + height + bottom;
+        final int[] pixels = new int[stride * rows];
+        bitmap.getPixels(pixels, top * stride + left, stride, 0, 0, width, height);
+        bitmap.recycle();
+        for (int y = top; y < top + height; y++) {
+            final int row = y * stride;
+            final int first = pixels[row + left], last = pixels[row + left + width - 1];
+            for (int x = 0; x < left; x++)
+                pixels[row + x] = first;
+            for (int x = left + width; x < stride; x++)
+                pixels[row + x] = last;
+        }
+        for (int y = 0; y < top; y++)
+            System.arraycopy(pixels, top * stride, pixels, y * stride, stride);
+        for (int y = top + height; y < rows; y++)
+            System.arraycopy(pixels, (top + height - 1) * stride, pixels, y * stride, stride);
+        return Bitmap.createBitmap(pixels, stride, rows, Bitmap.Config.ARGB_8888);
+    }
+
+    private void upload(int frame) {
+        for (int uploads = 0; uploads < maxUploadsPerFrame; ) {
+            final Tile tile = decoded.poll();
+            if (tile == null) break;
+            requested.remove(tile.key);
+            if (tile.bitmap == null) continue;
+            final int slot = allocateSlot(frame);
+            if (slot >= 0) {
+                tile.slot = slot;
+                slots[slot] = tile;
+                resident.put(tile.key, tile);
+                cache.bind();
+                GLES20.glPixelStorei(GLES20.GL_UNPACK_ALIGNMENT, 1);
+                GLUtils.texSubImage2D(GLES20.GL_TEXTURE_2D, 0, slot % slotsPerRow * slotSize,
+                        slot / slotsPerRow * slotSize, tile.bitmap);
+                GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, 0);
+                uploads++;
+            }
+            tile.bitmap.recycle();
+            tile.bitmap = null;
+        }
+    }
+
+    /**
+     * @return a free slot, evicting the least recently seen tile not seen this or the last frame, or -1 if all tiles
+     * are in view
+     */
+    private int allocateSlot(int frame) {
+        if (usedSlots < numSlots) return usedSlots++;
+        final long root = key(numLevels - 1, 0, 0);
+        for (Iterator<Tile> iterator = resident.values().iterator(); iterator.hasNext(); ) {
+            final Tile tile = iterator.next();
+            if (frame - tile.frame <= 1 || tile.key == root) continue;
+            iterator.remove();
+            final int slot = tile.slot;
+            tile.slot = -1;
+            slots[slot] = null;
+            return slot;
+        }
+        Log.w(TAG, "Cache of " + numSlots + " tiles is too small for the visible tiles");
+        return -1;
+    }
+
+    /**
+     * Adds the part of a resident tile covering an area of the image.
+     *
+     * @param areaX    the left of the area in image pixels
+     * @param areaY    the top of the area in image pixels, rows from the top
+     * @param areaSpan the size of the area in image pixels
+     */
+    private void addQuad(Tile tile, int areaX, int areaY, int areaSpan) {
+        final int span = tileSize << tile.level;
+        final int tileX = tile.column * span, tileY = tile.row * span;
+        final int tileRight = Math.min(imageWidth, tileX + span), tileBottom = Math.min(imageHeight, tileY + span);
+        final int right = Math.min(tileRight, areaX + areaSpan), bottom = Math.min(tileBottom, areaY + areaSpan);
+        // texels of the tile per image pixel
+        final float scaleX = tile.width / (tileRight - tileX), scaleY = tile.height / (tileBottom - tileY);
+        final float slotX = tile.slot % slotsPerRow * slotSize + tile.offsetX;
+        final float slotY = tile.slot / slotsPerRow * slotSize + tile.offsetY;
+        final float u = (slotX + (areaX - tileX) * scaleX) / cacheSize;
+        final float u2 = (slotX + (right - tileX) * scaleX) / cacheSize;
+        final float v = (slotY + (bottom - tileY) * scaleY) / cacheSize;
+        final float v2 = (slotY + (areaY - tileY) * scaleY) / cacheSize;
+        quads.add(x + areaX * scale, y + (imageHeight - bottom) * scale, (right - areaX) * scale,
+                (bottom - areaY) * scale);
+        quads.add(u, v, u2, v2);
+    }
+
+    /**
+     * Draws the tiles selected by the last {@link #update(OrthographicCamera)}, all from the cache texture, so they
+     * don't break the batch.
+     */
+    public void draw(SpriteBatch batch) {
+        final float[] items = quads.items;
+        for (int i = 0; i < quads.size; i += 8) {
+            batch.draw(cache, items[i], items[i + 1], items[i + 2], items[i + 3], items[i + 4], items[i + 5],
+                    items[i + 6], items[i + 7]);
+        }
+    }
+
+    /**
+     * Drops all resident tiles, e.g. after a context loss cleared the cache texture. They are paged in again.
+     */
+    public void invalidate() {
+        for (Tile tile : resident.values()) tile.slot = -1;
+        resident.clear();
+        for (int i = 0; i < numSlots; i++) slots[i] = null;
+        usedSlots = 0;
+        quads.clear();
+    }
+
+    public int getImageWidth() {
+        return imageWidth;
+    }
+
+    public int getImageHeight() {
+        return imageHeight;
+    }
+
+    public int getNumLevels() {
+        return numLevels;
+    }
+
+    /**
+     * @return the number of tiles in the cache texture
+     */
+    public int getNumResident() {
+        return resident.size();
+    }
+
+    /**
+     * @return the number of tiles being decoded or waiting for their upload
+     */
+    public int getNumRequested() {
+        return requested.size();
+    }
+
+    public Texture getCacheTexture() {
+        return cache;
+    }
+
+    /**
+     * Stops the worker and disposes the decoder and the cache texture.
+     */
+    @Override
+    public void dispose() {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Tile tile;
+        while ((tile = decoded.poll()) != null)
+            if (tile.bitmap != null) tile.bitmap.recycle();
+        decoder.recycle();
+        cache.dispose();
+        resident.clear();
+        requested.clear();
+    }
+}
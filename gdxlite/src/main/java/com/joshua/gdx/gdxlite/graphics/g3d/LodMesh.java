@@ -0,0 +1,156 @@
+package com.joshua.gdx.gdxlite.graphics.g3d;
+
+import android.opengl.GLES20;
+
+import com.joshua.gdx.gdxlite.graphics.Mesh;
+import com.joshua.gdx.gdxlite.graphics.VertexAttribute;
+import com.joshua.gdx.gdxlite.graphics.VertexAttributes;
+import com.joshua.gdx.gdxlite.graphics.glutils.ShaderProgram;
+import com.joshua.gdx.gdxlite.math.Vector3;
+import com.joshua.gdx.gdxlite.utils.Array;
+import com.joshua.gdx.gdxlite.utils.Disposable;
+
+/**
+ * A {@link Mesh} with several levels of detail generated by {@link MeshSimplifier}. All levels share the vertex buffer
+ * and are stored back to back in one index buffer, level 0 being the full detail. Each level is vertex cache
+ * optimized on its own. Use a {@link LodSelector} to pick the level to render each frame.
+ */
+public class LodMesh implements Disposable {
+    /**
+     * The default triangle ratios of the generated levels relative to the full detail mesh
+     */
+    public static final float[] DEFAULT_RATIOS = {1f, 0.5f, 0.25f, 0.125f};
+
+    /**
+     * A range of the index buffer holding one level of detail.
+     */
+    public static class Level {
+        public int indexOffset;
+        public int indexCount;
+        /**
+         * the simplification error of this level in local units
+         */
+        public float error;
+    }
+
+    private final Mesh mesh;
+    private final Array<Level> levels;
+    /**
+     * center of the local bounding sphere
+     */
+    public final Vector3 center = new Vector3();
+    /**
+     * radius of the local bounding sphere
+     */
+    public float radius;
+
+    /**
+     * Generates levels of detail with {@link #DEFAULT_RATIOS}, see
+     * {@link #LodMesh(float[], int, int[], int, VertexAttributes, float[])}.
+     */
+    public LodMesh(float[] vertices, int numFloats, int[] indices, int numIndices, VertexAttributes attributes) {
+        this(vertices, numFloats, indices, numIndices, attributes, DEFAULT_RATIOS);
+    }
+
+    /**
+     * Generates a level of detail for each ratio and uploads them into a static mesh.
+     *
+     * @param vertices   the vertices laid out as specified by attributes
+     * @param numFloats  the number of floats to use from vertices
+     * @param indices    the full detail triangle list indices
+     * @param numIndices the number of indices to use
+     * @param attributes the vertex layout, must contain a 3 component float
+     *                   {@link ShaderProgram#POSITION_ATTRIBUTE}
+     * @param ratios     the decreasing triangle ratios of the levels relative to the full detail mesh. Levels which
+     *                   can't be simplified further than the previous one are dropped.
+     */
+    public LodMesh(float[] vertices, int numFloats, int[] indices, int numIndices, VertexAttributes attributes,
+                   float[] ratios) {
+        VertexAttribute position = null;
+        for (VertexAttribute attribute : attributes) {
+            if (ShaderProgram.POSITION_ATTRIBUTE.equals(attribute.alias)) position = attribute;
+        }
+        if (position == null || position.numComponents != 3)
+            throw new IllegalArgumentException("LodMesh requires a 3 component position attribute");
+        final int stride = attributes.vertexSize / 4;
+        final int positionOffset = position.offset / 4;
+        final int numVertices = numFloats / stride;
+
+        final MeshSimplifier simplifier = new MeshSimplifier(vertices, numFloats, stride, positionOffset, indices,
+                numIndices);
+        final Array<int[]> lodIndices = new Array<int[]>();
+        levels = new Array<Level>();
+        int total = 0;
+        for (float ratio : ratios) {
+            final int target = Math.max(3, (int) (numIndices * ratio) / 3 * 3);
+            final int[] lod = simplifier.simplify(target, -1);
+            if (levels.size > 0 && lod.length >= levels.peek().indexCount) continue;
+            MeshOptimizer.optimizeVertexCache(lod, lod.length, numVertices, MeshOptimizer.DEFAULT_CACHE_SIZE, null);
+            final Level level = new Level();
+            level.indexOffset = total;
+            level.indexCount = lod.length;
+            level.error = simplifier.getError();
+            levels.add(level);
+            lodIndices.add(lod);
+            total += lod.length;
+        }
+
+        final int[] merged = new int[total];
+        for (int i = 0; i < levels.size; i++)
+            System.arraycopy(lodIndices.get(i), 0, merged, levels.get(i).indexOffset, levels.get(i).indexCount);
+        mesh = new Mesh(true, numVertices, total, attributes);
+        mesh.setVertices(vertices, 0, numFloats);
+        mesh.setIndices(merged, 0, total);
+        calculateBounds(vertices, numVertices, stride, positionOffset);
+    }
+
+    private void calculateBounds(float[] vertices, int numVertices, int stride, int positionOffset) {
+        final Vector3 min = new Vector3(Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY);
+        final Vector3 max = new Vector3(Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY);
+        for (int i = 0, o = positionOffset; i < numVertices; i++, o += stride) {
+            min.set(Math.min(min.x, vertices[o]), Math.min(min.y, vertices[o + 1]), Math.min(min.z, vertices[o + 2]));
+            max.set(Math.max(max.x, vertices[o]), Math.max(max.y, vertices[o + 1]), Math.max(max.z, vertices[o + 2]));
+        }
+        if (numVertices == 0) return;
+        center.set(min).add(max).scl(0.5f);
+        radius = 0;
+        for (int i = 0, o = positionOffset; i < numVertices; i++, o += stride)
+            radius = Math.max(radius, center.dst2(vertices[o], vertices[o + 1], vertices[o + 2]));
+        radius = (float) Math.sqrt(radius);
+    }
+
+    /**
+     * @return the number of generated levels, at least 1
+     */
+    public int getNumLevels() {
+        return levels.size;
+    }
+
+    public Level getLevel(int level) {
+        return levels.get(level);
+    }
+
+    /**
+     * @return the underlying mesh holding all levels
+     */
+    public Mesh getMesh() {
+        return mesh;
+    }
+
+    /**
+     * Renders the given level as triangles. Must be called between {@link ShaderProgram#begin()} and
+     * {@link ShaderProgram#end()}.
+     *
+     * @param level the level to render, clamped to the available levels. Negative values render nothing.
+     */
+    public void render(ShaderProgram shader, int level) {
+        if (level < 0) return;
+        final Level lod = levels.get(Math.min(level, levels.size - 1));
+        mesh.render(shader, GLES20.GL_TRIANGLES, lod.indexOffset, lod.indexCount);
+    }
+
+    @Override
+    public void dispose() {
+        mesh.dispose();
+    }
+}
@@ -0,0 +1,97 @@
+package com.joshua.gdx.gdxlite.graphics.g3d;
+
+import com.joshua.gdx.gdxlite.graphics.Camera;
+import com.joshua.gdx.gdxlite.math.Matrix4;
+import com.joshua.gdx.gdxlite.math.Vector3;
+
+/**
+ * Picks the level of detail of a {@link LodMesh} per object each frame. The bounding sphere of the object is projected
+ * with the camera's projection at its distance from {@link Camera#position}, which gives its size on screen in
+ * pixels. The coarsest level whose simplification error, scaled the same way, stays below {@link #pixelError} is
+ * selected. Levels only get coarser once the error is below pixelError * (1 - {@link #hysteresis}), so objects near
+ * a threshold don't flicker between two levels.
+ * <p>
+ * The camera must be updated and have its viewport size set.
+ */
+public class LodSelector {
+    /**
+     * the maximum simplification error on screen in pixels
+     */
+    public float pixelError = 1f;
+    /**
+     * the relative margin before switching to a coarser level
+     */
+    public float hysteresis = 0.1f;
+    /**
+     * objects projected smaller than this many pixels are culled, 0 to never cull
+     */
+    public float cullSize = 0f;
+
+    private final Vector3 tmp = new Vector3();
+    private float lastScreenSize;
+
+    public LodSelector() {
+    }
+
+    public LodSelector(float pixelError) {
+        this.pixelError = pixelError;
+    }
+
+    /**
+     * Selects the level of an object without hysteresis, see {@link #select(Camera, LodMesh, Matrix4, int)}.
+     */
+    public int select(Camera camera, LodMesh mesh, Matrix4 transform) {
+        return select(camera, mesh, transform, 0);
+    }
+
+    /**
+     * Selects the level of an object.
+     *
+     * @param camera    the camera the object is rendered with
+     * @param mesh      the mesh of the object
+     * @param transform the world transform of the object, may be null for identity
+     * @param current   the level selected for the object in the previous frame, for hysteresis
+     * @return the level to render, or -1 if the object is smaller than {@link #cullSize}
+     */
+    public int select(Camera camera, LodMesh mesh, Matrix4 transform, int current) {
+        float radius = mesh.radius;
+        float scale = 1f;
+        tmp.set(mesh.center);
+        if (transform != null) {
+            tmp.mul(transform);
+            scale = Math.max(transform.getScaleX(), Math.max(transform.getScaleY(), transform.getScaleZ()));
+            radius *= scale;
+        }
+
+        // pixels per world unit at the object's distance
+        final float[] projection = camera.projection.val;
+        float pixelsPerUnit = projection[Matrix4.M11] * camera.viewportHeight * 0.5f;
+        if (projection[Matrix4.M32] != 0) {
+            final float distance = camera.position.dst(tmp) - radius;
+            if (distance <= camera.near) {
+                lastScreenSize = Float.POSITIVE_INFINITY;
+                return 0;
+            }
+            pixelsPerUnit /= distance;
+        }
+        lastScreenSize = 2 * radius * pixelsPerUnit;
+        if (lastScreenSize < cullSize) return -1;
+
+        int level = 0;
+        for (int i = mesh.getNumLevels() - 1; i > 0; i--) {
+            final float threshold = i > current ? pixelError * (1f - hysteresis) : pixelError;
+            if (mesh.getLevel(i).error * scale * pixelsPerUnit <= threshold) {
+                level = i;
+                break;
+            }
+        }
+        return level;
+    }
+
+    /**
+     * @return the projected diameter in pixels of the object passed to the last call to select
+     */
+    public float getLastScreenSize() {
+        return lastScreenSize;
+    }
+}
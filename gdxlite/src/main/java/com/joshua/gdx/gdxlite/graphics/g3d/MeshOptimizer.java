@@ -0,0 +1,502 @@
+package com.joshua.gdx.gdxlite.graphics.g3d;
+
+import com.joshua.gdx.gdxlite.graphics.Mesh;
+import com.joshua.gdx.gdxlite.graphics.VertexAttribute;
+import com.joshua.gdx.gdxlite.graphics.VertexAttributes;
+import com.joshua.gdx.gdxlite.graphics.glutils.ShaderProgram;
+import com.joshua.gdx.gdxlite.utils.IntArray;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Rewrites triangle list geometry so it renders faster, either offline or at load time. The full pipeline of
+ * {@link #optimize(float[], int, short[], int, VertexAttributes)} runs these passes, each also available on its own:
+ * <ol>
+ * <li>{@link #weld(float[], int, int, int[])}: merges bitwise identical vertices via hashing, which turns the
+ * unindexed, duplicated output of simple generators into an indexed mesh.</li>
+ * <li>{@link #optimizeVertexCache(int[], int, int, int, IntArray)}: reorders triangles for the post-transform vertex
+ * cache with Tipsify (Sander et al., "Fast Triangle Reordering for Vertex Locality and Reduced Overdraw").</li>
+ * <li>{@link #optimizeOverdraw(int[], int, float[], int, int, IntArray, int, float)}: splits the Tipsify output into
+ * clusters at low cache miss points and sorts the clusters front to back with respect to the mesh center, so
+ * outward facing parts are drawn first.</li>
+ * <li>{@link #optimizeVertexFetch(float[], int, int, int[], int)}: renumbers vertices in first-use order, so vertex
+ * fetch walks memory linearly and unused vertices are dropped.</li>
+ * </ol>
+ * The output is ready for {@link Mesh#setVertices(float[], int, int)} and {@link Mesh#setIndices(int[], int, int)}.
+ * The improvement is reported as ACMR, the average number of vertex cache misses per triangle.
+ */
+public final class MeshOptimizer {
+    /**
+     * The default simulated post-transform cache size, a conservative value for mobile GPUs
+     */
+    public static final int DEFAULT_CACHE_SIZE = 16;
+    /**
+     * The default ACMR threshold, relative to the cluster ACMR, at which clusters are split for overdraw sorting
+     */
+    public static final float DEFAULT_OVERDRAW_THRESHOLD = 1.05f;
+
+    /**
+     * The output of {@link #optimize(float[], int, short[], int, VertexAttributes)}.
+     */
+    public static class Result {
+        /**
+         * the optimized vertices, {@link #numVertices} vertices long
+         */
+        public float[] vertices;
+        /**
+         * the optimized indices, see {@link com.joshua.gdx.gdxlite.graphics.glutils.GLTool#selectIndexType(int)} for
+         * the index type fitting {@link #numVertices}
+         */
+        public int[] indices;
+        public int numVertices;
+        public int numIndices;
+        /**
+         * the number of vertices before welding
+         */
+        public int inputVertices;
+        /**
+         * the simulated cache size used for the ACMR values
+         */
+        public int cacheSize;
+        /**
+         * average cache miss ratio of the input, after welding
+         */
+        public float acmrBefore;
+        /**
+         * average cache miss ratio of the output
+         */
+        public float acmrAfter;
+
+        @Override
+        public String toString() {
+            return "MeshOptimizer: vertices " + inputVertices + " -> " + numVertices + ", triangles " + numIndices / 3
+                    + ", ACMR(" + cacheSize + ") " + acmrBefore + " -> " + acmrAfter;
+        }
+    }
+
+    private MeshOptimizer() {
+    }
+
+    /**
+     * Runs the full pipeline on an unindexed triangle list, see
+     * {@link #optimize(float[], int, short[], int, VertexAttributes)}.
+     */
+    public static Result optimize(float[] vertices, int numFloats, VertexAttributes attributes) {
+        return optimize(vertices, numFloats, null, 0, attributes);
+    }
+
+    /**
+     * Runs the full pipeline with {@link #DEFAULT_CACHE_SIZE} and {@link #DEFAULT_OVERDRAW_THRESHOLD}.
+     *
+     * @param vertices   the vertices laid out as specified by attributes
+     * @param numFloats  the number of floats to use from vertices
+     * @param indices    the triangle list indices, or null if vertices form an unindexed triangle list
+     * @param numIndices the number of indices to use, ignored if indices is null
+     * @param attributes the vertex layout, must contain a float {@link ShaderProgram#POSITION_ATTRIBUTE}
+     */
+    public static Result optimize(float[] vertices, int numFloats, short[] indices, int numIndices,
+                                  VertexAttributes attributes) {
+        VertexAttribute position = null;
+        for (VertexAttribute attribute : attributes) {
+            if (ShaderProgram.POSITION_ATTRIBUTE.equals(attribute.alias)) position = attribute;
+        }
+        if (position == null) throw new IllegalArgumentException("MeshOptimizer requires a position attribute");
+        return optimize(vertices, numFloats, indices, numIndices, attributes.vertexSize / 4, position.offset / 4,
+                position.numComponents, DEFAULT_CACHE_SIZE, DEFAULT_OVERDRAW_THRESHOLD);
+    }
+
+    /**
+     * Runs the full pipeline.
+     *
+     * @param vertices           the interleaved vertices
+     * @param numFloats          the number of floats to use from vertices
+     * @param indices            the triangle list indices, or null if vertices form an unindexed triangle list
+     * @param numIndices         the number of indices to use, ignored if indices is null
+     * @param stride             the vertex size in floats
+     * @param positionOffset     the offset of the position within a vertex in floats
+     * @param positionComponents the number of position components, 2 or 3
+     * @param cacheSize          the simulated post-transform cache size
+     * @param overdrawThreshold  the ACMR threshold for overdraw clusters, or 0 to skip overdraw sorting. Overdraw
+     *                           sorting is always skipped for 2D positions.
+     */
+    public static Result optimize(float[] vertices, int numFloats, short[] indices, int numIndices, int stride,
+                                  int positionOffset, int positionComponents, int cacheSize,
+                                  float overdrawThreshold) {
+        int[] tris = null;
+        if (indices != null) {
+            tris = new int[numIndices];
+            for (int i = 0; i < numIndices; i++)
+                tris[i] = indices[i] & 0xFFFF;
+        }
+        return optimize(vertices, numFloats, tris, numIndices, stride, positionOffset, positionComponents, cacheSize,
+                overdrawThreshold);
+    }
+
+    /**
+     * Runs the full pipeline on 32 bit indices, see
+     * {@link #optimize(float[], int, short[], int, int, int, int, int, float)}. The indices array is not modified.
+     */
+    public static Result optimize(float[] vertices, int numFloats, int[] indices, int numIndices, int stride,
+                                  int positionOffset, int positionComponents, int cacheSize,
+                                  float overdrawThreshold) {
+        final int inputVertices = numFloats / stride;
+        int[] tris;
+        if (indices == null) {
+            numIndices = inputVertices - inputVertices % 3;
+            tris = new int[numIndices];
+            for (int i = 0; i < numIndices; i++)
+                tris[i] = i;
+        } else {
+            if (numIndices % 3 != 0) throw new IllegalArgumentException("Only triangle lists are supported");
+            tris = Arrays.copyOf(indices, numIndices);
+        }
+
+        final float[] welded = Arrays.copyOf(vertices, numFloats);
+        final int[] remap = new int[inputVertices];
+        int numVertices = weld(welded, stride, inputVertices, remap);
+        for (int i = 0; i < numIndices; i++)
+            tris[i] = remap[tris[i]];
+
+        final Result result = new Result();
+        result.inputVertices = inputVertices;
+        result.cacheSize = cacheSize;
+        result.acmrBefore = acmr(tris, numIndices, numVertices, cacheSize);
+
+        final IntArray clusters = new IntArray();
+        optimizeVertexCache(tris, numIndices, numVertices, cacheSize, clusters);
+        if (overdrawThreshold > 0 && positionComponents == 3)
+            optimizeOverdraw(tris, numIndices, welded, stride, positionOffset, clusters, cacheSize,
+                    overdrawThreshold);
+        numVertices = optimizeVertexFetch(welded, stride, numVertices, tris, numIndices);
+
+        result.acmrAfter = acmr(tris, numIndices, numVertices, cacheSize);
+        result.numVertices = numVertices;
+        result.numIndices = numIndices;
+        result.vertices = numVertices * stride == welded.length ? welded : Arrays.copyOf(welded,
+                numVertices * stride);
+        result.indices = tris;
+        return result;
+    }
+
+    /**
+     * Merges vertices whose floats are bitwise identical. The unique vertices are compacted to the front of the
+     * array, in order of their first occurrence.
+     *
+     * @param vertices    the interleaved vertices, modified in place
+     * @param stride      the vertex size in floats
+     * @param numVertices the number of vertices
+     * @param remap       receives the new index of every input vertex, at least numVertices long
+     * @return the number of unique vertices
+     */
+    public static int weld(float[] vertices, int stride, int numVertices, int[] remap) {
+        int capacity = Integer.highestOneBit(Math.max(numVertices, 1) * 2 - 1) << 1;
+        final int mask = capacity - 1;
+        final int[] table = new int[capacity];
+        Arrays.fill(table, -1);
+
+        int unique = 0;
+        for (int i = 0; i < numVertices; i++) {
+            final int offset = i * stride;
+            int slot = hash(vertices, offset, stride) & mask;
+            int found = -1;
+            while (table[slot] != -1) {
+                if (equals(vertices, table[slot] * stride, offset, stride)) {
+                    found = table[slot];
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (found == -1) {
+                found = unique++;
+                if (found != i) System.arraycopy(vertices, offset, vertices, found * stride, stride);
+                table[slot] = found;
+            }
+            remap[i] = found;
+        }
+        return unique;
+    }
+
+    private static int hash(float[] vertices, int offset, int stride) {
+        int h = 0;
+        for (int i = 0; i < stride; i++) {
+            int bits = Float.floatToRawIntBits(vertices[offset + i]);
+            h = (h ^ bits) * 0x5bd1e995;
+            h ^= h >>> 15;
+        }
+        return h;
+    }
+
+    private static boolean equals(float[] vertices, int a, int b, int stride) {
+        for (int i = 0; i < stride; i++)
+            if (Float.floatToRawIntBits(vertices[a + i]) != Float.floatToRawIntBits(vertices[b + i])) return false;
+        return true;
+    }
+
+    /**
+     * Reorders the triangles in place for the post-transform vertex cache using Tipsify.
+     *
+     * @param indices     the triangle list indices
+     * @param numIndices  the number of indices
+     * @param numVertices the number of vertices referenced by indices
+     * @param cacheSize   the simulated cache size
+     * @param clusters    if not null, receives the first triangle of every cluster ended by a dead end, to be used by
+     *                    {@link #optimizeOverdraw(int[], int, float[], int, int, IntArray, int, float)}
+     */
+    public static void optimizeVertexCache(int[] indices, int numIndices, int numVertices, int cacheSize,
+                                           IntArray clusters) {
+        final int numTriangles = numIndices / 3;
+        if (clusters != null) clusters.clear();
+        if (numTriangles == 0) return;
+
+        // vertex -> triangle adjacency
+        final int[] live = new int[numVertices];
+        for (int i = 0; i < numIndices; i++)
+            live[indices[i]]++;
+        final int[] offsets = new int[numVertices + 1];
+        for (int v = 0; v < numVertices; v++)
+            offsets[v + 1] = offsets[v] + live[v];
+        final int[] adjacency = new int[numIndices];
+        final int[] fill = Arrays.copyOf(offsets, numVertices);
+        for (int i = 0; i < numIndices; i++)
+            adjacency[fill[indices[i]]++] = i / 3;
+
+        final int[] cacheTime = new int[numVertices];
+        final boolean[] emitted = new boolean[numTriangles];
+        final IntArray deadEnd = new IntArray(numIndices);
+        final IntArray candidates = new IntArray();
+        final int[] output = new int[numIndices];
+        int outputSize = 0;
+
+        int time = cacheSize + 1;
+        int cursor = 0;
+        int current = 0;
+        while (live[current] == 0 && current + 1 < numVertices)
+            current++;
+        if (clusters != null) clusters.add(0);
+
+        while (current >= 0) {
+            candidates.clear();
+            for (int a = offsets[current]; a < offsets[current + 1]; a++) {
+                final int triangle = adjacency[a];
+                if (emitted[triangle]) continue;
+                for (int k = 0; k < 3; k++) {
+                    final int v = indices[triangle * 3 + k];
+                    output[outputSize++] = v;
+                    deadEnd.add(v);
+                    candidates.add(v);
+                    live[v]--;
+                    if (time - cacheTime[v] > cacheSize) cacheTime[v] = time++;
+                }
+                emitted[triangle] = true;
+            }
+
+            int best = -1, priority = -1;
+            for (int i = 0; i < candidates.size; i++) {
+                final int v = candidates.items[i];
+                if (live[v] <= 0) continue;
+                int p = 0;
+                if (time - cacheTime[v] + 2 * live[v] <= cacheSize) p = time - cacheTime[v];
+                if (p > priority) {
+                    priority = p;
+                    best = v;
+                }
+            }
+            if (best == -1) {
+                // dead end, continue with a recently used vertex or the next live vertex in input order
+                while (deadEnd.size > 0) {
+                    final int v = deadEnd.pop();
+                    if (live[v] > 0) {
+                        best = v;
+                        break;
+                    }
+                }
+                while (best == -1 && cursor < numVertices) {
+                    if (live[cursor] > 0) best = cursor;
+                    else cursor++;
+                }
+                if (best != -1 && clusters != null && outputSize < numIndices) clusters.add(outputSize / 3);
+            }
+            current = best;
+        }
+        System.arraycopy(output, 0, indices, 0, numIndices);
+    }
+
+    /**
+     * Reorders the clusters produced by {@link #optimizeVertexCache(int[], int, int, int, IntArray)} to reduce
+     * overdraw. Clusters are first split further wherever the running ACMR drops to threshold times the cluster
+     * ACMR, then sorted by how far they face outwards from the mesh centroid, outermost first.
+     *
+     * @param indices        the triangle list indices, modified in place
+     * @param numIndices     the number of indices
+     * @param vertices       the interleaved vertices
+     * @param stride         the vertex size in floats
+     * @param positionOffset the offset of the position in floats, the position must have 3 components
+     * @param clusters       the first triangle of each cluster, as produced by the vertex cache optimization
+     * @param cacheSize      the simulated cache size
+     * @param threshold      how much the cache efficiency may degrade, e.g. 1.05 for 5%
+     */
+    public static void optimizeOverdraw(int[] indices, int numIndices, float[] vertices, int stride,
+                                        int positionOffset, IntArray clusters, int cacheSize, float threshold) {
+        final int numTriangles = numIndices / 3;
+        if (numTriangles == 0 || clusters.size == 0) return;
+        int numVertices = 0;
+        for (int i = 0; i < numIndices; i++)
+            if (indices[i] >= numVertices) numVertices = indices[i] + 1;
+
+        // soft boundaries
+        final IntArray soft = new IntArray();
+        final int[] cacheTime = new int[numVertices];
+        final int[] time = {cacheSize + 1};
+        for (int c = 0; c < clusters.size; c++) {
+            final int start = clusters.get(c);
+            final int end = c + 1 < clusters.size ? clusters.get(c + 1) : numTriangles;
+            if (start >= end) continue;
+
+            int misses = 0;
+            for (int t = start; t < end; t++)
+                misses += cacheMisses(indices, t, cacheTime, time, cacheSize);
+            final float clusterThreshold = threshold * misses / (end - start);
+
+            soft.add(start);
+            time[0] += cacheSize + 1;
+            int runningMisses = 0, runningTriangles = 0;
+            for (int t = start; t < end; t++) {
+                runningMisses += cacheMisses(indices, t, cacheTime, time, cacheSize);
+                runningTriangles++;
+                if ((float) runningMisses / runningTriangles <= clusterThreshold && t + 1 < end) {
+                    soft.add(t + 1);
+                    time[0] += cacheSize + 1;
+                    runningMisses = runningTriangles = 0;
+                }
+            }
+        }
+
+        // mesh centroid
+        float mx = 0, my = 0, mz = 0;
+        for (int i = 0; i < numIndices; i++) {
+            final int o = indices[i] * stride + positionOffset;
+            mx += vertices[o];
+            my += vertices[o + 1];
+            mz += vertices[o + 2];
+        }
+        mx /= numIndices;
+        my /= numIndices;
+        mz /= numIndices;
+
+        // sort key per cluster
+        final int numClusters = soft.size;
+        final float[] keys = new float[numClusters];
+        final Integer[] order = new Integer[numClusters];
+        for (int c = 0; c < numClusters; c++) {
+            final int start = soft.get(c);
+            final int end = c + 1 < numClusters ? soft.get(c + 1) : numTriangles;
+            float area = 0, cx = 0, cy = 0, cz = 0, nx = 0, ny = 0, nz = 0;
+            for (int t = start; t < end; t++) {
+                final int a = indices[t * 3] * stride + positionOffset;
+                final int b = indices[t * 3 + 1] * stride + positionOffset;
+                final int d = indices[t * 3 + 2] * stride + positionOffset;
+                final float e1x = vertices[b] - vertices[a], e1y = vertices[b + 1] - vertices[a + 1],
+                        e1z = vertices[b + 2] - vertices[a + 2];
+                final float e2x = vertices[d] - vertices[a], e2y = vertices[d + 1] - vertices[a + 1],
+                        e2z = vertices[d + 2] - vertices[a + 2];
+                final float tx = e1y * e2z - e1z * e2y, ty = e1z * e2x - e1x * e2z, tz = e1x * e2y - e1y * e2x;
+                final float triArea = (float) Math.sqrt(tx * tx + ty * ty + tz * tz);
+                cx += (vertices[a] + vertices[b] + vertices[d]) / 3f * triArea;
+                cy += (vertices[a + 1] + vertices[b + 1] + vertices[d + 1]) / 3f * triArea;
+                cz += (vertices[a + 2] + vertices[b + 2] + vertices[d + 2]) / 3f * triArea;
+                nx += tx;
+                ny += ty;
+                nz += tz;
+                area += triArea;
+            }
+            final float invArea = area == 0 ? 0 : 1f / area;
+            final float normalLength = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+            final float invNormal = normalLength == 0 ? 0 : 1f / normalLength;
+            keys[c] = (cx * invArea - mx) * nx * invNormal + (cy * invArea - my) * ny * invNormal
+                    + (cz * invArea - mz) * nz * invNormal;
+            order[c] = c;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Float.compare(keys[b], keys[a]);
+            }
+        });
+
+        final int[] output = new int[numIndices];
+        int outputSize = 0;
+        for (int i = 0; i < numClusters; i++) {
+            final int c = order[i];
+            final int start = soft.get(c);
+            final int end = c + 1 < numClusters ? soft.get(c + 1) : numTriangles;
+            System.arraycopy(indices, start * 3, output, outputSize, (end - start) * 3);
+            outputSize += (end - start) * 3;
+        }
+        System.arraycopy(output, 0, indices, 0, numIndices);
+    }
+
+    private static int cacheMisses(int[] indices, int triangle, int[] cacheTime, int[] time, int cacheSize) {
+        int misses = 0;
+        for (int k = 0; k < 3; k++) {
+            final int v = indices[triangle * 3 + k];
+            if (time[0] - cacheTime[v] > cacheSize) {
+                cacheTime[v] = time[0]++;
+                misses++;
+            }
+        }
+        return misses;
+    }
+
+    /**
+     * Renumbers the vertices in the order they are first referenced by the indices, dropping unreferenced vertices.
+     *
+     * @param vertices    the interleaved vertices, modified in place
+     * @param stride      the vertex size in floats
+     * @param numVertices the number of vertices
+     * @param indices     the indices, modified in place
+     * @param numIndices  the number of indices
+     * @return the number of vertices left
+     */
+    public static int optimizeVertexFetch(float[] vertices, int stride, int numVertices, int[] indices,
+                                          int numIndices) {
+        final int[] remap = new int[numVertices];
+        Arrays.fill(remap, -1);
+        final float[] source = Arrays.copyOf(vertices, numVertices * stride);
+        int next = 0;
+        for (int i = 0; i < numIndices; i++) {
+            final int v = indices[i];
+            if (remap[v] == -1) {
+                remap[v] = next;
+                System.arraycopy(source, v * stride, vertices, next * stride, stride);
+                next++;
+            }
+            indices[i] = remap[v];
+        }
+        return next;
+    }
+
+    /**
+     * Calculates the average cache miss ratio, the number of transformed vertices per triangle, with a FIFO cache.
+     * Lower is better, 0.5 is the optimum for large regular meshes and 3 the worst case.
+     */
+    public static float acmr(int[] indices, int numIndices, int numVertices, int cacheSize) {
+        if (numIndices < 3) return 0;
+        final int[] cacheTime = new int[numVertices];
+        final int[] time = {cacheSize + 1};
+        int misses = 0;
+        for (int t = 0; t < numIndices / 3; t++)
+            misses += cacheMisses(indices, t, cacheTime, time, cacheSize);
+        return (float) misses / (numIndices / 3);
+    }
+
+    /**
+     * Calculates the average cache miss ratio of 16 bit indices, see {@link #acmr(int[], int, int, int)}.
+     */
+    public static float acmr(short[] indices, int numIndices, int numVertices, int cacheSize) {
+        final int[] tmp = new int[numIndices];
+        for (int i = 0; i < numIndices; i++)
+            tmp[i] = indices[i] & 0xFFFF;
+        return acmr(tmp, numIndices, numVertices, cacheSize);
+    }
+}
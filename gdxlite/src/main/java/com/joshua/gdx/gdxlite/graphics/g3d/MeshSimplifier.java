@@ -0,0 +1,355 @@
+package com.joshua.gdx.gdxlite.graphics.g3d;
+
+import com.joshua.gdx.gdxlite.utils.IntArray;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * Simplifies triangle lists with quadric error metrics (Garland and Heckbert, "Surface Simplification Using Quadric
+ * Error Metrics"). Edges are collapsed onto one of their end points, cheapest first, so the simplified index sets
+ * keep referring to the original vertices and all levels of detail can share one vertex buffer.
+ * <p>
+ * Quadrics are area weighted and normalized, so errors are distances in the units of the positions. Open borders are
+ * held in place by additional perpendicular quadrics and vertices on attribute seams, i.e. vertices sharing their
+ * position with another vertex, are never moved. Collapses that would flip a triangle are rejected.
+ * <p>
+ * The simplifier keeps its state between calls to {@link #simplify(int, float)}, so a sequence of decreasing targets
+ * produces nested levels of detail at the cost of a single simplification.
+ */
+public class MeshSimplifier {
+    private static final float BORDER_WEIGHT = 10f;
+    private static final int Q = 11;
+
+    private final float[] positions;
+    private final int numVertices;
+    private final int[] indices;
+    private final boolean[] alive;
+    private int numTriangles;
+
+    private final double[] quadrics;
+    private final boolean[] locked;
+    private final boolean[] collapsed;
+    private final int[] stamps;
+    private final IntArray[] adjacency;
+    private final PriorityQueue<Collapse> queue = new PriorityQueue<Collapse>();
+    private final IntArray neighbors = new IntArray();
+    private final double[] tmpQuadric = new double[Q];
+
+    private float error;
+
+    private static class Collapse implements Comparable<Collapse> {
+        int from, to, fromStamp, toStamp;
+        double cost;
+
+        @Override
+        public int compareTo(Collapse other) {
+            return Double.compare(cost, other.cost);
+        }
+    }
+
+    /**
+     * @param vertices       the interleaved vertices
+     * @param numFloats      the number of floats to use from vertices
+     * @param stride         the vertex size in floats
+     * @param positionOffset the offset of the 3 component position within a vertex in floats
+     * @param indices        the triangle list indices, not modified
+     * @param numIndices     the number of indices
+     */
+    public MeshSimplifier(float[] vertices, int numFloats, int stride, int positionOffset, int[] indices,
+                          int numIndices) {
+        if (numIndices % 3 != 0) throw new IllegalArgumentException("Only triangle lists are supported");
+        numVertices = numFloats / stride;
+        positions = new float[numVertices * 3];
+        for (int i = 0; i < numVertices; i++)
+            System.arraycopy(vertices, i * stride + positionOffset, positions, i * 3, 3);
+        this.indices = Arrays.copyOf(indices, numIndices);
+        numTriangles = numIndices / 3;
+        alive = new boolean[numTriangles];
+        Arrays.fill(alive, true);
+
+        quadrics = new double[numVertices * Q];
+        locked = new boolean[numVertices];
+        collapsed = new boolean[numVertices];
+        stamps = new int[numVertices];
+        adjacency = new IntArray[numVertices];
+        for (int v = 0; v < numVertices; v++)
+            adjacency[v] = new IntArray(6);
+        for (int t = 0; t < numTriangles; t++)
+            for (int k = 0; k < 3; k++)
+                adjacency[this.indices[t * 3 + k]].add(t);
+
+        lockSeams();
+        addFaceQuadrics();
+        addBorderQuadrics();
+        for (int t = 0; t < numTriangles; t++)
+            for (int k = 0; k < 3; k++)
+                push(this.indices[t * 3 + k], this.indices[t * 3 + (k + 1) % 3]);
+    }
+
+    /**
+     * Collapses edges until at most targetIndexCount indices are left or the next collapse would exceed
+     * targetError. Continues from the result of the previous call.
+     *
+     * @param targetIndexCount the maximum number of indices to keep
+     * @param targetError      the maximum error as a distance in position units, or a negative value for no limit
+     * @return the indices of the remaining triangles
+     */
+    public int[] simplify(int targetIndexCount, float targetError) {
+        final double maxCost = targetError < 0 ? Double.MAX_VALUE : (double) targetError * targetError;
+        while (numTriangles * 3 > targetIndexCount && !queue.isEmpty()) {
+            final Collapse collapse = queue.peek();
+            if (!isValid(collapse)) {
+                queue.poll();
+                continue;
+            }
+            if (collapse.cost > maxCost) break;
+            queue.poll();
+            if (flips(collapse.from, collapse.to)) continue;
+            collapse(collapse.from, collapse.to);
+            error = Math.max(error, (float) Math.sqrt(Math.max(collapse.cost, 0)));
+        }
+        return getIndices();
+    }
+
+    /**
+     * @return the indices of the remaining triangles
+     */
+    public int[] getIndices() {
+        final int[] result = new int[numTriangles * 3];
+        int n = 0;
+        for (int t = 0; t < alive.length; t++) {
+            if (!alive[t]) continue;
+            result[n++] = indices[t * 3];
+            result[n++] = indices[t * 3 + 1];
+            result[n++] = indices[t * 3 + 2];
+        }
+        return result;
+    }
+
+    /**
+     * @return the largest error of all collapses so far, as a distance in position units
+     */
+    public float getError() {
+        return error;
+    }
+
+    /**
+     * @return the number of remaining triangles
+     */
+    public int getNumTriangles() {
+        return numTriangles;
+    }
+
+    private void lockSeams() {
+        final Integer[] order = new Integer[numVertices];
+        for (int i = 0; i < numVertices; i++)
+            order[i] = i;
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                for (int k = 0; k < 3; k++) {
+                    int c = Float.compare(positions[a * 3 + k], positions[b * 3 + k]);
+                    if (c != 0) return c;
+                }
+                return 0;
+            }
+        });
+        for (int i = 1; i < numVertices; i++) {
+            final int a = order[i - 1], b = order[i];
+            if (positions[a * 3] == positions[b * 3] && positions[a * 3 + 1] == positions[b * 3 + 1]
+                    && positions[a * 3 + 2] == positions[b * 3 + 2]) {
+                locked[a] = true;
+                locked[b] = true;
+            }
+        }
+    }
+
+    private void addFaceQuadrics() {
+        for (int t = 0; t < numTriangles; t++) {
+            final int a = indices[t * 3] * 3, b = indices[t * 3 + 1] * 3, c = indices[t * 3 + 2] * 3;
+            final double e1x = positions[b] - positions[a], e1y = positions[b + 1] - positions[a + 1],
+                    e1z = positions[b + 2] - positions[a + 2];
+            final double e2x = positions[c] - positions[a], e2y = positions[c + 1] - positions[a + 1],
+                    e2z = positions[c + 2] - positions[a + 2];
+            double nx = e1y * e2z - e1z * e2y, ny = e1z * e2x - e1x * e2z, nz = e1x * e2y - e1y * e2x;
+            final double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+            if (length == 0) continue;
+            nx /= length;
+            ny /= length;
+            nz /= length;
+            final double d = -(nx * positions[a] + ny * positions[a + 1] + nz * positions[a + 2]);
+            final double weight = length * 0.5;
+            for (int k = 0; k < 3; k++)
+                addPlane(indices[t * 3 + k], nx, ny, nz, d, weight);
+        }
+    }
+
+    private void addBorderQuadrics() {
+        final long[] edges = new long[numTriangles * 3];
+        for (int t = 0; t < numTriangles; t++)
+            for (int k = 0; k < 3; k++)
+                edges[t * 3 + k] = edgeKey(indices[t * 3 + k], indices[t * 3 + (k + 1) % 3]);
+        final long[] sorted = edges.clone();
+        Arrays.sort(sorted);
+        for (int t = 0; t < numTriangles; t++) {
+            for (int k = 0; k < 3; k++) {
+                final int i = Arrays.binarySearch(sorted, edges[t * 3 + k]);
+                if (i > 0 && sorted[i - 1] == sorted[i] || i + 1 < sorted.length && sorted[i + 1] == sorted[i])
+                    continue;
+                final int v0 = indices[t * 3 + k], v1 = indices[t * 3 + (k + 1) % 3];
+                final int v2 = indices[t * 3 + (k + 2) % 3];
+                final int a = v0 * 3, b = v1 * 3, c = v2 * 3;
+                final double ex = positions[b] - positions[a], ey = positions[b + 1] - positions[a + 1],
+                        ez = positions[b + 2] - positions[a + 2];
+                final double fx = positions[c] - positions[a], fy = positions[c + 1] - positions[a + 1],
+                        fz = positions[c + 2] - positions[a + 2];
+                // face normal, then the plane through the edge perpendicular to the face
+                final double fnx = ey * fz - ez * fy, fny = ez * fx - ex * fz, fnz = ex * fy - ey * fx;
+                double nx = ey * fnz - ez * fny, ny = ez * fnx - ex * fnz, nz = ex * fny - ey * fnx;
+                final double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+                if (length == 0) continue;
+                nx /= length;
+                ny /= length;
+                nz /= length;
+                final double d = -(nx * positions[a] + ny * positions[a + 1] + nz * positions[a + 2]);
+                final double weight = (ex * ex + ey * ey + ez * ez) * BORDER_WEIGHT;
+                addPlane(v0, nx, ny, nz, d, weight);
+                addPlane(v1, nx, ny, nz, d, weight);
+            }
+        }
+    }
+
+    private static long edgeKey(int a, int b) {
+        return a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+    }
+
+    private void addPlane(int vertex, double a, double b, double c, double d, double w) {
+        final int o = vertex * Q;
+        quadrics[o] += w * a * a;
+        quadrics[o + 1] += w * a * b;
+        quadrics[o + 2] += w * a * c;
+        quadrics[o + 3] += w * a * d;
+        quadrics[o + 4] += w * b * b;
+        quadrics[o + 5] += w * b * c;
+        quadrics[o + 6] += w * b * d;
+        quadrics[o + 7] += w * c * c;
+        quadrics[o + 8] += w * c * d;
+        quadrics[o + 9] += w * d * d;
+        quadrics[o + 10] += w;
+    }
+
+    /**
+     * @return the normalized error of the summed quadrics of u and v at the position of target
+     */
+    private double cost(int u, int v, int target) {
+        final double[] q = tmpQuadric;
+        for (int i = 0; i < Q; i++)
+            q[i] = quadrics[u * Q + i] + quadrics[v * Q + i];
+        final double x = positions[target * 3], y = positions[target * 3 + 1], z = positions[target * 3 + 2];
+        final double e = q[0] * x * x + 2 * q[1] * x * y + 2 * q[2] * x * z + 2 * q[3] * x
+                + q[4] * y * y + 2 * q[5] * y * z + 2 * q[6] * y
+                + q[7] * z * z + 2 * q[8] * z + q[9];
+        return q[10] == 0 ? 0 : Math.abs(e / q[10]);
+    }
+
+    private void push(int u, int v) {
+        if (u == v || collapsed[u] || collapsed[v]) return;
+        final boolean uv = !locked[u], vu = !locked[v];
+        if (!uv && !vu) return;
+        final double costUV = uv ? cost(u, v, v) : Double.MAX_VALUE;
+        final double costVU = vu ? cost(u, v, u) : Double.MAX_VALUE;
+        final Collapse collapse = new Collapse();
+        if (costUV <= costVU) {
+            collapse.from = u;
+            collapse.to = v;
+            collapse.cost = costUV;
+        } else {
+            collapse.from = v;
+            collapse.to = u;
+            collapse.cost = costVU;
+        }
+        collapse.fromStamp = stamps[collapse.from];
+        collapse.toStamp = stamps[collapse.to];
+        queue.add(collapse);
+    }
+
+    private boolean isValid(Collapse collapse) {
+        return !collapsed[collapse.from] && !collapsed[collapse.to] && stamps[collapse.from] == collapse.fromStamp
+                && stamps[collapse.to] == collapse.toStamp;
+    }
+
+    /**
+     * @return whether moving u onto v flips or degenerates one of the triangles around u not shared with v
+     */
+    private boolean flips(int u, int v) {
+        final IntArray triangles = adjacency[u];
+        for (int i = 0; i < triangles.size; i++) {
+            final int t = triangles.items[i];
+            if (!alive[t]) continue;
+            int k = 0;
+            boolean hasV = false;
+            for (int j = 0; j < 3; j++) {
+                if (indices[t * 3 + j] == u) k = j;
+                if (indices[t * 3 + j] == v) hasV = true;
+            }
+            if (hasV) continue;
+            final int a = indices[t * 3 + (k + 1) % 3] * 3, b = indices[t * 3 + (k + 2) % 3] * 3;
+            final int p = u * 3, q = v * 3;
+            final double e1x = positions[a] - positions[p], e1y = positions[a + 1] - positions[p + 1],
+                    e1z = positions[a + 2] - positions[p + 2];
+            final double e2x = positions[b] - positions[p], e2y = positions[b + 1] - positions[p + 1],
+                    e2z = positions[b + 2] - positions[p + 2];
+            final double f1x = positions[a] - positions[q], f1y = positions[a + 1] - positions[q + 1],
+                    f1z = positions[a + 2] - positions[q + 2];
+            final double f2x = positions[b] - positions[q], f2y = positions[b + 1] - positions[q + 1],
+                    f2z = positions[b + 2] - positions[q + 2];
+            final double nx = e1y * e2z - e1z * e2y, ny = e1z * e2x - e1x * e2z, nz = e1x * e2y - e1y * e2x;
+            final double mx = f1y * f2z - f1z * f2y, my = f1z * f2x - f1x * f2z, mz = f1x * f2y - f1y * f2x;
+            if (nx * mx + ny * my + nz * mz <= 0) return true;
+        }
+        return false;
+    }
+
+    private void collapse(int u, int v) {
+        final IntArray triangles = adjacency[u];
+        final IntArray target = adjacency[v];
+        for (int i = 0; i < triangles.size; i++) {
+            final int t = triangles.items[i];
+            if (!alive[t]) continue;
+            boolean hasV = false;
+            for (int j = 0; j < 3; j++)
+                if (indices[t * 3 + j] == v) hasV = true;
+            if (hasV) {
+                alive[t] = false;
+                numTriangles--;
+                continue;
+            }
+            for (int j = 0; j < 3; j++)
+                if (indices[t * 3 + j] == u) indices[t * 3 + j] = v;
+            target.add(t);
+        }
+        triangles.clear();
+        collapsed[u] = true;
+        for (int i = 0; i < Q; i++)
+            quadrics[v * Q + i] += quadrics[u * Q + i];
+        stamps[v]++;
+
+        // drop dead triangles and requeue the edges around v
+        neighbors.clear();
+        int n = 0;
+        for (int i = 0; i < target.size; i++) {
+            final int t = target.items[i];
+            if (!alive[t]) continue;
+            target.items[n++] = t;
+            for (int j = 0; j < 3; j++) {
+                final int w = indices[t * 3 + j];
+                if (w != v && !neighbors.contains(w)) neighbors.add(w);
+            }
+        }
+        target.size = n;
+        for (int i = 0; i < neighbors.size; i++)
+            push(v, neighbors.items[i]);
+    }
+}
@@ -0,0 +1,374 @@
+package com.joshua.gdx.gdxlite.graphics.g3d;
+
+import android.opengl.GLES20;
+
+import com.joshua.gdx.gdxlite.graphics.Mesh;
+import com.joshua.gdx.gdxlite.graphics.VertexAttribute;
+import com.joshua.gdx.gdxlite.graphics.VertexAttributes;
+import com.joshua.gdx.gdxlite.graphics.glutils.ShaderProgram;
+import com.joshua.gdx.gdxlite.math.Frustum;
+import com.joshua.gdx.gdxlite.math.Matrix4;
+import com.joshua.gdx.gdxlite.math.Vector3;
+import com.joshua.gdx.gdxlite.utils.Array;
+import com.joshua.gdx.gdxlite.utils.Disposable;
+import com.joshua.gdx.gdxlite.utils.FloatArray;
+
+import java.util.Arrays;
+
+/**
+ * Merges many small meshes sharing the same {@link VertexAttributes} (and material) into a single static {@link Mesh},
+ * so they can be drawn with one draw call instead of one per mesh.
+ * <p>
+ * Vertices are pre-transformed into world space while being added: positions with {@link Matrix4#mulVec(float[],
+ * float[], int, int, int)}, normals, tangents and binormals with the normal matrix via
+ * {@link Matrix4#rot(float[], float[], int, int, int)}. Indices are rebased and concatenated. Every added mesh is kept
+ * as a {@link Part} holding its index range and world space bounds, so {@link #render(ShaderProgram, Frustum)} can
+ * still skip the invisible parts while drawing contiguous visible parts with a single call.
+ * <p>
+ * Usage: call {@link #begin()}, one or more {@link #add(Mesh, Matrix4)}, then {@link #end()} to upload. Only indexed
+ * or non-indexed triangle lists are supported. A StaticBatcher must be disposed when it is no longer used.
+ */
+public class StaticBatcher implements Disposable {
+    /**
+     * A range of the merged index buffer originating from a single added mesh.
+     */
+    public static class Part {
+        /**
+         * offset of the first index of this part in the merged index buffer
+         */
+        public int indexOffset;
+        /**
+         * number of indices of this part
+         */
+        public int indexCount;
+        /**
+         * center of the world space bounding box
+         */
+        public final Vector3 center = new Vector3();
+        /**
+         * dimensions of the world space bounding box
+         */
+        public final Vector3 dimensions = new Vector3();
+        /**
+         * whether the part passed the last frustum test
+         */
+        public boolean visible = true;
+    }
+
+    private final VertexAttributes attributes;
+    private final int stride;
+    private final int positionOffset;
+    private final int positionComponents;
+    private final int[] directionOffsets;
+
+    private final FloatArray vertices = new FloatArray();
+    private int[] indices = new int[64];
+    private int numIndices;
+    private final Array<Part> parts = new Array<Part>();
+
+    private final Matrix4 normalMatrix = new Matrix4();
+    private final Vector3 min = new Vector3();
+    private final Vector3 max = new Vector3();
+    private float[] tmpVertices = new float[0];
+    private int[] tmpIndices = new int[0];
+
+    private Mesh mesh;
+    private boolean building;
+
+    /**
+     * @param attributes the {@link VertexAttributes} shared by all meshes added to this batcher. Must contain a float
+     *                   {@link ShaderProgram#POSITION_ATTRIBUTE} with two or three components.
+     */
+    public StaticBatcher(VertexAttributes attributes) {
+        this.attributes = attributes;
+        this.stride = attributes.vertexSize / 4;
+
+        VertexAttribute position = null;
+        int directions = 0;
+        for (VertexAttribute attribute : attributes) {
+            if (ShaderProgram.POSITION_ATTRIBUTE.equals(attribute.alias)) position = attribute;
+            else if (isDirection(attribute)) directions++;
+        }
+        if (position == null || position.type != GLES20.GL_FLOAT || position.numComponents < 2
+                || position.numComponents > 3)
+            throw new IllegalArgumentException("StaticBatcher requires a float position attribute with 2 or 3 " +
+                    "components");
+        positionOffset = position.offset / 4;
+        positionComponents = position.numComponents;
+
+        directionOffsets = new int[directions];
+        int i = 0;
+        for (VertexAttribute attribute : attributes) {
+            if (isDirection(attribute)) directionOffsets[i++] = attribute.offset / 4;
+        }
+    }
+
+    private static boolean isDirection(VertexAttribute attribute) {
+        return attribute.type == GLES20.GL_FLOAT && attribute.numComponents == 3
+                && (ShaderProgram.NORMAL_ATTRIBUTE.equals(attribute.alias)
+                || ShaderProgram.TANGENT_ATTRIBUTE.equals(attribute.alias)
+                || ShaderProgram.BINORMAL_ATTRIBUTE.equals(attribute.alias));
+    }
+
+    /**
+     * Discards all previously added meshes and starts a new batch.
+     */
+    public void begin() {
+        if (building) throw new IllegalStateException("Call end() before calling begin() again");
+        vertices.clear();
+        numIndices = 0;
+        parts.clear();
+        building = true;
+    }
+
+    /**
+     * Adds all vertices and indices of the mesh, transformed by the given world transform.
+     *
+     * @param mesh      the source mesh, must have the same {@link VertexAttributes} as this batcher
+     * @param transform the world transform, may be null for identity
+     * @return the added {@link Part}
+     */
+    public Part add(Mesh mesh, Matrix4 transform) {
+        if (!attributes.equals(mesh.getVertexAttributes()))
+            throw new IllegalArgumentException("Mesh attributes don't match the batcher attributes");
+
+        final int numFloats = mesh.getNumVertices() * stride;
+        if (tmpVertices.length < numFloats) tmpVertices = new float[numFloats];
+        if (numFloats > 0) mesh.getVertices(0, numFloats, tmpVertices, 0);
+
+        final int count = mesh.getNumIndices();
+        if (count > 0) {
+            if (tmpIndices.length < count) tmpIndices = new int[count];
+            mesh.getIndices(0, count, tmpIndices, 0);
+        }
+        return add(tmpVertices, 0, numFloats, count > 0 ? tmpIndices : null, 0, count, transform);
+    }
+
+    /**
+     * Adds the vertices and indices, transformed by the given world transform.
+     *
+     * @param vertices     the vertices, laid out as specified by this batcher's {@link VertexAttributes}
+     * @param vertexOffset the offset in floats into the vertices array
+     * @param vertexCount  the number of floats to add
+     * @param indices      the indices relative to vertexOffset, or null to add the vertices as a triangle list
+     * @param indexOffset  the offset into the indices array
+     * @param indexCount   the number of indices to add, ignored if indices is null
+     * @param transform    the world transform, may be null for identity
+     * @return the added {@link Part}
+     */
+    public Part add(float[] vertices, int vertexOffset, int vertexCount, short[] indices, int indexOffset,
+                    int indexCount, Matrix4 transform) {
+        final int numVertices = checkVertices(vertexCount);
+        // validated before anything is added, so a bad index leaves the batch as it was
+        if (indices != null) {
+            for (int i = 0; i < indexCount; i++) {
+                final int index = indices[indexOffset + i] & 0xFFFF;
+                if (index >= numVertices) throw new IndexOutOfBoundsException("Index " + index + " out of range");
+            }
+        }
+        final Part part = addVertices(vertices, vertexOffset, vertexCount, transform);
+        final int base = (this.vertices.size - vertexCount) / stride;
+        if (indices == null) return addTriangleList(part, base, numVertices);
+        ensureIndices(indexCount);
+        for (int i = 0; i < indexCount; i++)
+            this.indices[numIndices++] = base + (indices[indexOffset + i] & 0xFFFF);
+        part.indexCount = indexCount;
+        return part;
+    }
+
+    /**
+     * Adds the vertices and 32 bit indices, see {@link #add(float[], int, int, short[], int, int, Matrix4)}.
+     */
+    public Part add(float[] vertices, int vertexOffset, int vertexCount, int[] indices, int indexOffset,
+                    int indexCount, Matrix4 transform) {
+        final int numVertices = checkVertices(vertexCount);
+        if (indices != null) {
+            for (int i = 0; i < indexCount; i++) {
+                final int index = indices[indexOffset + i];
+                if (index < 0 || index >= numVertices)
+                    throw new IndexOutOfBoundsException("Index " + index + " out of range");
+            }
+        }
+        final Part part = addVertices(vertices, vertexOffset, vertexCount, transform);
+        final int base = (this.vertices.size - vertexCount) / stride;
+        if (indices == null) return addTriangleList(part, base, numVertices);
+        ensureIndices(indexCount);
+        for (int i = 0; i < indexCount; i++)
+            this.indices[numIndices++] = base + indices[indexOffset + i];
+        part.indexCount = indexCount;
+        return part;
+    }
+
+    /**
+     * @return the number of vertices in vertexCount floats
+     */
+    private int checkVertices(int vertexCount) {
+        if (!building) throw new IllegalStateException("Call begin() before adding meshes");
+        if (vertexCount % stride != 0)
+            throw new IllegalArgumentException("vertexCount must be a multiple of the vertex size in floats");
+        return vertexCount / stride;
+    }
+
+    private Part addVertices(float[] vertices, int vertexOffset, int vertexCount, Matrix4 transform) {
+        final int numVertices = vertexCount / stride;
+        final int start = this.vertices.size;
+        this.vertices.addAll(vertices, vertexOffset, vertexCount);
+        final float[] items = this.vertices.items;
+
+        if (transform != null && numVertices > 0) {
+            if (positionComponents == 3) {
+                Matrix4.mulVec(transform.val, items, start + positionOffset, numVertices, stride);
+            } else {
+                transform2D(transform.val, items, start + positionOffset, numVertices);
+            }
+            if (directionOffsets.length > 0) {
+                normalMatrix.set(transform).toNormalMatrix();
+                for (int offset : directionOffsets) {
+                    Matrix4.rot(normalMatrix.val, items, start + offset, numVertices, stride);
+                    normalize(items, start + offset, numVertices);
+                }
+            }
+        }
+
+        final Part part = new Part();
+        part.indexOffset = numIndices;
+        calculateBounds(part, start, numVertices);
+        parts.add(part);
+        return part;
+    }
+
+    private Part addTriangleList(Part part, int base, int numVertices) {
+        ensureIndices(numVertices);
+        for (int i = 0; i < numVertices; i++)
+            indices[numIndices++] = base + i;
+        part.indexCount = numVertices;
+        return part;
+    }
+
+    private void transform2D(float[] mat, float[] vecs, int offset, int numVecs) {
+        for (int i = 0; i < numVecs; i++, offset += stride) {
+            final float x = vecs[offset], y = vecs[offset + 1];
+            vecs[offset] = x * mat[Matrix4.M00] + y * mat[Matrix4.M01] + mat[Matrix4.M03];
+            vecs[offset + 1] = x * mat[Matrix4.M10] + y * mat[Matrix4.M11] + mat[Matrix4.M13];
+        }
+    }
+
+    private void normalize(float[] vecs, int offset, int numVecs) {
+        for (int i = 0; i < numVecs; i++, offset += stride) {
+            final float len2 = vecs[offset] * vecs[offset] + vecs[offset + 1] * vecs[offset + 1]
+                    + vecs[offset + 2] * vecs[offset + 2];
+            if (len2 == 0f || len2 == 1f) continue;
+            final float scale = 1f / (float) Math.sqrt(len2);
+            vecs[offset] *= scale;
+            vecs[offset + 1] *= scale;
+            vecs[offset + 2] *= scale;
+        }
+    }
+
+    private void calculateBounds(Part part, int start, int numVertices) {
+        if (numVertices == 0) {
+            part.center.set(0, 0, 0);
+            part.dimensions.set(0, 0, 0);
+            return;
+        }
+        final float[] items = vertices.items;
+        min.set(Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY);
+        max.set(Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY);
+        for (int i = 0, o = start + positionOffset; i < numVertices; i++, o += stride) {
+            final float x = items[o], y = items[o + 1], z = positionComponents == 3 ? items[o + 2] : 0f;
+            if (x < min.x) min.x = x;
+            if (y < min.y) min.y = y;
+            if (z < min.z) min.z = z;
+            if (x > max.x) max.x = x;
+            if (y > max.y) max.y = y;
+            if (z > max.z) max.z = z;
+        }
+        part.center.set(min).add(max).scl(0.5f);
+        part.dimensions.set(max).sub(min);
+    }
+
+    private void ensureIndices(int additional) {
+        if (numIndices + additional > indices.length)
+            indices = Arrays.copyOf(indices, Math.max(numIndices + additional, (int) (indices.length * 1.75f)));
+    }
+
+    /**
+     * Uploads the merged vertices and indices into a static {@link Mesh}, replacing the mesh of a previous batch. The
+     * mesh uses the smallest index type able to address all vertices, batches beyond 65536 vertices require 32 bit
+     * index support.
+     *
+     * @return the merged mesh, owned by this batcher
+     */
+    public Mesh end() {
+        if (!building) throw new IllegalStateException("Call begin() before calling end()");
+        building = false;
+
+        final int numVertices = vertices.size / stride;
+        if (mesh == null || mesh.getMaxVertices() < numVertices || mesh.getMaxIndices() < numIndices) {
+            if (mesh != null) mesh.dispose();
+            mesh = new Mesh(true, numVertices, numIndices, attributes);
+        }
+        mesh.setVertices(vertices.items, 0, vertices.size);
+        mesh.setIndices(indices, 0, numIndices);
+        return mesh;
+    }
+
+    /**
+     * Renders all parts as triangles, see {@link #render(ShaderProgram, Frustum)}.
+     */
+    public void render(ShaderProgram shader) {
+        render(shader, null);
+    }
+
+    /**
+     * Renders the parts whose bounds are inside the frustum as triangles. Adjacent visible parts are drawn with a
+     * single draw call. Must be called between {@link ShaderProgram#begin()} and {@link ShaderProgram#end()}.
+     *
+     * @param shader  the shader to render with
+     * @param frustum the frustum to cull against, e.g. {@link com.joshua.gdx.gdxlite.graphics.Camera#frustum}, or
+     *                null to render everything
+     */
+    public void render(ShaderProgram shader, Frustum frustum) {
+        if (mesh == null || building) throw new IllegalStateException("Call end() before rendering");
+        if (numIndices == 0) return;
+        if (frustum == null) {
+            mesh.render(shader, GLES20.GL_TRIANGLES, 0, numIndices);
+            return;
+        }
+
+        mesh.bind(shader);
+        int runStart = -1, runEnd = -1;
+        for (int i = 0; i < parts.size; i++) {
+            final Part part = parts.get(i);
+            part.visible = frustum.boundsInFrustum(part.center, part.dimensions);
+            if (!part.visible || part.indexCount == 0) continue;
+            if (part.indexOffset != runEnd) {
+                if (runStart >= 0) mesh.render(shader, GLES20.GL_TRIANGLES, runStart, runEnd - runStart, false);
+                runStart = part.indexOffset;
+            }
+            runEnd = part.indexOffset + part.indexCount;
+        }
+        if (runStart >= 0) mesh.render(shader, GLES20.GL_TRIANGLES, runStart, runEnd - runStart, false);
+        mesh.unbind(shader);
+    }
+
+    /**
+     * @return the parts added since the last call to {@link #begin()}, in the order they were added
+     */
+    public Array<Part> getParts() {
+        return parts;
+    }
+
+    /**
+     * @return the merged mesh, or null if {@link #end()} was not called yet
+     */
+    public Mesh getMesh() {
+        return mesh;
+    }
+
+    @Override
+    public void dispose() {
+        if (mesh != null) mesh.dispose();
+        mesh = null;
+    }
+}
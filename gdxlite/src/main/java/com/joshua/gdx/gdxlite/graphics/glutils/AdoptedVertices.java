@@ -0,0 +1,75 @@
+package com.joshua.gdx.gdxlite.graphics.glutils;
+
+import com.joshua.gdx.gdxlite.utils.DirectFloatArray;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * The state behind {@link VertexData#adopt(DirectFloatArray)}, shared by the VertexData implementations. It keeps
+ * views of the adopted array's memory, follows it when the array grows and remembers the own buffers of the vertex
+ * data to go back to.
+ */
+final class AdoptedVertices {
+    private DirectFloatArray array;
+    private ByteBuffer memory;
+    private int version;
+    private ByteBuffer ownByteBuffer;
+    private FloatBuffer ownBuffer;
+    private boolean restore;
+    /**
+     * the buffers the vertex data has to use after {@link #sync()} returned true
+     */
+    ByteBuffer byteBuffer;
+    FloatBuffer buffer;
+
+    boolean isAdopted() {
+        return array != null;
+    }
+
+    /**
+     * @param vertices          the array to adopt, null to go back to the own buffers
+     * @param currentByteBuffer the buffers the vertex data uses right now
+     */
+    void adopt(DirectFloatArray vertices, ByteBuffer currentByteBuffer, FloatBuffer currentBuffer) {
+        if (array == null && !restore) {
+            ownByteBuffer = currentByteBuffer;
+            ownBuffer = currentBuffer;
+        }
+        array = vertices;
+        memory = null;
+        restore = vertices == null;
+    }
+
+    /**
+     * Updates the views to the adopted array's memory and size.
+     *
+     * @return whether the vertex data has to switch to {@link #byteBuffer} and {@link #buffer} and upload them, as
+     * the array was modified, adopted or released since the last call
+     */
+    boolean sync() {
+        if (array == null) {
+            if (!restore) return false;
+            restore = false;
+            byteBuffer = ownByteBuffer;
+            buffer = ownBuffer;
+            ownByteBuffer = null;
+            ownBuffer = null;
+            return true;
+        }
+        if (array.getByteBuffer() != memory) {
+            memory = array.getByteBuffer();
+            byteBuffer = memory.duplicate().order(ByteOrder.nativeOrder());
+            buffer = byteBuffer.asFloatBuffer();
+            version = array.getVersion() - 1;
+        }
+        buffer.position(0);
+        buffer.limit(array.size);
+        byteBuffer.position(0);
+        byteBuffer.limit(array.size * 4);
+        if (version == array.getVersion()) return false;
+        version = array.getVersion();
+        return true;
+    }
+}
@@ -0,0 +1,200 @@
+package com.joshua.gdx.gdxlite.graphics.glutils;
+
+import android.graphics.Bitmap;
+import android.opengl.GLES20;
+import android.opengl.GLUtils;
+
+import com.joshua.gdx.gdxlite.graphics.FileTextureData;
+import com.joshua.gdx.gdxlite.graphics.Format;
+import com.joshua.gdx.gdxlite.graphics.TextureData;
+import com.joshua.gdx.gdxlite.utils.BitmapPool;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link TextureData} converting the image of another, bitmap based, texture data to RGB565 or RGBA4444 with
+ * {@link FormatConverter} in {@link #prepare()}, so the conversion runs on a worker thread when loaded with
+ * {@link com.joshua.gdx.gdxlite.graphics.AsyncTextureLoader}. The format is either fixed or chosen per image by a
+ * {@link Policy}, e.g. opaque backgrounds as RGB565 on devices with little memory. Images the format or policy keeps
+ * at RGBA8888 are uploaded unconverted.
+ */
+public class ConvertedTextureData implements TextureData {
+    /**
+     * Chooses the format of an image by whether it has alpha.
+     */
+    public static class Policy {
+        /**
+         * the format of images without alpha
+         */
+        public Format opaqueFormat = Format.RGBA8888;
+        /**
+         * the format of images with alpha
+         */
+        public Format translucentFormat = Format.RGBA8888;
+        public FormatConverter.Dither dither = FormatConverter.Dither.Ordered;
+
+        /**
+         * Returns a policy for the memory class of the device, as reported by ActivityManager.getMemoryClass(). At
+         * 128 MB or less opaque images are converted to RGB565, at 64 MB or less images with alpha also to RGBA4444.
+         */
+        public static Policy forMemoryClass(int memoryClass) {
+            final Policy policy = new Policy();
+            if (memoryClass <= 128) policy.opaqueFormat = Format.RGB565;
+            if (memoryClass <= 64) policy.translucentFormat = Format.RGBA4444;
+            return policy;
+        }
+
+        public Format select(boolean hasAlpha) {
+            return hasAlpha ? translucentFormat : opaqueFormat;
+        }
+    }
+
+    private final TextureData source;
+    private final Format requestedFormat;
+    private final Policy policy;
+    private final FormatConverter.Dither dither;
+    private final boolean useMipMaps;
+    private Format format;
+    private ByteBuffer pixels;
+    private Bitmap bitmap;
+    private boolean disposeBitmap;
+    private int width = 0;
+    private int height = 0;
+    private boolean isPrepared = false;
+
+    /**
+     * Loads an image file and converts it as the policy selects.
+     */
+    public ConvertedTextureData(String filename, boolean internal, boolean useMipMaps, Policy policy) {
+        this(new FileTextureData(filename, internal, false), null, policy, policy.dither, useMipMaps);
+    }
+
+    /**
+     * @param source the image to convert, must be of type {@link TextureDataType#Bitmap}
+     * @param format the format to convert to
+     */
+    public ConvertedTextureData(TextureData source, Format format, FormatConverter.Dither dither,
+                                boolean useMipMaps) {
+        this(source, format, null, dither, useMipMaps);
+    }
+
+    private ConvertedTextureData(TextureData source, Format format, Policy policy, FormatConverter.Dither dither,
+                                 boolean useMipMaps) {
+        if (source.getType() != TextureDataType.Bitmap)
+            throw new IllegalArgumentException("Only Bitmap texture data can be converted: " + source);
+        this.source = source;
+        this.requestedFormat = format;
+        this.policy = policy;
+        this.dither = dither;
+        this.useMipMaps = useMipMaps;
+    }
+
+    @Override
+    public TextureDataType getType() {
+        return TextureDataType.Custom;
+    }
+
+    @Override
+    public boolean isPrepared() {
+        return isPrepared;
+    }
+
+    /**
+     * Decodes the image of the source and converts it.
+     */
+    @Override
+    public void prepare() {
+        if (isPrepared) throw new RuntimeException("Already prepared");
+        if (!source.isPrepared()) source.prepare();
+        final Bitmap image = source.consumeBitmap();
+        width = image.getWidth();
+        height = image.getHeight();
+        format = requestedFormat != null ? requestedFormat : policy.select(image.hasAlpha());
+        if (!FormatConverter.isSupported(format)) {
+            // kept at full precision, uploaded as is
+            bitmap = image;
+            disposeBitmap = source.disposeBitmap();
+        } else {
+            final int[] argb = new int[width * height];
+            image.getPixels(argb, 0, width, 0, 0, width, height);
+            if (source.disposeBitmap()) BitmapPool.recycle(image);
+            pixels = FormatConverter.convert(argb, width, height, format, dither);
+        }
+        isPrepared = true;
+    }
+
+    @Override
+    public void consumeCustomData(int target) {
+        if (!isPrepared) throw new RuntimeException("Call prepare() before calling consumeCustomData()");
+        if (pixels != null) {
+            GLES20.glPixelStorei(GLES20.GL_UNPACK_ALIGNMENT, 2);
+            GLES20.glTexImage2D(target, 0, format.toGlFormat(), width, height, 0, format.toGlFormat(),
+                    format.toGlType(), pixels);
+        } else {
+            GLES20.glPixelStorei(GLES20.GL_UNPACK_ALIGNMENT, 1);
+            GLUtils.texImage2D(target, 0, bitmap, 0);
+            if (disposeBitmap) BitmapPool.recycle(bitmap);
+        }
+        if (useMipMaps) GLES20.glGenerateMipmap(target);
+        pixels = null;
+        bitmap = null;
+        isPrepared = false;
+    }
+
+    @Override
+    public Bitmap consumeBitmap() {
+        throw new RuntimeException("This TextureData implementation does not return a Bitmap");
+    }
+
+    @Override
+    public boolean disposeBitmap() {
+        throw new RuntimeException("This TextureData implementation does not return a Bitmap");
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return the GL internal format of the converted image, GL_RGB565, GL_RGBA4 or GL_RGBA, -1 before preparing
+     */
+    @Override
+    public int getFormat() {
+        if (format == null) return -1;
+        switch (format) {
+            case RGB565:
+                return GLES20.GL_RGB565;
+            case RGBA4444:
+                return GLES20.GL_RGBA4;
+            default:
+                return GLES20.GL_RGBA;
+        }
+    }
+
+    /**
+     * @return the format the image was converted to, null before preparing
+     */
+    public Format getConvertedFormat() {
+        return format;
+    }
+
+    @Override
+    public boolean useMipMaps() {
+        return useMipMaps;
+    }
+
+    @Override
+    public boolean isManaged() {
+        return source.isManaged();
+    }
+
+    public String toString() {
+        return source.toString();
+    }
+}
@@ -0,0 +1,513 @@
+package com.joshua.gdx.gdxlite.graphics.glutils;
+
+import android.graphics.Bitmap;
+
+import com.joshua.gdx.gdxlite.utils.BitmapPool;
+import com.joshua.gdx.gdxlite.utils.FileUtil;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The images of a {@link com.joshua.gdx.gdxlite.graphics.Cubemap} with a full mip chain, as premultiplied RGBA8888
+ * bytes per level and face, in the order of {@link com.joshua.gdx.gdxlite.graphics.Cubemap.CubemapSide}. Decoding,
+ * layout extraction and prefiltering need no GL context, so they run on worker threads, see
+ * {@link com.joshua.gdx.gdxlite.graphics.CubemapLoader}.
+ * <p>
+ * {@link #prefilter(CubemapData, int, int, ForkJoinPool)} builds the chain for image based reflections: each level is
+ * the environment convolved with the GGX lobe of a roughness, from mirror-like at level 0 to fully rough, so shaders
+ * pick the level by roughness, e.g. textureCubeLodEXT(u_env, r, roughness * (u_roughnessLevels - 1.0)). The
+ * convolution is expensive, {@link #save(File)} and {@link #load(File)} cache the result.
+ */
+public class CubemapData {
+    /**
+     * How the six faces are arranged in a single image.
+     */
+    public enum Layout {
+        /**
+         * 4x3 faces: +Y above, -X +Z +X -Z in the middle row, -Y below +Z
+         */
+        HorizontalCross,
+        /**
+         * 3x4 faces: +Y above, -X +Z +X in the second row, -Y and then -Z, upside down, below +Z
+         */
+        VerticalCross,
+        /**
+         * 6x1 faces in the order +X -X +Y -Y +Z -Z
+         */
+        HorizontalStrip,
+        /**
+         * 1x6 faces in the order +X -X +Y -Y +Z -Z
+         */
+        VerticalStrip
+    }
+
+    private static final int CACHE_MAGIC = 0x47584355; // "GXCU"
+    private static final int CACHE_VERSION = 1;
+
+    private final int size;
+    private final byte[][][] levels;
+    private final int roughnessLevels;
+
+    /**
+     * @param levels          the images per level and face, each level half the size of the previous
+     * @param roughnessLevels the number of levels convolved with increasing roughness, 1 for an unfiltered chain
+     */
+    public CubemapData(int size, byte[][][] levels, int roughnessLevels) {
+        if (levels.length == 0 || levels[0].length != 6)
+            throw new IllegalArgumentException("A cubemap needs six faces per level");
+        this.size = size;
+        this.levels = levels;
+        this.roughnessLevels = roughnessLevels;
+    }
+
+    /**
+     * Decodes six face files in parallel and builds a box filtered mip chain.
+     *
+     * @param filenames the faces in the order +X -X +Y -Y +Z -Z
+     */
+    public static CubemapData load(final String[] filenames, final boolean internal, final BitmapPool bitmapPool,
+                                   ForkJoinPool pool) {
+        if (filenames.length != 6) throw new IllegalArgumentException("A cubemap needs six faces");
+        final byte[][] faces = new byte[6][];
+        final int[] sizes = new int[6];
+        final RecursiveAction[] tasks = new RecursiveAction[6];
+        for (int i = 0; i < 6; i++) {
+            final int face = i;
+            tasks[i] = new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    final Bitmap bitmap = decode(filenames[face], internal, bitmapPool);
+                    if (bitmap.getWidth() != bitmap.getHeight())
+                        throw new IllegalArgumentException("Cubemap face is not square: " + filenames[face]);
+                    sizes[face] = bitmap.getWidth();
+                    faces[face] = toRGBA(bitmap, 0, 0, sizes[face]);
+                    BitmapPool.recycle(bitmap);
+                }
+            };
+        }
+        invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        }, pool);
+        for (int i = 1; i < 6; i++)
+            if (sizes[i] != sizes[0]) throw new IllegalArgumentException("Cubemap faces differ in size");
+        return fromFaces(sizes[0], faces);
+    }
+
+    /**
+     * Decodes a single image holding all six faces and builds a box filtered mip chain.
+     */
+    public static CubemapData load(String filename, boolean internal, Layout layout, BitmapPool bitmapPool) {
+        final Bitmap bitmap = decode(filename, internal, bitmapPool);
+        try {
+            return fromImage(bitmap, layout);
+        } finally {
+            BitmapPool.recycle(bitmap);
+        }
+    }
+
+    private static Bitmap decode(String filename, boolean internal, BitmapPool bitmapPool) {
+        final Bitmap bitmap;
+        if (bitmapPool != null) bitmap = bitmapPool.decode(filename, internal, null);
+        else bitmap = internal ? FileUtil.internalBitmap(filename) : FileUtil.externalBitmap(filename);
+        if (bitmap == null) throw new RuntimeException("Couldn't decode " + filename);
+        return bitmap;
+    }
+
+    /**
+     * Extracts the six faces of a cross or strip image, the bitmap isn't recycled.
+     */
+    public static CubemapData fromImage(Bitmap image, Layout layout) {
+        final int columns, rows;
+        switch (layout) {
+            case HorizontalCross:
+                columns = 4;
+                rows = 3;
+                break;
+            case VerticalCross:
+                columns = 3;
+                rows = 4;
+                break;
+            case HorizontalStrip:
+                columns = 6;
+                rows = 1;
+                break;
+            default:
+                columns = 1;
+                rows = 6;
+                break;
+        }
+        final int size = image.getWidth() / columns;
+        if (size == 0 || size * columns != image.getWidth() || size * rows != image.getHeight())
+            throw new IllegalArgumentException("Image of " + image.getWidth() + "x" + image.getHeight()
+                    + " doesn't match the layout " + layout);
+        // the cell of each face, in the order +X -X +Y -Y +Z -Z
+        final int[] cells;
+        switch (layout) {
+            case HorizontalCross:
+                cells = new int[]{2, 1, 0, 1, 1, 0, 1, 2, 1, 1, 3, 1};
+                break;
+            case VerticalCross:
+                cells = new int[]{2, 1, 0, 1, 1, 0, 1, 2, 1, 1, 1, 3};
+                break;
+            case HorizontalStrip:
+                cells = new int[]{0, 0, 1, 0, 2, 0, 3, 0, 4, 0, 5, 0};
+                break;
+            default:
+                cells = new int[]{0, 0, 0, 1, 0, 2, 0, 3, 0, 4, 0, 5};
+                break;
+        }
+        final byte[][] faces = new byte[6][];
+        for (int face = 0; face < 6; face++)
+            faces[face] = toRGBA(image, cells[face * 2] * size, cells[face * 2 + 1] * size, size);
+        if (layout == Layout.VerticalCross) rotate180(faces[5], size);
+        return fromFaces(size, faces);
+    }
+
+    private static byte[] toRGBA(Bitmap bitmap, int x, int y, int size) {
+        final int[] argb = new int[size * size];
+        bitmap.getPixels(argb, 0, size, x, y, size, size);
+        return MipMapGenerator.toPremultipliedRGBA(argb, size, size);
+    }
+
+    private static void rotate180(byte[] rgba, int size) {
+        for (int i = 0, j = size * size - 1; i < j; i++, j--) {
+            for (int c = 0; c < 4; c++) {
+                final byte swap = rgba[i * 4 + c];
+                rgba[i * 4 + c] = rgba[j * 4 + c];
+                rgba[j * 4 + c] = swap;
+            }
+        }
+    }
+
+    /**
+     * Builds a box filtered mip chain from the six faces, in the order +X -X +Y -Y +Z -Z.
+     */
+    public static CubemapData fromFaces(int size, byte[][] faces) {
+        final int numLevels = MipMapGenerator.getNumLevels(size, size);
+        final byte[][][] levels = new byte[numLevels][6][];
+        for (int face = 0; face < 6; face++) {
+            final byte[][] chain = MipMapGenerator.generate(faces[face], size, size, MipMapGenerator.Filter.Box);
+            for (int level = 0; level < numLevels; level++)
+                levels[level][face] = chain[level];
+        }
+        return new CubemapData(size, levels, 1);
+    }
+
+    private static void invoke(ForkJoinTask<?> task, ForkJoinPool pool) {
+        if (ForkJoinTask.inForkJoinPool()) task.invoke();
+        else pool.invoke(task);
+    }
+
+    /**
+     * Convolves the environment with the GGX lobe of increasing roughness, level i with roughness
+     * i / (roughnessLevels - 1). Levels past roughnessLevels keep full roughness, so the chain stays complete, as
+     * OpenGL ES 2.0 requires. Each face is filtered in parallel on the pool, the current pool when called from one.
+     *
+     * @param source          an unfiltered cubemap, its mip chain is sampled to avoid aliasing
+     * @param roughnessLevels the number of levels from roughness 0 to 1, usually 5 to 6
+     * @param sampleCount     the GGX samples per texel, 32 to 128
+     */
+    public static CubemapData prefilter(final CubemapData source, int roughnessLevels, final int sampleCount,
+                                        ForkJoinPool pool) {
+        final int size = source.size;
+        final int numLevels = source.levels.length;
+        roughnessLevels = Math.max(1, Math.min(roughnessLevels, numLevels));
+        final byte[][][] levels = new byte[numLevels][6][];
+        levels[0] = source.levels[0].clone();
+
+        final ArrayList<RecursiveAction> tasks = new ArrayList<RecursiveAction>();
+        for (int level = 1; level < numLevels; level++) {
+            final int levelSize = Math.max(1, size >> level);
+            final float roughness = roughnessLevels == 1 ? 1 : Math.min(1f, (float) level / (roughnessLevels - 1));
+            final float[] samples = createSamples(roughness, sampleCount, size, numLevels);
+            final byte[][] faces = levels[level];
+            for (int f = 0; f < 6; f++) {
+                final int face = f;
+                tasks.add(new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        faces[face] = filterFace(source, face, levelSize, samples);
+                    }
+                });
+            }
+        }
+        invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        }, pool);
+        return new CubemapData(size, levels, roughnessLevels);
+    }
+
+    /**
+     * Importance samples the GGX lobe around the normal (0, 0, 1), with normal = view = reflection.
+     *
+     * @return per sample the tangent space light direction, its weight and the source level to sample
+     */
+    private static float[] createSamples(float roughness, int sampleCount, int size, int numLevels) {
+        final float alpha = roughness * roughness;
+        final float alpha2 = alpha * alpha;
+        final float texelSolidAngle = (float) (4 * Math.PI / (6f * size * size));
+        final float[] samples = new float[sampleCount * 5];
+        int count = 0;
+        for (int i = 0; i < sampleCount; i++) {
+            // Hammersley point set
+            final float u = (i + 0.5f) / sampleCount;
+            final float v = Integer.reverse(i) * 2.3283064365386963e-10f + 0.5f;
+            final float phi = (float) (2 * Math.PI * u);
+            final float cosTheta = (float) Math.sqrt((1 - v) / (1 + (alpha2 - 1) * v));
+            final float sinTheta = (float) Math.sqrt(1 - cosTheta * cosTheta);
+            final float hx = (float) (sinTheta * Math.cos(phi)), hy = (float) (sinTheta * Math.sin(phi));
+            // reflect the view direction (0, 0, 1) about the half vector
+            final float lx = 2 * cosTheta * hx, ly = 2 * cosTheta * hy, lz = 2 * cosTheta * cosTheta - 1;
+            if (lz <= 0) continue;
+            // pick the source level whose texels cover the sample's solid angle
+            final float d = cosTheta * cosTheta * (alpha2 - 1) + 1;
+            final float pdf = (float) (alpha2 / (Math.PI * d * d)) / 4;
+            final float sampleSolidAngle = 1f / (sampleCount * pdf + 0.0001f);
+            final float lod = alpha == 0 ? 0
+                    : Math.max(0, Math.min(numLevels - 1, 0.5f * log2(sampleSolidAngle / texelSolidAngle) + 1));
+            samples[count * 5] = lx;
+            samples[count * 5 + 1] = ly;
+            samples[count * 5 + 2] = lz;
+            samples[count * 5 + 3] = lz;
+            samples[count * 5 + 4] = lod;
+            count++;
+        }
+        final float[] result = new float[count * 5];
+        System.arraycopy(samples, 0, result, 0, result.length);
+        return result;
+    }
+
+    private static float log2(float value) {
+        return (float) (Math.log(value) / Math.log(2));
+    }
+
+    private static byte[] filterFace(CubemapData source, int face, int size, float[] samples) {
+        final byte[] out = new byte[size * size * 4];
+        final float[] direction = new float[3];
+        final float[] color = new float[4];
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                faceToDirection(face, 2 * (x + 0.5f) / size - 1, 2 * (y + 0.5f) / size - 1, direction);
+                final float nx = direction[0], ny = direction[1], nz = direction[2];
+                // tangent frame around the normal
+                float ux = 0, uy = 0, uz = 1;
+                if (Math.abs(nz) > 0.999f) {
+                    ux = 1;
+                    uz = 0;
+                }
+                float tx = uy * nz - uz * ny, ty = uz * nx - ux * nz, tz = ux * ny - uy * nx;
+                final float length = (float) Math.sqrt(tx * tx + ty * ty + tz * tz);
+                tx /= length;
+                ty /= length;
+                tz /= length;
+                final float bx = ny * tz - nz * ty, by = nz * tx - nx * tz, bz = nx * ty - ny * tx;
+
+                float r = 0, g = 0, b = 0, a = 0, weight = 0;
+                for (int s = 0; s < samples.length; s += 5) {
+                    final float lx = samples[s], ly = samples[s + 1], lz = samples[s + 2];
+                    direction[0] = tx * lx + bx * ly + nx * lz;
+                    direction[1] = ty * lx + by * ly + ny * lz;
+                    direction[2] = tz * lx + bz * ly + nz * lz;
+                    source.sample(direction, samples[s + 4], color);
+                    final float w = samples[s + 3];
+                    r += color[0] * w;
+                    g += color[1] * w;
+                    b += color[2] * w;
+                    a += color[3] * w;
+                    weight += w;
+                }
+                final int o = (y * size + x) * 4;
+                out[o] = (byte) Math.round(r / weight);
+                out[o + 1] = (byte) Math.round(g / weight);
+                out[o + 2] = (byte) Math.round(b / weight);
+                out[o + 3] = (byte) Math.round(a / weight);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * @param s the horizontal face coordinate from -1 to 1
+     * @param t the vertical face coordinate from -1 to 1, top to bottom
+     */
+    private static void faceToDirection(int face, float s, float t, float[] out) {
+        float x, y, z;
+        switch (face) {
+            case 0:
+                x = 1;
+                y = -t;
+                z = -s;
+                break;
+            case 1:
+                x = -1;
+                y = -t;
+                z = s;
+                break;
+            case 2:
+                x = s;
+                y = 1;
+                z = t;
+                break;
+            case 3:
+                x = s;
+                y = -1;
+                z = -t;
+                break;
+            case 4:
+                x = s;
+                y = -t;
+                z = 1;
+                break;
+            default:
+                x = -s;
+                y = -t;
+                z = -1;
+                break;
+        }
+        final float length = (float) Math.sqrt(x * x + y * y + z * z);
+        out[0] = x / length;
+        out[1] = y / length;
+        out[2] = z / length;
+    }
+
+    /**
+     * Samples the cubemap in a direction, bilinear within the two levels around lod.
+     */
+    private void sample(float[] direction, float lod, float[] color) {
+        final float x = direction[0], y = direction[1], z = direction[2];
+        final float ax = Math.abs(x), ay = Math.abs(y), az = Math.abs(z);
+        final int face;
+        final float sc, tc, ma;
+        if (ax >= ay && ax >= az) {
+            face = x > 0 ? 0 : 1;
+            sc = x > 0 ? -z : z;
+            tc = -y;
+            ma = ax;
+        } else if (ay >= az) {
+            face = y > 0 ? 2 : 3;
+            sc = x;
+            tc = y > 0 ? z : -z;
+            ma = ay;
+        } else {
+            face = z > 0 ? 4 : 5;
+            sc = z > 0 ? x : -x;
+            tc = -y;
+            ma = az;
+        }
+        final float s = (sc / ma + 1) * 0.5f, t = (tc / ma + 1) * 0.5f;
+        final int level0 = (int) lod;
+        final int level1 = Math.min(level0 + 1, levels.length - 1);
+        final float blend = lod - level0;
+        color[0] = color[1] = color[2] = color[3] = 0;
+        sampleLevel(level0, face, s, t, 1 - blend, color);
+        if (blend > 0) sampleLevel(level1, face, s, t, blend, color);
+    }
+
+    private void sampleLevel(int level, int face, float s, float t, float weight, float[] color) {
+        final int levelSize = Math.max(1, size >> level);
+        final byte[] pixels = levels[level][face];
+        final float fx = s * levelSize - 0.5f, fy = t * levelSize - 0.5f;
+        final int x0 = (int) Math.floor(fx), y0 = (int) Math.floor(fy);
+        final float wx = fx - x0, wy = fy - y0;
+        for (int i = 0; i < 4; i++) {
+            final int px = Math.max(0, Math.min(levelSize - 1, x0 + (i & 1)));
+            final int py = Math.max(0, Math.min(levelSize - 1, y0 + (i >> 1)));
+            final float w = weight * ((i & 1) == 0 ? 1 - wx : wx) * ((i >> 1) == 0 ? 1 - wy : wy);
+            final int o = (py * levelSize + px) * 4;
+            color[0] += (pixels[o] & 0xff) * w;
+            color[1] += (pixels[o + 1] & 0xff) * w;
+            color[2] += (pixels[o + 2] & 0xff) * w;
+            color[3] += (pixels[o + 3] & 0xff) * w;
+        }
+    }
+
+    /**
+     * Writes the data to a cache file.
+     */
+    public void save(File file) throws IOException {
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        try {
+            out.writeInt(CACHE_MAGIC);
+            out.writeInt(CACHE_VERSION);
+            out.writeInt(size);
+            out.writeInt(levels.length);
+            out.writeInt(roughnessLevels);
+            for (byte[][] level : levels)
+                for (byte[] face : level)
+                    out.write(face);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Reads data written by {@link #save(File)}.
+     *
+     * @throws IOException if the file can't be read or isn't a cache file of this version
+     */
+    public static CubemapData load(File file) throws IOException {
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (in.readInt() != CACHE_MAGIC || in.readInt() != CACHE_VERSION)
+                throw new IOException("Not a cubemap cache file: " + file);
+            final int size = in.readInt();
+            final int numLevels = in.readInt();
+            final int roughnessLevels = in.readInt();
+            if (size <= 0 || numLevels != MipMapGenerator.getNumLevels(size, size))
+                throw new IOException("Corrupt cubemap cache file: " + file);
+            final byte[][][] levels = new byte[numLevels][6][];
+            for (int level = 0; level < numLevels; level++) {
+                final int levelSize = Math.max(1, size >> level);
+                for (int face = 0; face < 6; face++) {
+                    levels[level][face] = new byte[levelSize * levelSize * 4];
+                    in.readFully(levels[level][face]);
+                }
+            }
+            return new CubemapData(size, levels, roughnessLevels);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * @return the width and height of the faces at level 0
+     */
+    public int getSize() {
+        return size;
+    }
+
+    public int getNumLevels() {
+        return levels.length;
+    }
+
+    /**
+     * @return the number of levels from roughness 0 to 1, 1 if not prefiltered
+     */
+    public int getRoughnessLevels() {
+        return roughnessLevels;
+    }
+
+    /**
+     * @return the premultiplied RGBA8888 pixels of a face at a level, rows from the top
+     */
+    public byte[] getPixels(int level, int face) {
+        return levels[level][face];
+    }
+}
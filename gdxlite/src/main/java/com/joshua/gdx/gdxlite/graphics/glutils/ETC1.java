@@ -0,0 +1,373 @@
+package com.joshua.gdx.gdxlite.graphics.glutils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A pure Java ETC1 codec and writer for the PKM and KTX containers. ETC1 stores every 4x4 block of pixels in 8 bytes,
+ * a sixth of RGB888 and an eighth of RGBA8888, and has no alpha channel. Images with alpha are encoded twice, the
+ * second time with the alpha channel as grey, see {@link ETC1AlphaTexture}.
+ * <p>
+ * The encoder tries both block orientations and, per half block, all eight modifier tables with the averaged base
+ * color, picking the combination with the smallest squared error. It doesn't use OpenGL and runs on any thread,
+ * {@link ETC1Encoder} wraps it as an offline tool.
+ */
+public final class ETC1 {
+    /**
+     * GL_ETC1_RGB8_OES from the OES_compressed_ETC1_RGB8_texture extension
+     */
+    public static final int GL_ETC1_RGB8_OES = 0x8D64;
+    /**
+     * the size of the PKM header in bytes
+     */
+    public static final int PKM_HEADER_SIZE = 16;
+
+    static final byte[] KTX_IDENTIFIER = {(byte) 0xAB, 'K', 'T', 'X', ' ', '1', '1', (byte) 0xBB, '\r', '\n', 0x1A,
+            '\n'};
+    static final int KTX_HEADER_SIZE = 64;
+
+    private static final int[][] MODIFIERS = {
+            {2, 8, -2, -8},
+            {5, 17, -5, -17},
+            {9, 29, -9, -29},
+            {13, 42, -13, -42},
+            {18, 60, -18, -60},
+            {24, 80, -24, -80},
+            {33, 106, -33, -106},
+            {47, 183, -47, -183}};
+
+    private ETC1() {
+    }
+
+    /**
+     * @return the size in bytes of an ETC1 image of the given size
+     */
+    public static int getCompressedDataSize(int width, int height) {
+        return ((width + 3) >> 2) * ((height + 3) >> 2) * 8;
+    }
+
+    /**
+     * Encodes an image.
+     *
+     * @param argb   the pixels in ARGB8888, row by row from the top
+     * @param width  the width of the image
+     * @param height the height of the image
+     * @param alpha  true to encode the alpha channel as grey instead of the color
+     * @return the ETC1 blocks of the image
+     */
+    public static byte[] encodeImage(int[] argb, int width, int height, boolean alpha) {
+        if (argb.length < width * height)
+            throw new IllegalArgumentException("Not enough pixels for " + width + "x" + height);
+        final byte[] out = new byte[getCompressedDataSize(width, height)];
+        final int[] block = new int[48];
+        int offset = 0;
+        for (int by = 0; by < height; by += 4) {
+            for (int bx = 0; bx < width; bx += 4) {
+                for (int y = 0; y < 4; y++) {
+                    final int row = Math.min(by + y, height - 1) * width;
+                    for (int x = 0; x < 4; x++) {
+                        final int pixel = argb[row + Math.min(bx + x, width - 1)];
+                        final int i = (y * 4 + x) * 3;
+                        if (alpha) {
+                            block[i] = block[i + 1] = block[i + 2] = pixel >>> 24;
+                        } else {
+                            block[i] = (pixel >> 16) & 0xff;
+                            block[i + 1] = (pixel >> 8) & 0xff;
+                            block[i + 2] = pixel & 0xff;
+                        }
+                    }
+                }
+                encodeBlock(block, out, offset);
+                offset += 8;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Encodes one block.
+     *
+     * @param block the 16 pixels of the block as r, g, b triples, row by row
+     */
+    static void encodeBlock(int[] block, byte[] out, int offset) {
+        long best = 0;
+        long bestError = Long.MAX_VALUE;
+        final int[] avg = new int[6];
+        final int[] base = new int[6];
+        final int[] result = new int[2];
+        for (int flip = 0; flip < 2; flip++) {
+            for (int s = 0; s < 2; s++) {
+                int r = 0, g = 0, b = 0;
+                for (int i = 0; i < 8; i++) {
+                    final int p = pixelIndex(flip, s, i) * 3;
+                    r += block[p];
+                    g += block[p + 1];
+                    b += block[p + 2];
+                }
+                avg[s * 3] = (r + 4) >> 3;
+                avg[s * 3 + 1] = (g + 4) >> 3;
+                avg[s * 3 + 2] = (b + 4) >> 3;
+            }
+
+            int high;
+            boolean differential = true;
+            final int[] q = new int[6];
+            for (int c = 0; c < 6; c++)
+                q[c] = (avg[c] * 31 + 127) / 255;
+            for (int c = 0; c < 3; c++) {
+                final int delta = q[c + 3] - q[c];
+                if (delta < -4 || delta > 3) differential = false;
+            }
+            if (differential) {
+                high = 2;
+                for (int c = 0; c < 3; c++) {
+                    base[c] = (q[c] << 3) | (q[c] >> 2);
+                    base[c + 3] = (q[c + 3] << 3) | (q[c + 3] >> 2);
+                    high |= ((q[c] << 3) | ((q[c + 3] - q[c]) & 7)) << (24 - c * 8);
+                }
+            } else {
+                high = 0;
+                for (int c = 0; c < 3; c++) {
+                    final int q1 = (avg[c] * 15 + 127) / 255;
+                    final int q2 = (avg[c + 3] * 15 + 127) / 255;
+                    base[c] = (q1 << 4) | q1;
+                    base[c + 3] = (q2 << 4) | q2;
+                    high |= ((q1 << 4) | q2) << (24 - c * 8);
+                }
+            }
+            high |= flip;
+
+            int low = 0;
+            long error = 0;
+            for (int s = 0; s < 2; s++) {
+                long subError = Long.MAX_VALUE;
+                int subTable = 0, subLow = 0;
+                for (int t = 0; t < 8; t++) {
+                    encodeSubblock(block, flip, s, base[s * 3], base[s * 3 + 1], base[s * 3 + 2], MODIFIERS[t],
+                            result, subError);
+                    if (result[0] >= 0 && result[0] < subError) {
+                        subError = result[0];
+                        subTable = t;
+                        subLow = result[1];
+                    }
+                }
+                error += subError;
+                low |= subLow;
+                high |= subTable << (s == 0 ? 5 : 2);
+            }
+            if (error < bestError) {
+                bestError = error;
+                best = ((long) high << 32) | (low & 0xffffffffL);
+            }
+        }
+        for (int i = 0; i < 8; i++)
+            out[offset + i] = (byte) (best >>> (56 - i * 8));
+    }
+
+    /**
+     * Picks the best modifier of the table for every pixel of a half block.
+     *
+     * @param result receives the error, or -1 if it exceeds limit, and the pixel index bits
+     */
+    private static void encodeSubblock(int[] block, int flip, int s, int r, int g, int b, int[] table, int[] result,
+                                       long limit) {
+        int error = 0;
+        int low = 0;
+        for (int i = 0; i < 8; i++) {
+            final int pixel = pixelIndex(flip, s, i);
+            final int p = pixel * 3;
+            int bestError = Integer.MAX_VALUE, bestIndex = 0;
+            for (int j = 0; j < 4; j++) {
+                final int m = table[j];
+                final int dr = clamp(r + m) - block[p];
+                final int dg = clamp(g + m) - block[p + 1];
+                final int db = clamp(b + m) - block[p + 2];
+                final int e = dr * dr + dg * dg + db * db;
+                if (e < bestError) {
+                    bestError = e;
+                    bestIndex = j;
+                }
+            }
+            error += bestError;
+            if (error >= limit) {
+                result[0] = -1;
+                return;
+            }
+            final int k = (pixel & 3) * 4 + (pixel >> 2);
+            low |= (bestIndex & 1) << k;
+            low |= (bestIndex >> 1) << (k + 16);
+        }
+        result[0] = error;
+        result[1] = low;
+    }
+
+    /**
+     * @return the index y * 4 + x of the i-th pixel of the half block s
+     */
+    private static int pixelIndex(int flip, int s, int i) {
+        final int x, y;
+        if (flip == 0) {
+            x = s * 2 + (i >> 2);
+            y = i & 3;
+        } else {
+            x = i >> 1;
+            y = s * 2 + (i & 1);
+        }
+        return y * 4 + x;
+    }
+
+    private static int clamp(int value) {
+        return value < 0 ? 0 : value > 255 ? 255 : value;
+    }
+
+    /**
+     * Decodes ETC1 blocks to RGB565, e.g. to upload them on devices without ETC1 support.
+     *
+     * @param data   the blocks, read from its position on without changing it
+     * @param width  the width of the image
+     * @param height the height of the image
+     * @return a direct native order buffer with width * height RGB565 pixels
+     */
+    public static ByteBuffer decodeImageRGB565(ByteBuffer data, int width, int height) {
+        final ByteBuffer out = ByteBuffer.allocateDirect(width * height * 2).order(ByteOrder.nativeOrder());
+        final int[] rgb = new int[48];
+        int offset = data.position();
+        for (int by = 0; by < height; by += 4) {
+            for (int bx = 0; bx < width; bx += 4) {
+                long bits = 0;
+                for (int i = 0; i < 8; i++)
+                    bits = (bits << 8) | (data.get(offset + i) & 0xff);
+                offset += 8;
+                decodeBlock(bits, rgb);
+                for (int y = 0; y < 4 && by + y < height; y++) {
+                    for (int x = 0; x < 4 && bx + x < width; x++) {
+                        final int p = (y * 4 + x) * 3;
+                        final int pixel = ((rgb[p] >> 3) << 11) | ((rgb[p + 1] >> 2) << 5) | (rgb[p + 2] >> 3);
+                        out.putShort(((by + y) * width + bx + x) * 2, (short) pixel);
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Decodes one block into 16 r, g, b triples, row by row.
+     */
+    static void decodeBlock(long bits, int[] rgb) {
+        final int high = (int) (bits >>> 32);
+        final int low = (int) bits;
+        final boolean flip = (high & 1) != 0;
+        final int[] base = new int[6];
+        for (int c = 0; c < 3; c++) {
+            final int shift = 24 - c * 8;
+            if ((high & 2) != 0) {
+                final int c1 = (high >> (shift + 3)) & 0x1f;
+                final int c2 = (c1 + (((high >> shift) & 7) << 29 >> 29)) & 0x1f;
+                base[c] = (c1 << 3) | (c1 >> 2);
+                base[c + 3] = (c2 << 3) | (c2 >> 2);
+            } else {
+                final int c1 = (high >> (shift + 4)) & 0xf;
+                final int c2 = (high >> shift) & 0xf;
+                base[c] = (c1 << 4) | c1;
+                base[c + 3] = (c2 << 4) | c2;
+            }
+        }
+        for (int s = 0; s < 2; s++) {
+            final int[] table = MODIFIERS[(high >> (s == 0 ? 5 : 2)) & 7];
+            for (int i = 0; i < 8; i++) {
+                final int pixel = pixelIndex(flip ? 1 : 0, s, i);
+                final int k = (pixel & 3) * 4 + (pixel >> 2);
+                final int m = table[((low >> k) & 1) | ((low >> (k + 15)) & 2)];
+                rgb[pixel * 3] = clamp(base[s * 3] + m);
+                rgb[pixel * 3 + 1] = clamp(base[s * 3 + 1] + m);
+                rgb[pixel * 3 + 2] = clamp(base[s * 3 + 2] + m);
+            }
+        }
+    }
+
+    /**
+     * Creates a PKM file holding the given ETC1 image.
+     */
+    public static byte[] createPKM(byte[] etc1, int width, int height) {
+        final ByteBuffer header = ByteBuffer.allocate(PKM_HEADER_SIZE).order(ByteOrder.BIG_ENDIAN);
+        header.put((byte) 'P').put((byte) 'K').put((byte) 'M').put((byte) ' ').put((byte) '1').put((byte) '0');
+        header.putShort((short) 0);
+        header.putShort((short) ((width + 3) & ~3)).putShort((short) ((height + 3) & ~3));
+        header.putShort((short) width).putShort((short) height);
+        final byte[] pkm = new byte[PKM_HEADER_SIZE + etc1.length];
+        System.arraycopy(header.array(), 0, pkm, 0, PKM_HEADER_SIZE);
+        System.arraycopy(etc1, 0, pkm, PKM_HEADER_SIZE, etc1.length);
+        return pkm;
+    }
+
+    /**
+     * @return whether the data starts with a PKM header
+     */
+    public static boolean isPKM(ByteBuffer data) {
+        final int p = data.position();
+        return data.remaining() >= PKM_HEADER_SIZE && data.get(p) == 'P' && data.get(p + 1) == 'K'
+                && data.get(p + 2) == 'M' && data.get(p + 3) == ' ';
+    }
+
+    /**
+     * Creates a KTX file holding a compressed image and its mip levels.
+     *
+     * @param glInternalFormat the compressed format, e.g. {@link #GL_ETC1_RGB8_OES}
+     * @param levels           the data of each mip level, starting with the full size image
+     */
+    public static byte[] createKTX(int glInternalFormat, int glBaseInternalFormat, int width, int height,
+                                   byte[][] levels) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final ByteBuffer header = ByteBuffer.allocate(KTX_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(KTX_IDENTIFIER);
+        header.putInt(0x04030201);
+        header.putInt(0).putInt(1).putInt(0);
+        header.putInt(glInternalFormat).putInt(glBaseInternalFormat);
+        header.putInt(width).putInt(height).putInt(0);
+        header.putInt(0).putInt(1).putInt(levels.length).putInt(0);
+        try {
+            out.write(header.array());
+            final ByteBuffer size = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            for (byte[] level : levels) {
+                size.clear();
+                size.putInt(level.length);
+                out.write(size.array());
+                out.write(level);
+                for (int i = level.length; (i & 3) != 0; i++)
+                    out.write(0);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Halves an ARGB8888 image with a box filter, for building mip chains.
+     *
+     * @return the pixels of the (width + 1) / 2 x (height + 1) / 2 image
+     */
+    public static int[] downsample(int[] argb, int width, int height) {
+        final int w = Math.max(1, width >> 1), h = Math.max(1, height >> 1);
+        final int[] out = new int[w * h];
+        for (int y = 0; y < h; y++) {
+            final int y0 = Math.min(y * 2, height - 1), y1 = Math.min(y * 2 + 1, height - 1);
+            for (int x = 0; x < w; x++) {
+                final int x0 = Math.min(x * 2, width - 1), x1 = Math.min(x * 2 + 1, width - 1);
+                final int p0 = argb[y0 * width + x0], p1 = argb[y0 * width + x1];
+                final int p2 = argb[y1 * width + x0], p3 = argb[y1 * width + x1];
+                int pixel = 0;
+                for (int shift = 0; shift < 32; shift += 8) {
+                    final int sum = ((p0 >>> shift) & 0xff) + ((p1 >>> shift) & 0xff) + ((p2 >>> shift) & 0xff)
+                            + ((p3 >>> shift) & 0xff);
+                    pixel |= ((sum + 2) >> 2) << shift;
+                }
+                out[y * w + x] = pixel;
+            }
+        }
+        return out;
+    }
+}
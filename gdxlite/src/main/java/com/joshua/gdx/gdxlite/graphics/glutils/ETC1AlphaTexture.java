@@ -0,0 +1,85 @@
+package com.joshua.gdx.gdxlite.graphics.glutils;
+
+import com.joshua.gdx.gdxlite.graphics.Texture;
+import com.joshua.gdx.gdxlite.graphics.TextureData;
+import com.joshua.gdx.gdxlite.utils.Disposable;
+
+/**
+ * A transparent image stored as two ETC1 textures, since ETC1 has no alpha channel: the color and, in a second file
+ * with "_alpha" before the extension, the alpha channel as grey. {@link ETC1Encoder} writes both files. The fragment
+ * shader samples both:
+ *
+ * <pre>
+ * gl_FragColor = vec4(texture2D(u_texture, v_texCoords).rgb, texture2D(u_alphaTexture, v_texCoords).g);
+ * </pre>
+ * <p>
+ * Both textures together still use a quarter of the memory of RGBA8888.
+ */
+public class ETC1AlphaTexture implements Disposable {
+    private final Texture color;
+    private final Texture alpha;
+
+    /**
+     * Loads the color file and its alpha file, both either PKM or KTX.
+     */
+    public ETC1AlphaTexture(String filename, boolean internal, boolean useMipMaps) {
+        this(TextureData.Factory.loadFromFile(filename, internal, useMipMaps),
+                TextureData.Factory.loadFromFile(getAlphaFilename(filename), internal, useMipMaps));
+    }
+
+    public ETC1AlphaTexture(TextureData color, TextureData alpha) {
+        this.color = new Texture(color);
+        this.alpha = new Texture(alpha);
+        if (this.color.getWidth() != this.alpha.getWidth() || this.color.getHeight() != this.alpha.getHeight()) {
+            dispose();
+            throw new IllegalArgumentException("Color and alpha textures differ in size");
+        }
+    }
+
+    /**
+     * @return the name of the alpha file, e.g. ui_alpha.pkm for ui.pkm
+     */
+    public static String getAlphaFilename(String filename) {
+        final int dot = filename.lastIndexOf('.');
+        if (dot < 0 || dot < filename.lastIndexOf('/')) return filename + "_alpha";
+        return filename.substring(0, dot) + "_alpha" + filename.substring(dot);
+    }
+
+    /**
+     * Binds the color and the alpha texture to the given units and leaves colorUnit active.
+     */
+    public void bind(int colorUnit, int alphaUnit) {
+        alpha.bind(alphaUnit);
+        color.bind(colorUnit);
+    }
+
+    /**
+     * Sets the filter of both textures.
+     */
+    public void setFilter(Texture.TextureFilter minFilter, Texture.TextureFilter magFilter) {
+        color.setFilter(minFilter, magFilter);
+        alpha.setFilter(minFilter, magFilter);
+    }
+
+    public Texture getColorTexture() {
+        return color;
+    }
+
+    public Texture getAlphaTexture() {
+        return alpha;
+    }
+
+    public int getWidth() {
+        return color.getWidth();
+    }
+
+    public int getHeight() {
+        return color.getHeight();
+    }
+
+    @Override
+    public void dispose() {
+        color.dispose();
+        alpha.dispose();
+    }
+}
@@ -0,0 +1,163 @@
+package com.joshua.gdx.gdxlite.graphics.glutils;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Offline tool compressing images to ETC1 with {@link ETC1}, runnable on a desktop JVM with the library classes on
+ * the class path. To stay free of image libraries it reads binary PPM (P6) and PAM (P7) files, which most image tools
+ * export:
+ *
+ * <pre>
+ * java -cp gdxlite.jar com.joshua.gdx.gdxlite.graphics.glutils.ETC1Encoder [-mipmaps] input.pam output.ktx
+ * </pre>
+ * <p>
+ * The output is a PKM file, or a KTX file holding a mip chain with -mipmaps. Images with alpha also get an "_alpha"
+ * file for {@link ETC1AlphaTexture}.
+ */
+public class ETC1Encoder {
+    /**
+     * A decoded input image.
+     */
+    public static class Image {
+        public int width, height;
+        /**
+         * the pixels as ARGB8888, row by row from the top
+         */
+        public int[] argb;
+        public boolean hasAlpha;
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean mipmaps = false;
+        int arg = 0;
+        if (args.length > 0 && "-mipmaps".equals(args[0])) {
+            mipmaps = true;
+            arg++;
+        }
+        if (args.length - arg != 2) {
+            System.err.println("Usage: ETC1Encoder [-mipmaps] <input.ppm|input.pam> <output.pkm|output.ktx>");
+            System.exit(1);
+        }
+        final Image image = read(new File(args[arg]));
+        final String output = args[arg + 1];
+        write(image, new File(output), mipmaps, false);
+        if (image.hasAlpha) write(image, new File(ETC1AlphaTexture.getAlphaFilename(output)), mipmaps, true);
+    }
+
+    /**
+     * Encodes an image into a PKM file, or into a KTX file if the name ends with .ktx.
+     *
+     * @param mipmaps whether to include a mip chain, KTX only
+     * @param alpha   whether to encode the alpha channel instead of the color
+     */
+    public static void write(Image image, File file, boolean mipmaps, boolean alpha) throws IOException {
+        final byte[] bytes;
+        if (file.getName().endsWith(".ktx")) {
+            int levels = 1;
+            if (mipmaps) {
+                for (int size = Math.max(image.width, image.height); size > 1; size >>= 1)
+                    levels++;
+            }
+            final byte[][] data = new byte[levels][];
+            int[] argb = image.argb;
+            int width = image.width, height = image.height;
+            for (int level = 0; level < levels; level++) {
+                data[level] = ETC1.encodeImage(argb, width, height, alpha);
+                if (level + 1 < levels) {
+                    argb = ETC1.downsample(argb, width, height);
+                    width = Math.max(1, width >> 1);
+                    height = Math.max(1, height >> 1);
+                }
+            }
+            bytes = ETC1.createKTX(ETC1.GL_ETC1_RGB8_OES, 0x1907, image.width, image.height, data);
+        } else {
+            if (mipmaps) System.err.println("PKM files can't hold mipmaps, use a .ktx output file");
+            bytes = ETC1.createPKM(ETC1.encodeImage(image.argb, image.width, image.height, alpha), image.width,
+                    image.height);
+        }
+        final OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(bytes);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Reads a binary PPM (P6) or PAM (P7) file with 8 bits per channel.
+     */
+    public static Image read(File file) throws IOException {
+        final InputStream in = new BufferedInputStream(new FileInputStream(file));
+        try {
+            final String magic = token(in);
+            int width = 0, height = 0, depth = 3, maxValue = 255;
+            if ("P6".equals(magic)) {
+                width = Integer.parseInt(token(in));
+                height = Integer.parseInt(token(in));
+                maxValue = Integer.parseInt(token(in));
+            } else if ("P7".equals(magic)) {
+                String key;
+                while (!"ENDHDR".equals(key = token(in))) {
+                    if ("WIDTH".equals(key)) width = Integer.parseInt(token(in));
+                    else if ("HEIGHT".equals(key)) height = Integer.parseInt(token(in));
+                    else if ("DEPTH".equals(key)) depth = Integer.parseInt(token(in));
+                    else if ("MAXVAL".equals(key)) maxValue = Integer.parseInt(token(in));
+                    else if ("TUPLTYPE".equals(key)) token(in);
+                    else throw new IOException("Unknown PAM header field: " + key);
+                }
+            } else {
+                throw new IOException("Not a binary PPM or PAM file: " + file);
+            }
+            if (maxValue != 255) throw new IOException("Only 8 bit channels are supported: " + file);
+            if (depth < 3 || depth > 4) throw new IOException("Only RGB and RGB_ALPHA images are supported: " + file);
+
+            final Image image = new Image();
+            image.width = width;
+            image.height = height;
+            image.hasAlpha = depth == 4;
+            image.argb = new int[width * height];
+            final byte[] row = new byte[width * depth];
+            for (int y = 0; y < height; y++) {
+                for (int read = 0; read < row.length; ) {
+                    final int count = in.read(row, read, row.length - read);
+                    if (count < 0) throw new IOException("Truncated image: " + file);
+                    read += count;
+                }
+                for (int x = 0, i = 0; x < width; x++, i += depth) {
+                    final int a = depth == 4 ? row[i + 3] & 0xff : 0xff;
+                    image.argb[y * width + x] = a << 24 | (row[i] & 0xff) << 16 | (row[i + 1] & 0xff) << 8
+                            | (row[i + 2] & 0xff);
+                }
+            }
+            return image;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Reads the next whitespace separated header token, skipping comments. Consumes the single whitespace after it.
+     */
+    private static String token(InputStream in) throws IOException {
+        final StringBuilder builder = new StringBuilder();
+        int c;
+        while ((c = in.read()) != -1) {
+            if (c == '#') {
+                while ((c = in.read()) != -1 && c != '\n')
+                    ;
+            } else if (Character.isWhitespace(c)) {
+                if (builder.length() > 0) break;
+            } else {
+                builder.append((char) c);
+            }
+        }
+        if (builder.length() == 0) throw new IOException("Unexpected end of header");
+        return builder.toString();
+    }
+}
@@ -0,0 +1,132 @@
+package com.joshua.gdx.gdxlite.graphics.glutils;
+
+import android.graphics.Bitmap;
+import android.opengl.GLES20;
+import android.opengl.GLES30;
+
+import com.joshua.gdx.gdxlite.graphics.TextureData;
+import com.joshua.gdx.gdxlite.utils.FileUtil;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A {@link TextureData} loading an ETC1 image from a PKM file, as written by {@link ETC1#createPKM(byte[], int, int)}.
+ * The image is uploaded compressed where ETC1 is supported, as ETC2 on OpenGL ES 3.0 devices lacking the ETC1
+ * extension, ETC2 being a superset of ETC1, and decoded to RGB565 otherwise.
+ */
+public class ETC1TextureData implements TextureData {
+    private final String filename;
+    private final boolean internal;
+    private final boolean useMipMaps;
+    private ByteBuffer data;
+    private int width = 0;
+    private int height = 0;
+    private boolean isPrepared = false;
+
+    public ETC1TextureData(String filename, boolean internal, boolean useMipMaps) {
+        this.filename = filename;
+        this.internal = internal;
+        this.useMipMaps = useMipMaps;
+    }
+
+    @Override
+    public TextureDataType getType() {
+        return TextureDataType.Custom;
+    }
+
+    @Override
+    public boolean isPrepared() {
+        return isPrepared;
+    }
+
+    @Override
+    public void prepare() {
+        if (isPrepared) throw new RuntimeException("Already prepared");
+        final byte[] bytes = FileUtil.readBytes(filename, internal);
+        final ByteBuffer file = ByteBuffer.wrap(bytes).order(ByteOrder.BIG_ENDIAN);
+        if (!ETC1.isPKM(file)) throw new RuntimeException("Not a PKM file: " + filename);
+        width = file.getShort(12) & 0xffff;
+        height = file.getShort(14) & 0xffff;
+        final int size = ETC1.getCompressedDataSize(width, height);
+        if (bytes.length < ETC1.PKM_HEADER_SIZE + size) throw new RuntimeException("Truncated PKM file: " + filename);
+        data = ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+        data.put(bytes, ETC1.PKM_HEADER_SIZE, size);
+        data.flip();
+        isPrepared = true;
+    }
+
+    @Override
+    public void consumeCustomData(int target) {
+        if (!isPrepared) throw new RuntimeException("Call prepare() before calling consumeCompressedData()");
+        final boolean compressed = uploadETC1(target, 0, width, height, data);
+        if (useMipMaps && !compressed) GLES20.glGenerateMipmap(target);
+        data = null;
+        isPrepared = false;
+    }
+
+    /**
+     * Uploads one ETC1 level, decoding it if the device can't sample ETC1.
+     *
+     * @return whether the level was uploaded compressed, mipmaps can't be generated for compressed textures
+     */
+    static boolean uploadETC1(int target, int level, int width, int height, ByteBuffer data) {
+        final int size = ETC1.getCompressedDataSize(width, height);
+        if (GLTool.isExtensionSupported("GL_OES_compressed_ETC1_RGB8_texture")) {
+            GLES20.glCompressedTexImage2D(target, level, ETC1.GL_ETC1_RGB8_OES, width, height, 0, size, data);
+            return true;
+        }
+        if (GLTool.isGL30Available()) {
+            GLES20.glCompressedTexImage2D(target, level, GLES30.GL_COMPRESSED_RGB8_ETC2, width, height, 0, size,
+                    data);
+            return true;
+        }
+        GLES20.glPixelStorei(GLES20.GL_UNPACK_ALIGNMENT, 2);
+        GLES20.glTexImage2D(target, level, GLES20.GL_RGB, width, height, 0, GLES20.GL_RGB,
+                GLES20.GL_UNSIGNED_SHORT_5_6_5, ETC1.decodeImageRGB565(data, width, height));
+        GLES20.glPixelStorei(GLES20.GL_UNPACK_ALIGNMENT, 4);
+        return false;
+    }
+
+    @Override
+    public Bitmap consumeBitmap() {
+        throw new RuntimeException("This TextureData implementation does not return a Bitmap");
+    }
+
+    @Override
+    public boolean disposeBitmap() {
+        throw new RuntimeException("This TextureData implementation does not return a Bitmap");
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getFormat() {
+        return ETC1.GL_ETC1_RGB8_OES;
+    }
+
+    /**
+     * @return whether mipmaps were requested. They are only generated if the image had to be decoded.
+     */
+    @Override
+    public boolean useMipMaps() {
+        return useMipMaps;
+    }
+
+    @Override
+    public boolean isManaged() {
+        return true;
+    }
+
+    public String toString() {
+        return filename;
+    }
+}
@@ -0,0 +1,117 @@
+package com.joshua.gdx.gdxlite.graphics.glutils;
+
+import com.joshua.gdx.gdxlite.graphics.Format;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+
+/**
+ * Converts ARGB8888 pixels to the 16 bit formats {@link Format#RGB565} and {@link Format#RGBA4444}, halving the
+ * video memory of a texture. Dithering hides the banding of the fewer color levels in gradients.
+ */
+public final class FormatConverter {
+    /**
+     * How the quantization error is hidden.
+     */
+    public enum Dither {
+        /**
+         * Rounds each pixel to the nearest level, gradients show bands.
+         */
+        None,
+        /**
+         * Adds a 4x4 Bayer threshold pattern. Cheap, stable between frames and tiles seamlessly, with a faint
+         * regular texture.
+         */
+        Ordered,
+        /**
+         * Diffuses the error of each pixel to its neighbours, Floyd-Steinberg. Smoothest gradients, with noise like
+         * grain.
+         */
+        FloydSteinberg
+    }
+
+    private static final int[] BITS_565 = {5, 6, 5};
+    private static final int[] BITS_4444 = {4, 4, 4, 4};
+    private static final int[] BAYER = {0, 8, 2, 10, 12, 4, 14, 6, 3, 11, 1, 9, 15, 7, 13, 5};
+
+    private FormatConverter() {
+    }
+
+    /**
+     * @return whether the format is one of the 16 bit formats this class converts to
+     */
+    public static boolean isSupported(Format format) {
+        return format == Format.RGB565 || format == Format.RGBA4444;
+    }
+
+    /**
+     * Converts non premultiplied ARGB8888 pixels, as returned by Bitmap.getPixels, rows from the top. RGBA4444 pixels
+     * are premultiplied, like bitmaps uploaded with GLUtils.
+     *
+     * @param format {@link Format#RGB565} or {@link Format#RGBA4444}
+     * @return the pixels as native order shorts, for glTexImage2D with {@link Format#toGlType()}
+     */
+    public static ByteBuffer convert(int[] argb, int width, int height, Format format, Dither dither) {
+        if (!isSupported(format)) throw new IllegalArgumentException("Unsupported format: " + format);
+        final int[] bits = format == Format.RGB565 ? BITS_565 : BITS_4444;
+        final int channels = bits.length;
+        final boolean premultiply = channels == 4;
+        final float[] step = new float[channels];
+        final int[] max = new int[channels];
+        for (int c = 0; c < channels; c++) {
+            max[c] = (1 << bits[c]) - 1;
+            step[c] = 255f / max[c];
+        }
+
+        final ByteBuffer bytes = ByteBuffer.allocateDirect(width * height * 2).order(ByteOrder.nativeOrder());
+        final ShortBuffer out = bytes.asShortBuffer();
+        final boolean diffuse = dither == Dither.FloydSteinberg;
+        // errors of the current and the next row, with a pixel of margin on each side
+        float[] errors = diffuse ? new float[(width + 2) * channels] : null;
+        float[] nextErrors = diffuse ? new float[(width + 2) * channels] : null;
+        final float[] values = new float[4];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                final int pixel = argb[y * width + x];
+                final int a = pixel >>> 24;
+                values[0] = (pixel >> 16) & 0xff;
+                values[1] = (pixel >> 8) & 0xff;
+                values[2] = pixel & 0xff;
+                values[3] = a;
+                if (premultiply) {
+                    values[0] = values[0] * a / 255;
+                    values[1] = values[1] * a / 255;
+                    values[2] = values[2] * a / 255;
+                }
+                final float threshold = dither == Dither.Ordered ? (BAYER[(y & 3) * 4 + (x & 3)] + 0.5f) / 16 - 0.5f
+                        : 0;
+                int packed = 0;
+                for (int c = 0; c < channels; c++) {
+                    float value = values[c];
+                    if (diffuse) value += errors[(x + 1) * channels + c];
+                    else value += threshold * step[c];
+                    int level = Math.round(value / step[c]);
+                    level = level < 0 ? 0 : level > max[c] ? max[c] : level;
+                    if (diffuse) {
+                        final float error = value - level * step[c];
+                        errors[(x + 2) * channels + c] += error * 7 / 16;
+                        nextErrors[x * channels + c] += error * 3 / 16;
+                        nextErrors[(x + 1) * channels + c] += error * 5 / 16;
+                        nextErrors[(x + 2) * channels + c] += error / 16;
+                    }
+                    packed = packed << bits[c] | level;
+                }
+                out.put((short) packed);
+            }
+            if (diffuse) {
+                final float[] swap = errors;
+                errors = nextErrors;
+                nextErrors = swap;
+                Arrays.fill(nextErrors, 0);
+            }
+        }
+        return bytes;
+    }
+}
@@ -1,12 +1,24 @@
 package com.joshua.gdx.gdxlite.graphics.glutils;
 
 import android.opengl.GLES20;
+import android.opengl.GLES30;
 import android.util.Log;
 
 import static com.joshua.gdx.gdxlite.utils.GLConstants.*;
 
 public class GLTool {
     private static final String TAG = "GLTool";
+    /**
+     * texture and sampler parameter of GL_EXT_texture_filter_anisotropic
+     */
+    public static final int GL_TEXTURE_MAX_ANISOTROPY_EXT = 0x84FE;
+    public static final int GL_MAX_TEXTURE_MAX_ANISOTROPY_EXT = 0x84FF;
+
+    private static Boolean gl30Available;
+    private static Boolean uint32IndicesSupported;
+    private static String extensions;
+    private static int[] compressedFormats;
+    private static float maxAnisotropy = -1;
 
     public static int glGenBuffer() {
         int[] ids = new int[1];
@@ -63,4 +75,183 @@ public class GLTool {
         int[] ids = {handle};
         GLES20.glDeleteRenderbuffers(1, ids, 0);
     }
+
+    /**
+     * @return whether the current context is OpenGL ES 3.0 or later. Must be called with a current context.
+     */
+    public static boolean isGL30Available() {
+        if (gl30Available == null) {
+            String version = GLES20.glGetString(GLES20.GL_VERSION);
+            if (version == null) return false;
+            gl30Available = !version.startsWith("OpenGL ES 2.") && !version.startsWith("OpenGL ES-");
+        }
+        return gl30Available;
+    }
+
+    /**
+     * @return whether GL_UNSIGNED_INT indices can be used, which requires OpenGL ES 3.0 or the OES_element_index_uint
+     * extension. Must be called with a current context.
+     */
+    public static boolean isUint32IndicesSupported() {
+        if (uint32IndicesSupported == null) {
+            if (isGL30Available()) {
+                uint32IndicesSupported = true;
+            } else {
+                if (GLES20.glGetString(GLES20.GL_EXTENSIONS) == null) return false;
+                uint32IndicesSupported = isExtensionSupported("GL_OES_element_index_uint");
+            }
+        }
+        return uint32IndicesSupported;
+    }
+
+    /**
+     * @return whether the current context supports the given extension. Must be called with a current context.
+     */
+    public static boolean isExtensionSupported(String extension) {
+        if (extensions == null) {
+            extensions = GLES20.glGetString(GLES20.GL_EXTENSIONS);
+            if (extensions == null) return false;
+        }
+        return (" " + extensions + " ").contains(" " + extension + " ");
+    }
+
+    /**
+     * @param internalFormat a compressed internal format, e.g. GL_COMPRESSED_RGB8_ETC2
+     * @return whether glCompressedTexImage2D accepts the format. Must be called with a current context.
+     */
+    public static boolean isCompressedFormatSupported(int internalFormat) {
+        if (compressedFormats == null) {
+            final int[] count = new int[1];
+            GLES20.glGetIntegerv(GLES20.GL_NUM_COMPRESSED_TEXTURE_FORMATS, count, 0);
+            compressedFormats = new int[count[0]];
+            if (count[0] > 0) GLES20.glGetIntegerv(GLES20.GL_COMPRESSED_TEXTURE_FORMATS, compressedFormats, 0);
+        }
+        for (int format : compressedFormats)
+            if (format == internalFormat) return true;
+        return false;
+    }
+
+    /**
+     * @return the highest anisotropy of anisotropic filtering, 1 if GL_EXT_texture_filter_anisotropic isn't supported.
+     * Must be called with a current context.
+     */
+    public static float getMaxAnisotropy() {
+        if (maxAnisotropy < 0) {
+            if (GLES20.glGetString(GLES20.GL_EXTENSIONS) == null) return 1;
+            if (isExtensionSupported("GL_EXT_texture_filter_anisotropic")) {
+                final float[] max = new float[1];
+                GLES20.glGetFloatv(GL_MAX_TEXTURE_MAX_ANISOTROPY_EXT, max, 0);
+                maxAnisotropy = Math.max(1, max[0]);
+            } else {
+                maxAnisotropy = 1;
+            }
+        }
+        return maxAnisotropy;
+    }
+
+    /**
+     * @param internalFormat an unsized internal format as taken by glTexImage2D, or a sized one
+     * @param type           the data type of the texels
+     * @return the sized internal format glTexStorage2D takes for the pair, the internal format itself if already sized,
+     * or 0 if there is none, e.g. for GL_ALPHA and GL_LUMINANCE
+     */
+    public static int getSizedInternalFormat(int internalFormat, int type) {
+        switch (internalFormat) {
+            case GLES20.GL_RGBA:
+                switch (type) {
+                    case GLES20.GL_UNSIGNED_BYTE:
+                        return GLES30.GL_RGBA8;
+                    case GLES20.GL_UNSIGNED_SHORT_4_4_4_4:
+                        return GLES20.GL_RGBA4;
+                    case GLES20.GL_UNSIGNED_SHORT_5_5_5_1:
+                        return GLES20.GL_RGB5_A1;
+                    case GLES30.GL_HALF_FLOAT:
+                        return GLES30.GL_RGBA16F;
+                    default:
+                        return 0;
+                }
+            case GLES20.GL_RGB:
+                switch (type) {
+                    case GLES20.GL_UNSIGNED_BYTE:
+                        return GLES30.GL_RGB8;
+                    case GLES20.GL_UNSIGNED_SHORT_5_6_5:
+                        return GLES20.GL_RGB565;
+                    case GLES30.GL_HALF_FLOAT:
+                        return GLES30.GL_RGB16F;
+                    default:
+                        return 0;
+                }
+            case GLES20.GL_DEPTH_COMPONENT:
+                if (type == GLES20.GL_UNSIGNED_SHORT) return GLES20.GL_DEPTH_COMPONENT16;
+                if (type == GLES20.GL_UNSIGNED_INT) return GLES30.GL_DEPTH_COMPONENT24;
+                return 0;
+            case GLES20.GL_ALPHA:
+            case GLES20.GL_LUMINANCE:
+            case GLES20.GL_LUMINANCE_ALPHA:
+                return 0;
+            default:
+                return internalFormat;
+        }
+    }
+
+    /**
+     * Allocates immutable storage for all levels of the texture bound to the target with glTexStorage2D, which spares
+     * the driver from validating the levels on every use and from keeping room for their redefinition. The levels are
+     * then filled with glTexSubImage2D, glTexImage2D can't be used on such a texture anymore. Must be called with a
+     * current context.
+     *
+     * @param levels the number of mip levels, 1 without mipmaps
+     * @return whether the storage was allocated, false on OpenGL ES 2.0 or without a sized internal format, in which
+     * case the caller allocates with glTexImage2D
+     */
+    public static boolean texStorage2D(int target, int levels, int internalFormat, int type, int width, int height) {
+        if (!isGL30Available()) return false;
+        final int sizedFormat = getSizedInternalFormat(internalFormat, type);
+        if (sizedFormat == 0) return false;
+        GLES30.glTexStorage2D(target, levels, sizedFormat, width, height);
+        return true;
+    }
+
+    /**
+     * @return whether the texture bound to the target has immutable storage. Queries the driver, must be called with a
+     * current context.
+     */
+    public static boolean isImmutable(int target) {
+        if (!isGL30Available()) return false;
+        final int[] immutable = new int[1];
+        GLES20.glGetTexParameteriv(target, GLES30.GL_TEXTURE_IMMUTABLE_FORMAT, immutable, 0);
+        return immutable[0] != 0;
+    }
+
+    /**
+     * Selects the index type for the given number of vertices, GL_UNSIGNED_SHORT unless 32 bit indices are needed. 8
+     * bit indices are never selected, many GPUs and ANGLE convert them on the CPU, they have to be asked for
+     * explicitly.
+     *
+     * @param numVertices the number of vertices the indices refer to
+     * @return GL_UNSIGNED_SHORT or GL_UNSIGNED_INT
+     */
+    public static int selectIndexType(int numVertices) {
+        if (numVertices <= 1 << 16) return GLES20.GL_UNSIGNED_SHORT;
+        if (!isUint32IndicesSupported())
+            throw new RuntimeException("32 bit indices are not supported, can't address " + numVertices + " vertices");
+        return GLES20.GL_UNSIGNED_INT;
+    }
+
+    /**
+     * @param indexType GL_UNSIGNED_BYTE, GL_UNSIGNED_SHORT or GL_UNSIGNED_INT
+     * @return the size of a single index in bytes
+     */
+    public static int getIndexSize(int indexType) {
+        switch (indexType) {
+            case GLES20.GL_UNSIGNED_BYTE:
+                return 1;
+            case GLES20.GL_UNSIGNED_SHORT:
+                return 2;
+            case GLES20.GL_UNSIGNED_INT:
+                return 4;
+            default:
+                throw new IllegalArgumentException("Unknown index type: " + indexType);
+        }
+    }
 }
@@ -16,29 +16,44 @@
 
 package com.joshua.gdx.gdxlite.graphics.glutils;
 
+import android.opengl.GLES20;
+
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.ShortBuffer;
 
 public class IndexArray implements IndexData {
-	final ShortBuffer buffer;
+	final Buffer buffer;
 	final ByteBuffer byteBuffer;
+	final int indexType;
+	final int indexSize;
 
 	// used to work around bug: https://android-review.googlesource.com/#/c/73175/
 	private final boolean empty;
 
-	/** Creates a new IndexArray to be used with vertex arrays.
+	/** Creates a new IndexArray with 16 bit indices to be used with vertex arrays.
 	 * 
 	 * @param maxIndices the maximum number of indices this buffer can hold */
 	public IndexArray (int maxIndices) {
+		this(maxIndices, GLES20.GL_UNSIGNED_SHORT);
+	}
+
+	/** Creates a new IndexArray to be used with vertex arrays.
+	 * 
+	 * @param maxIndices the maximum number of indices this buffer can hold
+	 * @param indexType GL_UNSIGNED_BYTE, GL_UNSIGNED_SHORT or GL_UNSIGNED_INT, see {@link GLTool#selectIndexType(int)} */
+	public IndexArray (int maxIndices, int indexType) {
 
 		empty = maxIndices == 0;
 		if (empty) {
 			maxIndices = 1; // avoid allocating a zero-sized buffer because of bug in Android's ART < Android 5.0
 		}
 
-		byteBuffer = ByteBuffer.allocateDirect(maxIndices * 2).order(ByteOrder.nativeOrder());
-		buffer = byteBuffer.asShortBuffer();
+		this.indexType = indexType;
+		indexSize = GLTool.getIndexSize(indexType);
+		byteBuffer = ByteBuffer.allocateDirect(maxIndices * indexSize).order(ByteOrder.nativeOrder());
+		buffer = IndexUtils.asIndexBuffer(byteBuffer, indexType);
 		buffer.flip();
 		byteBuffer.flip();
 	}
@@ -53,6 +68,11 @@ public class IndexArray implements IndexData {
 		return empty ? 0 : buffer.capacity();
 	}
 
+	@Override
+	public int getIndexType () {
+		return indexType;
+	}
+
 	/** <p>
 	 * Sets the indices of this IndexArray, discarding the old indices. The count must equal the number of indices to be copied to
 	 * this IndexArray.
@@ -67,28 +87,45 @@ public class IndexArray implements IndexData {
 	 * @param count the number of shorts to copy */
 	public void setIndices (short[] indices, int offset, int count) {
 		buffer.clear();
-		buffer.put(indices, offset, count);
+		IndexUtils.put(buffer, indexType, indices, offset, count);
 		buffer.flip();
 		byteBuffer.position(0);
-		byteBuffer.limit(count << 1);
+		byteBuffer.limit(count * indexSize);
 	}
-	
+
+	@Override
+	public void setIndices (int[] indices, int offset, int count) {
+		buffer.clear();
+		IndexUtils.put(buffer, indexType, indices, offset, count);
+		buffer.flip();
+		byteBuffer.position(0);
+		byteBuffer.limit(count * indexSize);
+	}
+
 	public void setIndices (ShortBuffer indices) {
 		int pos = indices.position();
 		buffer.clear();
 		buffer.limit(indices.remaining());
-		buffer.put(indices);
+		IndexUtils.put(buffer, indexType, indices);
 		buffer.flip();
 		indices.position(pos);
 		byteBuffer.position(0);
-		byteBuffer.limit(buffer.limit() << 1);
+		byteBuffer.limit(buffer.limit() * indexSize);
 	}
 
 	@Override
 	public void updateIndices (int targetOffset, short[] indices, int offset, int count) {
 		final int pos = buffer.position();
 		buffer.position(targetOffset);
-		buffer.put(indices, offset, count);
+		IndexUtils.put(buffer, indexType, indices, offset, count);
+		buffer.position(pos);
+	}
+
+	@Override
+	public void updateIndices (int targetOffset, int[] indices, int offset, int count) {
+		final int pos = buffer.position();
+		buffer.position(targetOffset);
+		IndexUtils.put(buffer, indexType, indices, offset, count);
 		buffer.position(pos);
 	}
 
@@ -99,6 +136,12 @@ public class IndexArray implements IndexData {
 	 * 
 	 * @return the underlying short buffer. */
 	public ShortBuffer getBuffer () {
+		if (indexType != GLES20.GL_UNSIGNED_SHORT) throw new IllegalStateException("Indices are not 16 bit, use getIndexBuffer()");
+		return (ShortBuffer)buffer;
+	}
+
+	@Override
+	public Buffer getIndexBuffer () {
 		return buffer;
 	}
 
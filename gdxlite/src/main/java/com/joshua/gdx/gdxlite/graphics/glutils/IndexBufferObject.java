@@ -18,6 +18,7 @@ package com.joshua.gdx.gdxlite.graphics.glutils;
 
 import android.opengl.GLES20;
 
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.ShortBuffer;
@@ -48,8 +49,10 @@ import java.nio.ShortBuffer;
  * @author mzechner, Thorsten Schleinzer
  */
 public class IndexBufferObject implements IndexData {
-    final ShortBuffer buffer;
+    final Buffer buffer;
     final ByteBuffer byteBuffer;
+    final int indexType;
+    final int indexSize;
     int bufferHandle;
     final boolean isDirect;
     boolean isDirty = true;
@@ -69,22 +72,36 @@ public class IndexBufferObject implements IndexData {
     }
 
     /**
-     * Creates a new IndexBufferObject.
+     * Creates a new IndexBufferObject with 16 bit indices.
      *
      * @param isStatic   whether the index buffer is static
      * @param maxIndices the maximum number of indices this buffer can hold
      */
     public IndexBufferObject(boolean isStatic, int maxIndices) {
+        this(isStatic, maxIndices, GLES20.GL_UNSIGNED_SHORT);
+    }
+
+    /**
+     * Creates a new IndexBufferObject.
+     *
+     * @param isStatic   whether the index buffer is static
+     * @param maxIndices the maximum number of indices this buffer can hold
+     * @param indexType  GL_UNSIGNED_BYTE, GL_UNSIGNED_SHORT or GL_UNSIGNED_INT, see
+     *                   {@link GLTool#selectIndexType(int)}
+     */
+    public IndexBufferObject(boolean isStatic, int maxIndices, int indexType) {
 
         empty = maxIndices == 0;
         if (empty) {
             maxIndices = 1; // avoid allocating a zero-sized buffer because of bug in Android's ART < Android 5.0
         }
 
-        byteBuffer = ByteBuffer.allocateDirect(maxIndices * 2).order(ByteOrder.nativeOrder());
+        this.indexType = indexType;
+        indexSize = GLTool.getIndexSize(indexType);
+        byteBuffer = ByteBuffer.allocateDirect(maxIndices * indexSize).order(ByteOrder.nativeOrder());
         isDirect = true;
 
-        buffer = byteBuffer.asShortBuffer();
+        buffer = IndexUtils.asIndexBuffer(byteBuffer, indexType);
         buffer.flip();
         byteBuffer.flip();
         bufferHandle = GLTool.glGenBuffer();
@@ -105,6 +122,11 @@ public class IndexBufferObject implements IndexData {
         return empty ? 0 : buffer.capacity();
     }
 
+    @Override
+    public int getIndexType() {
+        return indexType;
+    }
+
     /**
      * <p>
      * Sets the indices of this IndexBufferObject, discarding the old indices. The count must equal the number of
@@ -124,10 +146,25 @@ public class IndexBufferObject implements IndexData {
     public void setIndices(short[] indices, int offset, int count) {
         isDirty = true;
         buffer.clear();
-        buffer.put(indices, offset, count);
+        IndexUtils.put(buffer, indexType, indices, offset, count);
         buffer.flip();
         byteBuffer.position(0);
-        byteBuffer.limit(count << 1);
+        byteBuffer.limit(count * indexSize);
+
+        if (isBound) {
+            GLES20.glBufferData(GLES20.GL_ELEMENT_ARRAY_BUFFER, byteBuffer.limit(), byteBuffer, usage);
+            isDirty = false;
+        }
+    }
+
+    @Override
+    public void setIndices(int[] indices, int offset, int count) {
+        isDirty = true;
+        buffer.clear();
+        IndexUtils.put(buffer, indexType, indices, offset, count);
+        buffer.flip();
+        byteBuffer.position(0);
+        byteBuffer.limit(count * indexSize);
 
         if (isBound) {
             GLES20.glBufferData(GLES20.GL_ELEMENT_ARRAY_BUFFER, byteBuffer.limit(), byteBuffer, usage);
@@ -139,11 +176,11 @@ public class IndexBufferObject implements IndexData {
         isDirty = true;
         int pos = indices.position();
         buffer.clear();
-        buffer.put(indices);
+        IndexUtils.put(buffer, indexType, indices);
         buffer.flip();
         indices.position(pos);
         byteBuffer.position(0);
-        byteBuffer.limit(buffer.limit() << 1);
+        byteBuffer.limit(buffer.limit() * indexSize);
 
         if (isBound) {
             GLES20.glBufferData(GLES20.GL_ELEMENT_ARRAY_BUFFER, byteBuffer.limit(), byteBuffer, usage);
@@ -155,7 +192,20 @@ public class IndexBufferObject implements IndexData {
     public void updateIndices(int targetOffset, short[] indices, int offset, int count) {
         isDirty = true;
         buffer.position(targetOffset);
-        buffer.put(indices, offset, count);
+        IndexUtils.put(buffer, indexType, indices, offset, count);
+        buffer.position(0);
+
+        if (isBound) {
+            GLES20.glBufferData(GLES20.GL_ELEMENT_ARRAY_BUFFER, byteBuffer.limit(), byteBuffer, usage);
+            isDirty = false;
+        }
+    }
+
+    @Override
+    public void updateIndices(int targetOffset, int[] indices, int offset, int count) {
+        isDirty = true;
+        buffer.position(targetOffset);
+        IndexUtils.put(buffer, indexType, indices, offset, count);
         buffer.position(0);
 
         if (isBound) {
@@ -174,6 +224,14 @@ public class IndexBufferObject implements IndexData {
      * @return the underlying short buffer.
      */
     public ShortBuffer getBuffer() {
+        if (indexType != GLES20.GL_UNSIGNED_SHORT)
+            throw new IllegalStateException("Indices are not 16 bit, use getIndexBuffer()");
+        isDirty = true;
+        return (ShortBuffer) buffer;
+    }
+
+    @Override
+    public Buffer getIndexBuffer() {
         isDirty = true;
         return buffer;
     }
@@ -188,7 +246,7 @@ public class IndexBufferObject implements IndexData {
 
         GLES20.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, bufferHandle);
         if (isDirty) {
-            byteBuffer.limit(buffer.limit() * 2);
+            byteBuffer.limit(buffer.limit() * indexSize);
             GLES20.glBufferData(GLES20.GL_ELEMENT_ARRAY_BUFFER, byteBuffer.limit(), byteBuffer, usage);
             isDirty = false;
         }
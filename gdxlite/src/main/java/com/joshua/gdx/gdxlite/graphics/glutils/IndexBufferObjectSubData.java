@@ -20,6 +20,7 @@ import android.opengl.GLES20;
 
 import com.joshua.gdx.gdxlite.utils.BufferUtils;
 
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.ShortBuffer;
 
@@ -44,8 +45,10 @@ import java.nio.ShortBuffer;
  * @author mzechner
  */
 public class IndexBufferObjectSubData implements IndexData {
-    final ShortBuffer buffer;
+    final Buffer buffer;
     final ByteBuffer byteBuffer;
+    final int indexType;
+    final int indexSize;
     int bufferHandle;
     final boolean isDirect;
     boolean isDirty = true;
@@ -53,17 +56,31 @@ public class IndexBufferObjectSubData implements IndexData {
     final int usage;
 
     /**
-     * Creates a new IndexBufferObject.
+     * Creates a new IndexBufferObject with 16 bit indices.
      *
      * @param isStatic   whether the index buffer is static
      * @param maxIndices the maximum number of indices this buffer can hold
      */
     public IndexBufferObjectSubData(boolean isStatic, int maxIndices) {
-        byteBuffer = BufferUtils.newByteBuffer(maxIndices * 2);
+        this(isStatic, maxIndices, GLES20.GL_UNSIGNED_SHORT);
+    }
+
+    /**
+     * Creates a new IndexBufferObject.
+     *
+     * @param isStatic   whether the index buffer is static
+     * @param maxIndices the maximum number of indices this buffer can hold
+     * @param indexType  GL_UNSIGNED_BYTE, GL_UNSIGNED_SHORT or GL_UNSIGNED_INT, see
+     *                   {@link GLTool#selectIndexType(int)}
+     */
+    public IndexBufferObjectSubData(boolean isStatic, int maxIndices, int indexType) {
+        this.indexType = indexType;
+        indexSize = GLTool.getIndexSize(indexType);
+        byteBuffer = BufferUtils.newByteBuffer(maxIndices * indexSize);
         isDirect = true;
 
         usage = isStatic ? GLES20.GL_STATIC_DRAW : GLES20.GL_DYNAMIC_DRAW;
-        buffer = byteBuffer.asShortBuffer();
+        buffer = IndexUtils.asIndexBuffer(byteBuffer, indexType);
         buffer.flip();
         byteBuffer.flip();
         bufferHandle = createBufferObject();
@@ -75,11 +92,13 @@ public class IndexBufferObjectSubData implements IndexData {
      * @param maxIndices the maximum number of indices this buffer can hold
      */
     public IndexBufferObjectSubData(int maxIndices) {
-        byteBuffer = BufferUtils.newByteBuffer(maxIndices * 2);
+        indexType = GLES20.GL_UNSIGNED_SHORT;
+        indexSize = 2;
+        byteBuffer = BufferUtils.newByteBuffer(maxIndices * indexSize);
         this.isDirect = true;
 
         usage = GLES20.GL_STATIC_DRAW;
-        buffer = byteBuffer.asShortBuffer();
+        buffer = IndexUtils.asIndexBuffer(byteBuffer, indexType);
         buffer.flip();
         byteBuffer.flip();
         bufferHandle = createBufferObject();
@@ -107,6 +126,11 @@ public class IndexBufferObjectSubData implements IndexData {
         return buffer.capacity();
     }
 
+    @Override
+    public int getIndexType() {
+        return indexType;
+    }
+
     /**
      * <p>
      * Sets the indices of this IndexBufferObject, discarding the old indices. The count must equal the number of
@@ -126,10 +150,25 @@ public class IndexBufferObjectSubData implements IndexData {
     public void setIndices(short[] indices, int offset, int count) {
         isDirty = true;
         buffer.clear();
-        buffer.put(indices, offset, count);
+        IndexUtils.put(buffer, indexType, indices, offset, count);
         buffer.flip();
         byteBuffer.position(0);
-        byteBuffer.limit(count << 1);
+        byteBuffer.limit(count * indexSize);
+
+        if (isBound) {
+            GLES20.glBufferSubData(GLES20.GL_ELEMENT_ARRAY_BUFFER, 0, byteBuffer.limit(), byteBuffer);
+            isDirty = false;
+        }
+    }
+
+    @Override
+    public void setIndices(int[] indices, int offset, int count) {
+        isDirty = true;
+        buffer.clear();
+        IndexUtils.put(buffer, indexType, indices, offset, count);
+        buffer.flip();
+        byteBuffer.position(0);
+        byteBuffer.limit(count * indexSize);
 
         if (isBound) {
             GLES20.glBufferSubData(GLES20.GL_ELEMENT_ARRAY_BUFFER, 0, byteBuffer.limit(), byteBuffer);
@@ -141,11 +180,11 @@ public class IndexBufferObjectSubData implements IndexData {
         int pos = indices.position();
         isDirty = true;
         buffer.clear();
-        buffer.put(indices);
+        IndexUtils.put(buffer, indexType, indices);
         buffer.flip();
         indices.position(pos);
         byteBuffer.position(0);
-        byteBuffer.limit(buffer.limit() << 1);
+        byteBuffer.limit(buffer.limit() * indexSize);
 
         if (isBound) {
             GLES20.glBufferSubData(GLES20.GL_ELEMENT_ARRAY_BUFFER, 0, byteBuffer.limit(), byteBuffer);
@@ -157,7 +196,20 @@ public class IndexBufferObjectSubData implements IndexData {
     public void updateIndices(int targetOffset, short[] indices, int offset, int count) {
         isDirty = true;
         buffer.position(targetOffset);
-        buffer.put(indices, offset, count);
+        IndexUtils.put(buffer, indexType, indices, offset, count);
+        buffer.position(0);
+
+        if (isBound) {
+            GLES20.glBufferSubData(GLES20.GL_ELEMENT_ARRAY_BUFFER, 0, byteBuffer.limit(), byteBuffer);
+            isDirty = false;
+        }
+    }
+
+    @Override
+    public void updateIndices(int targetOffset, int[] indices, int offset, int count) {
+        isDirty = true;
+        buffer.position(targetOffset);
+        IndexUtils.put(buffer, indexType, indices, offset, count);
         buffer.position(0);
 
         if (isBound) {
@@ -177,6 +229,14 @@ public class IndexBufferObjectSubData implements IndexData {
      * @return the underlying short buffer.
      */
     public ShortBuffer getBuffer() {
+        if (indexType != GLES20.GL_UNSIGNED_SHORT)
+            throw new IllegalStateException("Indices are not 16 bit, use getIndexBuffer()");
+        isDirty = true;
+        return (ShortBuffer) buffer;
+    }
+
+    @Override
+    public Buffer getIndexBuffer() {
         isDirty = true;
         return buffer;
     }
@@ -190,7 +250,7 @@ public class IndexBufferObjectSubData implements IndexData {
 
         GLES20.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, bufferHandle);
         if (isDirty) {
-            byteBuffer.limit(buffer.limit() * 2);
+            byteBuffer.limit(buffer.limit() * indexSize);
             GLES20.glBufferSubData(GLES20.GL_ELEMENT_ARRAY_BUFFER, 0, byteBuffer.limit(), byteBuffer);
             isDirty = false;
         }
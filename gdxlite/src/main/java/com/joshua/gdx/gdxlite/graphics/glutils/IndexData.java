@@ -18,9 +18,12 @@ package com.joshua.gdx.gdxlite.graphics.glutils;
 
 import com.joshua.gdx.gdxlite.utils.Disposable;
 
+import java.nio.Buffer;
 import java.nio.ShortBuffer;
 
-/** An IndexData instance holds index data. Can be either a plain short buffer or an OpenGL buffer object.
+/** An IndexData instance holds index data. Can be either a plain index buffer or an OpenGL buffer object. Indices are stored
+ * as GL_UNSIGNED_BYTE, GL_UNSIGNED_SHORT or GL_UNSIGNED_INT, see {@link GLTool#selectIndexType(int)}. The short and int
+ * setters convert to the stored type.
  * @author mzechner */
 public interface IndexData extends Disposable {
 	/** @return the number of indices currently stored in this buffer */
@@ -29,6 +32,9 @@ public interface IndexData extends Disposable {
 	/** @return the maximum number of indices this IndexBufferObject can store. */
 	public int getNumMaxIndices();
 
+	/** @return the type of the stored indices, GL_UNSIGNED_BYTE, GL_UNSIGNED_SHORT or GL_UNSIGNED_INT */
+	public int getIndexType();
+
 	/** <p>
 	 * Sets the indices of this IndexBufferObject, discarding the old indices. The count must equal the number of indices to be
 	 * copied to this IndexBufferObject.
@@ -43,6 +49,12 @@ public interface IndexData extends Disposable {
 	 * @param count the number of shorts to copy */
 	public void setIndices(short[] indices, int offset, int count);
 
+	/** Sets the indices of this IndexBufferObject, discarding the old indices, see {@link #setIndices(short[], int, int)}.
+	 * @param indices the index data, each index must fit the index type
+	 * @param offset the offset to start copying the data from
+	 * @param count the number of ints to copy */
+	public void setIndices(int[] indices, int offset, int count);
+
 	/** Copies the specified indices to the indices of this IndexBufferObject, discarding the old indices. Copying start at the
 	 * current {@link ShortBuffer#position()} of the specified buffer and copied the {@link ShortBuffer#remaining()} amount of
 	 * indices. This can be called in between calls to {@link #bind()} and {@link #unbind()}. The index data will be updated
@@ -57,14 +69,28 @@ public interface IndexData extends Disposable {
 	 * @param count the number of shorts to copy */
 	public void updateIndices(int targetOffset, short[] indices, int offset, int count);
 
+	/** Update (a portion of) the indices.
+	 * @param targetOffset offset in indices buffer
+	 * @param indices the index data, each index must fit the index type
+	 * @param offset the offset to start copying the data from
+	 * @param count the number of ints to copy */
+	public void updateIndices(int targetOffset, int[] indices, int offset, int count);
+
 	/** <p>
 	 * Returns the underlying ShortBuffer. If you modify the buffer contents they wil be uploaded on the call to {@link #bind()}.
 	 * If you need immediate uploading use {@link #setIndices(short[], int, int)}.
 	 * </p>
 	 * 
-	 * @return the underlying short buffer. */
+	 * @return the underlying short buffer.
+	 * @throws IllegalStateException if the index type is not GL_UNSIGNED_SHORT */
 	public ShortBuffer getBuffer();
 
+	/** Returns the underlying buffer as a ByteBuffer, ShortBuffer or IntBuffer depending on {@link #getIndexType()}, with
+	 * position and limit counted in indices. If you modify the buffer contents they wil be uploaded on the call to
+	 * {@link #bind()}.
+	 * @return the underlying index buffer. */
+	public Buffer getIndexBuffer();
+
 	/** Binds this IndexBufferObject for rendering with glDrawElements. */
 	public void bind();
 
@@ -0,0 +1,125 @@
+package com.joshua.gdx.gdxlite.graphics.glutils;
+
+import android.opengl.GLES20;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * Copies indices between arrays and the typed index buffers of the {@link IndexData} implementations, widening or
+ * narrowing them to the buffer's index type.
+ */
+public final class IndexUtils {
+    private IndexUtils() {
+    }
+
+    /**
+     * @return a view of byteBuffer counting in indices of the given type, with position and limit independent of it
+     */
+    public static Buffer asIndexBuffer(ByteBuffer byteBuffer, int indexType) {
+        switch (indexType) {
+            case GLES20.GL_UNSIGNED_BYTE:
+                return byteBuffer.duplicate();
+            case GLES20.GL_UNSIGNED_SHORT:
+                return byteBuffer.asShortBuffer();
+            case GLES20.GL_UNSIGNED_INT:
+                if (!GLTool.isUint32IndicesSupported())
+                    throw new RuntimeException("32 bit indices require OpenGL ES 3.0 or OES_element_index_uint");
+                return byteBuffer.asIntBuffer();
+            default:
+                throw new IllegalArgumentException("Unknown index type: " + indexType);
+        }
+    }
+
+    public static void put(Buffer buffer, int indexType, short[] indices, int offset, int count) {
+        switch (indexType) {
+            case GLES20.GL_UNSIGNED_SHORT:
+                ((ShortBuffer) buffer).put(indices, offset, count);
+                break;
+            case GLES20.GL_UNSIGNED_INT:
+                IntBuffer intBuffer = (IntBuffer) buffer;
+                for (int i = offset; i < offset + count; i++)
+                    intBuffer.put(indices[i] & 0xFFFF);
+                break;
+            default:
+                ByteBuffer byteBuffer = (ByteBuffer) buffer;
+                for (int i = offset; i < offset + count; i++)
+                    byteBuffer.put((byte) check(indices[i] & 0xFFFF, 0xFF));
+                break;
+        }
+    }
+
+    public static void put(Buffer buffer, int indexType, int[] indices, int offset, int count) {
+        switch (indexType) {
+            case GLES20.GL_UNSIGNED_INT:
+                ((IntBuffer) buffer).put(indices, offset, count);
+                break;
+            case GLES20.GL_UNSIGNED_SHORT:
+                ShortBuffer shortBuffer = (ShortBuffer) buffer;
+                for (int i = offset; i < offset + count; i++)
+                    shortBuffer.put((short) check(indices[i], 0xFFFF));
+                break;
+            default:
+                ByteBuffer byteBuffer = (ByteBuffer) buffer;
+                for (int i = offset; i < offset + count; i++)
+                    byteBuffer.put((byte) check(indices[i], 0xFF));
+                break;
+        }
+    }
+
+    public static void put(Buffer buffer, int indexType, ShortBuffer indices) {
+        if (indexType == GLES20.GL_UNSIGNED_SHORT) {
+            ((ShortBuffer) buffer).put(indices);
+            return;
+        }
+        while (indices.hasRemaining()) {
+            int index = indices.get() & 0xFFFF;
+            if (indexType == GLES20.GL_UNSIGNED_INT) ((IntBuffer) buffer).put(index);
+            else ((ByteBuffer) buffer).put((byte) check(index, 0xFF));
+        }
+    }
+
+    public static void get(Buffer buffer, int indexType, short[] indices, int offset, int count) {
+        switch (indexType) {
+            case GLES20.GL_UNSIGNED_SHORT:
+                ((ShortBuffer) buffer).get(indices, offset, count);
+                break;
+            case GLES20.GL_UNSIGNED_INT:
+                IntBuffer intBuffer = (IntBuffer) buffer;
+                for (int i = offset; i < offset + count; i++)
+                    indices[i] = (short) check(intBuffer.get(), 0xFFFF);
+                break;
+            default:
+                ByteBuffer byteBuffer = (ByteBuffer) buffer;
+                for (int i = offset; i < offset + count; i++)
+                    indices[i] = (short) (byteBuffer.get() & 0xFF);
+                break;
+        }
+    }
+
+    public static void get(Buffer buffer, int indexType, int[] indices, int offset, int count) {
+        switch (indexType) {
+            case GLES20.GL_UNSIGNED_INT:
+                ((IntBuffer) buffer).get(indices, offset, count);
+                break;
+            case GLES20.GL_UNSIGNED_SHORT:
+                ShortBuffer shortBuffer = (ShortBuffer) buffer;
+                for (int i = offset; i < offset + count; i++)
+                    indices[i] = shortBuffer.get() & 0xFFFF;
+                break;
+            default:
+                ByteBuffer byteBuffer = (ByteBuffer) buffer;
+                for (int i = offset; i < offset + count; i++)
+                    indices[i] = byteBuffer.get() & 0xFF;
+                break;
+        }
+    }
+
+    private static int check(int index, int max) {
+        if (index < 0 || index > max)
+            throw new IllegalArgumentException("Index " + index + " doesn't fit the index type, max is " + max);
+        return index;
+    }
+}
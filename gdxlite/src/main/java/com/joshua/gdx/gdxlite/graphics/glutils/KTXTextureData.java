@@ -0,0 +1,180 @@
+package com.joshua.gdx.gdxlite.graphics.glutils;
+
+import android.graphics.Bitmap;
+import android.opengl.GLES20;
+import android.opengl.GLES30;
+
+import com.joshua.gdx.gdxlite.graphics.TextureData;
+import com.joshua.gdx.gdxlite.utils.FileUtil;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A {@link TextureData} loading a 2D texture with its mip chain from a KTX 1.1 container. Compressed images, ETC1,
+ * ETC2/EAC, ASTC or any other format the device reports, are uploaded with glCompressedTexImage2D, uncompressed
+ * images with glTexImage2D. ETC1 images fall back like {@link ETC1TextureData}.
+ * <p>
+ * Mipmaps are generated when requested and the file has no mip chain, unless the image is compressed.
+ */
+public class KTXTextureData implements TextureData {
+    private final String filename;
+    private final boolean internal;
+    private final boolean useMipMaps;
+    private ByteBuffer data;
+    private int width = 0;
+    private int height = 0;
+    private int glType;
+    private int glFormat;
+    private int glInternalFormat;
+    private int numberOfMipmapLevels;
+    private int imageOffset;
+    private boolean isPrepared = false;
+
+    public KTXTextureData(String filename, boolean internal, boolean useMipMaps) {
+        this.filename = filename;
+        this.internal = internal;
+        this.useMipMaps = useMipMaps;
+    }
+
+    @Override
+    public TextureDataType getType() {
+        return TextureDataType.Custom;
+    }
+
+    @Override
+    public boolean isPrepared() {
+        return isPrepared;
+    }
+
+    @Override
+    public void prepare() {
+        if (isPrepared) throw new RuntimeException("Already prepared");
+        final byte[] bytes = FileUtil.readBytes(filename, internal);
+        if (bytes.length < ETC1.KTX_HEADER_SIZE) throw new RuntimeException("Not a KTX file: " + filename);
+        for (int i = 0; i < ETC1.KTX_IDENTIFIER.length; i++)
+            if (bytes[i] != ETC1.KTX_IDENTIFIER[i]) throw new RuntimeException("Not a KTX file: " + filename);
+
+        data = ByteBuffer.allocateDirect(bytes.length).order(ByteOrder.LITTLE_ENDIAN);
+        data.put(bytes);
+        data.clear();
+        if (data.getInt(12) != 0x04030201) data.order(ByteOrder.BIG_ENDIAN);
+        glType = data.getInt(16);
+        glFormat = data.getInt(24);
+        glInternalFormat = data.getInt(28);
+        width = data.getInt(36);
+        height = data.getInt(40);
+        final int depth = data.getInt(44);
+        final int numberOfArrayElements = data.getInt(48);
+        final int numberOfFaces = data.getInt(52);
+        numberOfMipmapLevels = data.getInt(56);
+        final int bytesOfKeyValueData = data.getInt(60);
+        if (depth > 0 || numberOfArrayElements > 0 || numberOfFaces != 1)
+            throw new RuntimeException("Only 2D KTX textures are supported: " + filename);
+        imageOffset = ETC1.KTX_HEADER_SIZE + bytesOfKeyValueData;
+        isPrepared = true;
+    }
+
+    @Override
+    public void consumeCustomData(int target) {
+        if (!isPrepared) throw new RuntimeException("Call prepare() before calling consumeCompressedData()");
+        final boolean compressed = glType == 0;
+        if (compressed && glInternalFormat != ETC1.GL_ETC1_RGB8_OES && !isSupported(glInternalFormat))
+            throw new RuntimeException("Unsupported compressed texture format 0x"
+                    + Integer.toHexString(glInternalFormat) + ": " + filename);
+
+        GLES20.glPixelStorei(GLES20.GL_UNPACK_ALIGNMENT, 4);
+        boolean uploadedCompressed = compressed;
+        int offset = imageOffset;
+        final int levels = Math.max(1, numberOfMipmapLevels);
+        for (int level = 0; level < levels; level++) {
+            final int levelWidth = Math.max(1, width >> level);
+            final int levelHeight = Math.max(1, height >> level);
+            final int imageSize = data.getInt(offset);
+            offset += 4;
+            if (offset + imageSize > data.capacity()) throw new RuntimeException("Truncated KTX file: " + filename);
+            data.limit(offset + imageSize).position(offset);
+            final ByteBuffer image = data.slice();
+            data.clear();
+            if (!compressed) {
+                final int internalFormat = GLTool.isGL30Available() ? glInternalFormat : glFormat;
+                GLES20.glTexImage2D(target, level, internalFormat, levelWidth, levelHeight, 0, glFormat, glType,
+                        image);
+            } else if (glInternalFormat == ETC1.GL_ETC1_RGB8_OES) {
+                uploadedCompressed = ETC1TextureData.uploadETC1(target, level, levelWidth, levelHeight, image);
+            } else {
+                GLES20.glCompressedTexImage2D(target, level, glInternalFormat, levelWidth, levelHeight, 0, imageSize,
+                        image);
+            }
+            offset += (imageSize + 3) & ~3;
+        }
+        if (useMipMaps && numberOfMipmapLevels <= 1 && !uploadedCompressed) GLES20.glGenerateMipmap(target);
+        data = null;
+        isPrepared = false;
+    }
+
+    private static boolean isSupported(int internalFormat) {
+        if (GLTool.isCompressedFormatSupported(internalFormat)) return true;
+        // ETC2 and EAC are core in OpenGL ES 3.0, but not always listed
+        switch (internalFormat) {
+            case GLES30.GL_COMPRESSED_R11_EAC:
+            case GLES30.GL_COMPRESSED_SIGNED_R11_EAC:
+            case GLES30.GL_COMPRESSED_RG11_EAC:
+            case GLES30.GL_COMPRESSED_SIGNED_RG11_EAC:
+            case GLES30.GL_COMPRESSED_RGB8_ETC2:
+            case GLES30.GL_COMPRESSED_SRGB8_ETC2:
+            case GLES30.GL_COMPRESSED_RGB8_PUNCHTHROUGH_ALPHA1_ETC2:
+            case GLES30.GL_COMPRESSED_SRGB8_PUNCHTHROUGH_ALPHA1_ETC2:
+            case GLES30.GL_COMPRESSED_RGBA8_ETC2_EAC:
+            case GLES30.GL_COMPRESSED_SRGB8_ALPHA8_ETC2_EAC:
+                return GLTool.isGL30Available();
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public Bitmap consumeBitmap() {
+        throw new RuntimeException("This TextureData implementation does not return a Bitmap");
+    }
+
+    @Override
+    public boolean disposeBitmap() {
+        throw new RuntimeException("This TextureData implementation does not return a Bitmap");
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return the internal format of the image, or 0 before the file was read
+     */
+    @Override
+    public int getFormat() {
+        return glInternalFormat;
+    }
+
+    /**
+     * @return whether the texture has mipmaps, either from the file or generated
+     */
+    @Override
+    public boolean useMipMaps() {
+        return useMipMaps || numberOfMipmapLevels > 1;
+    }
+
+    @Override
+    public boolean isManaged() {
+        return true;
+    }
+
+    public String toString() {
+        return filename;
+    }
+}
@@ -0,0 +1,169 @@
+package com.joshua.gdx.gdxlite.graphics.glutils;
+
+/**
+ * Builds mip chains on the CPU, so they can be generated on a worker thread instead of with glGenerateMipmap on the
+ * GL thread. Images are RGBA8888 byte arrays with premultiplied alpha, the layout Android uploads bitmaps in, and
+ * filtering premultiplied colors keeps transparent texels from darkening their neighbours.
+ */
+public final class MipMapGenerator {
+    /**
+     * The filter used to halve each level.
+     */
+    public enum Filter {
+        /**
+         * Averages 2x2 texels. Fast, but slightly blurry and prone to aliasing.
+         */
+        Box,
+        /**
+         * A 6 tap Kaiser windowed sinc per axis. Sharper levels with less aliasing, about three times slower.
+         */
+        Kaiser
+    }
+
+    private static final float KAISER_ALPHA = 4f;
+    /**
+     * weights of the taps at distances 0.5, 1.5 and 2.5 from the center of the output texel
+     */
+    private static final float[] KAISER_WEIGHTS = new float[3];
+
+    static {
+        float sum = 0;
+        for (int i = 0; i < 3; i++) {
+            final double d = i + 0.5;
+            final double x = d * 0.5;
+            final double sinc = Math.sin(Math.PI * x) / (Math.PI * x);
+            final double t = d / 3;
+            final double window = bessel0(KAISER_ALPHA * Math.sqrt(1 - t * t)) / bessel0(KAISER_ALPHA);
+            KAISER_WEIGHTS[i] = (float) (sinc * window);
+            sum += 2 * KAISER_WEIGHTS[i];
+        }
+        for (int i = 0; i < 3; i++)
+            KAISER_WEIGHTS[i] /= sum;
+    }
+
+    private MipMapGenerator() {
+    }
+
+    /**
+     * Zeroth order modified Bessel function of the first kind.
+     */
+    private static double bessel0(double x) {
+        double sum = 1, term = 1;
+        final double half = x * 0.5;
+        for (int k = 1; k < 32; k++) {
+            term *= (half / k) * (half / k);
+            sum += term;
+            if (term < sum * 1e-12) break;
+        }
+        return sum;
+    }
+
+    /**
+     * @return the number of levels of a full mip chain down to 1x1
+     */
+    public static int getNumLevels(int width, int height) {
+        int levels = 1;
+        for (int size = Math.max(width, height); size > 1; size >>= 1)
+            levels++;
+        return levels;
+    }
+
+    /**
+     * Converts non premultiplied ARGB8888 pixels, as returned by Bitmap.getPixels, to premultiplied RGBA8888 bytes.
+     */
+    public static byte[] toPremultipliedRGBA(int[] argb, int width, int height) {
+        final byte[] rgba = new byte[width * height * 4];
+        for (int i = 0, o = 0; i < width * height; i++, o += 4) {
+            final int pixel = argb[i];
+            final int a = pixel >>> 24;
+            rgba[o] = (byte) ((((pixel >> 16) & 0xff) * a + 127) / 255);
+            rgba[o + 1] = (byte) ((((pixel >> 8) & 0xff) * a + 127) / 255);
+            rgba[o + 2] = (byte) (((pixel & 0xff) * a + 127) / 255);
+            rgba[o + 3] = (byte) a;
+        }
+        return rgba;
+    }
+
+    /**
+     * Generates all levels below the given image.
+     *
+     * @return the levels starting with the given image, down to 1x1
+     */
+    public static byte[][] generate(byte[] rgba, int width, int height, Filter filter) {
+        final byte[][] levels = new byte[getNumLevels(width, height)][];
+        levels[0] = rgba;
+        for (int level = 1; level < levels.length; level++) {
+            levels[level] = downsample(levels[level - 1], width, height, filter);
+            width = Math.max(1, width >> 1);
+            height = Math.max(1, height >> 1);
+        }
+        return levels;
+    }
+
+    /**
+     * Halves an image.
+     *
+     * @return the max(1, width / 2) x max(1, height / 2) image
+     */
+    public static byte[] downsample(byte[] rgba, int width, int height, Filter filter) {
+        final int outWidth = Math.max(1, width >> 1);
+        final int outHeight = Math.max(1, height >> 1);
+        final byte[] out = new byte[outWidth * outHeight * 4];
+        if (filter == Filter.Box) {
+            for (int y = 0; y < outHeight; y++) {
+                final int row0 = Math.min(y * 2, height - 1) * width;
+                final int row1 = Math.min(y * 2 + 1, height - 1) * width;
+                for (int x = 0; x < outWidth; x++) {
+                    final int x0 = Math.min(x * 2, width - 1), x1 = Math.min(x * 2 + 1, width - 1);
+                    final int o = (y * outWidth + x) * 4;
+                    for (int c = 0; c < 4; c++) {
+                        final int sum = (rgba[(row0 + x0) * 4 + c] & 0xff) + (rgba[(row0 + x1) * 4 + c] & 0xff)
+                                + (rgba[(row1 + x0) * 4 + c] & 0xff) + (rgba[(row1 + x1) * 4 + c] & 0xff);
+                        out[o + c] = (byte) ((sum + 2) >> 2);
+                    }
+                }
+            }
+            return out;
+        }
+
+        // separable: horizontal pass into floats, vertical pass into bytes
+        final float[] temp = new float[outWidth * height * 4];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < outWidth; x++) {
+                final int t = (y * outWidth + x) * 4;
+                for (int k = -2; k < 4; k++) {
+                    final float weight = width == 1 ? (k == 0 ? 1 : 0) : KAISER_WEIGHTS[k > 0 ? k - 1 : -k];
+                    if (weight == 0) continue;
+                    final int sx = clamp(x * 2 + k, width - 1);
+                    final int s = (y * width + sx) * 4;
+                    for (int c = 0; c < 4; c++)
+                        temp[t + c] += weight * (rgba[s + c] & 0xff);
+                }
+            }
+        }
+        final float[] pixel = new float[4];
+        for (int y = 0; y < outHeight; y++) {
+            for (int x = 0; x < outWidth; x++) {
+                pixel[0] = pixel[1] = pixel[2] = pixel[3] = 0;
+                for (int k = -2; k < 4; k++) {
+                    final float weight = height == 1 ? (k == 0 ? 1 : 0) : KAISER_WEIGHTS[k > 0 ? k - 1 : -k];
+                    if (weight == 0) continue;
+                    final int t = (clamp(y * 2 + k, height - 1) * outWidth + x) * 4;
+                    for (int c = 0; c < 4; c++)
+                        pixel[c] += weight * temp[t + c];
+                }
+                // the negative lobes can overshoot, premultiplied colors must stay below alpha
+                final int a = Math.round(Math.max(0, Math.min(255, pixel[3])));
+                final int o = (y * outWidth + x) * 4;
+                for (int c = 0; c < 3; c++)
+                    out[o + c] = (byte) Math.round(Math.max(0, Math.min(a, pixel[c])));
+                out[o + 3] = (byte) a;
+            }
+        }
+        return out;
+    }
+
+    private static int clamp(int value, int max) {
+        return value < 0 ? 0 : value > max ? max : value;
+    }
+}
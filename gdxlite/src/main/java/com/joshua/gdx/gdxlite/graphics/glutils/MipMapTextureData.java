@@ -0,0 +1,213 @@
+package com.joshua.gdx.gdxlite.graphics.glutils;
+
+import android.graphics.Bitmap;
+import android.opengl.GLES20;
+import android.opengl.GLES30;
+
+import com.joshua.gdx.gdxlite.graphics.GLTexture;
+import com.joshua.gdx.gdxlite.graphics.TextureData;
+import com.joshua.gdx.gdxlite.utils.FileUtil;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link TextureData} whose mip chain is built by {@link MipMapGenerator} in {@link #prepare()}, so it is generated
+ * on a worker thread when loaded with {@link com.joshua.gdx.gdxlite.graphics.AsyncTextureLoader} instead of with
+ * glGenerateMipmap on the GL thread. The texture should use a mipmap min filter.
+ * <p>
+ * When progressive and OpenGL ES 3.0 is available, uploading the texture only uploads the levels up to
+ * {@link #initialSize} and limits GL_TEXTURE_BASE_LEVEL to them, so the texture renders blurred right away. The larger
+ * levels are uploaded one by one with {@link #uploadNextLevel(GLTexture)}, usually by a
+ * {@link com.joshua.gdx.gdxlite.graphics.MipMapStreamer}, each lowering the base level. OpenGL ES 2.0 has no base
+ * level, a texture with missing levels is incomplete, so there the whole chain is uploaded at once. On OpenGL ES 3.0
+ * the storage of all levels is allocated up front with glTexStorage2D and the levels are filled with
+ * glTexSubImage2D.
+ * <p>
+ * Images are uploaded as RGBA8888 with premultiplied alpha. OpenGL ES 2.0 only supports mipmaps of power of two
+ * textures.
+ */
+public class MipMapTextureData implements TextureData {
+    private final String filename;
+    private final boolean internal;
+    private final Bitmap source;
+    private final MipMapGenerator.Filter filter;
+    private final boolean progressive;
+    /**
+     * the largest level size uploaded right away by a progressive upload, in pixels along the longer side
+     */
+    public int initialSize = 64;
+    private int width = 0;
+    private int height = 0;
+    private byte[][] levels;
+    private int nextLevel = -1;
+    private boolean immutable;
+    private boolean isPrepared = false;
+
+    public MipMapTextureData(String filename, boolean internal, MipMapGenerator.Filter filter, boolean progressive) {
+        this.filename = filename;
+        this.internal = internal;
+        this.source = null;
+        this.filter = filter;
+        this.progressive = progressive;
+    }
+
+    /**
+     * @param source a bitmap which is kept to rebuild the chain after a context loss, it's not recycled
+     */
+    public MipMapTextureData(Bitmap source, MipMapGenerator.Filter filter, boolean progressive) {
+        this.filename = null;
+        this.internal = false;
+        this.source = source;
+        this.filter = filter;
+        this.progressive = progressive;
+        width = source.getWidth();
+        height = source.getHeight();
+    }
+
+    @Override
+    public TextureDataType getType() {
+        return TextureDataType.Custom;
+    }
+
+    @Override
+    public boolean isPrepared() {
+        return isPrepared;
+    }
+
+    /**
+     * Decodes the image and generates its mip chain.
+     */
+    @Override
+    public void prepare() {
+        if (isPrepared) throw new RuntimeException("Already prepared");
+        Bitmap bitmap = source;
+        if (bitmap == null) bitmap = internal ? FileUtil.internalBitmap(filename) : FileUtil.externalBitmap(filename);
+        if (bitmap == null) throw new RuntimeException("Couldn't decode " + filename);
+        width = bitmap.getWidth();
+        height = bitmap.getHeight();
+        final int[] argb = new int[width * height];
+        bitmap.getPixels(argb, 0, width, 0, 0, width, height);
+        if (bitmap != source) bitmap.recycle();
+        levels = MipMapGenerator.generate(MipMapGenerator.toPremultipliedRGBA(argb, width, height), width, height,
+                filter);
+        isPrepared = true;
+    }
+
+    @Override
+    public void consumeCustomData(int target) {
+        if (!isPrepared) throw new RuntimeException("Call prepare() before calling consumeCustomData()");
+        GLES20.glPixelStorei(GLES20.GL_UNPACK_ALIGNMENT, 1);
+        int firstLevel = 0;
+        if (progressive && GLTool.isGL30Available()) {
+            while (firstLevel < levels.length - 1
+                    && Math.max(width >> firstLevel, height >> firstLevel) > initialSize)
+                firstLevel++;
+        }
+        immutable = GLTool.texStorage2D(target, levels.length, GLES20.GL_RGBA, GLES20.GL_UNSIGNED_BYTE, width,
+                height);
+        for (int level = levels.length - 1; level >= firstLevel; level--)
+            upload(target, level);
+        if (firstLevel == 0) {
+            release();
+            return;
+        }
+        GLES20.glTexParameteri(target, GLES30.GL_TEXTURE_BASE_LEVEL, firstLevel);
+        GLES20.glTexParameteri(target, GLES30.GL_TEXTURE_MAX_LEVEL, levels.length - 1);
+        nextLevel = firstLevel - 1;
+    }
+
+    private void upload(int target, int level) {
+        final int levelWidth = Math.max(1, width >> level);
+        final int levelHeight = Math.max(1, height >> level);
+        // the GL bindings read heap buffers in place, no direct copy of the level is needed
+        final ByteBuffer buffer = ByteBuffer.wrap(levels[level]);
+        if (immutable)
+            GLES20.glTexSubImage2D(target, level, 0, 0, levelWidth, levelHeight, GLES20.GL_RGBA,
+                    GLES20.GL_UNSIGNED_BYTE, buffer);
+        else
+            GLES20.glTexImage2D(target, level, GLES20.GL_RGBA, levelWidth, levelHeight, 0, GLES20.GL_RGBA,
+                    GLES20.GL_UNSIGNED_BYTE, buffer);
+    }
+
+    private void release() {
+        levels = null;
+        nextLevel = -1;
+        isPrepared = false;
+    }
+
+    /**
+     * @return whether levels are left for {@link #uploadNextLevel(GLTexture)}
+     */
+    public boolean hasPendingLevels() {
+        return nextLevel >= 0;
+    }
+
+    /**
+     * @return the size in bytes of the next level to upload, or 0 if none is left
+     */
+    public int getNextLevelSize() {
+        return nextLevel >= 0 ? levels[nextLevel].length : 0;
+    }
+
+    /**
+     * @return the index of the next level to upload, or -1 if none is left
+     */
+    public int getNextLevel() {
+        return nextLevel;
+    }
+
+    /**
+     * Uploads the next larger level and makes it the base level. Must be called on the GL thread. Leaves no texture
+     * bound to the active unit.
+     *
+     * @param texture the texture this data was uploaded to
+     */
+    public void uploadNextLevel(GLTexture texture) {
+        if (nextLevel < 0) throw new IllegalStateException("No pending levels");
+        texture.bind();
+        GLES20.glPixelStorei(GLES20.GL_UNPACK_ALIGNMENT, 1);
+        upload(texture.glTarget, nextLevel);
+        GLES20.glTexParameteri(texture.glTarget, GLES30.GL_TEXTURE_BASE_LEVEL, nextLevel);
+        GLES20.glBindTexture(texture.glTarget, 0);
+        if (--nextLevel < 0) release();
+    }
+
+    @Override
+    public Bitmap consumeBitmap() {
+        throw new RuntimeException("This TextureData implementation does not return a Bitmap");
+    }
+
+    @Override
+    public boolean disposeBitmap() {
+        throw new RuntimeException("This TextureData implementation does not return a Bitmap");
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getFormat() {
+        return GLES20.GL_RGBA;
+    }
+
+    @Override
+    public boolean useMipMaps() {
+        return true;
+    }
+
+    @Override
+    public boolean isManaged() {
+        return true;
+    }
+
+    public String toString() {
+        return filename != null ? filename : super.toString();
+    }
+}
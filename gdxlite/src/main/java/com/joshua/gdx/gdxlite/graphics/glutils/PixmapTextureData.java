@@ -0,0 +1,124 @@
+package com.joshua.gdx.gdxlite.graphics.glutils;
+
+import android.graphics.Bitmap;
+import android.opengl.GLES20;
+
+import com.joshua.gdx.gdxlite.graphics.Format;
+import com.joshua.gdx.gdxlite.graphics.Pixmap;
+import com.joshua.gdx.gdxlite.graphics.TextureData;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link TextureData} uploading a {@link Pixmap} directly with glTexImage2D in the pixmap's format, without a
+ * Bitmap or GLUtils in between.
+ */
+public class PixmapTextureData implements TextureData {
+    private final Pixmap pixmap;
+    private final boolean useMipMaps;
+    private final boolean disposePixmap;
+    private final boolean managed;
+
+    public PixmapTextureData(Pixmap pixmap, boolean useMipMaps, boolean disposePixmap) {
+        this(pixmap, useMipMaps, disposePixmap, false);
+    }
+
+    /**
+     * @param disposePixmap whether to dispose the pixmap after the upload, such data can't be reloaded
+     * @param managed       whether the pixmap is kept to reload the texture after a context loss
+     */
+    public PixmapTextureData(Pixmap pixmap, boolean useMipMaps, boolean disposePixmap, boolean managed) {
+        this.pixmap = pixmap;
+        this.useMipMaps = useMipMaps;
+        this.disposePixmap = disposePixmap;
+        this.managed = managed && !disposePixmap;
+    }
+
+    /**
+     * Copies the pixels of an ARGB_8888 bitmap, which are stored premultiplied, into a new RGBA8888 pixmap. Other
+     * configs are converted to ARGB_8888 first.
+     */
+    public static Pixmap toPixmap(Bitmap bitmap) {
+        Bitmap source = bitmap;
+        if (source.getConfig() != Bitmap.Config.ARGB_8888) source = bitmap.copy(Bitmap.Config.ARGB_8888, false);
+        final Pixmap pixmap = new Pixmap(source.getWidth(), source.getHeight(), Format.RGBA8888);
+        source.copyPixelsToBuffer(pixmap.getPixels());
+        if (source != bitmap) source.recycle();
+        return pixmap;
+    }
+
+    @Override
+    public TextureDataType getType() {
+        return TextureDataType.Custom;
+    }
+
+    @Override
+    public boolean isPrepared() {
+        return !pixmap.isDisposed();
+    }
+
+    @Override
+    public void prepare() {
+        throw new RuntimeException("Pixmap already disposed, can't prepare the texture data again");
+    }
+
+    @Override
+    public void consumeCustomData(int target) {
+        final Format format = pixmap.getFormat();
+        final ByteBuffer pixels = pixmap.getPixels();
+        GLES20.glPixelStorei(GLES20.GL_UNPACK_ALIGNMENT, 1);
+        GLES20.glTexImage2D(target, 0, format.toGlFormat(), pixmap.getWidth(), pixmap.getHeight(), 0,
+                format.toGlFormat(), format.toGlType(), pixels);
+        if (useMipMaps) GLES20.glGenerateMipmap(target);
+        if (disposePixmap) pixmap.dispose();
+    }
+
+    @Override
+    public Bitmap consumeBitmap() {
+        throw new RuntimeException("This TextureData implementation does not return a Bitmap");
+    }
+
+    @Override
+    public boolean disposeBitmap() {
+        throw new RuntimeException("This TextureData implementation does not return a Bitmap");
+    }
+
+    @Override
+    public int getWidth() {
+        return pixmap.getWidth();
+    }
+
+    @Override
+    public int getHeight() {
+        return pixmap.getHeight();
+    }
+
+    /**
+     * @return the GL internal format of the pixmap
+     */
+    @Override
+    public int getFormat() {
+        switch (pixmap.getFormat()) {
+            case RGB565:
+                return GLES20.GL_RGB565;
+            case RGBA4444:
+                return GLES20.GL_RGBA4;
+            default:
+                return pixmap.getFormat().toGlFormat();
+        }
+    }
+
+    public Pixmap getPixmap() {
+        return pixmap;
+    }
+
+    @Override
+    public boolean useMipMaps() {
+        return useMipMaps;
+    }
+
+    @Override
+    public boolean isManaged() {
+        return managed;
+    }
+}
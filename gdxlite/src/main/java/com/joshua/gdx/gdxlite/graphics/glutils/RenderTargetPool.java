@@ -0,0 +1,416 @@
+package com.joshua.gdx.gdxlite.graphics.glutils;
+
+import android.opengl.GLES20;
+import android.opengl.GLES30;
+
+import com.joshua.gdx.gdxlite.graphics.Format;
+import com.joshua.gdx.gdxlite.graphics.glutils.GLFrameBuffer.FrameBufferBuilder;
+import com.joshua.gdx.gdxlite.graphics.glutils.GLFrameBuffer.FrameBufferRenderBufferAttachmentSpec;
+import com.joshua.gdx.gdxlite.graphics.glutils.GLFrameBuffer.FrameBufferTextureAttachmentSpec;
+import com.joshua.gdx.gdxlite.utils.Array;
+import com.joshua.gdx.gdxlite.utils.Disposable;
+import com.joshua.gdx.gdxlite.utils.LongMap;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+/**
+ * Hands out {@link FrameBuffer}s for temporary use, e.g. the intermediate targets of post effects, instead of creating
+ * and disposing them. Targets are keyed by their size and attachment specs and reused once returned with
+ * {@link #free(FrameBuffer)} or reclaimed by {@link #endFrame()}, which must be called once per frame. Targets and
+ * render buffers unused for {@link #maxIdleFrames} frames are disposed.
+ * <p>
+ * The depth, stencil and packed depth stencil render buffers of the builder aren't owned by a frame buffer but by the
+ * pool, and attached when a target is handed out. Targets of the same size whose use doesn't overlap share them, so a
+ * chain of passes needs a single depth buffer. The contents of a target, including its depth and stencil, are
+ * undefined when obtained, clear them as needed.
+ * <p>
+ * The pool owns all targets, they must not be disposed by the caller.
+ */
+public class RenderTargetPool implements Disposable {
+    private static class Renderbuffer {
+        final int handle, format, width, height;
+        int lastFrame;
+
+        Renderbuffer(int handle, int format, int width, int height) {
+            this.handle = handle;
+            this.format = format;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    private static class Target {
+        final Key key;
+        final FrameBuffer frameBuffer;
+        /**
+         * the render buffers attached to the frame buffer, kept attached while the target is free
+         */
+        Renderbuffer depth, stencil, packed;
+        int lastFrame;
+        boolean used;
+
+        Target(Key key, FrameBuffer frameBuffer) {
+            this.key = key;
+            this.frameBuffer = frameBuffer;
+        }
+    }
+
+    /**
+     * The size and attachment specs of a target. The pool looks targets up with a single mutable key, only the keys of
+     * created targets are copies.
+     */
+    private static class Key {
+        int width, height;
+        int depthFormat, stencilFormat, packedFormat;
+        /**
+         * internal format, format, type and flags of each texture attachment
+         */
+        int[] textures = new int[4];
+        int numTextures;
+        int hash;
+
+        void set(GLFrameBuffer.GLFrameBufferBuilder<?> builder) {
+            width = builder.width;
+            height = builder.height;
+            depthFormat = format(builder.hasDepthRenderBuffer, builder.depthRenderBufferSpec);
+            stencilFormat = format(builder.hasStencilRenderBuffer, builder.stencilRenderBufferSpec);
+            packedFormat = format(builder.hasPackedStencilDepthRenderBuffer,
+                    builder.packedStencilDepthRenderBufferSpec);
+            setNumTextures(builder.textureAttachmentSpecs.size);
+            for (int i = 0; i < numTextures; i++) {
+                final FrameBufferTextureAttachmentSpec spec = builder.textureAttachmentSpecs.get(i);
+                setTexture(i, spec.internalFormat, spec.format, spec.type, (spec.isFloat ? 1 : 0)
+                        | (spec.isGpuOnly ? 2 : 0) | (spec.isDepth ? 4 : 0) | (spec.isStencil ? 8 : 0));
+            }
+            updateHash();
+        }
+
+        /**
+         * Sets the specs {@link FrameBuffer#FrameBuffer(Format, int, int, boolean, boolean)} builds.
+         */
+        void set(Format format, int width, int height, boolean hasDepth, boolean hasStencil) {
+            this.width = width;
+            this.height = height;
+            depthFormat = hasDepth ? GLES20.GL_DEPTH_COMPONENT16 : 0;
+            stencilFormat = hasStencil ? GLES20.GL_STENCIL_INDEX8 : 0;
+            packedFormat = 0;
+            setNumTextures(1);
+            final int glFormat = format.toGlFormat();
+            setTexture(0, glFormat, glFormat, format.toGlType(), 0);
+            updateHash();
+        }
+
+        private static int format(boolean present, FrameBufferRenderBufferAttachmentSpec spec) {
+            return present ? spec.internalFormat : 0;
+        }
+
+        private void setNumTextures(int count) {
+            if (textures.length < count * 4) textures = new int[count * 4];
+            numTextures = count;
+        }
+
+        private void setTexture(int index, int internalFormat, int format, int type, int flags) {
+            textures[index * 4] = internalFormat;
+            textures[index * 4 + 1] = format;
+            textures[index * 4 + 2] = type;
+            textures[index * 4 + 3] = flags;
+        }
+
+        private void updateHash() {
+            int hash = 31 * width + height;
+            hash = 31 * hash + depthFormat;
+            hash = 31 * hash + stencilFormat;
+            hash = 31 * hash + packedFormat;
+            for (int i = 0; i < numTextures * 4; i++)
+                hash = 31 * hash + textures[i];
+            this.hash = hash;
+        }
+
+        Key copy() {
+            final Key copy = new Key();
+            copy.width = width;
+            copy.height = height;
+            copy.depthFormat = depthFormat;
+            copy.stencilFormat = stencilFormat;
+            copy.packedFormat = packedFormat;
+            copy.textures = Arrays.copyOf(textures, numTextures * 4);
+            copy.numTextures = numTextures;
+            copy.hash = hash;
+            return copy;
+        }
+
+        /**
+         * @return a builder with the texture attachments only, the render buffers are attached by the pool
+         */
+        FrameBufferBuilder createBuilder() {
+            final FrameBufferBuilder builder = new FrameBufferBuilder(width, height);
+            for (int i = 0; i < numTextures; i++) {
+                final int flags = textures[i * 4 + 3];
+                final FrameBufferTextureAttachmentSpec spec = new FrameBufferTextureAttachmentSpec(textures[i * 4],
+                        textures[i * 4 + 1], textures[i * 4 + 2]);
+                spec.isFloat = (flags & 1) != 0;
+                spec.isGpuOnly = (flags & 2) != 0;
+                spec.isDepth = (flags & 4) != 0;
+                spec.isStencil = (flags & 8) != 0;
+                builder.textureAttachmentSpecs.add(spec);
+            }
+            return builder;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            final Key other = (Key) o;
+            if (width != other.width || height != other.height || depthFormat != other.depthFormat
+                    || stencilFormat != other.stencilFormat || packedFormat != other.packedFormat
+                    || numTextures != other.numTextures) return false;
+            for (int i = 0; i < numTextures * 4; i++)
+                if (textures[i] != other.textures[i]) return false;
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * the number of frames a free target or render buffer is kept before it is disposed
+     */
+    public int maxIdleFrames = 60;
+
+    private final HashMap<Key, Array<Target>> freeTargets = new HashMap<Key, Array<Target>>();
+    private final IdentityHashMap<FrameBuffer, Target> usedTargets = new IdentityHashMap<FrameBuffer, Target>();
+    private final Array<Target> targets = new Array<Target>();
+    private final LongMap<Array<Renderbuffer>> freeRenderbuffers = new LongMap<Array<Renderbuffer>>();
+    private final Array<Renderbuffer> renderbuffers = new Array<Renderbuffer>();
+    private final int[] invalidate = new int[3];
+    private final Key lookup = new Key();
+    private int frame;
+    private int created, reused;
+
+    /**
+     * Obtains a target with a color texture of the given format, see
+     * {@link FrameBuffer#FrameBuffer(Format, int, int, boolean, boolean)}.
+     */
+    public FrameBuffer obtain(Format format, int width, int height, boolean hasDepth, boolean hasStencil) {
+        lookup.set(format, width, height, hasDepth, hasStencil);
+        return obtain(lookup);
+    }
+
+    /**
+     * Obtains a target matching the size and attachments of the builder, which isn't used to build it. Leaves the
+     * default frame buffer bound.
+     *
+     * @return a target owned by the pool, until freed or the end of the frame
+     */
+    public FrameBuffer obtain(GLFrameBuffer.GLFrameBufferBuilder<?> builder) {
+        lookup.set(builder);
+        return obtain(lookup);
+    }
+
+    private FrameBuffer obtain(Key lookup) {
+        final Array<Target> free = freeTargets.get(lookup);
+        final Target target;
+        if (free != null && free.size > 0) {
+            target = free.pop();
+            reused++;
+        } else {
+            final Key key = lookup.copy();
+            target = new Target(key, new FrameBuffer(key.createBuilder()));
+            targets.add(target);
+            created++;
+        }
+        target.lastFrame = frame;
+        target.used = true;
+        usedTargets.put(target.frameBuffer, target);
+        attachRenderbuffers(target);
+        return target.frameBuffer;
+    }
+
+    private void attachRenderbuffers(Target target) {
+        final Key key = target.key;
+        final Renderbuffer depth = key.depthFormat == 0 ? null : obtainRenderbuffer(key.depthFormat, target.depth, key);
+        final Renderbuffer stencil = key.stencilFormat == 0 ? null
+                : obtainRenderbuffer(key.stencilFormat, target.stencil, key);
+        final Renderbuffer packed = key.packedFormat == 0 ? null
+                : obtainRenderbuffer(key.packedFormat, target.packed, key);
+        if (depth == target.depth && stencil == target.stencil && packed == target.packed) return;
+
+        target.frameBuffer.bind();
+        if (depth != target.depth) attach(GLES20.GL_DEPTH_ATTACHMENT, depth);
+        if (stencil != target.stencil) attach(GLES20.GL_STENCIL_ATTACHMENT, stencil);
+        if (packed != target.packed) attach(GLES30.GL_DEPTH_STENCIL_ATTACHMENT, packed);
+        target.depth = depth;
+        target.stencil = stencil;
+        target.packed = packed;
+        // only validated when the attachments changed
+        final int status = GLES20.glCheckFramebufferStatus(GLES20.GL_FRAMEBUFFER);
+        GLFrameBuffer.unbind();
+        if (status != GLES20.GL_FRAMEBUFFER_COMPLETE)
+            throw new IllegalStateException("Render target couldn't be completed: status " + status);
+    }
+
+    private static void attach(int attachment, Renderbuffer renderbuffer) {
+        GLES20.glFramebufferRenderbuffer(GLES20.GL_FRAMEBUFFER, attachment, GLES20.GL_RENDERBUFFER,
+                renderbuffer != null ? renderbuffer.handle : 0);
+    }
+
+    private static long renderbufferKey(int format, int width, int height) {
+        return (long) format << 32 | (long) width << 16 | height;
+    }
+
+    /**
+     * @param attached the render buffer already attached to the target, preferred if free
+     */
+    private Renderbuffer obtainRenderbuffer(int format, Renderbuffer attached, Key key) {
+        final Array<Renderbuffer> free = freeRenderbuffers.get(renderbufferKey(format, key.width, key.height));
+        Renderbuffer result = null;
+        if (free != null && free.size > 0) {
+            if (attached != null && free.removeValue(attached, true))
+                result = attached;
+            else
+                result = free.pop();
+        }
+        if (result == null) {
+            final int handle = GLTool.glGenRenderbuffer();
+            GLES20.glBindRenderbuffer(GLES20.GL_RENDERBUFFER, handle);
+            GLES20.glRenderbufferStorage(GLES20.GL_RENDERBUFFER, format, key.width, key.height);
+            GLES20.glBindRenderbuffer(GLES20.GL_RENDERBUFFER, 0);
+            result = new Renderbuffer(handle, format, key.width, key.height);
+            renderbuffers.add(result);
+        }
+        result.lastFrame = frame;
+        return result;
+    }
+
+    /**
+     * Returns a target to the pool, its render buffers can be attached to other targets right away. On OpenGL ES 3.0
+     * the contents of the render buffers are invalidated, so tiled GPUs don't write them back to memory. Leaves the
+     * default frame buffer bound if it invalidated.
+     */
+    public void free(FrameBuffer frameBuffer) {
+        final Target target = usedTargets.remove(frameBuffer);
+        if (target == null) throw new IllegalArgumentException("The frame buffer isn't in use from this pool");
+        release(target);
+        if (GLTool.isGL30Available()) {
+            int count = 0;
+            if (target.depth != null) invalidate[count++] = GLES20.GL_DEPTH_ATTACHMENT;
+            if (target.stencil != null) invalidate[count++] = GLES20.GL_STENCIL_ATTACHMENT;
+            if (target.packed != null) invalidate[count++] = GLES30.GL_DEPTH_STENCIL_ATTACHMENT;
+            if (count > 0) {
+                frameBuffer.bind();
+                GLES30.glInvalidateFramebuffer(GLES20.GL_FRAMEBUFFER, count, invalidate, 0);
+                GLFrameBuffer.unbind();
+            }
+        }
+    }
+
+    private void release(Target target) {
+        target.used = false;
+        target.lastFrame = frame;
+        Array<Target> free = freeTargets.get(target.key);
+        if (free == null) freeTargets.put(target.key, free = new Array<Target>());
+        free.add(target);
+        releaseRenderbuffer(target.depth);
+        releaseRenderbuffer(target.stencil);
+        releaseRenderbuffer(target.packed);
+    }
+
+    private void releaseRenderbuffer(Renderbuffer renderbuffer) {
+        if (renderbuffer == null) return;
+        renderbuffer.lastFrame = frame;
+        final long key = renderbufferKey(renderbuffer.format, renderbuffer.width, renderbuffer.height);
+        Array<Renderbuffer> free = freeRenderbuffers.get(key);
+        if (free == null) freeRenderbuffers.put(key, free = new Array<Renderbuffer>());
+        free.add(renderbuffer);
+    }
+
+    /**
+     * Reclaims the targets still in use and disposes those idle for longer than {@link #maxIdleFrames}. Must be
+     * called once per frame, on the GL thread.
+     */
+    public void endFrame() {
+        for (int i = 0; i < targets.size; i++) {
+            final Target target = targets.get(i);
+            if (target.used) release(target);
+        }
+        usedTargets.clear();
+        frame++;
+
+        for (int i = targets.size - 1; i >= 0; i--) {
+            final Target target = targets.get(i);
+            if (frame - target.lastFrame <= maxIdleFrames) continue;
+            freeTargets.get(target.key).removeValue(target, true);
+            targets.removeIndex(i);
+            target.frameBuffer.dispose();
+        }
+        for (int i = renderbuffers.size - 1; i >= 0; i--) {
+            final Renderbuffer renderbuffer = renderbuffers.get(i);
+            if (frame - renderbuffer.lastFrame <= maxIdleFrames) continue;
+            freeRenderbuffers.get(renderbufferKey(renderbuffer.format, renderbuffer.width, renderbuffer.height))
+                    .removeValue(renderbuffer, true);
+            renderbuffers.removeIndex(i);
+            // a new render buffer may get the same name, forget it so it is attached again
+            for (int j = 0; j < targets.size; j++) {
+                final Target target = targets.get(j);
+                if (target.depth == renderbuffer) target.depth = null;
+                if (target.stencil == renderbuffer) target.stencil = null;
+                if (target.packed == renderbuffer) target.packed = null;
+            }
+            GLTool.glDeleteRenderbuffer(renderbuffer.handle);
+        }
+    }
+
+    /**
+     * @return the number of frame buffers the pool holds, in use or free
+     */
+    public int getNumTargets() {
+        return targets.size;
+    }
+
+    /**
+     * @return the number of render buffers the pool holds, shared by the targets
+     */
+    public int getNumRenderbuffers() {
+        return renderbuffers.size;
+    }
+
+    /**
+     * @return the number of targets created since the pool was created
+     */
+    public int getCreated() {
+        return created;
+    }
+
+    /**
+     * @return the number of targets handed out again since the pool was created
+     */
+    public int getReused() {
+        return reused;
+    }
+
+    /**
+     * Disposes all targets and render buffers, including those in use.
+     */
+    public void clear() {
+        for (Target target : targets)
+            target.frameBuffer.dispose();
+        for (Renderbuffer renderbuffer : renderbuffers)
+            GLTool.glDeleteRenderbuffer(renderbuffer.handle);
+        targets.clear();
+        renderbuffers.clear();
+        freeTargets.clear();
+        usedTargets.clear();
+        freeRenderbuffers.clear();
+    }
+
+    @Override
+    public void dispose() {
+        clear();
+    }
+}
@@ -18,6 +18,7 @@ package com.joshua.gdx.gdxlite.graphics.glutils;
 
 import android.content.Context;
 import android.opengl.GLES20;
+import android.opengl.GLES30;
 import android.text.TextUtils;
 import android.util.Log;
 
@@ -209,6 +210,16 @@ public class ShaderProgram implements Disposable {
      **/
     private int refCount = 0;
 
+    /**
+     * the varyings captured by transform feedback, or null
+     */
+    private final String[] feedbackVaryings;
+
+    /**
+     * GL_INTERLEAVED_ATTRIBS or GL_SEPARATE_ATTRIBS
+     */
+    private final int feedbackBufferMode;
+
     /**
      * Constructs a new ShaderProgram and immediately compiles it.
      *
@@ -216,8 +227,53 @@ public class ShaderProgram implements Disposable {
      * @param fragmentFilePath the fragment shader
      */
     public ShaderProgram(String vertexFilePath, String fragmentFilePath) {
-        String vertexShader = FileUtil.internalText(vertexFilePath);
-        String fragmentShader = FileUtil.internalText(fragmentFilePath);
+        this(vertexFilePath, fragmentFilePath, true);
+    }
+
+    /**
+     * Constructs a new ShaderProgram and immediately compiles it.
+     *
+     * @param vertexShader   the vertex shader source, or its asset path if fromFile is true
+     * @param fragmentShader the fragment shader source, or its asset path if fromFile is true
+     * @param fromFile       whether the shaders are read from the given asset paths
+     */
+    protected ShaderProgram(String vertexShader, String fragmentShader, boolean fromFile) {
+        this(vertexShader, fragmentShader, fromFile, null, GLES30.GL_INTERLEAVED_ATTRIBS);
+    }
+
+    /**
+     * Constructs a new ShaderProgram capturing the given vertex shader outputs with transform feedback and
+     * immediately compiles it. Requires OpenGL ES 3.0.
+     *
+     * @param vertexFilePath     the vertex shader
+     * @param fragmentFilePath   the fragment shader
+     * @param feedbackVaryings   the names of the captured vertex shader outputs, in capture order
+     * @param feedbackBufferMode GL_INTERLEAVED_ATTRIBS to capture all varyings into one buffer, or
+     *                           GL_SEPARATE_ATTRIBS to capture each into its own buffer
+     * @see TransformFeedback
+     */
+    public ShaderProgram(String vertexFilePath, String fragmentFilePath, String[] feedbackVaryings,
+                         int feedbackBufferMode) {
+        this(vertexFilePath, fragmentFilePath, true, feedbackVaryings, feedbackBufferMode);
+    }
+
+    /**
+     * Constructs a new ShaderProgram and immediately compiles it.
+     *
+     * @param vertexShader       the vertex shader source, or its asset path if fromFile is true
+     * @param fragmentShader     the fragment shader source, or its asset path if fromFile is true
+     * @param fromFile           whether the shaders are read from the given asset paths
+     * @param feedbackVaryings   the vertex shader outputs captured by transform feedback, or null
+     * @param feedbackBufferMode GL_INTERLEAVED_ATTRIBS or GL_SEPARATE_ATTRIBS, ignored without feedbackVaryings
+     */
+    protected ShaderProgram(String vertexShader, String fragmentShader, boolean fromFile, String[] feedbackVaryings,
+                            int feedbackBufferMode) {
+        this.feedbackVaryings = feedbackVaryings;
+        this.feedbackBufferMode = feedbackBufferMode;
+        if (fromFile) {
+            vertexShader = FileUtil.internalText(vertexShader);
+            fragmentShader = FileUtil.internalText(fragmentShader);
+        }
 
         if (TextUtils.isEmpty(vertexShader)) throw new IllegalArgumentException("vertex shader must not be null");
         if (TextUtils.isEmpty(fragmentShader)) throw new IllegalArgumentException("fragment shader must not be null");
@@ -237,6 +293,25 @@ public class ShaderProgram implements Disposable {
         }
     }
 
+    /**
+     * Constructs a new ShaderProgram from the given shader sources and immediately compiles it.
+     *
+     * @param vertexShader   the vertex shader source
+     * @param fragmentShader the fragment shader source
+     */
+    public static ShaderProgram fromSource(String vertexShader, String fragmentShader) {
+        return new ShaderProgram(vertexShader, fragmentShader, false);
+    }
+
+    /**
+     * Constructs a new ShaderProgram capturing vertex shader outputs with transform feedback from the given shader
+     * sources and immediately compiles it, see {@link #ShaderProgram(String, String, String[], int)}.
+     */
+    public static ShaderProgram fromSource(String vertexShader, String fragmentShader, String[] feedbackVaryings,
+                                           int feedbackBufferMode) {
+        return new ShaderProgram(vertexShader, fragmentShader, false, feedbackVaryings, feedbackBufferMode);
+    }
+
     /**
      * Loads and compiles the shaders, creates a new program and links the shaders.
      *
@@ -296,6 +371,10 @@ public class ShaderProgram implements Disposable {
 
         GLES20.glAttachShader(program, vertexShaderHandle);
         GLES20.glAttachShader(program, fragmentShaderHandle);
+        if (feedbackVaryings != null) {
+            // captured varyings only take effect on the next link
+            GLES30.glTransformFeedbackVaryings(program, feedbackVaryings, feedbackBufferMode);
+        }
         GLES20.glLinkProgram(program);
 
         ByteBuffer tmp = ByteBuffer.allocateDirect(4);
@@ -778,6 +857,20 @@ public class ShaderProgram implements Disposable {
         GLES20.glVertexAttribPointer(location, size, type, normalize, stride, offset);
     }
 
+    /**
+     * @return the varyings captured by transform feedback in capture order, or null if nothing is captured
+     */
+    public String[] getFeedbackVaryings() {
+        return feedbackVaryings;
+    }
+
+    /**
+     * @return GL_INTERLEAVED_ATTRIBS or GL_SEPARATE_ATTRIBS
+     */
+    public int getFeedbackBufferMode() {
+        return feedbackBufferMode;
+    }
+
     /**
      * Makes OpenGL ES 2.0 use this vertex and fragment shader pair. When you are done with this shader you have
      * to call
@@ -0,0 +1,242 @@
+package com.joshua.gdx.gdxlite.graphics.glutils;
+
+import android.graphics.Bitmap;
+import android.opengl.GLES20;
+import android.opengl.GLES30;
+
+import com.joshua.gdx.gdxlite.graphics.GLTexture;
+import com.joshua.gdx.gdxlite.utils.Disposable;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Streams frequently changing images, like video frames, camera previews or canvases drawn every frame, into a
+ * region of a texture without blocking on the driver's copy. On OpenGL ES 3.0 the pixels are written into a ring of
+ * pixel unpack buffers: {@link #begin()} maps the next buffer of the ring, {@link #end()} unmaps it and starts the
+ * copy into the texture from it, and a fence marks when the GPU is done with it. So the CPU writes frame N+1 while the
+ * GPU still consumes frame N, and only waits if it gets more than the ring size frames ahead.
+ *
+ * <pre>
+ * ByteBuffer pixels = streamer.begin();
+ * decoder.decodeFrame(pixels);
+ * streamer.end();
+ * </pre>
+ * <p>
+ * On OpenGL ES 2.0 {@link #begin()} returns a plain buffer and {@link #end()} uploads it with glTexSubImage2D. The
+ * texture has to be allocated with a matching format beforehand, e.g. with
+ * {@link com.joshua.gdx.gdxlite.graphics.GLOnlyTextureData}. Only mipmap level 0 is updated.
+ * <p>
+ * After a context loss the buffers have to be recreated with {@link #invalidate()}.
+ */
+public class TextureStreamer implements Disposable {
+    private final GLTexture texture;
+    private final int x, y, width, height;
+    private final int format, type;
+    private final int size;
+    private final boolean usePixelBuffers;
+    private final int[] buffers;
+    private final long[] fences;
+    private ByteBuffer fallback;
+    private ByteBuffer mapped;
+    private int current;
+    private int stalls;
+    /**
+     * the nanoseconds {@link #begin()} waits at most for the GPU to release a buffer before writing into it anyway
+     */
+    public long fenceTimeout = 100000000;
+
+    /**
+     * Streams RGBA8888 images into the whole texture through a ring of three buffers.
+     */
+    public TextureStreamer(GLTexture texture) {
+        this(texture, 0, 0, texture.getWidth(), texture.getHeight(), GLES20.GL_RGBA, GLES20.GL_UNSIGNED_BYTE, 3);
+    }
+
+    /**
+     * @param format   the pixel format, e.g. GL_RGBA or GL_LUMINANCE
+     * @param type     the pixel type, GL_UNSIGNED_BYTE, GL_UNSIGNED_SHORT_5_6_5 or GL_UNSIGNED_SHORT_4_4_4_4
+     * @param ringSize the number of buffers, 2 lets the CPU run one frame ahead, 3 also covers drivers which queue a
+     *                 frame
+     */
+    public TextureStreamer(GLTexture texture, int x, int y, int width, int height, int format, int type,
+                           int ringSize) {
+        if (ringSize < 1) throw new IllegalArgumentException("ringSize must be at least 1");
+        this.texture = texture;
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        this.format = format;
+        this.type = type;
+        this.size = width * height * getBytesPerPixel(format, type);
+        usePixelBuffers = GLTool.isGL30Available();
+        buffers = new int[usePixelBuffers ? ringSize : 0];
+        fences = new long[buffers.length];
+        if (usePixelBuffers) createBuffers();
+        else fallback = ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * @return the bytes per pixel of a pixel format and type
+     */
+    public static int getBytesPerPixel(int format, int type) {
+        if (type == GLES20.GL_UNSIGNED_SHORT_5_6_5 || type == GLES20.GL_UNSIGNED_SHORT_4_4_4_4
+                || type == GLES20.GL_UNSIGNED_SHORT_5_5_5_1) return 2;
+        if (type != GLES20.GL_UNSIGNED_BYTE) throw new IllegalArgumentException("Unsupported type: " + type);
+        switch (format) {
+            case GLES20.GL_ALPHA:
+            case GLES20.GL_LUMINANCE:
+                return 1;
+            case GLES20.GL_LUMINANCE_ALPHA:
+                return 2;
+            case GLES20.GL_RGB:
+                return 3;
+            case GLES20.GL_RGBA:
+                return 4;
+            default:
+                throw new IllegalArgumentException("Unsupported format: " + format);
+        }
+    }
+
+    private void createBuffers() {
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = GLTool.glGenBuffer();
+            GLES20.glBindBuffer(GLES30.GL_PIXEL_UNPACK_BUFFER, buffers[i]);
+            GLES20.glBufferData(GLES30.GL_PIXEL_UNPACK_BUFFER, size, null, GLES30.GL_STREAM_DRAW);
+            fences[i] = 0;
+        }
+        GLES20.glBindBuffer(GLES30.GL_PIXEL_UNPACK_BUFFER, 0);
+        current = 0;
+    }
+
+    /**
+     * Returns the buffer to write the next image into, rows from the top, tightly packed. Waits if the GPU still reads
+     * the buffer. Must be called on the GL thread.
+     *
+     * @return a buffer with {@link #getSize()} bytes remaining, valid until {@link #end()}
+     */
+    public ByteBuffer begin() {
+        if (mapped != null) throw new IllegalStateException("end() must be called before begin()");
+        if (!usePixelBuffers) {
+            fallback.clear();
+            return mapped = fallback;
+        }
+        final long fence = fences[current];
+        if (fence != 0) {
+            if (GLES30.glClientWaitSync(fence, 0, 0) == GLES30.GL_TIMEOUT_EXPIRED) {
+                stalls++;
+                GLES30.glClientWaitSync(fence, GLES30.GL_SYNC_FLUSH_COMMANDS_BIT, fenceTimeout);
+            }
+            GLES30.glDeleteSync(fence);
+            fences[current] = 0;
+        }
+        GLES20.glBindBuffer(GLES30.GL_PIXEL_UNPACK_BUFFER, buffers[current]);
+        // invalidating lets the driver hand out fresh memory if the old one is still in use after a timeout
+        final Buffer buffer = GLES30.glMapBufferRange(GLES30.GL_PIXEL_UNPACK_BUFFER, 0, size,
+                GLES30.GL_MAP_WRITE_BIT | GLES30.GL_MAP_INVALIDATE_BUFFER_BIT);
+        GLES20.glBindBuffer(GLES30.GL_PIXEL_UNPACK_BUFFER, 0);
+        if (buffer == null) throw new RuntimeException("Couldn't map pixel buffer, error " + GLES20.glGetError());
+        mapped = ((ByteBuffer) buffer).order(ByteOrder.nativeOrder());
+        return mapped;
+    }
+
+    /**
+     * Starts the copy of the image written since {@link #begin()} into the texture. Must be called on the GL thread.
+     * Leaves the texture bound to the active unit.
+     */
+    public void end() {
+        if (mapped == null) throw new IllegalStateException("begin() must be called before end()");
+        mapped = null;
+        texture.bind();
+        GLES20.glPixelStorei(GLES20.GL_UNPACK_ALIGNMENT, 1);
+        if (!usePixelBuffers) {
+            fallback.position(0);
+            GLES20.glTexSubImage2D(texture.glTarget, 0, x, y, width, height, format, type, fallback);
+            return;
+        }
+        GLES20.glBindBuffer(GLES30.GL_PIXEL_UNPACK_BUFFER, buffers[current]);
+        GLES30.glUnmapBuffer(GLES30.GL_PIXEL_UNPACK_BUFFER);
+        GLES30.glTexSubImage2D(texture.glTarget, 0, x, y, width, height, format, type, 0);
+        GLES20.glBindBuffer(GLES30.GL_PIXEL_UNPACK_BUFFER, 0);
+        fences[current] = GLES30.glFenceSync(GLES30.GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+        current = (current + 1) % buffers.length;
+    }
+
+    /**
+     * Streams a bitmap, which must have the size of the region and a config matching the format, e.g. ARGB_8888 for
+     * GL_RGBA, whose pixels are stored premultiplied in RGBA order, or RGB_565 for GL_RGB with GL_UNSIGNED_SHORT_5_6_5.
+     */
+    public void update(Bitmap bitmap) {
+        if (bitmap.getWidth() != width || bitmap.getHeight() != height || bitmap.getByteCount() != size)
+            throw new IllegalArgumentException("Bitmap doesn't match the streamed region");
+        final ByteBuffer pixels = begin();
+        try {
+            bitmap.copyPixelsToBuffer(pixels);
+        } finally {
+            end();
+        }
+    }
+
+    /**
+     * Streams the {@link #getSize()} bytes remaining in the buffer.
+     */
+    public void update(ByteBuffer pixels) {
+        if (pixels.remaining() < size) throw new IllegalArgumentException("Not enough pixels: " + pixels.remaining());
+        final int limit = pixels.limit();
+        final ByteBuffer target = begin();
+        try {
+            pixels.limit(pixels.position() + size);
+            target.put(pixels);
+        } finally {
+            pixels.limit(limit);
+            end();
+        }
+    }
+
+    /**
+     * @return the size of an image in bytes
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return whether pixel unpack buffers are used, false on OpenGL ES 2.0
+     */
+    public boolean usesPixelBuffers() {
+        return usePixelBuffers;
+    }
+
+    /**
+     * @return how often {@link #begin()} had to wait for the GPU to release a buffer
+     */
+    public int getStallCount() {
+        return stalls;
+    }
+
+    /**
+     * Recreates the buffers after a context loss.
+     */
+    public void invalidate() {
+        mapped = null;
+        if (usePixelBuffers) createBuffers();
+    }
+
+    @Override
+    public void dispose() {
+        if (mapped != null && usePixelBuffers) {
+            GLES20.glBindBuffer(GLES30.GL_PIXEL_UNPACK_BUFFER, buffers[current]);
+            GLES30.glUnmapBuffer(GLES30.GL_PIXEL_UNPACK_BUFFER);
+            GLES20.glBindBuffer(GLES30.GL_PIXEL_UNPACK_BUFFER, 0);
+        }
+        mapped = null;
+        for (int i = 0; i < buffers.length; i++) {
+            if (fences[i] != 0) GLES30.glDeleteSync(fences[i]);
+            fences[i] = 0;
+            GLTool.glDeleteBuffer(buffers[i]);
+            buffers[i] = 0;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.joshua.gdx.gdxlite.graphics.glutils;
+
+import android.opengl.GLES20;
+import android.opengl.GLES30;
+
+import com.joshua.gdx.gdxlite.graphics.VertexAttributes;
+import com.joshua.gdx.gdxlite.utils.Disposable;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Runs a vertex shader over a vertex buffer and captures its outputs into a second buffer with OpenGL ES 3.0
+ * transform feedback, keeping simulations such as particles or cloth entirely on the GPU. The two
+ * {@link VertexBufferObject}s are swapped after every update, so the output of one pass is the input of the next.
+ * <p>
+ * The update shader is created with {@link ShaderProgram#ShaderProgram(String, String, String[], int)} capturing
+ * one varying per vertex attribute, in attribute order and with GL_INTERLEAVED_ATTRIBS, so the captured data has
+ * the same layout as the input. Updates run with GL_RASTERIZER_DISCARD enabled, so nothing is drawn:
+ *
+ * <pre>
+ * feedback.begin();
+ * feedback.getShader().setUniformf("u_delta", delta);
+ * feedback.update(GLES20.GL_POINTS);
+ * feedback.end();
+ * feedback.render(drawShader, GLES20.GL_POINTS);
+ * </pre>
+ * <p>
+ * The client copy of the vertices is only uploaded by {@link #setVertices(float[], int, int)} and after a context
+ * loss, which restarts the simulation from those vertices.
+ */
+public class TransformFeedback implements Disposable {
+    private final ShaderProgram shader;
+    private final VertexBufferObject[] buffers = new VertexBufferObject[2];
+    private int current;
+    private boolean updating;
+
+    /**
+     * @param shader      the update shader capturing one varying per attribute
+     * @param maxVertices the maximum number of simulated vertices
+     * @param attributes  the vertex layout of the input and the captured output
+     */
+    public TransformFeedback(ShaderProgram shader, int maxVertices, VertexAttributes attributes) {
+        if (!GLTool.isGL30Available()) throw new RuntimeException("Transform feedback requires OpenGL ES 3.0");
+        final String[] varyings = shader.getFeedbackVaryings();
+        if (varyings == null) throw new IllegalArgumentException("Shader doesn't capture any varyings");
+        if (shader.getFeedbackBufferMode() != GLES30.GL_INTERLEAVED_ATTRIBS)
+            throw new IllegalArgumentException("Shader must capture with GL_INTERLEAVED_ATTRIBS");
+        if (varyings.length != attributes.size())
+            throw new IllegalArgumentException("Shader captures " + varyings.length + " varyings, but there are "
+                    + attributes.size() + " attributes");
+
+        this.shader = shader;
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = new VertexBufferObject(false, maxVertices, attributes);
+            buffers[i].setUsage(GLES30.GL_DYNAMIC_COPY);
+        }
+    }
+
+    /**
+     * Sets the initial vertices of both buffers and uploads them immediately.
+     *
+     * @param vertices the vertex data
+     * @param offset   the offset into the vertices array
+     * @param count    the number of floats to copy
+     */
+    public void setVertices(float[] vertices, int offset, int count) {
+        for (VertexBufferObject buffer : buffers) {
+            buffer.setVertices(vertices, offset, count);
+            buffer.upload();
+        }
+    }
+
+    /**
+     * Binds the update shader and disables rasterization. Set the shader uniforms after this call.
+     */
+    public void begin() {
+        if (updating) throw new IllegalStateException("TransformFeedback.end must be called before begin.");
+        shader.begin();
+        GLES20.glEnable(GLES30.GL_RASTERIZER_DISCARD);
+        updating = true;
+    }
+
+    /**
+     * Runs the update shader over the current vertices, captures the results and makes them the current vertices.
+     *
+     * @param primitiveType GL_POINTS, GL_LINES or GL_TRIANGLES
+     */
+    public void update(int primitiveType) {
+        if (!updating) throw new IllegalStateException("TransformFeedback.begin must be called before update.");
+        if (primitiveType != GLES20.GL_POINTS && primitiveType != GLES20.GL_LINES
+                && primitiveType != GLES20.GL_TRIANGLES)
+            throw new IllegalArgumentException("Transform feedback only supports points, lines and triangles");
+
+        final VertexBufferObject source = buffers[current];
+        final VertexBufferObject destination = buffers[1 - current];
+        final int count = source.getNumVertices();
+        if (count == 0) return;
+        source.upload();
+        destination.upload();
+
+        source.bind(shader);
+        GLES30.glBindBufferBase(GLES30.GL_TRANSFORM_FEEDBACK_BUFFER, 0, destination.getBufferHandle());
+        GLES30.glBeginTransformFeedback(primitiveType);
+        GLES20.glDrawArrays(primitiveType, 0, count);
+        GLES30.glEndTransformFeedback();
+        GLES30.glBindBufferBase(GLES30.GL_TRANSFORM_FEEDBACK_BUFFER, 0, 0);
+        source.unbind(shader);
+        current = 1 - current;
+    }
+
+    /**
+     * Enables rasterization again and unbinds the update shader.
+     */
+    public void end() {
+        if (!updating) throw new IllegalStateException("TransformFeedback.begin must be called before end.");
+        GLES20.glDisable(GLES30.GL_RASTERIZER_DISCARD);
+        shader.end();
+        updating = false;
+    }
+
+    /**
+     * Draws the current vertices with the given shader. Must be called between {@link ShaderProgram#begin()} and
+     * {@link ShaderProgram#end()} of that shader and outside of {@link #begin()} and {@link #end()}.
+     */
+    public void render(ShaderProgram shader, int primitiveType) {
+        final VertexBufferObject buffer = buffers[current];
+        final int count = buffer.getNumVertices();
+        if (count == 0) return;
+        buffer.bind(shader);
+        GLES20.glDrawArrays(primitiveType, 0, count);
+        buffer.unbind(shader);
+    }
+
+    /**
+     * Reads the current vertices back from the GPU. This stalls the pipeline and is meant for debugging only.
+     *
+     * @param vertices the array receiving the vertices, must hold {@link #getNumVertices()} vertices
+     */
+    public void read(float[] vertices) {
+        final VertexBufferObject buffer = buffers[current];
+        final int size = buffer.getNumVertices() * buffer.getAttributes().vertexSize;
+        GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, buffer.getBufferHandle());
+        final ByteBuffer mapped = (ByteBuffer) GLES30.glMapBufferRange(GLES20.GL_ARRAY_BUFFER, 0, size,
+                GLES30.GL_MAP_READ_BIT);
+        if (mapped != null) {
+            mapped.order(ByteOrder.nativeOrder()).asFloatBuffer().get(vertices, 0, size / 4);
+            GLES30.glUnmapBuffer(GLES20.GL_ARRAY_BUFFER);
+        }
+        GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+    }
+
+    /**
+     * @return the buffer holding the results of the last update
+     */
+    public VertexBufferObject getCurrent() {
+        return buffers[current];
+    }
+
+    public ShaderProgram getShader() {
+        return shader;
+    }
+
+    public int getNumVertices() {
+        return buffers[current].getNumVertices();
+    }
+
+    /**
+     * Invalidates both buffers after a context loss, the simulation restarts from the last set vertices.
+     */
+    public void invalidate() {
+        for (VertexBufferObject buffer : buffers)
+            buffer.invalidate();
+    }
+
+    /**
+     * Disposes both buffers, the shader is not disposed.
+     */
+    @Override
+    public void dispose() {
+        for (VertexBufferObject buffer : buffers)
+            buffer.dispose();
+    }
+}
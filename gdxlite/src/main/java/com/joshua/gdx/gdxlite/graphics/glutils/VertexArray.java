@@ -20,6 +20,7 @@ import android.opengl.GLES20;
 
 import com.joshua.gdx.gdxlite.graphics.VertexAttribute;
 import com.joshua.gdx.gdxlite.graphics.VertexAttributes;
+import com.joshua.gdx.gdxlite.utils.DirectFloatArray;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
@@ -40,10 +41,12 @@ import java.nio.FloatBuffer;
  */
 public class VertexArray implements VertexData {
     final VertexAttributes attributes;
-    final FloatBuffer buffer;
-    final ByteBuffer byteBuffer;
+    FloatBuffer buffer;
+    ByteBuffer byteBuffer;
     boolean isBound = false;
 
+    private final AdoptedVertices adopted = new AdoptedVertices();
+
     /**
      * Constructs a new interleaved VertexArray
      *
@@ -76,6 +79,7 @@ public class VertexArray implements VertexData {
 
     @Override
     public int getNumVertices() {
+        syncAdopted();
         return buffer.limit() * 4 / attributes.vertexSize;
     }
 
@@ -85,6 +89,7 @@ public class VertexArray implements VertexData {
 
     @Override
     public void setVertices(float[] vertices, int offset, int count) {
+        if (adopted.isAdopted()) adopt(null);
         buffer.limit(count);
         buffer.put(vertices, offset, count);
         buffer.position(0);
@@ -106,6 +111,7 @@ public class VertexArray implements VertexData {
 
     @Override
     public void bind(final ShaderProgram shader, final int[] locations) {
+        syncAdopted();
         final int numAttributes = attributes.size();
         byteBuffer.limit(buffer.limit() * 4);
         if (locations == null) {
@@ -184,4 +190,17 @@ public class VertexArray implements VertexData {
     @Override
     public void dispose() {
     }
+
+    @Override
+    public void adopt(DirectFloatArray vertices) {
+        if (isBound) throw new RuntimeException("Cannot adopt vertices while bound");
+        adopted.adopt(vertices, byteBuffer, buffer);
+        syncAdopted();
+    }
+
+    private void syncAdopted() {
+        if (!adopted.sync()) return;
+        byteBuffer = adopted.byteBuffer;
+        buffer = adopted.buffer;
+    }
 }
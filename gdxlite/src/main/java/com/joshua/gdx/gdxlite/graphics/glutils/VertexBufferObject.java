@@ -20,6 +20,7 @@ import android.opengl.GLES20;
 
 import com.joshua.gdx.gdxlite.graphics.VertexAttribute;
 import com.joshua.gdx.gdxlite.graphics.VertexAttributes;
+import com.joshua.gdx.gdxlite.utils.DirectFloatArray;
 
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
@@ -50,6 +51,8 @@ public class VertexBufferObject implements VertexData {
     boolean isDirty = false;
     boolean isBound = false;
 
+    private final AdoptedVertices adopted = new AdoptedVertices();
+
     /**
      * Constructs a new interleaved VertexBufferObject.
      *
@@ -91,6 +94,7 @@ public class VertexBufferObject implements VertexData {
 
     @Override
     public int getNumVertices() {
+        syncAdopted();
         return buffer.limit() * 4 / attributes.vertexSize;
     }
 
@@ -137,6 +141,7 @@ public class VertexBufferObject implements VertexData {
 
     @Override
     public void setVertices(float[] vertices, int offset, int count) {
+        if (adopted.isAdopted()) adopt(null);
         isDirty = true;
         buffer.put(vertices, offset, count);
         buffer.position(0);
@@ -153,6 +158,27 @@ public class VertexBufferObject implements VertexData {
         bufferChanged();
     }
 
+    /**
+     * @return the OpenGL buffer object handle
+     */
+    public int getBufferHandle() {
+        return bufferHandle;
+    }
+
+    /**
+     * Uploads pending changes of the vertices to the buffer object without binding any attributes. Buffers written
+     * by the GPU, e.g. through transform feedback, must be uploaded before their first use so a later bind doesn't
+     * overwrite the GPU results with the stale client copy.
+     */
+    public void upload() {
+        if (!isDirty) return;
+        GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, bufferHandle);
+        byteBuffer.limit(buffer.limit() * 4);
+        GLES20.glBufferData(GLES20.GL_ARRAY_BUFFER, byteBuffer.limit(), byteBuffer, usage);
+        isDirty = false;
+        GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+    }
+
     /**
      * @return The GL enum used in the call to {@link GLES20#glBufferData(int, int, Buffer, int)}, e.g.
      * GL_STATIC_DRAW or
@@ -184,6 +210,7 @@ public class VertexBufferObject implements VertexData {
 
     @Override
     public void bind(ShaderProgram shader, int[] locations) {
+        syncAdopted();
         GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, bufferHandle);
         if (isDirty) {
             byteBuffer.limit(buffer.limit() * 4);
@@ -262,4 +289,18 @@ public class VertexBufferObject implements VertexData {
         GLTool.glDeleteBuffer(bufferHandle);
         bufferHandle = 0;
     }
+
+    @Override
+    public void adopt(DirectFloatArray vertices) {
+        if (isBound) throw new RuntimeException("Cannot adopt vertices while bound");
+        adopted.adopt(vertices, byteBuffer, buffer);
+        syncAdopted();
+    }
+
+    private void syncAdopted() {
+        if (!adopted.sync()) return;
+        byteBuffer = adopted.byteBuffer;
+        buffer = adopted.buffer;
+        isDirty = true;
+    }
 }
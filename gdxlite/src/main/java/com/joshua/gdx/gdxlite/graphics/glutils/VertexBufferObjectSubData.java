@@ -21,6 +21,7 @@ import android.opengl.GLES20;
 import com.joshua.gdx.gdxlite.graphics.VertexAttribute;
 import com.joshua.gdx.gdxlite.graphics.VertexAttributes;
 import com.joshua.gdx.gdxlite.utils.BufferUtils;
+import com.joshua.gdx.gdxlite.utils.DirectFloatArray;
 
 import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
@@ -38,14 +39,16 @@ import java.nio.FloatBuffer;
  * @author mzechner */
 public class VertexBufferObjectSubData implements VertexData {
 	final VertexAttributes attributes;
-	final FloatBuffer buffer;
-	final ByteBuffer byteBuffer;
+	FloatBuffer buffer;
+	ByteBuffer byteBuffer;
 	int bufferHandle;
 	final boolean isDirect;
 	final boolean isStatic;
 	final int usage;
 	boolean isDirty = false;
 	boolean isBound = false;
+
+	private final AdoptedVertices adopted = new AdoptedVertices();
 	
 	/** Constructs a new interleaved VertexBufferObject.
 	 * 
@@ -89,6 +92,7 @@ public class VertexBufferObjectSubData implements VertexData {
 
 	@Override
 	public int getNumVertices () {
+		syncAdopted();
 		return buffer.limit() * 4 / attributes.vertexSize;
 	}
 
@@ -112,6 +116,7 @@ public class VertexBufferObjectSubData implements VertexData {
 
 	@Override
 	public void setVertices (float[] vertices, int offset, int count) {
+		if (adopted.isAdopted()) adopt(null);
 		isDirty = true;
 		if (isDirect) {
 			buffer.put(vertices, offset, count);
@@ -152,7 +157,7 @@ public class VertexBufferObjectSubData implements VertexData {
 
 	@Override
 	public void bind (final ShaderProgram shader, final int[] locations) {
-
+		syncAdopted();
 		GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, bufferHandle);
 		if (isDirty) {
 			byteBuffer.limit(buffer.limit() * 4);
@@ -229,4 +234,18 @@ public class VertexBufferObjectSubData implements VertexData {
 	public int getBufferHandle () {
 		return bufferHandle;
 	}
+
+	@Override
+	public void adopt (DirectFloatArray vertices) {
+		if (isBound) throw new RuntimeException("Cannot adopt vertices while bound");
+		adopted.adopt(vertices, byteBuffer, buffer);
+		syncAdopted();
+	}
+
+	private void syncAdopted () {
+		if (!adopted.sync()) return;
+		byteBuffer = adopted.byteBuffer;
+		buffer = adopted.buffer;
+		isDirty = true;
+	}
 }
@@ -6,6 +6,7 @@ import android.opengl.GLES30;
 import com.joshua.gdx.gdxlite.graphics.VertexAttribute;
 import com.joshua.gdx.gdxlite.graphics.VertexAttributes;
 import com.joshua.gdx.gdxlite.utils.BufferUtils;
+import com.joshua.gdx.gdxlite.utils.DirectFloatArray;
 import com.joshua.gdx.gdxlite.utils.IntArray;
 
 import java.nio.ByteBuffer;
@@ -37,13 +38,15 @@ public class VertexBufferObjectWithVAO implements VertexData {
 	final static IntBuffer tmpHandle = BufferUtils.newIntBuffer(1);
 
 	final VertexAttributes attributes;
-	final FloatBuffer buffer;
-	final ByteBuffer byteBuffer;
+	FloatBuffer buffer;
+	ByteBuffer byteBuffer;
 	int bufferHandle;
 	final boolean isStatic;
 	final int usage;
 	boolean isDirty = false;
 	boolean isBound = false;
+
+	private final AdoptedVertices adopted = new AdoptedVertices();
 	int vaoHandle = -1;
 	IntArray cachedLocations = new IntArray();
 
@@ -86,6 +89,7 @@ public class VertexBufferObjectWithVAO implements VertexData {
 
 	@Override
 	public int getNumVertices () {
+		syncAdopted();
 		return buffer.limit() * 4 / attributes.vertexSize;
 	}
 
@@ -109,6 +113,7 @@ public class VertexBufferObjectWithVAO implements VertexData {
 
 	@Override
 	public void setVertices (float[] vertices, int offset, int count) {
+		if (adopted.isAdopted()) adopt(null);
 		isDirty = true;
 		buffer.put(vertices, offset, count);
 		buffer.position(0);
@@ -137,6 +142,7 @@ public class VertexBufferObjectWithVAO implements VertexData {
 
 	@Override
 	public void bind (ShaderProgram shader, int[] locations) {
+		syncAdopted();
 		GLES30.glBindVertexArray(vaoHandle);
 
 		bindAttributes(shader, locations);
@@ -265,4 +271,18 @@ public class VertexBufferObjectWithVAO implements VertexData {
 			vaoHandle = -1;
 		}
 	}
+
+	@Override
+	public void adopt (DirectFloatArray vertices) {
+		if (isBound) throw new RuntimeException("Cannot adopt vertices while bound");
+		adopted.adopt(vertices, byteBuffer, buffer);
+		syncAdopted();
+	}
+
+	private void syncAdopted () {
+		if (!adopted.sync()) return;
+		byteBuffer = adopted.byteBuffer;
+		buffer = adopted.buffer;
+		isDirty = true;
+	}
 }
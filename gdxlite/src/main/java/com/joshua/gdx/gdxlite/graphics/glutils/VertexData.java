@@ -17,6 +17,7 @@
 package com.joshua.gdx.gdxlite.graphics.glutils;
 
 import com.joshua.gdx.gdxlite.graphics.VertexAttributes;
+import com.joshua.gdx.gdxlite.utils.DirectFloatArray;
 import com.joshua.gdx.gdxlite.utils.Disposable;
 
 import java.nio.FloatBuffer;
@@ -59,6 +60,12 @@ public interface VertexData extends Disposable {
 	 * @return the underlying FloatBuffer holding the vertex data. */
 	public FloatBuffer getBuffer();
 
+	/** Uses the memory of the given array as the vertices instead of copying them with {@link #setVertices(float[], int, int)}.
+	 * The vertex count follows {@link DirectFloatArray#size} and the contents are uploaded on bind whenever the array was
+	 * modified. Can't be called while bound.
+	 * @param vertices the array to adopt, or null to go back to the own vertices of this VertexData */
+	public void adopt(DirectFloatArray vertices);
+
 	/** Binds this VertexData for rendering via glDrawArrays or glDrawElements. */
 	public void bind(ShaderProgram shader);
 
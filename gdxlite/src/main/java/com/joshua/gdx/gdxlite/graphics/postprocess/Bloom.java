@@ -0,0 +1,91 @@
+package com.joshua.gdx.gdxlite.graphics.postprocess;
+
+import com.joshua.gdx.gdxlite.graphics.Texture;
+import com.joshua.gdx.gdxlite.graphics.glutils.FrameBuffer;
+import com.joshua.gdx.gdxlite.graphics.glutils.ShaderProgram;
+
+/**
+ * Adds a glow around bright pixels. The prepass extracts the pixels above the threshold at half resolution and blurs
+ * them with a {@link DualFilterBlur}, the composite adding them back is fused with the effects following it.
+ */
+public class Bloom extends PixelEffect {
+    private static final String THRESHOLD_SHADER = PostProcessor.FRAGMENT_HEADER
+            + "uniform float u_threshold;\n"
+            + "void main()\n"
+            + "{\n"
+            + "   vec4 color = texture2D(u_texture, v_texCoords);\n"
+            + "   float brightness = max(color.r, max(color.g, color.b));\n"
+            + "   float contribution = max(brightness - u_threshold, 0.0) / max(brightness, 0.0001);\n"
+            + "   gl_FragColor = vec4(color.rgb * contribution, 1.0);\n"
+            + "}\n";
+    private static final String[] UNIFORMS = {"glow", "intensity"};
+
+    /**
+     * the brightness above which pixels glow
+     */
+    public float threshold = 0.8f;
+    /**
+     * the factor of the glow added to the image
+     */
+    public float intensity = 1f;
+    /**
+     * the number of blur iterations, each doubling the radius of the glow
+     */
+    public int iterations = 4;
+    /**
+     * the tap distance of the blur, see {@link DualFilterBlur#offset}
+     */
+    public float offset = 1f;
+
+    private Texture glow;
+
+    public Bloom() {
+    }
+
+    public Bloom(float threshold, float intensity) {
+        this.threshold = threshold;
+        this.intensity = intensity;
+    }
+
+    @Override
+    protected boolean hasPrepass() {
+        return true;
+    }
+
+    @Override
+    protected void prepare(PostProcessor processor, Texture source) {
+        final ShaderProgram shader = processor.getShader(THRESHOLD_SHADER);
+        final FrameBuffer bright = processor.obtainTarget(2);
+        shader.begin();
+        shader.setUniformf("u_threshold", threshold);
+        processor.renderPass(shader, source, bright);
+
+        final FrameBuffer blurred = processor.obtainTarget(2);
+        DualFilterBlur.blur(processor, bright.getColorBufferTexture(), 2, iterations, offset, blurred);
+        glow = blurred.getColorBufferTexture();
+    }
+
+    @Override
+    protected String[] getUniformNames() {
+        return UNIFORMS;
+    }
+
+    @Override
+    protected String getDeclarations(String prefix) {
+        return "uniform sampler2D " + prefix + "glow;\n"
+                + "uniform float " + prefix + "intensity;\n";
+    }
+
+    @Override
+    protected String getCode(String prefix) {
+        return "      color.rgb += texture2D(" + prefix + "glow, uv).rgb * " + prefix + "intensity;\n";
+    }
+
+    @Override
+    protected void setUniforms(ShaderProgram shader, int[] locations, PostProcessor processor) {
+        shader.setUniformi(locations[0], processor.bindTexture(glow));
+        shader.setUniformf(locations[1], intensity);
+        // the target is released with the pass
+        glow = null;
+    }
+}
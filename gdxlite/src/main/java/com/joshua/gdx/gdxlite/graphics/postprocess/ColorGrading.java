@@ -0,0 +1,69 @@
+package com.joshua.gdx.gdxlite.graphics.postprocess;
+
+import com.joshua.gdx.gdxlite.graphics.Texture;
+import com.joshua.gdx.gdxlite.graphics.Texture.TextureFilter;
+import com.joshua.gdx.gdxlite.graphics.Texture.TextureWrap;
+import com.joshua.gdx.gdxlite.graphics.glutils.ShaderProgram;
+
+/**
+ * Maps the colors through a 3D lookup table, stored as a strip of N slices of N x N texels, so the texture is N * N
+ * wide and N high. Red runs along each slice to the right, green downwards and blue from slice to slice. The two
+ * slices around a color's blue are interpolated, the texture filters red and green.
+ */
+public class ColorGrading extends PixelEffect {
+    private static final String[] UNIFORMS = {"lut", "params"};
+
+    private final Texture lut;
+    private final int size;
+    /**
+     * the blend between the input and the graded colors, from 0 to 1
+     */
+    public float intensity = 1f;
+
+    /**
+     * @param lut the lookup table, owned by the caller, its filter and wrap are set to linear and clamp to edge
+     */
+    public ColorGrading(Texture lut) {
+        size = lut.getHeight();
+        if (size < 2 || lut.getWidth() != size * size)
+            throw new IllegalArgumentException("The lookup table must be N * N wide and N high: " + lut.getWidth()
+                    + "x" + lut.getHeight());
+        this.lut = lut;
+        lut.setFilter(TextureFilter.Linear, TextureFilter.Linear);
+        lut.setWrap(TextureWrap.ClampToEdge, TextureWrap.ClampToEdge);
+    }
+
+    public Texture getLut() {
+        return lut;
+    }
+
+    @Override
+    protected String[] getUniformNames() {
+        return UNIFORMS;
+    }
+
+    @Override
+    protected String getDeclarations(String prefix) {
+        return "uniform sampler2D " + prefix + "lut;\n"
+                + "uniform vec2 " + prefix + "params;\n";
+    }
+
+    @Override
+    protected String getCode(String prefix) {
+        final String lut = prefix + "lut";
+        final String size = prefix + "params.x";
+        return "      vec3 c = clamp(color.rgb, 0.0, 1.0) * (" + size + " - 1.0);\n"
+                + "      float slice = floor(c.b);\n"
+                + "      vec2 p = vec2((c.r + 0.5) / (" + size + " * " + size + "), (c.g + 0.5) / " + size + ");\n"
+                + "      vec3 c0 = texture2D(" + lut + ", p + vec2(slice / " + size + ", 0.0)).rgb;\n"
+                + "      vec3 c1 = texture2D(" + lut + ", p + vec2(min(slice + 1.0, " + size + " - 1.0) / " + size
+                + ", 0.0)).rgb;\n"
+                + "      color.rgb = mix(color.rgb, mix(c0, c1, c.b - slice), " + prefix + "params.y);\n";
+    }
+
+    @Override
+    protected void setUniforms(ShaderProgram shader, int[] locations, PostProcessor processor) {
+        shader.setUniformi(locations[0], processor.bindTexture(lut));
+        shader.setUniformf(locations[1], size, intensity);
+    }
+}
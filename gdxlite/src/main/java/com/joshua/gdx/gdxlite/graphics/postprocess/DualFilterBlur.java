@@ -0,0 +1,93 @@
+package com.joshua.gdx.gdxlite.graphics.postprocess;
+
+import com.joshua.gdx.gdxlite.graphics.Texture;
+import com.joshua.gdx.gdxlite.graphics.glutils.FrameBuffer;
+import com.joshua.gdx.gdxlite.graphics.glutils.ShaderProgram;
+
+/**
+ * A dual filter blur, the Kawase blur variant which downsamples the image over several halving passes and upsamples it
+ * back, with a 5 tap filter down and an 8 tap filter up. The passes run at half resolution and below, so a wide blur
+ * costs little more than a single full screen pass.
+ */
+public class DualFilterBlur extends PassEffect {
+    private static final String DOWN_SHADER = PostProcessor.FRAGMENT_HEADER
+            + "uniform vec2 u_halfPixel;\n"
+            + "void main()\n"
+            + "{\n"
+            + "   vec4 sum = texture2D(u_texture, v_texCoords) * 4.0;\n"
+            + "   sum += texture2D(u_texture, v_texCoords - u_halfPixel);\n"
+            + "   sum += texture2D(u_texture, v_texCoords + u_halfPixel);\n"
+            + "   sum += texture2D(u_texture, v_texCoords + vec2(u_halfPixel.x, -u_halfPixel.y));\n"
+            + "   sum += texture2D(u_texture, v_texCoords - vec2(u_halfPixel.x, -u_halfPixel.y));\n"
+            + "   gl_FragColor = sum / 8.0;\n"
+            + "}\n";
+    private static final String UP_SHADER = PostProcessor.FRAGMENT_HEADER
+            + "uniform vec2 u_halfPixel;\n"
+            + "void main()\n"
+            + "{\n"
+            + "   vec2 h = u_halfPixel;\n"
+            + "   vec4 sum = texture2D(u_texture, v_texCoords + vec2(-h.x * 2.0, 0.0));\n"
+            + "   sum += texture2D(u_texture, v_texCoords + vec2(-h.x, h.y)) * 2.0;\n"
+            + "   sum += texture2D(u_texture, v_texCoords + vec2(0.0, h.y * 2.0));\n"
+            + "   sum += texture2D(u_texture, v_texCoords + vec2(h.x, h.y)) * 2.0;\n"
+            + "   sum += texture2D(u_texture, v_texCoords + vec2(h.x * 2.0, 0.0));\n"
+            + "   sum += texture2D(u_texture, v_texCoords + vec2(h.x, -h.y)) * 2.0;\n"
+            + "   sum += texture2D(u_texture, v_texCoords + vec2(0.0, -h.y * 2.0));\n"
+            + "   sum += texture2D(u_texture, v_texCoords + vec2(-h.x, -h.y)) * 2.0;\n"
+            + "   gl_FragColor = sum / 12.0;\n"
+            + "}\n";
+
+    /**
+     * the number of downsampling passes, each doubling the blur radius
+     */
+    public int iterations = 3;
+    /**
+     * the distance of the taps in half pixels of the pass target, above 1 widens the blur at the cost of quality
+     */
+    public float offset = 1f;
+
+    public DualFilterBlur() {
+    }
+
+    public DualFilterBlur(int iterations, float offset) {
+        this.iterations = iterations;
+        this.offset = offset;
+    }
+
+    @Override
+    protected void render(PostProcessor processor, Texture source, FrameBuffer destination) {
+        blur(processor, source, 1, iterations, offset, destination);
+    }
+
+    /**
+     * Blurs the source into the destination with the given number of halving passes.
+     *
+     * @param divisor     the resolution divisor of the source and the destination, the first pass renders at twice
+     *                    that
+     * @param destination the target of the result, null for the screen
+     */
+    public static void blur(PostProcessor processor, Texture source, int divisor, int iterations, float offset,
+                            FrameBuffer destination) {
+        if (iterations < 1) throw new IllegalArgumentException("iterations must be at least 1: " + iterations);
+        final ShaderProgram down = processor.getShader(DOWN_SHADER);
+        final ShaderProgram up = processor.getShader(UP_SHADER);
+
+        Texture input = source;
+        for (int i = 1; i <= iterations; i++) {
+            final FrameBuffer target = processor.obtainTarget(divisor << i);
+            down.begin();
+            down.setUniformf("u_halfPixel", offset * 0.5f / target.getWidth(), offset * 0.5f / target.getHeight());
+            processor.renderPass(down, input, target);
+            input = target.getColorBufferTexture();
+        }
+        for (int i = iterations - 1; i >= 0; i--) {
+            final FrameBuffer target = i == 0 ? destination : processor.obtainTarget(divisor << i);
+            final int width = target != null ? target.getWidth() : processor.getWidth() / divisor;
+            final int height = target != null ? target.getHeight() : processor.getHeight() / divisor;
+            up.begin();
+            up.setUniformf("u_halfPixel", offset * 0.5f / width, offset * 0.5f / height);
+            processor.renderPass(up, input, target);
+            if (target != null) input = target.getColorBufferTexture();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.joshua.gdx.gdxlite.graphics.postprocess;
+
+import com.joshua.gdx.gdxlite.graphics.Texture;
+import com.joshua.gdx.gdxlite.graphics.glutils.FrameBuffer;
+import com.joshua.gdx.gdxlite.graphics.glutils.ShaderProgram;
+
+/**
+ * An effect needing passes of its own, e.g. a blur sampling the neighbourhood of each pixel. It is never fused, but
+ * its last pass writes straight into the destination of the chain step.
+ */
+public abstract class PassEffect extends PostEffect {
+    /**
+     * Renders the effect, usually with {@link PostProcessor#renderPass(ShaderProgram, Texture, FrameBuffer)}.
+     *
+     * @param source      the input image
+     * @param destination the target of the result, null for the screen
+     */
+    protected abstract void render(PostProcessor processor, Texture source, FrameBuffer destination);
+}
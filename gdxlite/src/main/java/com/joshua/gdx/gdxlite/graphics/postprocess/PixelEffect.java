@@ -0,0 +1,41 @@
+package com.joshua.gdx.gdxlite.graphics.postprocess;
+
+import com.joshua.gdx.gdxlite.graphics.glutils.ShaderProgram;
+
+/**
+ * An effect computing each pixel from the pixel at the same position only, e.g. a vignette or color grading. Adjacent
+ * pixel effects are fused by the {@link PostProcessor} into a single generated shader, saving a full screen pass per
+ * effect.
+ * <p>
+ * The generated fragment shader reads the input into {@code vec4 color} at {@code vec2 uv} and runs the code of each
+ * effect on it in order. Uniform names get a prefix unique to the effect in the pass, so an effect can be fused more
+ * than once. The generated source only depends on the effect's type, not its settings, which are passed as uniforms.
+ */
+public abstract class PixelEffect extends PostEffect {
+    /**
+     * @return the names of the effect's uniforms without the prefix, in the order of the locations passed to
+     * {@link #setUniforms(ShaderProgram, int[], PostProcessor)}
+     */
+    protected abstract String[] getUniformNames();
+
+    /**
+     * @param prefix the prefix of the effect's uniform names, e.g. u_e0_
+     * @return the GLSL declarations of the effect's uniforms
+     */
+    protected abstract String getDeclarations(String prefix);
+
+    /**
+     * @param prefix the prefix of the effect's uniform names
+     * @return GLSL statements modifying {@code color}, which may read {@code uv}
+     */
+    protected abstract String getCode(String prefix);
+
+    /**
+     * Sets the effect's uniforms, the shader is bound. Textures are bound with
+     * {@link PostProcessor#bindTexture(com.joshua.gdx.gdxlite.graphics.GLTexture)}.
+     *
+     * @param locations the locations of the uniforms named by {@link #getUniformNames()} in the fused shader, looked
+     *                  up once when the shader is built
+     */
+    protected abstract void setUniforms(ShaderProgram shader, int[] locations, PostProcessor processor);
+}
@@ -0,0 +1,38 @@
+package com.joshua.gdx.gdxlite.graphics.postprocess;
+
+import com.joshua.gdx.gdxlite.graphics.Texture;
+import com.joshua.gdx.gdxlite.utils.Disposable;
+
+/**
+ * An effect of a {@link PostProcessor} chain, either a {@link PixelEffect}, which is fused with its neighbours into a
+ * single pass, or a {@link PassEffect}, which renders passes of its own.
+ */
+public abstract class PostEffect implements Disposable {
+    /**
+     * whether the effect is applied, disabled effects are skipped without a pass
+     */
+    public boolean enabled = true;
+
+    /**
+     * @return whether {@link #prepare(PostProcessor, Texture)} renders passes of its own before the effect is applied
+     */
+    protected boolean hasPrepass() {
+        return false;
+    }
+
+    /**
+     * Renders what the effect needs from its input before it is applied, e.g. a blurred copy, into targets obtained
+     * with {@link PostProcessor#obtainTarget(int)}.
+     *
+     * @param source the image the effect is applied to
+     */
+    protected void prepare(PostProcessor processor, Texture source) {
+    }
+
+    /**
+     * Releases resources of the effect, the shaders are owned by the {@link PostProcessor}.
+     */
+    @Override
+    public void dispose() {
+    }
+}
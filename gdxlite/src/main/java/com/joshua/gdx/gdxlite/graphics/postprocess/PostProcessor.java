@@ -0,0 +1,403 @@
+package com.joshua.gdx.gdxlite.graphics.postprocess;
+
+import android.opengl.GLES20;
+
+import com.joshua.gdx.gdxlite.graphics.Format;
+import com.joshua.gdx.gdxlite.graphics.GLTexture;
+import com.joshua.gdx.gdxlite.graphics.Mesh;
+import com.joshua.gdx.gdxlite.graphics.Texture;
+import com.joshua.gdx.gdxlite.graphics.VertexAttribute;
+import com.joshua.gdx.gdxlite.graphics.glutils.FrameBuffer;
+import com.joshua.gdx.gdxlite.graphics.glutils.GLFrameBuffer;
+import com.joshua.gdx.gdxlite.graphics.glutils.RenderTargetPool;
+import com.joshua.gdx.gdxlite.graphics.glutils.ShaderProgram;
+import com.joshua.gdx.gdxlite.utils.Array;
+import com.joshua.gdx.gdxlite.utils.Disposable;
+
+import java.util.HashMap;
+
+/**
+ * Applies a chain of {@link PostEffect}s to a rendered scene. The scene is drawn between {@link #begin()} and
+ * {@link #end()} into a target from a {@link RenderTargetPool}, the chain then ping-pongs between two full resolution
+ * targets, the last step writing straight to the screen or a given frame buffer.
+ * <p>
+ * Adjacent enabled {@link PixelEffect}s are fused into one pass with a generated shader, so e.g.
+ * bloom, color grading and vignette cost a single full screen pass plus the bloom's reduced resolution blur. An
+ * effect with a prepass starts a new fused pass, so its prepass sees its actual input. {@link PassEffect}s render their
+ * own passes, usually at half or quarter resolution through {@link #obtainTarget(int)}. The fused shaders and their
+ * uniform locations are kept per fused pass and only rebuilt when the effects of the pass or their enabled state
+ * change, so an unchanged chain doesn't generate any source.
+ *
+ * <pre>
+ * processor.add(new Bloom());
+ * processor.add(new Vignette());
+ * processor.begin();
+ * // draw the scene
+ * processor.end();
+ * </pre>
+ * <p>
+ * Passes are drawn without blending and depth test, which are left disabled.
+ */
+public class PostProcessor implements Disposable {
+    private static final String VERTEX_SHADER = "attribute vec2 " + ShaderProgram.POSITION_ATTRIBUTE + ";\n"
+            + "attribute vec2 " + ShaderProgram.TEXCOORD_ATTRIBUTE + "0;\n"
+            + "varying vec2 v_texCoords;\n"
+            + "void main()\n"
+            + "{\n"
+            + "   v_texCoords = " + ShaderProgram.TEXCOORD_ATTRIBUTE + "0;\n"
+            + "   gl_Position = vec4(" + ShaderProgram.POSITION_ATTRIBUTE + ", 0.0, 1.0);\n"
+            + "}\n";
+    /**
+     * the head of the fragment shaders of passes, declaring the input u_texture and the coordinates v_texCoords
+     */
+    public static final String FRAGMENT_HEADER = "#ifdef GL_ES\n"
+            + "precision mediump float;\n"
+            + "#endif\n"
+            + "varying vec2 v_texCoords;\n"
+            + "uniform sampler2D u_texture;\n";
+
+    private final RenderTargetPool pool;
+    private final boolean ownsPool;
+    private final Format format;
+    private final int width, height;
+    private final boolean depth;
+    private final Array<PostEffect> effects = new Array<PostEffect>();
+    private final HashMap<String, ShaderProgram> shaders = new HashMap<String, ShaderProgram>();
+    private final Mesh quad;
+    private final Array<FrameBuffer> temporary = new Array<FrameBuffer>();
+    private final Array<FusedPass> fusedPasses = new Array<FusedPass>();
+    private FrameBuffer scene;
+    private int viewportX, viewportY, viewportWidth, viewportHeight;
+    private int nextUnit;
+    private int passes;
+
+    /**
+     * Creates a processor with a pool of its own, which {@link #end()} ends the frame of.
+     */
+    public PostProcessor(int width, int height, Format format, boolean depth) {
+        this(new RenderTargetPool(), true, width, height, format, depth);
+    }
+
+    /**
+     * @param pool   the pool the targets are obtained from, e.g. shared with other render passes, its
+     *               {@link RenderTargetPool#endFrame()} is left to the caller
+     * @param format the format of the scene and the intermediate targets
+     * @param depth  whether the scene target has a depth buffer
+     */
+    public PostProcessor(RenderTargetPool pool, int width, int height, Format format, boolean depth) {
+        this(pool, false, width, height, format, depth);
+    }
+
+    private PostProcessor(RenderTargetPool pool, boolean ownsPool, int width, int height, Format format,
+                          boolean depth) {
+        this.pool = pool;
+        this.ownsPool = ownsPool;
+        this.width = width;
+        this.height = height;
+        this.format = format;
+        this.depth = depth;
+        setViewport(0, 0, width, height);
+        quad = new Mesh(true, 4, 0, new VertexAttribute(2, ShaderProgram.POSITION_ATTRIBUTE),
+                new VertexAttribute(2, ShaderProgram.TEXCOORD_ATTRIBUTE + "0"));
+        quad.setVertices(new float[]{-1, -1, 0, 0, 1, -1, 1, 0, -1, 1, 0, 1, 1, 1, 1, 1});
+    }
+
+    public void add(PostEffect effect) {
+        effects.add(effect);
+    }
+
+    public boolean remove(PostEffect effect) {
+        return effects.removeValue(effect, true);
+    }
+
+    public Array<PostEffect> getEffects() {
+        return effects;
+    }
+
+    /**
+     * Sets the screen area the result is drawn to by {@link #end()}, the whole size of the processor by default.
+     */
+    public void setViewport(int x, int y, int width, int height) {
+        viewportX = x;
+        viewportY = y;
+        viewportWidth = width;
+        viewportHeight = height;
+    }
+
+    /**
+     * Binds the scene target, everything drawn until {@link #end()} is processed. Its contents are undefined, clear
+     * them as needed.
+     */
+    public void begin() {
+        if (scene != null) throw new IllegalStateException("PostProcessor.end must be called before begin.");
+        scene = pool.obtain(format, width, height, depth, false);
+        scene.begin();
+    }
+
+    /**
+     * Applies the chain and draws the result to the screen.
+     */
+    public void end() {
+        end(null);
+    }
+
+    /**
+     * Applies the chain and draws the result to the destination.
+     *
+     * @param destination the target of the result, null for the screen
+     */
+    public void end(FrameBuffer destination) {
+        if (scene == null) throw new IllegalStateException("PostProcessor.begin must be called before end.");
+        passes = 0;
+        GLES20.glDisable(GLES20.GL_BLEND);
+        GLES20.glDisable(GLES20.GL_DEPTH_TEST);
+
+        FrameBuffer input = scene;
+        FrameBuffer spare = null;
+        final int last = lastStep();
+        int step = 0;
+        int fused = 0;
+        for (int i = 0; i < effects.size; ) {
+            final PostEffect effect = effects.get(i);
+            if (!effect.enabled) {
+                i++;
+                continue;
+            }
+            final int next = nextStep(i);
+            final boolean isLast = step == last;
+            if (!isLast && spare == null) spare = pool.obtain(format, width, height, false, false);
+            final FrameBuffer output = isLast ? destination : spare;
+            final Texture texture = input.getColorBufferTexture();
+            if (effect instanceof PassEffect) {
+                ((PassEffect) effect).render(this, texture, output);
+            } else {
+                renderFused(fused++, i, next, texture, output);
+            }
+            releaseTemporary();
+            if (!isLast) {
+                spare = input;
+                input = output;
+            }
+            i = next;
+            step++;
+        }
+        if (step == 0) {
+            // no enabled effect, copied as is
+            renderFused(fused, 0, 0, input.getColorBufferTexture(), destination);
+        }
+
+        pool.free(input);
+        if (spare != null) pool.free(spare);
+        scene = null;
+        if (ownsPool) pool.endFrame();
+    }
+
+    /**
+     * @return the index past the chain step starting at the enabled effect at index start
+     */
+    private int nextStep(int start) {
+        if (effects.get(start) instanceof PassEffect) return start + 1;
+        int end = start + 1;
+        while (end < effects.size) {
+            final PostEffect effect = effects.get(end);
+            if (effect.enabled && (effect instanceof PassEffect || effect.hasPrepass())) break;
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * @return the index of the last chain step, -1 if no effect is enabled
+     */
+    private int lastStep() {
+        int steps = 0;
+        for (int i = 0; i < effects.size; ) {
+            if (!effects.get(i).enabled) {
+                i++;
+                continue;
+            }
+            i = nextStep(i);
+            steps++;
+        }
+        return steps - 1;
+    }
+
+    /**
+     * Renders the enabled pixel effects from index start to end as one pass, rebuilding its shader if they changed
+     * since the last frame.
+     *
+     * @param index the index of the fused pass in the chain
+     */
+    private void renderFused(int index, int start, int end, Texture input, FrameBuffer output) {
+        if (index == fusedPasses.size) fusedPasses.add(new FusedPass());
+        final FusedPass pass = fusedPasses.get(index);
+        if (!pass.matches(effects, start, end)) pass.build(this, effects, start, end);
+
+        final Array<PixelEffect> group = pass.effects;
+        for (int i = 0; i < group.size; i++)
+            group.get(i).prepare(this, input);
+
+        final ShaderProgram shader = pass.shader;
+        shader.begin();
+        nextUnit = 1;
+        for (int i = 0; i < group.size; i++)
+            group.get(i).setUniforms(shader, pass.locations[i], this);
+        renderPass(shader, input, output);
+    }
+
+    /**
+     * Returns the shader of a pass with the given fragment shader, compiled on first use and owned by the processor.
+     * The vertex shader passes v_texCoords, the fragment shader should start with {@link #FRAGMENT_HEADER}.
+     */
+    public ShaderProgram getShader(String fragmentShader) {
+        ShaderProgram shader = shaders.get(fragmentShader);
+        if (shader == null) {
+            shader = ShaderProgram.fromSource(VERTEX_SHADER, fragmentShader);
+            if (!shader.isCompiled())
+                throw new IllegalArgumentException("Error compiling post effect shader: " + shader.getLog());
+            shaders.put(fragmentShader, shader);
+        }
+        return shader;
+    }
+
+    /**
+     * Obtains a target for the current chain step, released once the step is done.
+     *
+     * @param divisor the resolution divisor, 2 for half and 4 for quarter resolution
+     */
+    public FrameBuffer obtainTarget(int divisor) {
+        final FrameBuffer target = pool.obtain(format, Math.max(1, width / divisor), Math.max(1, height / divisor),
+                false, false);
+        temporary.add(target);
+        return target;
+    }
+
+    private void releaseTemporary() {
+        for (int i = 0; i < temporary.size; i++)
+            pool.free(temporary.get(i));
+        temporary.clear();
+    }
+
+    /**
+     * Binds a texture to the next free unit of the pass being set up.
+     *
+     * @return the unit to set the sampler uniform to
+     */
+    public int bindTexture(GLTexture texture) {
+        final int unit = nextUnit++;
+        texture.bind(unit);
+        GLES20.glActiveTexture(GLES20.GL_TEXTURE0);
+        return unit;
+    }
+
+    /**
+     * Draws a full screen pass with the shader, which may have its uniforms set already, reading the input as
+     * u_texture on unit 0.
+     *
+     * @param output the target, null for the screen
+     */
+    public void renderPass(ShaderProgram shader, Texture input, FrameBuffer output) {
+        if (output != null) {
+            output.begin();
+        } else {
+            GLFrameBuffer.unbind();
+            GLES20.glViewport(viewportX, viewportY, viewportWidth, viewportHeight);
+        }
+        shader.begin();
+        input.bind(0);
+        shader.setUniformi("u_texture", 0);
+        quad.render(shader, GLES20.GL_TRIANGLE_STRIP);
+        shader.end();
+        passes++;
+        if (output != null) GLFrameBuffer.unbind();
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return the number of full screen or reduced resolution passes drawn by the last {@link #end()}
+     */
+    public int getPassCount() {
+        return passes;
+    }
+
+    /**
+     * @return the number of distinct pass shaders compiled so far
+     */
+    public int getNumShaders() {
+        return shaders.size();
+    }
+
+    /**
+     * Disposes the shaders and the quad, and the pool if the processor created it. The effects are disposed by their
+     * owner.
+     */
+    @Override
+    public void dispose() {
+        for (ShaderProgram shader : shaders.values())
+            shader.dispose();
+        shaders.clear();
+        fusedPasses.clear();
+        quad.dispose();
+        if (ownsPool) pool.dispose();
+    }
+
+    /**
+     * A fused pass of the chain, the effects it was built for, their shader and their uniform locations.
+     */
+    private static class FusedPass {
+        final Array<PixelEffect> effects = new Array<PixelEffect>();
+        ShaderProgram shader;
+        int[][] locations;
+
+        /**
+         * @return whether the pass was built for the enabled effects from index start to end
+         */
+        boolean matches(Array<PostEffect> chain, int start, int end) {
+            if (shader == null) return false;
+            int count = 0;
+            for (int i = start; i < end; i++) {
+                final PostEffect effect = chain.get(i);
+                if (!effect.enabled) continue;
+                if (count == effects.size || effects.get(count) != effect) return false;
+                count++;
+            }
+            return count == effects.size;
+        }
+
+        private static String prefix(int index) {
+            return "u_e" + index + "_";
+        }
+
+        void build(PostProcessor processor, Array<PostEffect> chain, int start, int end) {
+            effects.clear();
+            for (int i = start; i < end; i++) {
+                final PostEffect effect = chain.get(i);
+                if (effect.enabled) effects.add((PixelEffect) effect);
+            }
+
+            final StringBuilder source = new StringBuilder(FRAGMENT_HEADER);
+            for (int i = 0; i < effects.size; i++)
+                source.append(effects.get(i).getDeclarations(prefix(i)));
+            source.append("void main()\n{\n   vec2 uv = v_texCoords;\n   vec4 color = texture2D(u_texture, uv);\n");
+            for (int i = 0; i < effects.size; i++)
+                source.append("   {\n").append(effects.get(i).getCode(prefix(i))).append("   }\n");
+            source.append("   gl_FragColor = color;\n}\n");
+            shader = processor.getShader(source.toString());
+
+            locations = new int[effects.size][];
+            for (int i = 0; i < effects.size; i++) {
+                final String[] names = effects.get(i).getUniformNames();
+                locations[i] = new int[names.length];
+                for (int j = 0; j < names.length; j++)
+                    locations[i][j] = shader.fetchUniformLocation(prefix(i) + names[j], false);
+            }
+        }
+    }
+}
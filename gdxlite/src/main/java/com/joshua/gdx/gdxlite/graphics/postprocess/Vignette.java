@@ -0,0 +1,55 @@
+package com.joshua.gdx.gdxlite.graphics.postprocess;
+
+import com.joshua.gdx.gdxlite.graphics.glutils.ShaderProgram;
+
+/**
+ * Darkens the image towards its corners.
+ */
+public class Vignette extends PixelEffect {
+    private static final String[] UNIFORMS = {"params"};
+
+    /**
+     * how dark the corners get, from 0 to 1
+     */
+    public float intensity = 0.5f;
+    /**
+     * the distance from the center where the darkening ends, 0.5 reaches the middle of the edges
+     */
+    public float radius = 0.75f;
+    /**
+     * the width of the transition towards the center
+     */
+    public float softness = 0.45f;
+
+    public Vignette() {
+    }
+
+    public Vignette(float intensity, float radius, float softness) {
+        this.intensity = intensity;
+        this.radius = radius;
+        this.softness = softness;
+    }
+
+    @Override
+    protected String[] getUniformNames() {
+        return UNIFORMS;
+    }
+
+    @Override
+    protected String getDeclarations(String prefix) {
+        return "uniform vec3 " + prefix + "params;\n";
+    }
+
+    @Override
+    protected String getCode(String prefix) {
+        final String params = prefix + "params";
+        return "      float vignette = smoothstep(" + params + ".y, " + params + ".y - " + params
+                + ".z, length(uv - 0.5));\n"
+                + "      color.rgb *= mix(1.0, vignette, " + params + ".x);\n";
+    }
+
+    @Override
+    protected void setUniforms(ShaderProgram shader, int[] locations, PostProcessor processor) {
+        shader.setUniformf(locations[0], intensity, radius, softness);
+    }
+}
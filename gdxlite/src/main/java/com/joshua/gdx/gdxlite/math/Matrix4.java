@@ -1388,8 +1388,16 @@ public class Matrix4 implements Serializable {
      * @param vec the vector.
      */
     public static void mulVec(float[] mat, float[] vec) {
-        float[] rhs = mat.clone();
-        Matrix.multiplyMV(vec, 0, mat, 0, rhs, 0);
+        mulVec(mat, vec, 0);
+    }
+
+    private static void mulVec(float[] mat, float[] vec, int offset) {
+        float x = vec[offset] * mat[M00] + vec[offset + 1] * mat[M01] + vec[offset + 2] * mat[M02] + mat[M03];
+        float y = vec[offset] * mat[M10] + vec[offset + 1] * mat[M11] + vec[offset + 2] * mat[M12] + mat[M13];
+        float z = vec[offset] * mat[M20] + vec[offset + 1] * mat[M21] + vec[offset + 2] * mat[M22] + mat[M23];
+        vec[offset] = x;
+        vec[offset + 1] = y;
+        vec[offset + 2] = z;
     }
 
     /**
@@ -1410,9 +1418,8 @@ public class Matrix4 implements Serializable {
      * @param stride  the stride between vectors in floats
      */
     public static void mulVec(float[] mat, float[] vecs, int offset, int numVecs, int stride) {
-        float[] rhs = vecs.clone();
         for (int i = 0; i < numVecs; i++) {
-            Matrix.multiplyMV(vecs, i * stride + offset, mat, 0, rhs, i * stride + offset);
+            mulVec(mat, vecs, stride * i + offset);
         }
     }
 
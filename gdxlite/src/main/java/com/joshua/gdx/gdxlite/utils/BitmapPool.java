@@ -0,0 +1,280 @@
+package com.joshua.gdx.gdxlite.utils;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+
+/**
+ * Keeps decoded bitmaps which are no longer needed and decodes new images into them with
+ * {@link BitmapFactory.Options#inBitmap}, so loading many images of similar size, like animation frames or tiles,
+ * doesn't allocate a bitmap per image and cause GC storms.
+ * <p>
+ * Bitmaps are bucketed by config and allocation size. A decode takes the smallest pooled bitmap of the requested
+ * config big enough for the image, at most {@link #maxOversize} times the needed size to not waste memory on small
+ * images. The config has to match, as the decoder keeps the config of the reused bitmap: an ARGB_8888 image decoded
+ * into an RGB_565 bitmap would lose its alpha. Bitmaps decoded by a pool are returned to it by
+ * {@link #recycle(Bitmap)}, which the texture upload code calls instead of {@link Bitmap#recycle()}, so pooled
+ * {@link com.joshua.gdx.gdxlite.graphics.FileTextureData} reuse their bitmaps without further code. When the pool
+ * holds more than its budget, the largest bitmaps are recycled first.
+ * <p>
+ * All methods are thread safe, images can be decoded on worker threads.
+ */
+public class BitmapPool {
+    /**
+     * the pool which decoded a bitmap still in use, weakly referenced so bitmaps which are never given back don't leak
+     */
+    private static final Map<Bitmap, BitmapPool> lent = new WeakHashMap<Bitmap, BitmapPool>();
+    /**
+     * the decoder's scratch buffer, reused per thread instead of allocated by every decode
+     */
+    private static final ThreadLocal<byte[]> tempStorage = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[16 * 1024];
+        }
+    };
+
+    /**
+     * Pooled items by config and allocation size. Generic, so the matching doesn't depend on Bitmap.
+     */
+    static final class Buckets<T> {
+        private final EnumMap<Bitmap.Config, TreeMap<Integer, Array<T>>> configs =
+                new EnumMap<Bitmap.Config, TreeMap<Integer, Array<T>>>(Bitmap.Config.class);
+        /**
+         * the total size of the items
+         */
+        long bytes;
+
+        void put(T item, Bitmap.Config config, int size) {
+            TreeMap<Integer, Array<T>> sizes = configs.get(config);
+            if (sizes == null) configs.put(config, sizes = new TreeMap<Integer, Array<T>>());
+            Array<T> bucket = sizes.get(size);
+            if (bucket == null) sizes.put(size, bucket = new Array<T>(false, 4));
+            bucket.add(item);
+            bytes += size;
+        }
+
+        /**
+         * Removes the smallest item of the config with at least size bytes.
+         *
+         * @return the item, or null if there is none of at most maxSize bytes
+         */
+        T obtain(Bitmap.Config config, int size, float maxSize) {
+            final TreeMap<Integer, Array<T>> sizes = configs.get(config);
+            if (sizes == null) return null;
+            final Map.Entry<Integer, Array<T>> entry = sizes.ceilingEntry(size);
+            if (entry == null || entry.getKey() > maxSize) return null;
+            return remove(sizes, entry);
+        }
+
+        /**
+         * Removes an item of the largest size of all configs.
+         *
+         * @return the item, or null if there are none
+         */
+        T removeLargest() {
+            TreeMap<Integer, Array<T>> largest = null;
+            for (TreeMap<Integer, Array<T>> sizes : configs.values())
+                if (!sizes.isEmpty() && (largest == null || sizes.lastKey() > largest.lastKey())) largest = sizes;
+            return largest != null ? remove(largest, largest.lastEntry()) : null;
+        }
+
+        private T remove(TreeMap<Integer, Array<T>> sizes, Map.Entry<Integer, Array<T>> entry) {
+            final Array<T> bucket = entry.getValue();
+            final T item = bucket.pop();
+            if (bucket.size == 0) sizes.remove(entry.getKey());
+            bytes -= entry.getKey();
+            return item;
+        }
+    }
+
+    private final Buckets<Bitmap> buckets = new Buckets<Bitmap>();
+    private long maxBytes;
+    private int hits;
+    private int misses;
+    /**
+     * the largest ratio between the size of a reused bitmap and the size the image needs
+     */
+    public float maxOversize = 2f;
+
+    /**
+     * @param maxBytes the total allocation size of the bitmaps the pool may hold
+     */
+    public BitmapPool(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Decodes an image, reusing a pooled bitmap if one is big enough. The bitmap is mutable, so it can be reused.
+     *
+     * @param config the preferred config, e.g. RGB_565 for opaque images, or null for ARGB_8888
+     * @return the bitmap, or null if the data isn't a supported image
+     */
+    public Bitmap decode(byte[] data, int offset, int length, Bitmap.Config config) {
+        return decode(data, offset, length, null, false, config);
+    }
+
+    /**
+     * Decodes a file from the assets or the external storage, see {@link #decode(byte[], int, int, Bitmap.Config)}.
+     * The file is streamed into the decoder, once for its bounds and once for its pixels, instead of being read into
+     * memory first.
+     */
+    public Bitmap decode(String filename, boolean internal, Bitmap.Config config) {
+        return decode(null, 0, 0, filename, internal, config);
+    }
+
+    /**
+     * Decodes the data, or the file if data is null.
+     */
+    private Bitmap decode(byte[] data, int offset, int length, String filename, boolean internal,
+                          Bitmap.Config config) {
+        final BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inTempStorage = tempStorage.get();
+        options.inJustDecodeBounds = true;
+        decode(data, offset, length, filename, internal, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) return null;
+
+        options.inJustDecodeBounds = false;
+        options.inScaled = false;
+        options.inMutable = true;
+        options.inPreferredConfig = config != null ? config : Bitmap.Config.ARGB_8888;
+        options.inBitmap = obtain(options.inPreferredConfig,
+                options.outWidth * options.outHeight * getBytesPerPixel(options.inPreferredConfig));
+        Bitmap bitmap;
+        try {
+            bitmap = decode(data, offset, length, filename, internal, options);
+        } catch (IllegalArgumentException e) {
+            // the decoder refused the bitmap, e.g. because it picked another config for the image
+            bitmap = null;
+        }
+        if (options.inBitmap != null && bitmap != options.inBitmap) {
+            put(options.inBitmap);
+            options.inBitmap = null;
+            if (bitmap == null) bitmap = decode(data, offset, length, filename, internal, options);
+        }
+        synchronized (this) {
+            if (bitmap != null && bitmap == options.inBitmap) hits++;
+            else misses++;
+        }
+        if (bitmap != null) {
+            synchronized (lent) {
+                lent.put(bitmap, this);
+            }
+        }
+        return bitmap;
+    }
+
+    private static Bitmap decode(byte[] data, int offset, int length, String filename, boolean internal,
+                                 BitmapFactory.Options options) {
+        if (data != null) return BitmapFactory.decodeByteArray(data, offset, length, options);
+        final InputStream input = internal ? FileUtil.internal(filename) : FileUtil.external(filename);
+        try {
+            return BitmapFactory.decodeStream(input, null, options);
+        } finally {
+            try {
+                input.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private synchronized Bitmap obtain(Bitmap.Config config, int size) {
+        return buckets.obtain(config, size, size * maxOversize);
+    }
+
+    /**
+     * Adds a bitmap to the pool. Immutable and recycled bitmaps can't be reused and are ignored.
+     */
+    public synchronized void put(Bitmap bitmap) {
+        if (bitmap.isRecycled() || !bitmap.isMutable()) return;
+        final Bitmap.Config config = bitmap.getConfig();
+        final int size = bitmap.getAllocationByteCount();
+        if (config == null || size > maxBytes) {
+            bitmap.recycle();
+            return;
+        }
+        buckets.put(bitmap, config, size);
+        trim(maxBytes);
+    }
+
+    /**
+     * Recycles the largest pooled bitmaps until the pool holds at most the given number of bytes.
+     */
+    public synchronized void trim(long maxBytes) {
+        while (buckets.bytes > maxBytes) {
+            final Bitmap bitmap = buckets.removeLargest();
+            if (bitmap == null) break;
+            bitmap.recycle();
+        }
+    }
+
+    /**
+     * Recycles all pooled bitmaps.
+     */
+    public void clear() {
+        trim(0);
+    }
+
+    public synchronized void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        trim(maxBytes);
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * @return the total allocation size of the pooled bitmaps
+     */
+    public synchronized long getPooledBytes() {
+        return buckets.bytes;
+    }
+
+    /**
+     * @return the number of decodes which reused a pooled bitmap
+     */
+    public synchronized int getHitCount() {
+        return hits;
+    }
+
+    /**
+     * @return the number of decodes which allocated a new bitmap
+     */
+    public synchronized int getMissCount() {
+        return misses;
+    }
+
+    /**
+     * Releases a bitmap no longer needed: returns it to the pool which decoded it, or recycles it if it wasn't decoded
+     * by a pool.
+     */
+    public static void recycle(Bitmap bitmap) {
+        final BitmapPool pool;
+        synchronized (lent) {
+            pool = lent.remove(bitmap);
+        }
+        if (pool != null)
+            pool.put(bitmap);
+        else
+            bitmap.recycle();
+    }
+
+    private static int getBytesPerPixel(Bitmap.Config config) {
+        switch (config) {
+            case ALPHA_8:
+                return 1;
+            case RGB_565:
+            case ARGB_4444:
+                return 2;
+            default:
+                return 4;
+        }
+    }
+}
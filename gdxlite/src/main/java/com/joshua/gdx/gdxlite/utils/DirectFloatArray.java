@@ -0,0 +1,171 @@
+package com.joshua.gdx.gdxlite.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * A resizable float array like {@link FloatArray}, but stored off-heap in a direct, native order {@link ByteBuffer}.
+ * A {@link com.joshua.gdx.gdxlite.graphics.glutils.VertexData} can adopt it as its storage, so vertices written here
+ * are uploaded straight from this memory without being copied into the vertex data first.
+ * <p>
+ * Every modification through the methods of this class increments {@link #getVersion()}, which is how adopting
+ * vertex data notices new contents. Call {@link #markDirty()} after writing to {@link #getBuffer()} directly. Growing
+ * replaces the backing buffer, so don't hold on to the buffers across calls that may grow the array.
+ */
+public class DirectFloatArray {
+    private ByteBuffer byteBuffer;
+    private FloatBuffer buffer;
+    public int size;
+    private int version;
+
+    /**
+     * Creates an array with a capacity of 16.
+     */
+    public DirectFloatArray() {
+        this(16);
+    }
+
+    /**
+     * @param capacity Any elements added beyond this will cause the backing buffer to be grown.
+     */
+    public DirectFloatArray(int capacity) {
+        allocate(Math.max(capacity, 1));
+    }
+
+    private void allocate(int capacity) {
+        final ByteBuffer old = byteBuffer;
+        byteBuffer = ByteBuffer.allocateDirect(capacity * 4).order(ByteOrder.nativeOrder());
+        buffer = byteBuffer.asFloatBuffer();
+        if (old != null && size > 0) {
+            final FloatBuffer source = old.asFloatBuffer();
+            source.limit(size);
+            buffer.put(source);
+            buffer.clear();
+        }
+        version++;
+    }
+
+    public void add(float value) {
+        if (size == buffer.capacity()) grow(1);
+        buffer.put(size++, value);
+        version++;
+    }
+
+    public void add(float value1, float value2) {
+        if (size + 2 > buffer.capacity()) grow(2);
+        buffer.put(size, value1);
+        buffer.put(size + 1, value2);
+        size += 2;
+        version++;
+    }
+
+    public void add(float value1, float value2, float value3) {
+        if (size + 3 > buffer.capacity()) grow(3);
+        buffer.put(size, value1);
+        buffer.put(size + 1, value2);
+        buffer.put(size + 2, value3);
+        size += 3;
+        version++;
+    }
+
+    public void add(float value1, float value2, float value3, float value4) {
+        if (size + 4 > buffer.capacity()) grow(4);
+        buffer.put(size, value1);
+        buffer.put(size + 1, value2);
+        buffer.put(size + 2, value3);
+        buffer.put(size + 3, value4);
+        size += 4;
+        version++;
+    }
+
+    public void addAll(float... array) {
+        addAll(array, 0, array.length);
+    }
+
+    public void addAll(float[] array, int offset, int length) {
+        if (size + length > buffer.capacity()) grow(length);
+        buffer.position(size);
+        buffer.put(array, offset, length);
+        buffer.clear();
+        size += length;
+        version++;
+    }
+
+    public float get(int index) {
+        if (index >= size) throw new IndexOutOfBoundsException("index can't be >= size: " + index + " >= " + size);
+        return buffer.get(index);
+    }
+
+    public void set(int index, float value) {
+        if (index >= size) throw new IndexOutOfBoundsException("index can't be >= size: " + index + " >= " + size);
+        buffer.put(index, value);
+        version++;
+    }
+
+    public void clear() {
+        size = 0;
+        version++;
+    }
+
+    /**
+     * Increases the capacity if necessary so that additionalCapacity more items can be added without growing.
+     */
+    public void ensureCapacity(int additionalCapacity) {
+        final int sizeNeeded = size + additionalCapacity;
+        if (sizeNeeded > buffer.capacity()) allocate(Math.max(8, sizeNeeded));
+    }
+
+    private void grow(int additional) {
+        allocate(Math.max(size + additional, Math.max(8, (int) (size * 1.75f))));
+    }
+
+    /**
+     * Sets the array size, leaving any values beyond the current size undefined.
+     */
+    public void setSize(int newSize) {
+        if (newSize > buffer.capacity()) allocate(Math.max(8, newSize));
+        size = newSize;
+        version++;
+    }
+
+    /**
+     * Marks the contents as modified after writing to {@link #getBuffer()} directly.
+     */
+    public void markDirty() {
+        version++;
+    }
+
+    /**
+     * @return a counter incremented by every modification
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the float view of the backing memory, its limit is the capacity. Use absolute puts and call
+     * {@link #markDirty()} afterwards.
+     */
+    public FloatBuffer getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * @return the backing memory, replaced whenever the array grows
+     */
+    public ByteBuffer getByteBuffer() {
+        return byteBuffer;
+    }
+
+    public int capacity() {
+        return buffer.capacity();
+    }
+
+    public float[] toArray() {
+        final float[] array = new float[size];
+        for (int i = 0; i < size; i++)
+            array[i] = buffer.get(i);
+        return array;
+    }
+}
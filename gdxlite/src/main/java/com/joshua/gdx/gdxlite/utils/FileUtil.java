@@ -59,6 +59,29 @@ public class FileUtil {
         }
     }
 
+    /**
+     * Reads a whole file from the assets or the external storage.
+     */
+    public static byte[] readBytes(String filename, boolean internal) {
+        InputStream is = internal ? internal(filename) : external(filename);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(is.available(), 4096));
+            byte[] buffer = new byte[16 * 1024];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading file: " + filename, e);
+        } finally {
+            try {
+                is.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
 
     /**
      * 从assets文件夹读取文件
@@ -102,6 +125,15 @@ public class FileUtil {
         return bitmap;
     }
 
+    /**
+     * Decodes a bitmap from the assets, reusing the bitmaps of a pool.
+     *
+     * @param config the preferred config, or null for ARGB_8888
+     */
+    public static Bitmap internalBitmap(String filename, BitmapPool pool, Bitmap.Config config) {
+        return pool.decode(filename, true, config);
+    }
+
     /**
      * 从sd卡取文件
      *
@@ -165,6 +197,15 @@ public class FileUtil {
         return bitmap;
     }
 
+    /**
+     * Decodes a bitmap from the external storage, reusing the bitmaps of a pool.
+     *
+     * @param config the preferred config, or null for ARGB_8888
+     */
+    public static Bitmap externalBitmap(String filename, BitmapPool pool, Bitmap.Config config) {
+        return pool.decode(filename, false, config);
+    }
+
     /**
      * 保存文件到sd
      *
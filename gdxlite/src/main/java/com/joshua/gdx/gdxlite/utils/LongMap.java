@@ -0,0 +1,101 @@
+package com.joshua.gdx.gdxlite.utils;
+
+import java.util.Arrays;
+
+/**
+ * An unordered map with primitive long keys, so lookups don't box them. Open addressing with linear probing, no
+ * allocation is done except when growing the table. Values can't be removed, {@link #clear()} empties the map.
+ */
+public class LongMap<V> {
+    private long[] keyTable;
+    private V[] valueTable;
+    private boolean[] used;
+    private int mask;
+    public int size;
+
+    /**
+     * Creates a map with an initial capacity of 16.
+     */
+    public LongMap() {
+        this(16);
+    }
+
+    public LongMap(int initialCapacity) {
+        if (initialCapacity < 0) throw new IllegalArgumentException("initialCapacity must be >= 0: " + initialCapacity);
+        allocate(Math.max(4, Integer.highestOneBit(Math.max(1, initialCapacity * 2 - 1)) << 1));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void allocate(int capacity) {
+        keyTable = new long[capacity];
+        valueTable = (V[]) new Object[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+    }
+
+    private int place(long key) {
+        final long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ hash >>> 32) & mask;
+    }
+
+    private int locate(long key) {
+        for (int i = place(key); ; i = i + 1 & mask) {
+            if (!used[i]) return -(i + 1);
+            if (keyTable[i] == key) return i;
+        }
+    }
+
+    /**
+     * @return the value of the key, null if it isn't in the map
+     */
+    public V get(long key) {
+        final int index = locate(key);
+        return index < 0 ? null : valueTable[index];
+    }
+
+    public boolean containsKey(long key) {
+        return locate(key) >= 0;
+    }
+
+    /**
+     * @return the old value of the key, null if it wasn't in the map
+     */
+    public V put(long key, V value) {
+        int index = locate(key);
+        if (index >= 0) {
+            final V old = valueTable[index];
+            valueTable[index] = value;
+            return old;
+        }
+        if ((size + 1) * 2 > keyTable.length) {
+            resize(keyTable.length << 1);
+            index = locate(key);
+        }
+        index = -(index + 1);
+        used[index] = true;
+        keyTable[index] = key;
+        valueTable[index] = value;
+        size++;
+        return null;
+    }
+
+    private void resize(int capacity) {
+        final long[] oldKeys = keyTable;
+        final V[] oldValues = valueTable;
+        final boolean[] oldUsed = used;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (!oldUsed[i]) continue;
+            final int index = -(locate(oldKeys[i]) + 1);
+            used[index] = true;
+            keyTable[index] = oldKeys[i];
+            valueTable[index] = oldValues[i];
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(used, false);
+        Arrays.fill(valueTable, null);
+        size = 0;
+    }
+}
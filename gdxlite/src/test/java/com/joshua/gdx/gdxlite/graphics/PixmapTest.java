@@ -0,0 +1,145 @@
+package com.joshua.gdx.gdxlite.graphics;
+
+import com.joshua.gdx.gdxlite.graphics.Pixmap.Blending;
+import com.joshua.gdx.gdxlite.graphics.Pixmap.Filter;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PixmapTest {
+    private static void assertColor(int expected, int actual) {
+        assertEquals(Integer.toHexString(expected), Integer.toHexString(actual));
+    }
+
+    private static void assertFilled(Pixmap pixmap, int x, int y, int width, int height, int inside, int outside) {
+        for (int py = 0; py < pixmap.getHeight(); py++) {
+            for (int px = 0; px < pixmap.getWidth(); px++) {
+                final boolean in = px >= x && py >= y && px < x + width && py < y + height;
+                assertColor(in ? inside : outside, pixmap.getPixel(px, py));
+            }
+        }
+    }
+
+    @Test
+    public void setAndGetRoundTrip() {
+        final Pixmap pixmap = new Pixmap(3, 2, Format.RGBA8888);
+        pixmap.setPixel(2, 1, 0x12345678);
+        assertColor(0x12345678, pixmap.getPixel(2, 1));
+        assertColor(0, pixmap.getPixel(0, 0));
+        // rows from the top, RGBA bytes in memory
+        assertEquals(0x12, pixmap.getPixels().get((3 + 2) * 4) & 0xff);
+        assertEquals(0x78, pixmap.getPixels().get((3 + 2) * 4 + 3) & 0xff);
+    }
+
+    @Test
+    public void convertsToFormat() {
+        final Pixmap rgb = new Pixmap(1, 1, Format.RGB888);
+        rgb.setPixel(0, 0, 0x11223344);
+        assertColor(0x112233ff, rgb.getPixel(0, 0));
+
+        final Pixmap alpha = new Pixmap(1, 1, Format.ALPHA);
+        alpha.setPixel(0, 0, 0x11223344);
+        assertColor(0xffffff44, alpha.getPixel(0, 0));
+
+        // 5 and 6 bit channels are expanded to the full range
+        final Pixmap rgb565 = new Pixmap(1, 1, Format.RGB565);
+        rgb565.setPixel(0, 0, 0xff00ff80);
+        assertColor(0xff00ffff, rgb565.getPixel(0, 0));
+
+        final Pixmap rgba4444 = new Pixmap(1, 1, Format.RGBA4444);
+        rgba4444.setPixel(0, 0, 0x12345678);
+        assertColor(0x11335577, rgba4444.getPixel(0, 0));
+    }
+
+    @Test
+    public void ignoresPixelsOutside() {
+        final Pixmap pixmap = new Pixmap(2, 2, Format.RGBA8888);
+        pixmap.setPixel(-1, 0, 0xffffffff);
+        pixmap.setPixel(0, 2, 0xffffffff);
+        assertFilled(pixmap, 0, 0, 0, 0, 0, 0);
+        assertColor(0, pixmap.getPixel(5, 5));
+    }
+
+    @Test
+    public void fillsEveryFormat() {
+        for (Format format : Format.values()) {
+            // odd sizes, so the doubling copies end within a pixel
+            final Pixmap pixmap = new Pixmap(5, 3, format);
+            pixmap.setPixel(4, 2, 0x12345678);
+            pixmap.fill(0xffffffff);
+            final int expected = pixmap.getPixel(0, 0);
+            assertFilled(pixmap, 0, 0, 5, 3, expected, expected);
+            assertColor(0xffffffff, expected);
+        }
+    }
+
+    @Test
+    public void fillsClippedRectangles() {
+        final Pixmap pixmap = new Pixmap(4, 4, Format.RGBA8888);
+        pixmap.setBlending(Blending.None);
+        pixmap.fillRectangle(-1, 2, 3, 5, 0xff0000ff);
+        assertFilled(pixmap, 0, 2, 2, 2, 0xff0000ff, 0);
+    }
+
+    @Test
+    public void blendsSourceOver() {
+        final Pixmap pixmap = new Pixmap(1, 1, Format.RGBA8888);
+        pixmap.fill(0x000000ff);
+        pixmap.drawPixel(0, 0, 0xffffff80);
+        assertColor(0x808080ff, pixmap.getPixel(0, 0));
+
+        pixmap.setBlending(Blending.None);
+        pixmap.drawPixel(0, 0, 0xffffff80);
+        assertColor(0xffffff80, pixmap.getPixel(0, 0));
+    }
+
+    @Test
+    public void copiesClippedRegions() {
+        final Pixmap source = new Pixmap(4, 4, Format.RGBA8888);
+        for (int y = 0; y < 4; y++)
+            for (int x = 0; x < 4; x++)
+                source.setPixel(x, y, (x + y * 4 + 1) << 8 | 0xff);
+
+        final Pixmap target = new Pixmap(3, 3, Format.RGBA8888);
+        target.setBlending(Blending.None);
+        target.drawPixmap(source, 0, 0, -1, 1, 4, 4);
+        for (int y = 0; y < 3; y++) {
+            for (int x = 0; x < 3; x++) {
+                final int expected = y == 0 ? 0 : (x + 1 + (y - 1) * 4 + 1) << 8 | 0xff;
+                assertColor(expected, target.getPixel(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void blitsBetweenFormats() {
+        final Pixmap source = new Pixmap(2, 1, Format.RGBA8888);
+        source.setPixel(0, 0, 0xff0000ff);
+        source.setPixel(1, 0, 0x00ff00ff);
+        final Pixmap target = new Pixmap(2, 1, Format.RGB565);
+        target.drawPixmap(source, 0, 0, 0, 0, 2, 1);
+        assertColor(0xff0000ff, target.getPixel(0, 0));
+        assertColor(0x00ff00ff, target.getPixel(1, 0));
+
+        // a transparent source keeps the target with blending
+        final Pixmap transparent = new Pixmap(2, 1, Format.RGBA8888);
+        target.drawPixmap(transparent, 0, 0, 0, 0, 2, 1);
+        assertColor(0xff0000ff, target.getPixel(0, 0));
+    }
+
+    @Test
+    public void scalesNearest() {
+        final Pixmap pixmap = new Pixmap(2, 2, Format.RGBA8888);
+        pixmap.setPixel(0, 0, 0xff0000ff);
+        pixmap.setPixel(1, 0, 0x00ff00ff);
+        pixmap.setPixel(0, 1, 0x0000ffff);
+        pixmap.setPixel(1, 1, 0xffffffff);
+        pixmap.setFilter(Filter.NearestNeighbour);
+
+        final Pixmap scaled = pixmap.scale(4, 4);
+        for (int y = 0; y < 4; y++)
+            for (int x = 0; x < 4; x++)
+                assertColor(pixmap.getPixel(x / 2, y / 2), scaled.getPixel(x, y));
+    }
+}
@@ -0,0 +1,220 @@
+package com.joshua.gdx.gdxlite.graphics;
+
+import android.opengl.GLES20;
+
+import com.joshua.gdx.gdxlite.graphics.TextureUpdates.Update;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+public class TextureUpdatesTest {
+    private TextureUpdates updates;
+
+    @Before
+    public void setUp() {
+        updates = new TextureUpdates();
+    }
+
+    /**
+     * Adds an alpha update filled with value, rows padded to stride.
+     */
+    private void add(int x, int y, int width, int height, int stride, int value) {
+        final byte[] pixels = new byte[stride * height];
+        Arrays.fill(pixels, (byte) value);
+        updates.add(ByteBuffer.wrap(pixels), x, y, width, height, stride, GLES20.GL_ALPHA, GLES20.GL_UNSIGNED_BYTE,
+                1);
+    }
+
+    private void add(int x, int y, int width, int height, int value) {
+        add(x, y, width, height, width, value);
+    }
+
+    private void assertBounds(int index, int x, int y, int width, int height) {
+        final Update update = updates.get(index);
+        assertEquals(x + "," + y + " " + width + "x" + height, update.x + "," + update.y + " " + update.width + "x"
+                + update.height);
+    }
+
+    /**
+     * Asserts the pixels of an update, one row of values per string.
+     */
+    private void assertPixels(int index, String... rows) {
+        final Update update = updates.get(index);
+        final ByteBuffer pixels = updates.getPixels(update);
+        assertEquals(rows.length, update.height);
+        for (int y = 0; y < update.height; y++) {
+            final StringBuilder row = new StringBuilder();
+            for (int x = 0; x < update.width; x++)
+                row.append(pixels.get(pixels.position() + y * update.stride + x));
+            assertEquals("row " + y, rows[y], row.toString());
+        }
+    }
+
+    @Test
+    public void mergesSharedVerticalEdge() {
+        add(0, 0, 2, 2, 1);
+        add(2, 0, 2, 2, 2);
+
+        assertEquals(1, updates.size());
+        assertEquals(1, updates.getMerges());
+        assertBounds(0, 0, 0, 4, 2);
+        assertPixels(0, "1122", "1122");
+    }
+
+    @Test
+    public void mergesSharedHorizontalEdge() {
+        add(3, 2, 2, 1, 1);
+        add(3, 1, 2, 1, 2);
+
+        assertEquals(1, updates.size());
+        assertBounds(0, 3, 1, 2, 2);
+        assertPixels(0, "22", "11");
+    }
+
+    @Test
+    public void doesNotMergePartialEdges() {
+        // the union would include pixels neither update covers
+        add(0, 0, 2, 2, 1);
+        add(2, 0, 2, 3, 2);
+        add(0, 5, 2, 2, 3);
+        add(1, 7, 2, 2, 4);
+
+        assertEquals(4, updates.size());
+        assertEquals(0, updates.getMerges());
+    }
+
+    @Test
+    public void doesNotMergeCornersOrGaps() {
+        add(0, 0, 2, 2, 1);
+        add(2, 2, 2, 2, 2);
+        add(5, 0, 2, 2, 3);
+
+        assertEquals(3, updates.size());
+    }
+
+    @Test
+    public void mergesContainedUpdateIntoEarlier() {
+        add(0, 0, 4, 3, 1);
+        add(1, 1, 2, 1, 2);
+
+        assertEquals(1, updates.size());
+        assertEquals(1, updates.getMerges());
+        assertBounds(0, 0, 0, 4, 3);
+        assertPixels(0, "1111", "1221", "1111");
+    }
+
+    @Test
+    public void containingUpdateReplacesEarlier() {
+        add(1, 1, 2, 2, 1);
+        add(5, 5, 1, 1, 2);
+        add(0, 0, 4, 4, 3);
+
+        assertEquals(2, updates.size());
+        assertBounds(0, 5, 5, 1, 1);
+        assertBounds(1, 0, 0, 4, 4);
+        assertPixels(1, "3333", "3333", "3333", "3333");
+    }
+
+    @Test
+    public void overlapInBetweenPreventsMerge() {
+        add(0, 0, 2, 2, 1);
+        // overlaps both its neighbours without merging with either
+        add(1, 1, 2, 2, 2);
+        add(2, 0, 2, 2, 3);
+
+        assertEquals(3, updates.size());
+        assertEquals(0, updates.getMerges());
+    }
+
+    @Test
+    public void disjointUpdateInBetweenAllowsMerge() {
+        add(0, 0, 2, 2, 1);
+        add(8, 8, 2, 2, 2);
+        add(2, 0, 2, 2, 3);
+
+        // the merged update takes the place of the earlier one
+        assertEquals(2, updates.size());
+        assertBounds(0, 0, 0, 4, 2);
+        assertPixels(0, "1133", "1133");
+        assertBounds(1, 8, 8, 2, 2);
+    }
+
+    @Test
+    public void mergesRepeatedly() {
+        add(0, 0, 2, 2, 1);
+        add(0, 2, 2, 2, 2);
+        add(2, 0, 2, 4, 3);
+
+        assertEquals(1, updates.size());
+        assertEquals(2, updates.getMerges());
+        assertBounds(0, 0, 0, 4, 4);
+        assertPixels(0, "1133", "1133", "2233", "2233");
+    }
+
+    @Test
+    public void mergedUpdateMergesIntoEarlier() {
+        add(0, 0, 4, 2, 1);
+        add(0, 2, 2, 2, 2);
+        // merges with the second, then the result with the first
+        add(2, 2, 2, 2, 3);
+
+        assertEquals(1, updates.size());
+        assertEquals(2, updates.getMerges());
+        assertBounds(0, 0, 0, 4, 4);
+        assertPixels(0, "1111", "1111", "2233", "2233");
+    }
+
+    @Test
+    public void mergeChainsUseLinearStaging() {
+        final int tiles = 64;
+        final StringBuilder row = new StringBuilder();
+        for (int i = 0; i < tiles; i++) {
+            add(i * 2, 0, 2, 2, i % 10);
+            row.append(i % 10).append(i % 10);
+        }
+
+        assertEquals(1, updates.size());
+        assertEquals(tiles - 1, updates.getMerges());
+        // the tiles stay where they were added until the merged update is packed
+        assertEquals(tiles * 4, updates.getStagingSize());
+        assertPixels(0, row.toString(), row.toString());
+        assertEquals(2 * tiles * 4, updates.getStagingSize());
+    }
+
+    @Test
+    public void mergesPaddedRows() {
+        add(0, 0, 3, 2, 4, 1);
+        add(3, 0, 1, 2, 4, 2);
+
+        assertEquals(1, updates.size());
+        assertBounds(0, 0, 0, 4, 2);
+        assertPixels(0, "1112", "1112");
+        // packed tightly
+        assertEquals(4, updates.get(0).stride);
+    }
+
+    @Test
+    public void doesNotMergeDifferentFormats() {
+        add(0, 0, 2, 2, 1);
+        updates.add(ByteBuffer.allocate(2 * 2 * 4), 2, 0, 2, 2, 8, GLES20.GL_RGBA, GLES20.GL_UNSIGNED_BYTE, 4);
+
+        assertEquals(2, updates.size());
+    }
+
+    @Test
+    public void clearRemovesUpdates() {
+        add(0, 0, 2, 2, 1);
+        add(4, 4, 2, 2, 2);
+        updates.clear();
+        assertEquals(0, updates.size());
+
+        add(1, 1, 1, 1, 3);
+        assertEquals(1, updates.size());
+        assertPixels(0, "3");
+    }
+}
@@ -0,0 +1,129 @@
+package com.joshua.gdx.gdxlite.graphics.g2d;
+
+import com.joshua.gdx.gdxlite.graphics.g2d.AtlasPacker.Entry;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AtlasPackerTest {
+    private static AtlasPacker packer(int pageWidth, int pageHeight, int padding) {
+        final AtlasPacker packer = new AtlasPacker(pageWidth, pageHeight);
+        packer.padding = padding;
+        return packer;
+    }
+
+    private static void assertPlaced(Entry entry, int page, int x, int y) {
+        assertEquals(entry.name + " page", page, entry.page);
+        assertEquals(entry.name + " x", x, entry.x);
+        assertEquals(entry.name + " y", y, entry.y);
+    }
+
+    @Test
+    public void placesLargestFirst() {
+        final AtlasPacker packer = packer(100, 100, 0);
+        final Entry small = packer.add("small", null, 10, 10);
+        final Entry large = packer.add("large", null, 60, 60);
+        packer.pack();
+
+        assertPlaced(large, 0, 0, 0);
+        assertEquals(1, packer.getNumPages());
+        assertFalse(small.x < 60 && small.y < 60);
+    }
+
+    @Test
+    public void choosesBestShortSideFit() {
+        final AtlasPacker packer = packer(100, 100, 0);
+        packer.add("a", null, 60, 60);
+        packer.pack();
+        // the free space is 40x100 on the right and 100x40 at the bottom, 40x30 fits the right one exactly in width
+        final Entry b = packer.add("b", null, 40, 30);
+        packer.pack();
+        assertPlaced(b, 0, 60, 0);
+        // the bottom is still free in full
+        final Entry c = packer.add("c", null, 100, 40);
+        packer.pack();
+        assertPlaced(c, 0, 0, 60);
+        assertEquals(1, packer.getNumPages());
+    }
+
+    @Test
+    public void opensPageWhenFull() {
+        final AtlasPacker packer = packer(100, 100, 0);
+        final Entry left = packer.add("left", null, 50, 100);
+        final Entry right = packer.add("right", null, 50, 100);
+        final Entry next = packer.add("next", null, 10, 10);
+        packer.pack();
+
+        assertPlaced(left, 0, 0, 0);
+        assertPlaced(right, 0, 50, 0);
+        assertPlaced(next, 1, 0, 0);
+        assertEquals(2, packer.getNumPages());
+    }
+
+    @Test
+    public void paddingSurroundsImages() {
+        final AtlasPacker packer = packer(64, 64, 2);
+        final Entry a = packer.add("a", null, 28, 60);
+        final Entry b = packer.add("b", null, 28, 60);
+        packer.pack();
+
+        assertPlaced(a, 0, 2, 2);
+        assertPlaced(b, 0, 34, 2);
+        assertEquals(1, packer.getNumPages());
+    }
+
+    @Test
+    public void packedImagesDontOverlap() {
+        final int padding = 1;
+        final AtlasPacker packer = packer(256, 256, padding);
+        final Random random = new Random(1);
+        final List<Entry> entries = new ArrayList<Entry>();
+        for (int i = 0; i < 200; i++)
+            entries.add(packer.add("image" + i, null, 1 + random.nextInt(40), 1 + random.nextInt(40)));
+        packer.pack();
+
+        for (int i = 0; i < entries.size(); i++) {
+            final Entry a = entries.get(i);
+            assertTrue(a.page >= 0 && a.page < packer.getNumPages());
+            assertTrue(a.x >= padding && a.y >= padding);
+            assertTrue(a.x + a.width + padding <= packer.getPageWidth(a.page));
+            assertTrue(a.y + a.height + padding <= packer.getPageHeight(a.page));
+            for (int j = i + 1; j < entries.size(); j++) {
+                final Entry b = entries.get(j);
+                if (a.page != b.page) continue;
+                // the padded rectangles are disjoint
+                final boolean overlaps = a.x - padding < b.x + b.width + padding
+                        && b.x - padding < a.x + a.width + padding && a.y - padding < b.y + b.height + padding
+                        && b.y - padding < a.y + a.height + padding;
+                assertFalse(a.name + " overlaps " + b.name, overlaps);
+            }
+        }
+    }
+
+    @Test
+    public void trimsPagesToPowerOfTwo() {
+        final AtlasPacker packer = packer(1024, 1024, 0);
+        packer.add("a", null, 100, 20);
+        packer.pack();
+
+        assertEquals(128, packer.getPageWidth(0));
+        assertEquals(32, packer.getPageHeight(0));
+        packer.powerOfTwo = false;
+        assertEquals(100, packer.getPageWidth(0));
+        assertEquals(20, packer.getPageHeight(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsImagesLargerThanPage() {
+        final AtlasPacker packer = packer(64, 64, 2);
+        packer.add("a", null, 62, 10);
+        packer.pack();
+    }
+}
@@ -0,0 +1,151 @@
+package com.joshua.gdx.gdxlite.graphics.g3d;
+
+import com.joshua.gdx.gdxlite.utils.IntArray;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MeshOptimizerTest {
+    private static final int CACHE_SIZE = 16;
+
+    /**
+     * @return the indices of a grid of size x size quads, two triangles each
+     */
+    private static int[] grid(int size) {
+        final int[] indices = new int[size * size * 6];
+        int n = 0;
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                final int v = y * (size + 1) + x;
+                indices[n++] = v;
+                indices[n++] = v + size + 1;
+                indices[n++] = v + 1;
+                indices[n++] = v + 1;
+                indices[n++] = v + size + 1;
+                indices[n++] = v + size + 2;
+            }
+        }
+        return indices;
+    }
+
+    private static void shuffleTriangles(int[] indices, Random random) {
+        for (int t = indices.length / 3 - 1; t > 0; t--) {
+            final int other = random.nextInt(t + 1);
+            for (int k = 0; k < 3; k++) {
+                final int tmp = indices[t * 3 + k];
+                indices[t * 3 + k] = indices[other * 3 + k];
+                indices[other * 3 + k] = tmp;
+            }
+        }
+    }
+
+    private static String[] triangles(int[] indices) {
+        final String[] triangles = new String[indices.length / 3];
+        for (int t = 0; t < triangles.length; t++)
+            triangles[t] = indices[t * 3] + "," + indices[t * 3 + 1] + "," + indices[t * 3 + 2];
+        Arrays.sort(triangles);
+        return triangles;
+    }
+
+    @Test
+    public void acmrOfSingleTriangleIsThree() {
+        assertEquals(3f, MeshOptimizer.acmr(new int[]{0, 1, 2}, 3, 3, CACHE_SIZE), 0f);
+    }
+
+    @Test
+    public void acmrCountsCachedVerticesOnce() {
+        // the second triangle reuses two cached vertices
+        assertEquals(2f, MeshOptimizer.acmr(new int[]{0, 1, 2, 2, 1, 3}, 6, 4, CACHE_SIZE), 0f);
+        assertEquals(2f, MeshOptimizer.acmr(new short[]{0, 1, 2, 2, 1, 3}, 6, 4, CACHE_SIZE), 0f);
+    }
+
+    @Test
+    public void vertexCacheOptimizationLowersAcmr() {
+        final int size = 32, numVertices = (size + 1) * (size + 1);
+        final int[] indices = grid(size);
+        shuffleTriangles(indices, new Random(42));
+        final String[] before = triangles(indices);
+        final float acmrBefore = MeshOptimizer.acmr(indices, indices.length, numVertices, CACHE_SIZE);
+
+        MeshOptimizer.optimizeVertexCache(indices, indices.length, numVertices, CACHE_SIZE, null);
+        final float acmrAfter = MeshOptimizer.acmr(indices, indices.length, numVertices, CACHE_SIZE);
+
+        assertTrue("ACMR " + acmrBefore + " -> " + acmrAfter, acmrAfter < acmrBefore * 0.6f);
+        assertTrue("ACMR " + acmrAfter, acmrAfter < 1f);
+        // the same triangles, with their winding
+        assertArrayEquals(before, triangles(indices));
+    }
+
+    @Test
+    public void vertexCacheOptimizationReportsClusters() {
+        final int size = 8, numVertices = (size + 1) * (size + 1);
+        final int[] indices = grid(size);
+        shuffleTriangles(indices, new Random(7));
+        final IntArray clusters = new IntArray();
+        MeshOptimizer.optimizeVertexCache(indices, indices.length, numVertices, CACHE_SIZE, clusters);
+
+        assertTrue(clusters.size > 0);
+        assertEquals(0, clusters.get(0));
+        for (int i = 1; i < clusters.size; i++) {
+            assertTrue(clusters.get(i) > clusters.get(i - 1));
+            assertTrue(clusters.get(i) < indices.length / 3);
+        }
+    }
+
+    @Test
+    public void vertexFetchRenumbersInOrderOfFirstUse() {
+        // 5 vertices of 2 floats, vertex 1 is unused
+        final float[] vertices = {0, 0, 1, 1, 2, 2, 3, 3, 4, 4};
+        final int[] indices = {4, 2, 0, 0, 2, 3};
+
+        final int numVertices = MeshOptimizer.optimizeVertexFetch(vertices, 2, 5, indices, indices.length);
+
+        assertEquals(4, numVertices);
+        assertArrayEquals(new int[]{0, 1, 2, 2, 1, 3}, indices);
+        assertArrayEquals(new float[]{4, 4, 2, 2, 0, 0, 3, 3}, Arrays.copyOf(vertices, 8), 0f);
+    }
+
+    @Test
+    public void vertexFetchKeepsTheMeshIntact() {
+        final int size = 6, numVertices = (size + 1) * (size + 1);
+        final float[] vertices = new float[numVertices * 2];
+        for (int v = 0; v < numVertices; v++) {
+            vertices[v * 2] = v % (size + 1);
+            vertices[v * 2 + 1] = v / (size + 1);
+        }
+        final int[] indices = grid(size);
+        shuffleTriangles(indices, new Random(3));
+        final float[] original = vertices.clone();
+        final int[] originalIndices = indices.clone();
+
+        MeshOptimizer.optimizeVertexFetch(vertices, 2, numVertices, indices, indices.length);
+
+        int next = 0;
+        for (int i = 0; i < indices.length; i++) {
+            // the first use of a vertex is the next new index
+            assertTrue(indices[i] <= next);
+            if (indices[i] == next) next++;
+            assertEquals(original[originalIndices[i] * 2], vertices[indices[i] * 2], 0f);
+            assertEquals(original[originalIndices[i] * 2 + 1], vertices[indices[i] * 2 + 1], 0f);
+        }
+        assertEquals(numVertices, next);
+    }
+
+    @Test
+    public void weldMergesIdenticalVertices() {
+        final float[] vertices = {0, 0, 1, 0, 0, 0, 1, 1, 1, 0};
+        final int[] remap = new int[5];
+
+        final int unique = MeshOptimizer.weld(vertices, 2, 5, remap);
+
+        assertEquals(3, unique);
+        assertArrayEquals(new int[]{0, 1, 0, 2, 1}, remap);
+        assertArrayEquals(new float[]{0, 0, 1, 0, 1, 1}, Arrays.copyOf(vertices, 6), 0f);
+    }
+}
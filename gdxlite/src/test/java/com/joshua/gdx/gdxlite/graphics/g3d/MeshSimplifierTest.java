@@ -0,0 +1,138 @@
+package com.joshua.gdx.gdxlite.graphics.g3d;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MeshSimplifierTest {
+    /**
+     * @return the positions of a grid of size x size quads in the xy plane, z from the height function
+     */
+    private static float[] gridVertices(int size, boolean tent) {
+        final float[] vertices = new float[(size + 1) * (size + 1) * 3];
+        for (int y = 0; y <= size; y++) {
+            for (int x = 0; x <= size; x++) {
+                final int v = (y * (size + 1) + x) * 3;
+                vertices[v] = x;
+                vertices[v + 1] = y;
+                vertices[v + 2] = tent ? size / 2f - Math.abs(x - size / 2f) : 0;
+            }
+        }
+        return vertices;
+    }
+
+    private static int[] gridIndices(int size) {
+        final int[] indices = new int[size * size * 6];
+        int n = 0;
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                final int v = y * (size + 1) + x;
+                indices[n++] = v;
+                indices[n++] = v + 1;
+                indices[n++] = v + size + 1;
+                indices[n++] = v + 1;
+                indices[n++] = v + size + 2;
+                indices[n++] = v + size + 1;
+            }
+        }
+        return indices;
+    }
+
+    /**
+     * @return twice the signed area of a triangle projected onto the xy plane
+     */
+    private static float area(float[] vertices, int a, int b, int c) {
+        return (vertices[b * 3] - vertices[a * 3]) * (vertices[c * 3 + 1] - vertices[a * 3 + 1])
+                - (vertices[c * 3] - vertices[a * 3]) * (vertices[b * 3 + 1] - vertices[a * 3 + 1]);
+    }
+
+    private static void assertValid(float[] vertices, int[] indices) {
+        assertEquals(0, indices.length % 3);
+        for (int t = 0; t < indices.length; t += 3) {
+            final int a = indices[t], b = indices[t + 1], c = indices[t + 2];
+            assertTrue(a < vertices.length / 3 && b < vertices.length / 3 && c < vertices.length / 3);
+            assertTrue("degenerate triangle", a != b && b != c && a != c);
+            // the grid faces +z, no triangle may be flipped
+            assertTrue("flipped triangle", area(vertices, a, b, c) > 0);
+        }
+    }
+
+    @Test
+    public void flatGridSimplifiesWithoutError() {
+        final int size = 8;
+        final float[] vertices = gridVertices(size, false);
+        final int[] indices = gridIndices(size);
+        final MeshSimplifier simplifier = new MeshSimplifier(vertices, vertices.length, 3, 0, indices,
+                indices.length);
+
+        final int[] simplified = simplifier.simplify(0, 0.001f);
+
+        assertValid(vertices, simplified);
+        assertTrue("triangles left: " + simplified.length / 3, simplified.length < indices.length / 4);
+        assertEquals(simplified.length / 3, simplifier.getNumTriangles());
+        assertEquals(0f, simplifier.getError(), 0.001f);
+    }
+
+    @Test
+    public void stopsAtTargetIndexCount() {
+        final int size = 8;
+        final float[] vertices = gridVertices(size, false);
+        final int[] indices = gridIndices(size);
+        final MeshSimplifier simplifier = new MeshSimplifier(vertices, vertices.length, 3, 0, indices,
+                indices.length);
+
+        final int[] simplified = simplifier.simplify(indices.length / 2, -1);
+
+        assertValid(vertices, simplified);
+        assertTrue(simplified.length <= indices.length / 2);
+        // a collapse removes at most two triangles
+        assertTrue(simplified.length > indices.length / 2 - 6);
+    }
+
+    @Test
+    public void errorLimitKeepsTheRidge() {
+        final int size = 8;
+        final float[] vertices = gridVertices(size, true);
+        final int[] indices = gridIndices(size);
+        final MeshSimplifier simplifier = new MeshSimplifier(vertices, vertices.length, 3, 0, indices,
+                indices.length);
+
+        final int[] simplified = simplifier.simplify(0, 0.01f);
+
+        assertValid(vertices, simplified);
+        assertTrue(simplifier.getError() <= 0.01f);
+        // both slopes are planar and simplify, but no triangle may cut across the ridge at x = size / 2
+        assertTrue(simplified.length < indices.length / 2);
+        for (int t = 0; t < simplified.length; t += 3) {
+            float min = Float.MAX_VALUE, max = -Float.MAX_VALUE;
+            for (int k = 0; k < 3; k++) {
+                min = Math.min(min, vertices[simplified[t + k] * 3]);
+                max = Math.max(max, vertices[simplified[t + k] * 3]);
+            }
+            assertTrue("triangle across the ridge", min >= size / 2f || max <= size / 2f);
+        }
+    }
+
+    @Test
+    public void levelsOfDetailAreNested() {
+        final int size = 8;
+        final float[] vertices = gridVertices(size, true);
+        final int[] indices = gridIndices(size);
+        final MeshSimplifier simplifier = new MeshSimplifier(vertices, vertices.length, 3, 0, indices,
+                indices.length);
+
+        final int[] lod1 = simplifier.simplify(indices.length / 2, -1);
+        final float error1 = simplifier.getError();
+        final int[] lod2 = simplifier.simplify(indices.length / 4, -1);
+
+        assertValid(vertices, lod2);
+        assertTrue(lod2.length <= indices.length / 4 && lod2.length < lod1.length);
+        assertTrue(simplifier.getError() >= error1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsIncompleteTriangles() {
+        new MeshSimplifier(new float[9], 9, 3, 0, new int[]{0, 1}, 2);
+    }
+}
@@ -0,0 +1,132 @@
+package com.joshua.gdx.gdxlite.graphics.glutils;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ETC1Test {
+    private static final int DIFFERENTIAL_BIT = 2;
+    private static final int FLIP_BIT = 1;
+
+    /**
+     * @return a 4x4 ARGB8888 image with the left or top half in one color and the rest in another
+     */
+    private static int[] split(int first, int second, boolean horizontal) {
+        final int[] argb = new int[16];
+        for (int i = 0; i < 16; i++) {
+            final boolean inFirst = horizontal ? i / 4 < 2 : i % 4 < 2;
+            argb[i] = inFirst ? first : second;
+        }
+        return argb;
+    }
+
+    private static long encode(int[] argb) {
+        final byte[] etc1 = ETC1.encodeImage(argb, 4, 4, false);
+        assertEquals(8, etc1.length);
+        long bits = 0;
+        for (int i = 0; i < 8; i++)
+            bits = (bits << 8) | (etc1[i] & 0xff);
+        return bits;
+    }
+
+    /**
+     * Asserts that the decoded block matches the image within the tolerance per channel.
+     */
+    private static void assertRoundTrip(int[] argb, long bits, int tolerance) {
+        final int[] rgb = new int[48];
+        ETC1.decodeBlock(bits, rgb);
+        for (int i = 0; i < 16; i++) {
+            for (int c = 0; c < 3; c++) {
+                final int expected = (argb[i] >> (16 - c * 8)) & 0xff;
+                assertTrue("pixel " + i + " channel " + c + ": " + expected + " vs " + rgb[i * 3 + c],
+                        Math.abs(expected - rgb[i * 3 + c]) <= tolerance);
+            }
+        }
+    }
+
+    private static int high(long bits) {
+        return (int) (bits >>> 32);
+    }
+
+    @Test
+    public void closeColorsUseDifferentialMode() {
+        final int[] argb = split(0xff646464, 0xff787878, false);
+        final long bits = encode(argb);
+
+        assertTrue((high(bits) & DIFFERENTIAL_BIT) != 0);
+        assertEquals(0, high(bits) & FLIP_BIT);
+        assertRoundTrip(argb, bits, 4);
+    }
+
+    @Test
+    public void distantColorsUseIndividualMode() {
+        // the 5 bit red of the halves differs by 31, more than the 3 bit delta holds
+        final int[] argb = split(0xffff0000, 0xff0000ff, false);
+        final long bits = encode(argb);
+
+        assertEquals(0, high(bits) & DIFFERENTIAL_BIT);
+        assertEquals(0, high(bits) & FLIP_BIT);
+        // the modifier applies to all channels, so saturated colors are off by the smallest one
+        assertRoundTrip(argb, bits, 2);
+    }
+
+    @Test
+    public void horizontalSplitSetsFlipBit() {
+        final int[] argb = split(0xff00ff00, 0xffff00ff, true);
+        final long bits = encode(argb);
+
+        assertEquals(FLIP_BIT, high(bits) & FLIP_BIT);
+        assertEquals(0, high(bits) & DIFFERENTIAL_BIT);
+        assertRoundTrip(argb, bits, 2);
+
+        final int[] close = split(0xff646464, 0xff787878, true);
+        final long closeBits = encode(close);
+        assertEquals(FLIP_BIT | DIFFERENTIAL_BIT, high(closeBits) & (FLIP_BIT | DIFFERENTIAL_BIT));
+        assertRoundTrip(close, closeBits, 4);
+    }
+
+    @Test
+    public void modifiersReproduceGradients() {
+        final int[] argb = new int[16];
+        for (int i = 0; i < 16; i++) {
+            final int v = 96 + (i % 4) * 16;
+            argb[i] = 0xff000000 | v << 16 | v << 8 | v;
+        }
+        assertRoundTrip(argb, encode(argb), 8);
+    }
+
+    @Test
+    public void encodesAlphaAsGrey() {
+        final int[] argb = split(0x00ff0000, 0xffff0000, false);
+        final byte[] etc1 = ETC1.encodeImage(argb, 4, 4, true);
+        final int[] rgb = new int[48];
+        long bits = 0;
+        for (int i = 0; i < 8; i++)
+            bits = (bits << 8) | (etc1[i] & 0xff);
+        ETC1.decodeBlock(bits, rgb);
+
+        assertEquals(0, rgb[0]);
+        assertEquals(255, rgb[3 * 3]);
+    }
+
+    @Test
+    public void decodesImagesWithPartialBlocks() {
+        final int width = 6, height = 5;
+        final int[] argb = new int[width * height];
+        for (int y = 0; y < height; y++)
+            for (int x = 0; x < width; x++)
+                argb[y * width + x] = x < 4 ? 0xffff0000 : 0xff0000ff;
+        final byte[] etc1 = ETC1.encodeImage(argb, width, height, false);
+        assertEquals(ETC1.getCompressedDataSize(width, height), etc1.length);
+        assertEquals(4 * 8, etc1.length);
+
+        final ByteBuffer rgb565 = ETC1.decodeImageRGB565(ByteBuffer.wrap(etc1), width, height);
+        assertEquals(width * height * 2, rgb565.capacity());
+        for (int y = 0; y < height; y++)
+            for (int x = 0; x < width; x++)
+                assertEquals(x < 4 ? 0xf800 : 0x001f, rgb565.getShort((y * width + x) * 2) & 0xffff);
+    }
+}
@@ -0,0 +1,124 @@
+package com.joshua.gdx.gdxlite.graphics.glutils;
+
+import com.joshua.gdx.gdxlite.graphics.Format;
+import com.joshua.gdx.gdxlite.graphics.glutils.FormatConverter.Dither;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FormatConverterTest {
+    private static int[] convert(int[] argb, int width, int height, Format format, Dither dither) {
+        final ByteBuffer bytes = FormatConverter.convert(argb, width, height, format, dither);
+        assertEquals(width * height * 2, bytes.capacity());
+        final ShortBuffer shorts = bytes.asShortBuffer();
+        final int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++)
+            pixels[i] = shorts.get(i) & 0xFFFF;
+        return pixels;
+    }
+
+    private static int[] solid(int argb, int size) {
+        final int[] pixels = new int[size * size];
+        Arrays.fill(pixels, argb);
+        return pixels;
+    }
+
+    /**
+     * @return the average red of RGB565 pixels, expanded to 0 - 255
+     */
+    private static float averageRed(int[] pixels) {
+        float sum = 0;
+        for (int pixel : pixels)
+            sum += (pixel >>> 11) * 255f / 31;
+        return sum / pixels.length;
+    }
+
+    @Test
+    public void convertsExactLevels() {
+        final int[] pixels = convert(new int[]{0xFFFF0000, 0xFF00FF00, 0xFF0000FF, 0xFFFFFFFF, 0xFF000000}, 5, 1,
+                Format.RGB565, Dither.None);
+        assertEquals(0xF800, pixels[0]);
+        assertEquals(0x07E0, pixels[1]);
+        assertEquals(0x001F, pixels[2]);
+        assertEquals(0xFFFF, pixels[3]);
+        assertEquals(0x0000, pixels[4]);
+    }
+
+    @Test
+    public void roundsToNearestLevel() {
+        // 128 is level 15.56 of 31 and 31.62 of 63
+        assertEquals(16 << 11 | 32 << 5 | 16, convert(new int[]{0xFF808080}, 1, 1, Format.RGB565, Dither.None)[0]);
+    }
+
+    @Test
+    public void premultipliesRgba4444() {
+        // white at half alpha is premultiplied to 128, level 7.53 of 15
+        assertEquals(0x8888, convert(new int[]{0x80FFFFFF}, 1, 1, Format.RGBA4444, Dither.None)[0]);
+        assertEquals(0x0000, convert(new int[]{0x00FFFFFF}, 1, 1, Format.RGBA4444, Dither.None)[0]);
+        assertEquals(0xF00F, convert(new int[]{0xFFFF0000}, 1, 1, Format.RGBA4444, Dither.None)[0]);
+    }
+
+    @Test
+    public void withoutDitherFlatColorsBand() {
+        // 127 lies between the levels 123.4 and 131.6
+        final int[] pixels = convert(solid(0xFF7F0000, 8), 8, 8, Format.RGB565, Dither.None);
+        for (int pixel : pixels)
+            assertEquals(pixels[0], pixel);
+        assertEquals(123.4f, averageRed(pixels), 0.1f);
+    }
+
+    @Test
+    public void orderedDitherPreservesAverage() {
+        final int[] pixels = convert(solid(0xFF7F0000, 8), 8, 8, Format.RGB565, Dither.Ordered);
+        assertEquals(127f, averageRed(pixels), 1f);
+        // only the two neighbouring levels are used
+        for (int pixel : pixels) {
+            final int level = pixel >>> 11;
+            assertTrue(level == 15 || level == 16);
+        }
+    }
+
+    @Test
+    public void orderedDitherTiles() {
+        final int size = 8;
+        final int[] argb = new int[size * size];
+        for (int i = 0; i < argb.length; i++)
+            argb[i] = 0xFF000000 | (i % size * 16) << 16 | 0x7F7F;
+        final int[] pixels = convert(argb, size, size, Format.RGB565, Dither.Ordered);
+        // columns share their source color, so the pattern repeats every 4 rows
+        for (int y = 0; y < size - 4; y++)
+            for (int x = 0; x < size; x++)
+                assertEquals(pixels[y * size + x], pixels[(y + 4) * size + x]);
+    }
+
+    @Test
+    public void floydSteinbergPreservesAverage() {
+        final int[] pixels = convert(solid(0xFF7F0000, 16), 16, 16, Format.RGB565, Dither.FloydSteinberg);
+        assertEquals(127f, averageRed(pixels), 1f);
+        for (int pixel : pixels) {
+            final int level = pixel >>> 11;
+            assertTrue(level == 15 || level == 16);
+        }
+    }
+
+    @Test
+    public void ditherKeepsExactLevels() {
+        final int[] ordered = convert(solid(0xFFFFFFFF, 4), 4, 4, Format.RGB565, Dither.Ordered);
+        final int[] diffused = convert(solid(0xFF000000, 4), 4, 4, Format.RGB565, Dither.FloydSteinberg);
+        for (int i = 0; i < 16; i++) {
+            assertEquals(0xFFFF, ordered[i]);
+            assertEquals(0x0000, diffused[i]);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnsupportedFormats() {
+        FormatConverter.convert(new int[1], 1, 1, Format.RGBA8888, Dither.None);
+    }
+}
@@ -0,0 +1,102 @@
+package com.joshua.gdx.gdxlite.graphics.glutils;
+
+import android.opengl.GLES20;
+
+import org.junit.Test;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class IndexUtilsTest {
+    @Test
+    public void narrowsIntsToShorts() {
+        final ShortBuffer buffer = ShortBuffer.allocate(4);
+        IndexUtils.put(buffer, GLES20.GL_UNSIGNED_SHORT, new int[]{9, 0, 1, 65535, 2}, 1, 3);
+        assertEquals(3, buffer.position());
+        buffer.flip();
+
+        final int[] indices = new int[3];
+        IndexUtils.get(buffer, GLES20.GL_UNSIGNED_SHORT, indices, 0, 3);
+        assertArrayEquals(new int[]{0, 1, 65535}, indices);
+    }
+
+    @Test
+    public void narrowsToBytes() {
+        final ByteBuffer buffer = ByteBuffer.allocate(4);
+        IndexUtils.put(buffer, GLES20.GL_UNSIGNED_BYTE, new int[]{0, 128, 255}, 0, 3);
+        IndexUtils.put(buffer, GLES20.GL_UNSIGNED_BYTE, new short[]{7}, 0, 1);
+        buffer.flip();
+
+        final short[] indices = new short[4];
+        IndexUtils.get(buffer, GLES20.GL_UNSIGNED_BYTE, indices, 0, 4);
+        assertArrayEquals(new short[]{0, 128, 255, 7}, indices);
+    }
+
+    @Test
+    public void widensShortsWithoutSignExtension() {
+        final IntBuffer buffer = IntBuffer.allocate(2);
+        IndexUtils.put(buffer, GLES20.GL_UNSIGNED_INT, new short[]{(short) 0xFFFF, 1}, 0, 2);
+        buffer.flip();
+
+        final int[] indices = new int[2];
+        IndexUtils.get(buffer, GLES20.GL_UNSIGNED_INT, indices, 0, 2);
+        assertArrayEquals(new int[]{65535, 1}, indices);
+    }
+
+    @Test
+    public void copiesShortBuffers() {
+        final ShortBuffer source = ShortBuffer.wrap(new short[]{3, (short) 40000});
+        final IntBuffer buffer = IntBuffer.allocate(2);
+        IndexUtils.put(buffer, GLES20.GL_UNSIGNED_INT, source);
+        assertEquals(40000, buffer.get(1));
+
+        final ByteBuffer bytes = ByteBuffer.allocate(1);
+        IndexUtils.put(bytes, GLES20.GL_UNSIGNED_BYTE, ShortBuffer.wrap(new short[]{200}));
+        assertEquals(200, bytes.get(0) & 0xFF);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsIndicesAboveShortRange() {
+        IndexUtils.put(ShortBuffer.allocate(1), GLES20.GL_UNSIGNED_SHORT, new int[]{65536}, 0, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsIndicesAboveByteRange() {
+        IndexUtils.put(ByteBuffer.allocate(1), GLES20.GL_UNSIGNED_BYTE, new short[]{256}, 0, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeIndices() {
+        IndexUtils.put(ShortBuffer.allocate(1), GLES20.GL_UNSIGNED_SHORT, new int[]{-1}, 0, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNarrowingLargeIntsToShorts() {
+        final IntBuffer buffer = IntBuffer.wrap(new int[]{70000});
+        IndexUtils.get(buffer, GLES20.GL_UNSIGNED_INT, new short[1], 0, 1);
+    }
+
+    @Test
+    public void indexBufferViewsAreIndependent() {
+        final ByteBuffer bytes = ByteBuffer.allocate(8);
+        final Buffer shorts = IndexUtils.asIndexBuffer(bytes, GLES20.GL_UNSIGNED_SHORT);
+        assertEquals(4, shorts.capacity());
+        shorts.position(2);
+        assertEquals(0, bytes.position());
+
+        final Buffer view = IndexUtils.asIndexBuffer(bytes, GLES20.GL_UNSIGNED_BYTE);
+        assertEquals(8, view.capacity());
+        view.position(3);
+        assertEquals(0, bytes.position());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownIndexTypes() {
+        IndexUtils.asIndexBuffer(ByteBuffer.allocate(4), GLES20.GL_FLOAT);
+    }
+}
@@ -0,0 +1,62 @@
+package com.joshua.gdx.gdxlite.utils;
+
+import android.graphics.Bitmap.Config;
+
+import com.joshua.gdx.gdxlite.utils.BitmapPool.Buckets;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class BitmapPoolTest {
+    @Test
+    public void takesSmallestFittingBitmap() {
+        final Buckets<String> buckets = new Buckets<String>();
+        buckets.put("large", Config.ARGB_8888, 400);
+        buckets.put("small", Config.ARGB_8888, 100);
+        buckets.put("medium", Config.ARGB_8888, 200);
+
+        assertEquals("medium", buckets.obtain(Config.ARGB_8888, 150, 300));
+        assertEquals("large", buckets.obtain(Config.ARGB_8888, 150, 400));
+        assertEquals(100, buckets.bytes);
+    }
+
+    @Test
+    public void rejectsBitmapsTooMuchLarger() {
+        final Buckets<String> buckets = new Buckets<String>();
+        buckets.put("large", Config.ARGB_8888, 1000);
+
+        assertNull(buckets.obtain(Config.ARGB_8888, 100, 200));
+        assertEquals(1000, buckets.bytes);
+    }
+
+    @Test
+    public void doesNotMixConfigs() {
+        final Buckets<String> buckets = new Buckets<String>();
+        buckets.put("opaque", Config.RGB_565, 200);
+        buckets.put("translucent", Config.ARGB_8888, 400);
+
+        // an RGB_565 bitmap big enough would drop the alpha of an ARGB_8888 image
+        assertNull(buckets.obtain(Config.ARGB_8888, 150, 300));
+        // and an ARGB_8888 bitmap would waste the memory an RGB_565 image saves
+        assertNull(buckets.obtain(Config.RGB_565, 300, 600));
+        assertEquals("opaque", buckets.obtain(Config.RGB_565, 200, 400));
+        assertEquals("translucent", buckets.obtain(Config.ARGB_8888, 200, 400));
+        assertNull(buckets.obtain(Config.ALPHA_8, 1, 1000));
+    }
+
+    @Test
+    public void removesLargestOfAllConfigs() {
+        final Buckets<String> buckets = new Buckets<String>();
+        buckets.put("a", Config.ARGB_8888, 300);
+        buckets.put("b", Config.RGB_565, 500);
+        buckets.put("c", Config.ALPHA_8, 100);
+
+        assertEquals("b", buckets.removeLargest());
+        assertEquals("a", buckets.removeLargest());
+        assertEquals("c", buckets.removeLargest());
+        assertNull(buckets.removeLargest());
+        assertEquals(0, buckets.bytes);
+    }
+}